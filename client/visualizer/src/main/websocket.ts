@@ -31,13 +31,14 @@ export default class WebSocketListener {
   }
 
   private poll() {
-    const ws = new WebSocket(this.url);
+    // Ask for frames of several events, so we can catch up when we fall behind
+    const ws = new WebSocket(this.url + (this.url.indexOf('?') === -1 ? '?' : '&') + 'batched=1');
     ws.binaryType = "arraybuffer";
     ws.onopen = (event) => {
       console.log(`Connected to ${this.url}`);
     };
     ws.onmessage = (event) => {
-      this.handleEvent(<ArrayBuffer> event.data);
+      this.handleFrame(<ArrayBuffer> event.data);
     };
     ws.onerror = (event) => {
     };
@@ -48,6 +49,19 @@ export default class WebSocketListener {
     };
   }
 
+  /**
+   * Handle a frame of events, each an int length followed by its bytes.
+   */
+  private handleFrame(data: ArrayBuffer) {
+    const view = new DataView(data);
+    let offset = 0;
+    while (offset + 4 <= data.byteLength) {
+      const length = view.getInt32(offset);
+      this.handleEvent(data.slice(offset + 4, offset + 4 + length));
+      offset += 4 + length;
+    }
+  }
+
   /**
    * Handle a new event.
    */
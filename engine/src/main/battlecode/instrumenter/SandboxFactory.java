@@ -0,0 +1,254 @@
+package battlecode.instrumenter;
+
+import battlecode.common.RobotController;
+import battlecode.common.Team;
+import battlecode.instrumenter.profiler.FrameTable;
+import battlecode.instrumenter.profiler.Profiler;
+import battlecode.server.ErrorReporter;
+
+import java.io.OutputStream;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates SandboxedRobotPlayers for one team.
+ *
+ * Building a sandbox from scratch means creating a Loader, loading the
+ * robot's own RobotMonitor and System, and starting a thread, all while the
+ * engine waits in the middle of a round. To keep spawns cheap, the factory
+ * keeps a small pool of prepared sandboxes, topped up on a background thread
+ * between rounds, and runs players on a pool of threads that are parked until
+ * needed and reused once their robot dies.
+ *
+ * With a pool size of 0 every player is built inline on its own thread,
+ * exactly as SandboxedRobotPlayer does on its own.
+ *
+ * The background threads are started by the first refill of a match and
+ * stopped by shutdown at its end.
+ *
+ * Like SandboxedRobotPlayer, this should only be used from the engine thread;
+ * the background work it does is internal. That work instruments classes
+ * while the engine thread may be doing the same, so everything loaders
+ * share while instrumenting (the TeamClassLoaderFactory's class cache,
+ * ClassHierarchy and FrameTable) has to be safe to use from both.
+ */
+public final class SandboxFactory {
+
+    /**
+     * How long pooled threads wait for a new player before exiting.
+     */
+    private static final long IDLE_THREAD_SECONDS = 60;
+
+    /**
+     * Used to create ClassLoaders for this team.
+     */
+    private final TeamClassLoaderFactory factory;
+
+    /**
+     * The name of the team (package) we're creating players for.
+     */
+    private final String teamPackage;
+
+    /**
+     * The team we're creating players for.
+     */
+    private final Team team;
+
+    /**
+     * The stream robots should write to (besides System.out).
+     */
+    private final OutputStream robotOut;
+
+    /**
+     * Whether the team is being profiled.
+     */
+    private final boolean profilingEnabled;
+
+    /**
+     * The number of sandboxes (and parked threads) to keep ready.
+     */
+    private final int poolSize;
+
+    /**
+     * Sandboxes that are ready to have a player run in them.
+     */
+    private final Queue<SandboxedRobotPlayer.Sandbox> prepared;
+
+    /**
+     * The number of sandboxes in prepared; ConcurrentLinkedQueue.size() is linear.
+     */
+    private final AtomicInteger preparedCount;
+
+    /**
+     * Whether a refill is currently in progress.
+     */
+    private final AtomicBoolean refilling;
+
+    /**
+     * Whether a failed refill has been reported; later ones aren't.
+     */
+    private final AtomicBoolean refillErrorReported;
+
+    /**
+     * Prepares sandboxes in the background. Null if pooling is disabled or
+     * the threads aren't running.
+     */
+    private ExecutorService refiller;
+
+    /**
+     * Runs player threads. Null if pooling is disabled or the threads
+     * aren't running.
+     */
+    private ThreadPoolExecutor robotThreads;
+
+    /**
+     * Create a new factory.
+     *
+     * @param team             the team we're creating players for
+     * @param teamPackage      the name / package of the team
+     * @param teamURL          the url of the classes for the team
+     * @param robotOut         the output that robots should write to
+     * @param profilingEnabled whether profiling is enabled or not
+     * @param poolSize         the number of sandboxes and threads to keep ready;
+     *                         0 to disable pooling
+     */
+    public SandboxFactory(Team team,
+                          String teamPackage,
+                          String teamURL,
+                          OutputStream robotOut,
+                          boolean profilingEnabled,
+                          int poolSize) {
+        this.team = team;
+        this.teamPackage = teamPackage;
+        this.factory = new TeamClassLoaderFactory(teamURL);
+        this.robotOut = robotOut;
+        this.profilingEnabled = profilingEnabled;
+        this.poolSize = Math.max(poolSize, 0);
+        this.prepared = new ConcurrentLinkedQueue<>();
+        this.preparedCount = new AtomicInteger(0);
+        this.refilling = new AtomicBoolean(false);
+        this.refillErrorReported = new AtomicBoolean(false);
+    }
+
+    /**
+     * Create a player for a newly spawned robot, using a prepared sandbox
+     * and a parked thread if one is available.
+     *
+     * @param robotController the robot we're creating a player for
+     * @param seed            the seed the robot should use for random operations
+     * @param profiler        the profiler to log bytecode usage to, or null
+     * @return the new player, paused before running any player code
+     * @throws InstrumentationException if the player doesn't work for some reason
+     * @throws RuntimeException if our code fails for some reason
+     */
+    public SandboxedRobotPlayer createPlayer(RobotController robotController,
+                                             int seed,
+                                             Profiler profiler) throws InstrumentationException {
+        SandboxedRobotPlayer.Sandbox sandbox = null;
+        if ((profiler != null) == profilingEnabled) {
+            sandbox = prepared.poll();
+            if (sandbox != null) {
+                preparedCount.decrementAndGet();
+            }
+        }
+        if (sandbox == null) {
+            sandbox = new SandboxedRobotPlayer.Sandbox(
+                    factory.createLoader(profiler != null),
+                    team,
+                    robotOut
+            );
+        }
+
+        return new SandboxedRobotPlayer(teamPackage, robotController, seed, sandbox, robotThreads, profiler);
+    }
+
+    /**
+     * @return the ids the profiler uses for methods of this team's classes
+     */
+    public FrameTable getFrameTable() {
+        return factory.getFrameTable();
+    }
+
+    /**
+     * Top the pools back up in the background.
+     * Returns immediately; does nothing if a refill is already running.
+     */
+    public void refill() {
+        if (poolSize == 0 || factory.getError()) {
+            return;
+        }
+        if (refiller == null) {
+            startThreads();
+        }
+        if (!refilling.compareAndSet(false, true)) {
+            return;
+        }
+
+        robotThreads.prestartAllCoreThreads();
+
+        refiller.execute(() -> {
+            try {
+                while (preparedCount.get() < poolSize && !factory.getError()) {
+                    prepared.add(new SandboxedRobotPlayer.Sandbox(
+                            factory.createLoader(profilingEnabled),
+                            team,
+                            robotOut
+                    ));
+                    preparedCount.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                // Spawns will build their sandboxes inline, and fail then
+                // too if it's the player's fault
+                if (refillErrorReported.compareAndSet(false, true)) {
+                    ErrorReporter.report(e, "Couldn't prepare sandboxes for " + teamPackage
+                            + "; building them as robots spawn instead", false);
+                }
+            } finally {
+                refilling.set(false);
+            }
+        });
+    }
+
+    /**
+     * Stop the background threads once the players running on them finish.
+     * Sandboxes already prepared are kept; the next refill starts new threads.
+     */
+    public void shutdown() {
+        if (refiller != null) {
+            refiller.shutdown();
+            robotThreads.shutdown();
+            refiller = null;
+            robotThreads = null;
+        }
+    }
+
+    private void startThreads() {
+        final ThreadPoolExecutor refiller = new ThreadPoolExecutor(1, 1,
+                IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                daemonThreads(teamPackage + " sandbox refill"));
+        refiller.allowCoreThreadTimeOut(true);
+        this.refiller = refiller;
+        this.robotThreads = new ThreadPoolExecutor(poolSize, Integer.MAX_VALUE,
+                IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new SynchronousQueue<>(),
+                daemonThreads(teamPackage + " idle player"));
+        this.robotThreads.allowCoreThreadTimeOut(true);
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        return r -> {
+            final Thread thread = new Thread(r, name);
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
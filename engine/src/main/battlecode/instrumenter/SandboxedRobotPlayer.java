@@ -7,6 +7,8 @@ import battlecode.instrumenter.stream.RoboPrintStream;
 import battlecode.instrumenter.stream.SilencedPrintStream;
 import battlecode.server.ErrorReporter;
 import battlecode.server.Config;
+import battlecode.server.Server;
+import org.apache.commons.io.output.NullOutputStream;
 
 import java.io.OutputStream;
 import java.io.PrintStream;
@@ -14,6 +16,9 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -33,6 +38,12 @@ import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
  * into SandboxedRobotPlayer. This is still "single-threaded" use, since
  * there's only one thread operating at a time.
  *
+ * The player runs on a platform thread by default. With
+ * bc.engine.virtual-threads set on a runtime that supports them (Java 21+),
+ * it runs on a virtual thread instead, and control is traded with
+ * LockSupport.park/unpark rather than wait/notify, since a virtual thread
+ * waiting on a monitor pins its carrier thread.
+ *
  * @author james
  */
 public class SandboxedRobotPlayer {
@@ -61,28 +72,41 @@ public class SandboxedRobotPlayer {
 
     /**
      * The main thread the player is running on.
+     * Set by the thread itself when it starts running the player.
      */
-    private final Thread mainThread;
+    private volatile Thread mainThread;
 
     /**
-     * The cached 'killRobot' method of the monitor.
+     * The player's RobotMonitor; bound once, so we don't go through
+     * reflection every turn.
      */
-    private final Method killMethod;
+    private final MonitorBridge monitor;
 
     /**
-     * The cached 'setBytecodeLimit' method of the monitor.
+     * The object used to trade of control between threads.
      */
-    private final Method setBytecodeLimitMethod;
+    private final Object notifier;
 
     /**
-     * The cached 'getBytecodeNum' method of the monitor.
+     * Whether the main thread is a virtual thread, in which case control
+     * is traded by parking rather than through the notifier.
      */
-    private final Method getBytecodeNumMethod;
+    private final boolean virtual;
 
     /**
-     * The object used to trade of control between threads.
+     * Virtual threads only: true while the player thread has control.
      */
-    private final Object notifier;
+    private volatile boolean playerTurn;
+
+    /**
+     * Virtual threads only: the thread waiting on the player thread.
+     */
+    private volatile Thread engineThread;
+
+    /**
+     * Whether we've already warned that virtual threads are unavailable.
+     */
+    private static final AtomicBoolean warnedNoVirtualThreads = new AtomicBoolean(false);
 
     /**
      * Whether or not we are currently running, i.e. in "step".
@@ -113,51 +137,71 @@ public class SandboxedRobotPlayer {
                                 OutputStream robotOut,
                                 Profiler profiler)
             throws InstrumentationException {
+        this(teamName, robotController, seed,
+                new Sandbox(loader, robotController.getTeam(), robotOut),
+                null, profiler);
+    }
+
+    /**
+     * Create a new sandboxed robot player in a sandbox that has already
+     * been prepared.
+     *
+     * @param teamName          the name of the team to create a player for
+     * @param robotController   the robot we're loading a player for
+     * @param seed              the seed the robot should use for random operations
+     * @param sandbox           the unused sandbox to run the player in
+     * @param threads           the executor to run the player thread on, or null
+     *                          to start a new thread
+     * @param profiler          the profiler to log bytecode usage to, or null
+     * @throws InstrumentationException if the player doesn't work for some reason
+     * @throws RuntimeException if our code fails for some reason
+     */
+    SandboxedRobotPlayer(String teamName,
+                         RobotController robotController,
+                         int seed,
+                         Sandbox sandbox,
+                         Executor threads,
+                         Profiler profiler)
+            throws InstrumentationException {
         this.robotController = robotController;
         this.seed = seed;
         this.terminated = false;
         this.notifier = new Object();
+        this.virtual = useVirtualThreads();
 
-        // Create classloader sandbox
-        individualLoader = loader;
+        // Classloader sandbox and its monitor methods
+        individualLoader = sandbox.loader;
+        monitor = sandbox.monitor;
+        systemOut = sandbox.systemOut;
 
-        // Load monitor / monitor methods
         // Used to initialize the RobotMonitor for the player
-        final Method initMethod;
+        final Method initMethod = sandbox.initMethod;
         // Used to pause the player thread after loading
-        final Method pauseMethod;
-        try {
-            // The loaded, uninstrumented-but-individual RobotMonitor for this player.
-            Class<?> monitor = individualLoader
-                    .loadClass("battlecode.instrumenter.inject.RobotMonitor");
-
-            killMethod = monitor.getMethod("killRobot");
-            setBytecodeLimitMethod = monitor.getMethod("setBytecodeLimit", int.class);
-            getBytecodeNumMethod = monitor.getMethod("getBytecodeNum");
-            pauseMethod = monitor.getMethod("pause");
-            initMethod = monitor.getMethod("init", Pauser.class, Killer.class, int.class, Profiler.class);
-
-            // Note: loading this here also keeps any initialization we do in System
-            // from inflicting its bytecode cost on the player.
-            Class<?> system = individualLoader
-                    .loadClass("battlecode.instrumenter.inject.System");
-
-            this.systemOut = getOut(robotOut);
-            system.getMethod("setSystemOut", PrintStream.class).invoke(null, this.systemOut);
-
-        } catch (ReflectiveOperationException e) {
-            throw new RuntimeException("Couldn't load RobotMonitor", e);
-        }
+        final Method pauseMethod = sandbox.pauseMethod;
 
         // Used to pause the RobotPlayer main thread.
         final Pauser pauser = () -> {
             try {
-                synchronized (notifier) {
+                if (virtual) {
                     // Unpause the main thread, which is waiting on the player thread
-                    notifier.notifyAll();
+                    playerTurn = false;
+                    LockSupport.unpark(engineThread);
 
                     // Wait for the main thread to restart us
-                    notifier.wait();
+                    while (!playerTurn) {
+                        LockSupport.park(this);
+                        if (Thread.interrupted()) {
+                            throw new InterruptedException();
+                        }
+                    }
+                } else {
+                    synchronized (notifier) {
+                        // Unpause the main thread, which is waiting on the player thread
+                        notifier.notifyAll();
+
+                        // Wait for the main thread to restart us
+                        notifier.wait();
+                    }
                 }
             } catch (InterruptedException e) {
                 ErrorReporter.report("RobotPlayer thread interrupted while paused");
@@ -172,7 +216,10 @@ public class SandboxedRobotPlayer {
             throw new RobotDeathException();
         };
 
-        mainThread = new Thread(() -> {
+        final String threadName = teamName + "." + PLAYER_CLASS_NAME + " #"+ robotController.getID();
+
+        final Runnable body = () -> {
+            mainThread = Thread.currentThread();
             try {
                 // Init RobotMonitor
                 initMethod.invoke(null, pauser, killer, this.seed, profiler);
@@ -212,20 +259,47 @@ public class SandboxedRobotPlayer {
                 }
 
                 // Unpause the main thread, which is waiting on the player thread.
-                synchronized (notifier) {
-                    notifier.notifyAll();
+                if (virtual) {
+                    playerTurn = false;
+                    LockSupport.unpark(engineThread);
+                } else {
+                    synchronized (notifier) {
+                        notifier.notifyAll();
+                    }
                 }
             }
-        }, teamName + "." + PLAYER_CLASS_NAME + " #"+ robotController.getID());
-
-
+        };
         // Wait for thread to tell us it's ready
         try {
-            synchronized (notifier) {
+            if (virtual) {
+                engineThread = Thread.currentThread();
+                playerTurn = true;
+
                 // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
-                mainThread.start();
+                VirtualThreads.newThread(body, threadName).start();
+
+                awaitPlayerPause();
+            } else {
+                synchronized (notifier) {
+                    // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
+                    if (threads != null) {
+                        threads.execute(() -> {
+                            // Pooled threads take on the name of the player they're running
+                            final Thread current = Thread.currentThread();
+                            final String poolName = current.getName();
+                            current.setName(threadName);
+                            try {
+                                body.run();
+                            } finally {
+                                current.setName(poolName);
+                            }
+                        });
+                    } else {
+                        new Thread(body, threadName).start();
+                    }
 
-                notifier.wait();
+                    notifier.wait();
+                }
             }
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption initializing sandbox", e);
@@ -273,11 +347,7 @@ public class SandboxedRobotPlayer {
      * @param limit the new limit
      */
     public void setBytecodeLimit(int limit) {
-        try {
-            setBytecodeLimitMethod.invoke(null, limit);
-        } catch (ReflectiveOperationException e) {
-            ErrorReporter.report(e, true);
-        }
+        monitor.setBytecodeLimit(limit);
     }
 
     /**
@@ -294,22 +364,73 @@ public class SandboxedRobotPlayer {
         updateOut();
 
         try {
-            synchronized (notifier) {
+            if (virtual) {
                 // We are now running the robot!
                 running = true;
 
                 // Unpause the robot's thread
-                notifier.notifyAll();
+                engineThread = Thread.currentThread();
+                playerTurn = true;
+                LockSupport.unpark(mainThread);
 
                 // Pause this thread until the robot ends turn or dies
-                notifier.wait();
+                awaitPlayerPause();
 
                 // Main thread reactivated: no longer running.
                 running = false;
+            } else {
+                synchronized (notifier) {
+                    // We are now running the robot!
+                    running = true;
+
+                    // Unpause the robot's thread
+                    notifier.notifyAll();
+
+                    // Pause this thread until the robot ends turn or dies
+                    notifier.wait();
+
+                    // Main thread reactivated: no longer running.
+                    running = false;
+                }
             }
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption", e);
         }
+
+        // Hand on what the robot printed this turn
+        if (systemOut instanceof RoboPrintStream) {
+            ((RoboPrintStream) systemOut).flush();
+        }
+    }
+
+    /**
+     * Virtual threads only: block the calling thread until the player
+     * thread pauses or terminates.
+     */
+    private void awaitPlayerPause() throws InterruptedException {
+        while (playerTurn) {
+            LockSupport.park(this);
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    /**
+     * @return whether this player should run on a virtual thread
+     */
+    private static boolean useVirtualThreads() {
+        if (!Config.getGlobalConfig().getBoolean("bc.engine.virtual-threads")) {
+            return false;
+        }
+        if (!VirtualThreads.isSupported()) {
+            if (warnedNoVirtualThreads.compareAndSet(false, true)) {
+                Server.warn("bc.engine.virtual-threads is set, but this runtime doesn't support " +
+                        "virtual threads (Java 21+ required); using platform threads");
+            }
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -334,20 +455,11 @@ public class SandboxedRobotPlayer {
             // execute zero-cost actions after "dying", like (maybe?) returning
             // from run(), which could issue nonsensical warnings. However, it's
             // the best solution I can think of.
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            monitor.killRobot();
         } else {
             // We're not running.
             // Set the "shouldDie" flag and then step to finish the job.
-
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            monitor.killRobot();
 
             // Step to make the robot die.
             step();
@@ -358,12 +470,7 @@ public class SandboxedRobotPlayer {
      * @return the bytecodes used by the player during the most recent step() call.
      */
     public int getBytecodesUsed() {
-        try {
-            return (Integer) getBytecodeNumMethod.invoke(null);
-        } catch (ReflectiveOperationException e) {
-            ErrorReporter.report(e, true);
-            return 0;
-        }
+        return monitor.getBytecodeNum();
     }
 
     /**
@@ -373,6 +480,80 @@ public class SandboxedRobotPlayer {
         return terminated;
     }
 
+    /**
+     * A per-robot classloader with its RobotMonitor and System already loaded,
+     * that no player has run in yet.
+     *
+     * Sandboxes are cheap to hold on to, so SandboxFactory prepares them ahead
+     * of time (possibly on another thread) to keep spawning robots fast.
+     */
+    static final class Sandbox {
+        final TeamClassLoaderFactory.Loader loader;
+        final Method initMethod;
+        final Method pauseMethod;
+        final MonitorBridge monitor;
+        final PrintStream systemOut;
+
+        /**
+         * Prepare a sandbox.
+         *
+         * @param loader   a fresh classloader to load classes with
+         * @param team     the team the sandbox will run a player for
+         * @param robotOut the output to write robot output to (with headers)
+         * @throws InstrumentationException if the team's classes can't be loaded
+         * @throws RuntimeException if our code fails for some reason
+         */
+        Sandbox(TeamClassLoaderFactory.Loader loader, Team team, OutputStream robotOut)
+                throws InstrumentationException {
+            this.loader = loader;
+
+            // Load monitor / monitor methods
+            try {
+                // The loaded, uninstrumented-but-individual RobotMonitor for this player.
+                Class<?> monitor = loader
+                        .loadClass("battlecode.instrumenter.inject.RobotMonitor");
+
+                this.monitor = (MonitorBridge) monitor.getMethod("bridge").invoke(null);
+                pauseMethod = monitor.getMethod("pause");
+                initMethod = monitor.getMethod("init", Pauser.class, Killer.class, int.class, Profiler.class);
+
+                // Note: loading this here also keeps any initialization we do in System
+                // from inflicting its bytecode cost on the player.
+                Class<?> system = loader
+                        .loadClass("battlecode.instrumenter.inject.System");
+
+                this.systemOut = getOut(team, robotOut);
+                system.getMethod("setSystemOut", PrintStream.class).invoke(null, this.systemOut);
+
+            } catch (ReflectiveOperationException e) {
+                throw new RuntimeException("Couldn't load RobotMonitor", e);
+            }
+        }
+    }
+
+    /**
+     * Implemented by each player's own copy of RobotMonitor; used to control
+     * it from the engine thread without reflection.
+     */
+    public interface MonitorBridge {
+        /**
+         * Set the bytecode limit of the player.
+         *
+         * @param limit the new limit
+         */
+        void setBytecodeLimit(int limit);
+
+        /**
+         * @return the bytecode number that the player is currently on
+         */
+        int getBytecodeNum();
+
+        /**
+         * Kill the player the next time its thread is active.
+         */
+        void killRobot();
+    }
+
     /**
      * Injected into RobotMonitor; used to synchronize it and the main thread.
      */
@@ -394,19 +575,30 @@ public class SandboxedRobotPlayer {
     }
 
     public PrintStream getOut(OutputStream wrapped) {
+        return getOut(robotController.getTeam(), wrapped);
+    }
+
+    /**
+     * @param team    the team of the robot the stream is for
+     * @param wrapped the output to write robot output to, or null if it isn't kept
+     * @return a stream to use for System.out in a sandboxed player on the given team
+     */
+    static PrintStream getOut(Team team, OutputStream wrapped) {
         Config options = Config.getGlobalConfig();
+        final boolean toSystemOut = options.getBoolean("bc.server.robot-player-to-system-out");
 
-        if (robotController.getTeam() == Team.A
+        if (team == Team.A
                 && options.getBoolean("bc.engine.silence-a")
-                || robotController.getTeam() == Team.B
-                && options.getBoolean("bc.engine.silence-b")) {
+                || team == Team.B
+                && options.getBoolean("bc.engine.silence-b")
+                || wrapped == null && !toSystemOut) {
+            // Nobody would see it, so don't spend any time on it
             return SilencedPrintStream.theInstance();
             // Modifying Systems specific to this robot.
         } else {
             try {
-                return new RoboPrintStream(wrapped, options.getBoolean(
-                        "bc.server.robot-player-to-system-out"
-                ), options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes"));
+                return new RoboPrintStream(wrapped != null ? wrapped : NullOutputStream.NULL_OUTPUT_STREAM,
+                        toSystemOut, options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes"));
             } catch (UnsupportedEncodingException e) {
                 throw new RuntimeException("UTF-8 isn't supported on this system??", e);
             }
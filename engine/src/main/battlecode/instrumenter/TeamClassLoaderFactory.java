@@ -1,7 +1,9 @@
 package battlecode.instrumenter;
 
+import battlecode.instrumenter.bytecode.ClassHierarchy;
 import battlecode.instrumenter.bytecode.ClassReferenceUtil;
 import battlecode.instrumenter.bytecode.InstrumentingClassVisitor;
+import battlecode.instrumenter.profiler.FrameTable;
 import battlecode.server.Config;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -16,6 +18,7 @@ import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -84,6 +87,7 @@ public final class TeamClassLoaderFactory {
             "battlecode.instrumenter.inject.InstrumentableFunctions",
             "battlecode.instrumenter.inject.System",
             "battlecode.instrumenter.inject.RobotMonitor",
+            "battlecode.instrumenter.inject.RobotMonitor$Bridge",
             "battlecode.common.Clock"
     )));
 
@@ -100,19 +104,32 @@ public final class TeamClassLoaderFactory {
      * The values are byte arrays, not Classes, because each instance of
      * InstrumentingClassLoader should define its own class, even if another
      * InstrumentingClassLoader has already loaded a class from the same class file.
+     *
+     * Concurrent, since sandboxes may be prepared in the background while
+     * a player is loading classes.
      */
     private final Map<String, byte[]> instrumentedClasses;
 
     /**
      * If this team has an error, don't bother trying to cache again.
      */
-    private boolean hasError;
+    private volatile boolean hasError;
 
     /**
      * The ClassReferenceUtil used by this cache.
      */
     private final ClassReferenceUtil refUtil;
 
+    /**
+     * The ancestors of this team's classes.
+     */
+    private final ClassHierarchy hierarchy;
+
+    /**
+     * The ids the profiler uses for methods of this team's classes.
+     */
+    private final FrameTable frameTable;
+
     /**
      * Create a cache for classes loaded from a URL (or local file).
      * The URL can point to a jar file or a directory containing class
@@ -123,6 +140,8 @@ public final class TeamClassLoaderFactory {
      * @param classURL the URL to load clases from
      */
     public TeamClassLoaderFactory(final String classURL) {
+        this.frameTable = new FrameTable();
+
         URL url;
         try {
             url = getFilesystemURL(classURL);
@@ -131,6 +150,7 @@ public final class TeamClassLoaderFactory {
             this.hasError = true;
             this.instrumentedClasses = null;
             this.refUtil = null;
+            this.hierarchy = null;
             return;
         }
 
@@ -147,9 +167,10 @@ public final class TeamClassLoaderFactory {
                 return findResource(name);
             }
         };
-        this.instrumentedClasses = new HashMap<>();
+        this.instrumentedClasses = new ConcurrentHashMap<>();
         this.hasError = false;
         this.refUtil = new ClassReferenceUtil(this);
+        this.hierarchy = new ClassHierarchy(this);
     }
 
     /**
@@ -192,6 +213,20 @@ public final class TeamClassLoaderFactory {
         return this.hasError;
     }
 
+    /**
+     * @return the ids the profiler uses for methods of this team's classes
+     */
+    public FrameTable getFrameTable() {
+        return this.frameTable;
+    }
+
+    /**
+     * @return the hierarchy of this team's classes (and the system classes they use)
+     */
+    public ClassHierarchy getHierarchy() {
+        return this.hierarchy;
+    }
+
     /**
      * @param className the name of the class
      * @return whether or not the team has the class
@@ -529,7 +564,8 @@ public final class TeamClassLoaderFactory {
                     false,
                     checkDisallowed,
                     debugMethodsEnabled,
-                    profilerEnabled
+                    profilerEnabled,
+                    Config.getGlobalConfig().getBoolean("bc.engine.coalesce-bytecode-charges")
             );
             reader.accept(cv, 0);        //passing false lets debug info be included in the transformation, so players get line numbers in stack traces
             return cw.toByteArray();
@@ -0,0 +1,100 @@
+package battlecode.instrumenter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Creates virtual threads for robot players on runtimes that have them.
+ *
+ * The engine is compiled against Java 8, so Thread.ofVirtual() can't be
+ * referenced directly; we look up the builder methods once and call through
+ * method handles. On older runtimes (or Java 19/20 without preview features
+ * enabled) isSupported() returns false and callers should fall back to
+ * platform threads.
+ */
+final class VirtualThreads {
+
+    /**
+     * Thread.ofVirtual(), or null if unavailable.
+     */
+    private static final MethodHandle OF_VIRTUAL;
+
+    /**
+     * Thread.Builder.name(String), or null if unavailable.
+     */
+    private static final MethodHandle NAME;
+
+    /**
+     * Thread.Builder.unstarted(Runnable), or null if unavailable.
+     */
+    private static final MethodHandle UNSTARTED;
+
+    /**
+     * Whether we were actually able to create a virtual thread.
+     */
+    private static final boolean SUPPORTED;
+
+    static {
+        MethodHandle ofVirtual = null;
+        MethodHandle name = null;
+        MethodHandle unstarted = null;
+        boolean supported;
+
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            final Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            final Class<?> ofVirtualBuilder = Class.forName("java.lang.Thread$Builder$OfVirtual");
+
+            ofVirtual = lookup.findStatic(Thread.class, "ofVirtual",
+                    MethodType.methodType(ofVirtualBuilder));
+            name = lookup.findVirtual(builder, "name",
+                    MethodType.methodType(builder, String.class));
+            unstarted = lookup.findVirtual(builder, "unstarted",
+                    MethodType.methodType(Thread.class, Runnable.class));
+
+            // Preview builds expose the API but throw when it's used;
+            // make sure we can really get a builder.
+            supported = ofVirtual.invoke() != null;
+        } catch (Throwable e) {
+            supported = false;
+        }
+
+        OF_VIRTUAL = ofVirtual;
+        NAME = name;
+        UNSTARTED = unstarted;
+        SUPPORTED = supported;
+    }
+
+    private VirtualThreads() {}
+
+    /**
+     * @return whether this runtime can create virtual threads
+     */
+    static boolean isSupported() {
+        return SUPPORTED;
+    }
+
+    /**
+     * Create a new, unstarted virtual thread.
+     *
+     * @param body the code to run on the thread
+     * @param threadName the name of the thread
+     * @return the new thread
+     * @throws UnsupportedOperationException if virtual threads aren't supported
+     */
+    static Thread newThread(Runnable body, String threadName) {
+        if (!SUPPORTED) {
+            throw new UnsupportedOperationException("Virtual threads are not supported by this runtime");
+        }
+
+        try {
+            final Object builder = NAME.invoke(OF_VIRTUAL.invoke(), threadName);
+            return (Thread) UNSTARTED.invoke(builder, body);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new RuntimeException("Couldn't create virtual thread", e);
+        }
+    }
+}
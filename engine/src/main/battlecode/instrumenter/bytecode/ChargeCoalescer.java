@@ -0,0 +1,444 @@
+package battlecode.instrumenter.bytecode;
+
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reduces the number of RobotMonitor.incrementBytecodes calls in a method
+ * that InstrumentingMethodVisitor has already instrumented, without changing
+ * what any robot is charged.
+ *
+ * The instrumenter charges at the end of every basic block, and also at every
+ * label, so straight-line code gets split into a charge per source line and a
+ * simple loop pays for two or three charges per iteration. This pass builds a
+ * control flow graph over the instrumented method and moves charges across
+ * "transparent" code: instructions that can't throw, call anything, or leave
+ * the method, so nothing can observe the bytecode count while they run. It:
+ *  - merges consecutive charges in a block that only have transparent code
+ *    between them;
+ *  - hoists a block's first charge into the last charge of each of its
+ *    predecessors, when every predecessor can only continue into the block
+ *    (for a loop header, this charges the loop once, at its back edge);
+ *  - sinks a block's last charge into the first charge of each of its
+ *    successors, when the block is each successor's only predecessor.
+ *
+ * Every move keeps the amount charged along every path (including every
+ * cycle, and every exceptional path) the same at each call, return and
+ * throw, so the only visible difference is where inside a run of transparent
+ * code a robot pauses when it runs out of bytecodes.
+ *
+ * Enabled with bc.engine.coalesce-bytecode-charges.
+ */
+final class ChargeCoalescer implements Opcodes {
+
+    private ChargeCoalescer() {}
+
+    /**
+     * A call to RobotMonitor.incrementBytecodes with a constant argument.
+     */
+    private static final class Charge {
+        final LdcInsnNode amount;
+        final MethodInsnNode call;
+        boolean removed;
+
+        Charge(LdcInsnNode amount, MethodInsnNode call) {
+            this.amount = amount;
+            this.call = call;
+        }
+
+        int getAmount() {
+            return (Integer) amount.cst;
+        }
+    }
+
+    /**
+     * A basic block of the instrumented method.
+     */
+    private static final class Block {
+        // the charges in this block, in order
+        final List<Charge> charges = new ArrayList<>();
+
+        // transparent[i] is whether the code before charges[i] (after
+        // charges[i-1], or from the start of the block) is transparent;
+        // transparent[charges.size()] covers the code after the last charge
+        final List<Boolean> transparent = new ArrayList<>();
+
+        final Set<Block> successors = new LinkedHashSet<>();
+        final Set<Block> predecessors = new LinkedHashSet<>();
+
+        // whether the block can be entered other than from its predecessors
+        boolean entry;
+        boolean handler;
+
+        /**
+         * @return the first live charge, if only transparent code runs
+         *         before it in this block; otherwise null
+         */
+        Charge head() {
+            boolean clear = transparent.get(0);
+            for (int i = 0; i < charges.size(); i++) {
+                if (!charges.get(i).removed) {
+                    return clear ? charges.get(i) : null;
+                }
+                clear &= transparent.get(i + 1);
+            }
+            return null;
+        }
+
+        /**
+         * @return the last live charge, if only transparent code runs
+         *         after it in this block; otherwise null
+         */
+        Charge tail() {
+            boolean clear = transparent.get(charges.size());
+            for (int i = charges.size() - 1; i >= 0; i--) {
+                if (!charges.get(i).removed) {
+                    return clear ? charges.get(i) : null;
+                }
+                clear &= transparent.get(i);
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Coalesce the charges in an instrumented method.
+     *
+     * @param method the method, after InstrumentingMethodVisitor has
+     *               inserted its charges
+     */
+    static void coalesce(MethodNode method) {
+        final AbstractInsnNode[] insns = method.instructions.toArray();
+        final List<Block> blocks = buildBlocks(method, insns);
+        if (blocks == null) {
+            return;
+        }
+
+        for (Block block : blocks) {
+            mergeWithinBlock(block);
+        }
+
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (Block block : blocks) {
+                changed |= hoistIntoPredecessors(block);
+                changed |= sinkIntoSuccessors(block);
+            }
+        }
+
+        for (Block block : blocks) {
+            for (Charge charge : block.charges) {
+                if (charge.removed) {
+                    remove(method, charge);
+                }
+            }
+        }
+    }
+
+    /**
+     * Split the method into basic blocks and find the charges in each.
+     *
+     * @return the blocks, or null if the method uses jsr / ret, which we
+     *         don't bother handling
+     */
+    private static List<Block> buildBlocks(MethodNode method, AbstractInsnNode[] insns) {
+        final Set<LabelNode> targets = new HashSet<>();
+        final Set<LabelNode> handlers = new HashSet<>();
+        for (Object o : method.tryCatchBlocks) {
+            handlers.add(((TryCatchBlockNode) o).handler);
+        }
+        for (AbstractInsnNode insn : insns) {
+            if (insn.getOpcode() == JSR || insn.getOpcode() == RET) {
+                return null;
+            }
+            targets.addAll(getTargets(insn));
+        }
+
+        final List<Block> blocks = new ArrayList<>();
+        final Map<LabelNode, Block> blockAt = new HashMap<>();
+        final Map<Block, AbstractInsnNode> lastInsn = new HashMap<>();
+
+        Block current = null;
+        boolean clear = true;
+        for (int i = 0; i < insns.length; i++) {
+            final AbstractInsnNode insn = insns[i];
+            final boolean leader = current == null
+                    || (insn instanceof LabelNode
+                        && (targets.contains(insn) || handlers.contains(insn)));
+
+            if (leader) {
+                if (current != null) {
+                    current.transparent.add(clear);
+                }
+                current = new Block();
+                current.entry = blocks.isEmpty();
+                clear = true;
+                blocks.add(current);
+            }
+            if (insn instanceof LabelNode) {
+                blockAt.put((LabelNode) insn, current);
+                current.handler |= handlers.contains(insn);
+            }
+
+            if (isCharge(insns, i)) {
+                current.charges.add(new Charge((LdcInsnNode) insns[i - 1], (MethodInsnNode) insn));
+                current.transparent.add(clear);
+                clear = true;
+            } else if (!isCharge(insns, i + 1)) {
+                clear &= isTransparent(insn);
+            }
+
+            if (insn.getOpcode() >= 0) {
+                lastInsn.put(current, insn);
+                if (endsBlock(insn)) {
+                    // the next instruction starts a new block
+                    current.transparent.add(clear);
+                    current = null;
+                }
+            }
+        }
+        if (current != null) {
+            current.transparent.add(clear);
+        }
+
+        for (int b = 0; b < blocks.size(); b++) {
+            final Block block = blocks.get(b);
+            final AbstractInsnNode last = lastInsn.get(block);
+            for (LabelNode target : getTargets(last)) {
+                block.successors.add(blockAt.get(target));
+            }
+            if (!isUnconditionalExit(last) && b + 1 < blocks.size()) {
+                block.successors.add(blocks.get(b + 1));
+            }
+            for (Block successor : block.successors) {
+                successor.predecessors.add(block);
+            }
+        }
+
+        return blocks;
+    }
+
+    /**
+     * Merge each charge into the next one in its block, if only transparent
+     * code runs between them.
+     */
+    private static void mergeWithinBlock(Block block) {
+        for (int i = 0; i + 1 < block.charges.size(); i++) {
+            final Charge first = block.charges.get(i);
+            final Charge second = block.charges.get(i + 1);
+            if (block.transparent.get(i + 1) && add(second, first.getAmount())) {
+                first.removed = true;
+            }
+        }
+    }
+
+    /**
+     * Move the first charge of a block into the last charge of each of its
+     * predecessors.
+     *
+     * @return whether anything changed
+     */
+    private static boolean hoistIntoPredecessors(Block block) {
+        final Charge head = block.head();
+        if (head == null || block.entry || block.handler || block.predecessors.isEmpty()) {
+            return false;
+        }
+
+        final List<Charge> tails = new ArrayList<>();
+        for (Block predecessor : block.predecessors) {
+            final Charge tail = predecessor.tail();
+            if (predecessor == block || tail == null || predecessor.successors.size() != 1) {
+                return false;
+            }
+            tails.add(tail);
+        }
+
+        if (!canAdd(tails, head.getAmount())) {
+            return false;
+        }
+        for (Charge tail : tails) {
+            add(tail, head.getAmount());
+        }
+        head.removed = true;
+        return true;
+    }
+
+    /**
+     * Move the last charge of a block into the first charge of each of its
+     * successors.
+     *
+     * @return whether anything changed
+     */
+    private static boolean sinkIntoSuccessors(Block block) {
+        final Charge tail = block.tail();
+        if (tail == null || block.successors.isEmpty()) {
+            return false;
+        }
+
+        final List<Charge> heads = new ArrayList<>();
+        for (Block successor : block.successors) {
+            final Charge head = successor.head();
+            if (successor == block || head == null || successor.entry || successor.handler
+                    || successor.predecessors.size() != 1) {
+                return false;
+            }
+            heads.add(head);
+        }
+
+        if (!canAdd(heads, tail.getAmount())) {
+            return false;
+        }
+        for (Charge head : heads) {
+            add(head, tail.getAmount());
+        }
+        tail.removed = true;
+        return true;
+    }
+
+    private static boolean canAdd(List<Charge> charges, int amount) {
+        for (Charge charge : charges) {
+            if ((long) charge.getAmount() + amount > Integer.MAX_VALUE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean add(Charge charge, int amount) {
+        if ((long) charge.getAmount() + amount > Integer.MAX_VALUE) {
+            return false;
+        }
+        charge.amount.cst = charge.getAmount() + amount;
+        return true;
+    }
+
+    /**
+     * Take a charge out of the method. If that would leave two frames, or
+     * the start and end of a try block, at the same offset, leave a nop.
+     */
+    private static void remove(MethodNode method, Charge charge) {
+        final Set<AbstractInsnNode> before = new HashSet<>();
+        boolean frameBefore = false;
+        for (AbstractInsnNode n = charge.amount.getPrevious(); n != null && n.getOpcode() < 0; n = n.getPrevious()) {
+            before.add(n);
+            frameBefore |= n instanceof FrameNode;
+        }
+        final Set<AbstractInsnNode> after = new HashSet<>();
+        boolean frameAfter = false;
+        for (AbstractInsnNode n = charge.call.getNext(); n != null && n.getOpcode() < 0; n = n.getNext()) {
+            after.add(n);
+            frameAfter |= n instanceof FrameNode;
+        }
+
+        boolean needsNop = frameBefore && frameAfter;
+        for (Object o : method.tryCatchBlocks) {
+            final TryCatchBlockNode tcb = (TryCatchBlockNode) o;
+            needsNop |= before.contains(tcb.start) && after.contains(tcb.end);
+        }
+
+        if (needsNop) {
+            method.instructions.insertBefore(charge.amount, new InsnNode(NOP));
+        }
+        method.instructions.remove(charge.amount);
+        method.instructions.remove(charge.call);
+    }
+
+    private static boolean isCharge(AbstractInsnNode[] insns, int i) {
+        if (i <= 0 || i >= insns.length || insns[i].getOpcode() != INVOKESTATIC) {
+            return false;
+        }
+        final MethodInsnNode call = (MethodInsnNode) insns[i];
+        return call.owner.equals("battlecode/instrumenter/inject/RobotMonitor")
+                && call.name.equals("incrementBytecodes")
+                && call.desc.equals("(I)V")
+                && insns[i - 1] instanceof LdcInsnNode
+                && ((LdcInsnNode) insns[i - 1]).cst instanceof Integer;
+    }
+
+    private static List<LabelNode> getTargets(AbstractInsnNode insn) {
+        final List<LabelNode> targets = new ArrayList<>();
+        if (insn instanceof JumpInsnNode) {
+            targets.add(((JumpInsnNode) insn).label);
+        } else if (insn instanceof TableSwitchInsnNode) {
+            targets.add(((TableSwitchInsnNode) insn).dflt);
+            for (Object label : ((TableSwitchInsnNode) insn).labels) {
+                targets.add((LabelNode) label);
+            }
+        } else if (insn instanceof LookupSwitchInsnNode) {
+            targets.add(((LookupSwitchInsnNode) insn).dflt);
+            for (Object label : ((LookupSwitchInsnNode) insn).labels) {
+                targets.add((LabelNode) label);
+            }
+        }
+        return targets;
+    }
+
+    private static boolean endsBlock(AbstractInsnNode insn) {
+        return insn instanceof JumpInsnNode
+                || insn instanceof TableSwitchInsnNode
+                || insn instanceof LookupSwitchInsnNode
+                || isUnconditionalExit(insn);
+    }
+
+    /**
+     * @return whether control never falls through insn to the next instruction
+     */
+    private static boolean isUnconditionalExit(AbstractInsnNode insn) {
+        if (insn == null) {
+            return false;
+        }
+        switch (insn.getOpcode()) {
+            case GOTO:
+            case TABLESWITCH:
+            case LOOKUPSWITCH:
+            case IRETURN:
+            case LRETURN:
+            case FRETURN:
+            case DRETURN:
+            case ARETURN:
+            case RETURN:
+            case ATHROW:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * @return whether insn can't throw, call anything, or leave the method,
+     *         so that moving a charge across it can't be observed
+     */
+    private static boolean isTransparent(AbstractInsnNode insn) {
+        final int opcode = insn.getOpcode();
+        if (opcode < 0) {
+            // labels, line numbers and frames
+            return true;
+        }
+        if (opcode == LDC) {
+            final Object cst = ((LdcInsnNode) insn).cst;
+            return cst instanceof Number || cst instanceof String;
+        }
+        switch (opcode) {
+            case IDIV:
+            case LDIV:
+            case IREM:
+            case LREM:
+                return false;
+        }
+        return (opcode >= NOP && opcode <= SIPUSH)
+                || (opcode >= ILOAD && opcode <= ALOAD)
+                || (opcode >= ISTORE && opcode <= ASTORE)
+                || (opcode >= POP && opcode <= LOOKUPSWITCH)
+                || opcode == IFNULL
+                || opcode == IFNONNULL;
+    }
+}
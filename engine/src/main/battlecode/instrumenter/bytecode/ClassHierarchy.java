@@ -0,0 +1,125 @@
+package battlecode.instrumenter.bytecode;
+
+import battlecode.instrumenter.InstrumentationException;
+import battlecode.instrumenter.TeamClassLoaderFactory;
+import org.objectweb.asm.ClassReader;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ClassHierarchy records all of the classes and interfaces each class
+ * transitively extends or implements, so that the instrumenter only has to
+ * read a class file's header once to find out.
+ *
+ * There is one shared hierarchy for classes on the system classpath, and one
+ * per TeamClassLoaderFactory for the team's own classes, which falls back to
+ * the system hierarchy. Both are filled lazily and are safe to use from
+ * multiple threads; two threads looking up the same class at once may both
+ * read it, but will get the same answer.
+ */
+public final class ClassHierarchy {
+
+    /**
+     * The hierarchy of classes on the system classpath.
+     */
+    private final static ClassHierarchy SYSTEM = new ClassHierarchy(null);
+
+    /**
+     * Used to read team classes. Null for the system hierarchy.
+     */
+    private final TeamClassLoaderFactory factory;
+
+    /**
+     * A map from binary class names, to all the classes/interfaces that the
+     * class transitively implements/extends.
+     */
+    private final Map<String, String[]> ancestors;
+
+    /**
+     * Create a hierarchy for a team's classes.
+     *
+     * @param factory the factory to read team classes from, or null to
+     *                only look at the system classpath
+     */
+    public ClassHierarchy(TeamClassLoaderFactory factory) {
+        this.factory = factory;
+        this.ancestors = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * @return the hierarchy of classes on the system classpath
+     */
+    public static ClassHierarchy system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Returns all the classes and interfaces the given class transitively
+     * extends or implements. The returned array must not be modified.
+     *
+     * @param className the binary name of the class, e.g. java/util/ArrayList
+     * @return the class's ancestors, in no particular order
+     * @throws InstrumentationException if the class or one of its ancestors
+     *                                  can't be found
+     */
+    public String[] getAncestors(String className) throws InstrumentationException {
+        final String[] cached = ancestors.get(className);
+        if (cached != null) {
+            return cached;
+        }
+
+        final String[] result;
+        if (factory != null && !factory.hasTeamClass(className)) {
+            result = SYSTEM.getAncestors(className);
+        } else {
+            result = readAncestors(className);
+        }
+
+        // Not computeIfAbsent: readAncestors looks up other classes in this map.
+        final String[] previous = ancestors.putIfAbsent(className, result);
+        return previous != null ? previous : result;
+    }
+
+    /**
+     * Tests whether a class extends or implements another.
+     * e.g. isSubclass("battlecode/common/GameActionException", "java/lang/Throwable") => true
+     *
+     * @param className the class to test
+     * @param ancestor  interface or superclass to test as an ancestor
+     * @return whether ancestor is an ancestor of className
+     * @throws InstrumentationException if the class can't be found
+     */
+    public boolean isSubclass(String className, String ancestor) throws InstrumentationException {
+        for (String candidate : getAncestors(className)) {
+            if (candidate.equals(ancestor)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private String[] readAncestors(String className) {
+        final ClassReader cr = factory != null
+                ? factory.teamReader(className)
+                : TeamClassLoaderFactory.normalReader(className);
+
+        // first, put all interfaces/classes directly implemented/extended by the given class into direct
+        final HashSet<String> direct = new HashSet<>();
+        Collections.addAll(direct, cr.getInterfaces());
+        if (cr.getSuperName() != null) {
+            direct.add(cr.getSuperName());
+        }
+
+        // then add everything they extend or implement
+        final HashSet<String> all = new HashSet<>();
+        all.addAll(direct);
+        for (String parent : direct) {
+            Collections.addAll(all, getAncestors(parent));
+        }
+
+        return all.toArray(new String[all.size()]);
+    }
+}
@@ -168,7 +168,7 @@ public class ClassReferenceUtil {
             return "battlecode/instrumenter/inject/AtomicLong";
         else if (className.equals("java/util/concurrent/atomic/AtomicReference"))
             return "battlecode/instrumenter/inject/AtomicReference";
-        else if (className.equals("sun/misc/Unsafe"))
+        else if (className.equals("sun/misc/Unsafe") || className.equals("jdk/internal/misc/Unsafe"))
             return "battlecode/instrumenter/inject/Unsafe";
 
         if (checkDisallowed) {
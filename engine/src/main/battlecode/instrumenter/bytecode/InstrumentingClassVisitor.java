@@ -22,6 +22,7 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
     private final boolean silenced;
     private final boolean debugMethodsEnabled;
     private final boolean profilerEnabled;
+    private final boolean coalesceCharges;
 
     // Used to find other class files, which is occasionally necessary.
     private TeamClassLoaderFactory.Loader loader;
@@ -36,19 +37,22 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
      *  @param cv                  the ClassVisitor that should be used to read the class
      * @param silenced            whether System.out should be silenced for this class
      * @param checkDisallowed     whether to check for disallowed classes and methods
+     * @param coalesceCharges     whether to merge bytecode charges where it can't be observed
      */
     public InstrumentingClassVisitor(final ClassVisitor cv,
                                      final TeamClassLoaderFactory.Loader loader,
                                      boolean silenced,
                                      boolean checkDisallowed,
                                      boolean debugMethodsEnabled,
-                                     boolean profilerEnabled) throws InstrumentationException {
-        super(Opcodes.ASM5, cv);
+                                     boolean profilerEnabled,
+                                     boolean coalesceCharges) throws InstrumentationException {
+        super(Opcodes.ASM9, cv);
         this.loader = loader;
         this.silenced = silenced;
         this.checkDisallowed = checkDisallowed;
         this.debugMethodsEnabled = debugMethodsEnabled;
         this.profilerEnabled = profilerEnabled;
+        this.coalesceCharges = coalesceCharges;
     }
 
     /**
@@ -110,7 +114,8 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
                 silenced,
                 checkDisallowed,
                 debugMethodsEnabled,
-                profilerEnabled
+                profilerEnabled,
+                coalesceCharges
         );
     }
 
@@ -148,4 +153,25 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
         );
     }
 
+    /**
+     * @inheritDoc
+     */
+    public void visitNestHost(String nestHost) {
+        super.visitNestHost(loader.getRefUtil().classReference(nestHost, checkDisallowed));
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public void visitNestMember(String nestMember) {
+        super.visitNestMember(loader.getRefUtil().classReference(nestMember, checkDisallowed));
+    }
+
+    /**
+     * @inheritDoc
+     */
+    public void visitPermittedSubclass(String permittedSubclass) {
+        super.visitPermittedSubclass(loader.getRefUtil().classReference(permittedSubclass, checkDisallowed));
+    }
+
 }
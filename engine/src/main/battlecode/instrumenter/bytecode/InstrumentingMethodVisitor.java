@@ -8,7 +8,6 @@ import org.objectweb.asm.*;
 import org.objectweb.asm.tree.*;
 
 import java.lang.reflect.Method;
-import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -32,6 +31,10 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     private final boolean checkDisallowed;
     private final boolean debugMethodsEnabled;
     private final boolean profilerEnabled;
+    private final boolean coalesceCharges;
+
+    // the FrameTable id of this method, if we're adding profiler hooks to it
+    private final int frameId;
 
     // used to load other class files
     private final TeamClassLoaderFactory.Loader loader;
@@ -66,15 +69,21 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                                       boolean silenced,
                                       boolean checkDisallowed,
                                       boolean debugMethodsEnabled,
-                                      boolean profilerEnabled) {
-        super(ASM5, access, methodName, methodDesc, signature, exceptions);
+                                      boolean profilerEnabled,
+                                      boolean coalesceCharges) {
+        super(ASM9, access, methodName, methodDesc, signature, exceptions);
         this.methodWriter = mv;
 
         this.loader = loader;
         this.className = className;
         this.checkDisallowed = checkDisallowed;
         this.debugMethodsEnabled = debugMethodsEnabled;
-        this.profilerEnabled = profilerEnabled;
+        // the profiler only profiles down to methods created by the player
+        this.profilerEnabled = profilerEnabled && !className.startsWith("instrumented/");
+        this.coalesceCharges = coalesceCharges;
+        this.frameId = this.profilerEnabled
+                ? loader.getFactory().getFrameTable().getFrameId(className.replace('/', '.') + "." + methodName)
+                : -1;
     }
 
     protected String classReference(String name) {
@@ -167,6 +176,10 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         if (anyTryCatch) {
             addRobotDeathHandler();
         }
+        if (coalesceCharges) {
+            // must be called last, so it sees every instruction we've added
+            ChargeCoalescer.coalesce(this);
+        }
         for (Object o : localVariables) {
             visitLocalVariableNode((LocalVariableNode) o);
         }
@@ -205,13 +218,13 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 INVOKESTATIC,
                 "battlecode/instrumenter/inject/RobotMonitor",
                 "enterMethod",
-                "(" + Type.getDescriptor(String.class) + ")V",
+                "(I)V",
                 false
             )
         );
         instructions.insertBefore(
             nextInstruction(instructions.getFirst()),
-            new LdcInsnNode(className.replaceAll("/", ".") + "." + name)
+            new LdcInsnNode(frameId)
         );
     }
 
@@ -221,12 +234,12 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         }
 
         // call "exitMethod" at every exit point of a method (return, implicit return and throw)
-        instructions.insertBefore(n, new LdcInsnNode(className.replaceAll("/", ".") + "." + name));
+        instructions.insertBefore(n, new LdcInsnNode(frameId));
         instructions.insertBefore(n, new MethodInsnNode(
             INVOKESTATIC,
             "battlecode/instrumenter/inject/RobotMonitor",
             "exitMethod",
-            "(" + Type.getDescriptor(String.class) + ")V",
+            "(I)V",
             false
         ));
     }
@@ -695,10 +708,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
      * @throws InstrumentationException if class <code>owner</code> cannot be found
      */
     private boolean isSuperClass(String owner, String superclass) {
-        ClassReader cr = TeamClassLoaderFactory.teamOrSystemReader(loader.getFactory(), owner);
-        InterfaceReader ir = new InterfaceReader(loader.getFactory());
-        cr.accept(ir, ClassReader.SKIP_DEBUG);
-        return Arrays.asList(ir.getInterfaces()).contains(superclass);
+        return loader.getFactory().getHierarchy().isSubclass(owner, superclass);
     }
 
     /**
@@ -1,8 +1,5 @@
 package battlecode.instrumenter.bytecode;
 
-import battlecode.instrumenter.TeamClassLoaderFactory;
-import org.objectweb.asm.ClassReader;
-
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
@@ -10,8 +7,6 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
 
-import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
-
 /**
  * MethodCostUtil is a singleton used for looking up MethodData associated with some methods.
  *
@@ -34,11 +29,6 @@ public class MethodCostUtil {
      */
     private final static Map<String, MethodData> methodCosts;
 
-    /**
-     * This is a map from binary class names, to all the classes/interfaces that the class transitively implements/extends.
-     */
-    private final static Map<String, String[]> interfacesMap;
-
     /**
      * A struct that stores data about a method -- what its lookup bytecode cost is, and whether it should end the basic block or not.
      */
@@ -71,8 +61,6 @@ public class MethodCostUtil {
         } catch (IOException e) {
             ClassReferenceUtil.fileLoadError(RESOURCE_FILE);
         }
-
-        interfacesMap = new HashMap<>();
     }
 
     /**
@@ -89,16 +77,7 @@ public class MethodCostUtil {
         if (methodCosts.containsKey(key))
             return methodCosts.get(key);
 
-        String[] interfaces;
-        if (interfacesMap.containsKey(className))
-            interfaces = interfacesMap.get(className);
-        else {
-            ClassReader cr = TeamClassLoaderFactory.normalReader(className);
-            InterfaceReader ir = new InterfaceReader(null);
-            cr.accept(ir, SKIP_DEBUG);
-            interfaces = ir.getInterfaces();
-            interfacesMap.put(className, interfaces);
-        }
+        String[] interfaces = ClassHierarchy.system().getAncestors(className);
 
         for (String anInterface : interfaces) {
             key = anInterface + "/" + methodName;
@@ -29,6 +29,19 @@ public final class RobotMonitor {
     private static boolean shouldDie;
     private static int debugLevel;
 
+    /**
+     * incrementBytecodes takes its slow path when bytecodesLeft drops to this or below.
+     *
+     * Normally 0, so that the common case is one subtraction and one comparison.
+     * Integer.MAX_VALUE whenever anything else needs handling (the robot should die,
+     * we're in a debug method, we're profiling, or there are deferred bytecodes to
+     * charge), which forces every call onto the slow path until it's handled.
+     *
+     * Whenever this is 0, bytecodesLeft is positive, so the fast path's subtraction
+     * can't overflow.
+     */
+    private static int slowPathThreshold;
+
     private static SandboxedRobotPlayer.Pauser pauser;
     private static SandboxedRobotPlayer.Killer killer;
 
@@ -54,6 +67,7 @@ public final class RobotMonitor {
                             Profiler theProfiler) {
         shouldDie = false;
         bytecodesLeft = 0;
+        bytecodesToRemove = 0;
         debugLevel = 0;
 
         randomSeed = seed;
@@ -61,6 +75,17 @@ public final class RobotMonitor {
         killer = theKiller;
 
         profiler = theProfiler;
+
+        updateSlowPathThreshold();
+    }
+
+    /**
+     * @return a bridge to this monitor, so SandboxedRobotPlayer doesn't need
+     *         reflection to call it every turn
+     */
+    @SuppressWarnings("unused")
+    public static SandboxedRobotPlayer.MonitorBridge bridge() {
+        return new Bridge();
     }
 
     /**
@@ -92,6 +117,7 @@ public final class RobotMonitor {
     @SuppressWarnings("unused")
     public static void killRobot() {
         shouldDie = true;
+        updateSlowPathThreshold();
     }
 
     /**
@@ -118,24 +144,42 @@ public final class RobotMonitor {
      * If the robot exceeds its bytecode limit for the round, this method will block until the robot's next round.
      * Should be called at the end of every basic block.
      *
+     * This runs inside player code constantly, so it's kept as small as possible:
+     * anything besides counting is handled in incrementBytecodesSlow.
+     *
      * THIS METHOD IS CALLED BY THE INSTRUMENTER.
      *
-     * @param numBytecodes the number of bytecodes the robot just executed
+     * @param numBytecodes the number of bytecodes the robot just executed; never negative
      */
     @SuppressWarnings("unused")
     public static void incrementBytecodes(int numBytecodes) {
+        if ((bytecodesLeft -= numBytecodes) <= slowPathThreshold) {
+            incrementBytecodesSlow(numBytecodes);
+        }
+    }
+
+    /**
+     * Handles everything incrementBytecodes doesn't: dying, running out of bytecodes,
+     * debug methods, profiling, and bytecodes from incrementBytecodesWithoutInterrupt.
+     *
+     * @param numBytecodes the number of bytecodes the robot just executed
+     */
+    private static void incrementBytecodesSlow(int numBytecodes) {
+        // Undo the fast path's subtraction; we may not be charging anything.
+        bytecodesLeft += numBytecodes;
+
         // If we should die, then... do that.
         if (shouldDie) {
             killer.kill();
         }
 
         if (debugLevel == 0) {
-            try {
-                // check for integer overflow exploits
-                bytecodesLeft = Math.subtractExact(bytecodesLeft, numBytecodes);
-                bytecodesLeft = Math.subtractExact(bytecodesLeft, bytecodesToRemove);
-            } catch (ArithmeticException e) {
+            // check for integer overflow exploits
+            final long left = (long) bytecodesLeft - numBytecodes - bytecodesToRemove;
+            if (left < Integer.MIN_VALUE || left > Integer.MAX_VALUE) {
                 bytecodesLeft = Integer.MIN_VALUE;
+            } else {
+                bytecodesLeft = (int) left;
             }
 
             if (profiler != null) {
@@ -148,8 +192,9 @@ public final class RobotMonitor {
                 pause();
             }
         }
-	
-	    bytecodesToRemove = 0;
+
+        bytecodesToRemove = 0;
+        updateSlowPathThreshold();
     }
 
     /**
@@ -167,11 +212,9 @@ public final class RobotMonitor {
         // Several potential exploits mean this argument may be passed a negative value.
         // It's easier to deal with this here than in the instrumenter.
         if (numBytecodes > 0) {
-            try {
-                bytecodesToRemove = Math.addExact(bytecodesToRemove, numBytecodes);  // to prevent integer overflow
-            } catch (ArithmeticException e) {
-                bytecodesToRemove = Integer.MAX_VALUE;
-            }
+            // to prevent integer overflow
+            bytecodesToRemove = (int) Math.min((long) bytecodesToRemove + numBytecodes, Integer.MAX_VALUE);
+            slowPathThreshold = Integer.MAX_VALUE;
         }
     }
 
@@ -222,6 +265,7 @@ public final class RobotMonitor {
     @SuppressWarnings("unused")
     public static void incrementDebugLevel() {
         debugLevel++;
+        slowPathThreshold = Integer.MAX_VALUE;
     }
 
     /**
@@ -236,6 +280,7 @@ public final class RobotMonitor {
             ErrorReporter.report("Debug level below zero, this should be impossible!", true);
             killRobot();
         }
+        updateSlowPathThreshold();
     }
 
 
@@ -255,12 +300,12 @@ public final class RobotMonitor {
      *
      * THIS METHOD IS CALLED BY THE INSTRUMENTER.
      *
-     * @param methodName the name of the method that is being entered
+     * @param methodId the FrameTable id of the method that is being entered
      */
     @SuppressWarnings("unused")
-    public static void enterMethod(String methodName) {
+    public static void enterMethod(int methodId) {
         if (debugLevel == 0 && profiler != null) {
-            profiler.enterMethod(methodName);
+            profiler.enterMethod(methodId);
         }
     }
 
@@ -269,12 +314,12 @@ public final class RobotMonitor {
      *
      * THIS METHOD IS CALLED BY THE INSTRUMENTER.
      *
-     * @param methodName the name of the method that is being exited
+     * @param methodId the FrameTable id of the method that is being exited
      */
     @SuppressWarnings("unused")
-    public static void exitMethod(String methodName) {
+    public static void exitMethod(int methodId) {
         if (debugLevel == 0 && profiler != null) {
-            profiler.exitMethod(methodName);
+            profiler.exitMethod(methodId);
         }
     }
 
@@ -305,5 +350,42 @@ public final class RobotMonitor {
         } else {
             bytecodesLeft = bytecodeLimit;
         }
+
+        updateSlowPathThreshold();
+    }
+
+    /**
+     * Recompute slowPathThreshold after any of the state it depends on changes.
+     */
+    private static void updateSlowPathThreshold() {
+        if (shouldDie || debugLevel != 0 || profiler != null
+                || bytecodesToRemove != 0 || bytecodesLeft <= 0) {
+            slowPathThreshold = Integer.MAX_VALUE;
+        } else {
+            slowPathThreshold = 0;
+        }
+    }
+
+    /**
+     * Forwards to the static methods of this RobotMonitor.
+     *
+     * Must be in TeamClassLoaderFactory.alwaysRedefine, so that each robot's
+     * Bridge is linked against that robot's copy of RobotMonitor.
+     */
+    public static final class Bridge implements SandboxedRobotPlayer.MonitorBridge {
+        @Override
+        public void setBytecodeLimit(int limit) {
+            RobotMonitor.setBytecodeLimit(limit);
+        }
+
+        @Override
+        public int getBytecodeNum() {
+            return RobotMonitor.getBytecodeNum();
+        }
+
+        @Override
+        public void killRobot() {
+            RobotMonitor.killRobot();
+        }
     }
 }
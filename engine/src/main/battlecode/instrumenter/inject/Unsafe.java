@@ -3,7 +3,8 @@ package battlecode.instrumenter.inject;
 import java.lang.reflect.Field;
 
 /**
- * Do-nothing replacement for sun.misc.Unsafe.  Used by Random.
+ * Do-nothing replacement for sun.misc.Unsafe and, from Java 9,
+ * jdk.internal.misc.Unsafe.  Used by Random.
  */
 @SuppressWarnings("unused")
 public class Unsafe {
@@ -21,7 +22,14 @@ public class Unsafe {
         return 0;
     }
 
+    public long objectFieldOffset(Class<?> c, String name) {
+        return 0;
+    }
+
     public void putObjectVolatile(Object o, long offset, Object x) {
     }
 
+    public void putReferenceVolatile(Object o, long offset, Object x) {
+    }
+
 }
@@ -0,0 +1,167 @@
+package battlecode.instrumenter.profiler;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.list.array.TLongArrayList;
+import gnu.trove.map.hash.TLongIntHashMap;
+
+/**
+ * A CallTree aggregates the samples taken by SamplingProfilers, keyed by the
+ * stack of frames the robot was in when each sample was taken. Each node is
+ * one stack: its parent is the stack without the innermost frame.
+ * <p>
+ * The robots of a team run one at a time, so a CallTree can be shared by all
+ * of the team's robots of one type without locking.
+ */
+public final class CallTree {
+    /**
+     * The node for the empty stack.
+     */
+    public static final int ROOT = 0;
+
+    private static final int NONE = -1;
+
+    private final String name;
+    private final int maxNodes;
+
+    private final TIntArrayList parents = new TIntArrayList();
+    private final TIntArrayList frames = new TIntArrayList();
+    private final TIntArrayList firstChildren = new TIntArrayList();
+    private final TIntArrayList lastChildren = new TIntArrayList();
+    private final TIntArrayList nextSiblings = new TIntArrayList();
+    private final TLongArrayList samples = new TLongArrayList();
+
+    /**
+     * Maps (parent node, frame) to the child node. ROOT is nobody's child,
+     * so 0 means no entry.
+     */
+    private final TLongIntHashMap children = new TLongIntHashMap();
+
+    /**
+     * @param name     the display name of the profile this tree becomes
+     * @param maxNodes the number of stacks to track; samples in deeper stacks
+     *                 go to their deepest tracked ancestor
+     */
+    public CallTree(String name, int maxNodes) {
+        this.name = name;
+        this.maxNodes = Math.max(1, maxNodes);
+        addNode(NONE, NONE);
+    }
+
+    /**
+     * @param node    a node in this tree
+     * @param frameId the ProfilerCollection frame id of the method being entered
+     * @return the node for the stack with frameId pushed onto it, or -1 if
+     *         that stack is new and this tree is full
+     */
+    public int getChild(int node, int frameId) {
+        final long key = ((long) node << 32) | frameId;
+        final int child = children.get(key);
+        if (child != 0) {
+            return child;
+        }
+        if (parents.size() >= maxNodes) {
+            return NONE;
+        }
+
+        final int created = addNode(node, frameId);
+        children.put(key, created);
+        if (firstChildren.get(node) == NONE) {
+            firstChildren.set(node, created);
+        } else {
+            nextSiblings.set(lastChildren.get(node), created);
+        }
+        lastChildren.set(node, created);
+        return created;
+    }
+
+    /**
+     * @param node a node in this tree other than ROOT
+     * @return the node for the stack with the innermost frame popped
+     */
+    public int getParent(int node) {
+        return parents.get(node);
+    }
+
+    /**
+     * @param node  the stack the robot was in
+     * @param count the number of samples taken there
+     */
+    public void addSamples(int node, long count) {
+        samples.set(node, samples.get(node) + count);
+    }
+
+    /**
+     * @param node a node in this tree
+     * @return the number of samples taken in exactly this stack
+     */
+    public long getSamples(int node) {
+        return samples.get(node);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Lays the tree out as a profile in the same format a TracingProfiler
+     * records, with each stack taking up as much time as it has samples, so
+     * the client can show it like any other profile. Stacks without any
+     * samples are left out, and so are samples taken outside of any method.
+     *
+     * @return the events of the profile, measured in samples
+     */
+    public ProfilerEventBuffer toEvents() {
+        final int size = parents.size();
+
+        // Children are always added after their parents
+        final long[] totals = samples.toArray();
+        totals[ROOT] = 0;
+        for (int node = size - 1; node > ROOT; node--) {
+            totals[parents.get(node)] += totals[node];
+        }
+
+        final ProfilerEventBuffer events = new ProfilerEventBuffer();
+        final TIntArrayList stack = new TIntArrayList();
+        final TIntArrayList nextChildren = new TIntArrayList();
+        stack.add(ROOT);
+        nextChildren.add(firstChildren.get(ROOT));
+        long time = 0;
+
+        while (!stack.isEmpty()) {
+            final int top = stack.size() - 1;
+            final int child = nextChildren.get(top);
+
+            if (child != NONE) {
+                nextChildren.set(top, nextSiblings.get(child));
+                if (totals[child] > 0) {
+                    events.add(ProfilerEventType.OPEN, clamp(time), frames.get(child));
+                    stack.add(child);
+                    nextChildren.add(firstChildren.get(child));
+                }
+            } else {
+                final int node = stack.removeAt(top);
+                nextChildren.removeAt(top);
+                if (node != ROOT) {
+                    time += samples.get(node);
+                    events.add(ProfilerEventType.CLOSE, clamp(time), frames.get(node));
+                }
+            }
+        }
+
+        return events;
+    }
+
+    private int addNode(int parent, int frameId) {
+        parents.add(parent);
+        frames.add(frameId);
+        firstChildren.add(NONE);
+        lastChildren.add(NONE);
+        nextSiblings.add(NONE);
+        samples.add(0);
+        return parents.size() - 1;
+    }
+
+    private static int clamp(long time) {
+        return (int) Math.min(time, Integer.MAX_VALUE);
+    }
+}
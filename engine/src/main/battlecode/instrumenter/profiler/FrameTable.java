@@ -0,0 +1,44 @@
+package battlecode.instrumenter.profiler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A FrameTable assigns integer ids to the methods of a team's classes.
+ *
+ * Ids are handed out by the instrumenter when it adds the profiler's method
+ * entry and exit hooks, and baked into the instrumented code, so the profiler
+ * never has to look a method up by name while a robot is running. There is
+ * one FrameTable per TeamClassLoaderFactory, since instrumented classes are
+ * cached there and shared by every match that team plays.
+ *
+ * Safe to use from multiple threads.
+ */
+public final class FrameTable {
+    private final List<String> names = new ArrayList<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+
+    /**
+     * @param methodName the display name of the method, e.g. "examplefuncsplayer.RobotPlayer.run"
+     * @return the id of the method, assigning one if needed
+     */
+    public synchronized int getFrameId(String methodName) {
+        Integer id = ids.get(methodName);
+        if (id == null) {
+            id = names.size();
+            names.add(methodName);
+            ids.put(methodName, id);
+        }
+        return id;
+    }
+
+    /**
+     * @param frameId an id returned by getFrameId
+     * @return the name of the method
+     */
+    public synchronized String getName(int frameId) {
+        return names.get(frameId);
+    }
+}
@@ -3,7 +3,9 @@ package battlecode.instrumenter.profiler;
 import battlecode.common.RobotType;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
 import java.util.Map;
 
@@ -11,53 +13,225 @@ import java.util.Map;
  * A ProfilerCollection is a collection of all Profiler instances for a team for a match.
  */
 public class ProfilerCollection {
+    private final FrameTable frameTable;
+
+    /**
+     * The number of events each robot's profiler may record. Budgeting per
+     * robot, rather than per team, means robots spawned late in a match
+     * still get profiled.
+     */
+    private final int maxEventsPerRobot;
+
+    /**
+     * The number of events all of the team's robots may record between them
+     * when tracing, so that a match with many robots doesn't make the replay
+     * too big for the client to open.
+     */
+    private final int maxEventsPerTeam;
+
+    // The events the team's tracing profilers have recorded, and the frames
+    // they have open, which will each take one more event to close
+    private int teamRecordedCount = 0;
+    private int teamOpenFrameCount = 0;
+
     /**
-     * We record a maximum of 2,000,000 events per team per match.
-     * This equals a rough maximum of 50MB of profiling data per match,
-     * which should prevent the client from hanging when opening a replay
-     * of a match in which profiling was enabled.
+     * The number of bytecodes between samples, or 0 to trace every method
+     * entry and exit instead of sampling.
      */
-    private static final int MAX_EVENTS_TO_RECORD = 2_000_000;
+    private final int sampleInterval;
 
-    private List<Profiler> profilers = new ArrayList<>();
+    /**
+     * Where to stream profiling data to, or null to keep it for the match footer.
+     */
+    private final ProfilerSidecarWriter sidecar;
+
+    private boolean sidecarMatchStarted = false;
+
+    private List<TracingProfiler> profilers = new ArrayList<>();
+
+    private Map<RobotType, CallTree> callTrees = new EnumMap<>(RobotType.class);
 
     private List<String> frames = new ArrayList<>();
-    private Map<String, Integer> frameIds = new HashMap<>();
 
-    private int recordedEvents = 0;
+    /**
+     * Maps ids from frameTable to indices in frames, which only holds the
+     * methods that were actually entered this match; -1 if not entered yet.
+     */
+    private int[] frameIds = new int[0];
+
+    /**
+     * Create a collection that traces every method entry and exit, with no
+     * limit for the whole team.
+     *
+     * @param frameTable        the table the team's instrumented code got its frame ids from
+     * @param maxEventsPerRobot the number of events each robot's profiler may record
+     */
+    public ProfilerCollection(FrameTable frameTable, int maxEventsPerRobot) {
+        this(frameTable, maxEventsPerRobot, 0);
+    }
+
+    /**
+     * Create a collection with no limit for the whole team.
+     *
+     * @param frameTable        the table the team's instrumented code got its frame ids from
+     * @param maxEventsPerRobot the number of events each robot's profiler may record; when
+     *                          sampling, the number of events each robot type's profile may have
+     * @param sampleInterval    the number of bytecodes between samples, or 0 to trace
+     *                          every method entry and exit instead
+     */
+    public ProfilerCollection(FrameTable frameTable, int maxEventsPerRobot, int sampleInterval) {
+        this(frameTable, maxEventsPerRobot, sampleInterval, null);
+    }
+
+    /**
+     * Create a collection with no limit for the whole team.
+     *
+     * @param frameTable        the table the team's instrumented code got its frame ids from
+     * @param maxEventsPerRobot the number of events each robot's profiler may record; when
+     *                          sampling, the number of events each robot type's profile may have
+     * @param sampleInterval    the number of bytecodes between samples, or 0 to trace
+     *                          every method entry and exit instead
+     * @param sidecar           the team's file to stream this match's profiling data to,
+     *                          or null to keep it in memory for the match footer
+     */
+    public ProfilerCollection(FrameTable frameTable, int maxEventsPerRobot, int sampleInterval,
+                              ProfilerSidecarWriter sidecar) {
+        this(frameTable, maxEventsPerRobot, Integer.MAX_VALUE, sampleInterval, sidecar);
+    }
+
+    /**
+     * @param frameTable        the table the team's instrumented code got its frame ids from
+     * @param maxEventsPerRobot the number of events each robot's profiler may record; when
+     *                          sampling, the number of events each robot type's profile may have
+     * @param maxEventsPerTeam  the number of events the team's robots may record between
+     *                          them when tracing
+     * @param sampleInterval    the number of bytecodes between samples, or 0 to trace
+     *                          every method entry and exit instead
+     * @param sidecar           the team's file to stream this match's profiling data to,
+     *                          or null to keep it in memory for the match footer
+     */
+    public ProfilerCollection(FrameTable frameTable, int maxEventsPerRobot, int maxEventsPerTeam,
+                              int sampleInterval, ProfilerSidecarWriter sidecar) {
+        this.frameTable = frameTable;
+        this.maxEventsPerRobot = maxEventsPerRobot;
+        this.maxEventsPerTeam = maxEventsPerTeam;
+        this.sampleInterval = sampleInterval;
+        this.sidecar = sidecar;
+    }
 
     public Profiler createProfiler(int robotId, RobotType robotType) {
+        startSidecarMatch();
+
+        if (sampleInterval > 0) {
+            CallTree tree = callTrees.get(robotType);
+            if (tree == null) {
+                // Every stack in the tree becomes an open and a close event
+                tree = new CallTree(String.format("%s (sampled every %d bytecodes)",
+                        robotType.toString(), sampleInterval), maxEventsPerRobot / 2);
+                callTrees.put(robotType, tree);
+            }
+            return new SamplingProfiler(this, tree, sampleInterval);
+        }
+
         // The name has to be display-friendly
         String name = String.format("#%s (%s)", robotId, robotType.toString());
 
-        Profiler profiler = new Profiler(this, name);
+        TracingProfiler profiler = new TracingProfiler(this, name, maxEventsPerRobot, sidecar);
         profilers.add(profiler);
 
         return profiler;
     }
 
+    /**
+     * Called once the match is over and every robot has stopped running.
+     * Streams out whatever profiling data is still in memory, if streaming.
+     */
+    public void finishMatch() {
+        if (sidecar == null) {
+            return;
+        }
+
+        startSidecarMatch();
+        for (TracingProfiler profiler : profilers) {
+            profiler.flush();
+        }
+        for (CallTree tree : callTrees.values()) {
+            sidecar.writeEvents(sidecar.writeProfile(tree.getName()), tree.toEvents());
+        }
+        sidecar.flush();
+    }
+
+    /**
+     * @return the file this collection streams to, or null if it doesn't
+     */
+    public ProfilerSidecarWriter getSidecar() {
+        return sidecar;
+    }
+
     public List<String> getFrames() {
         return frames;
     }
 
-    public List<Profiler> getProfilers() {
+    /**
+     * @return the profiler of each robot, if tracing
+     */
+    public List<TracingProfiler> getProfilers() {
         return profilers;
     }
 
-    public int getFrameId(String methodName) {
-        if (!frameIds.containsKey(methodName)) {
-            frames.add(methodName);
-            frameIds.put(methodName, frames.size() - 1);
+    /**
+     * @return the samples of each robot type, if sampling
+     */
+    public Collection<CallTree> getCallTrees() {
+        return callTrees.values();
+    }
+
+    /**
+     * @param methodId the id of a method in the FrameTable
+     * @return the index of the method in getFrames()
+     */
+    public int getFrameId(int methodId) {
+        if (methodId >= frameIds.length) {
+            final int oldLength = frameIds.length;
+            frameIds = Arrays.copyOf(frameIds, Math.max(methodId + 1, oldLength * 2));
+            Arrays.fill(frameIds, oldLength, frameIds.length, -1);
+        }
+
+        if (frameIds[methodId] < 0) {
+            frames.add(frameTable.getName(methodId));
+            frameIds[methodId] = frames.size() - 1;
+            if (sidecar != null) {
+                sidecar.writeFrame(frameIds[methodId], frames.get(frameIds[methodId]));
+            }
         }
 
-        return frameIds.get(methodName);
+        return frameIds[methodId];
     }
 
-    public void recordEvent() {
-        recordedEvents++;
+    /**
+     * @return whether the team may open another frame, leaving room to close
+     *         it and every frame that's already open
+     */
+    boolean canOpenFrame() {
+        return (long) teamRecordedCount + teamOpenFrameCount + 2 <= maxEventsPerTeam;
+    }
+
+    /**
+     * Count an event a tracing profiler recorded against the team's limit.
+     */
+    void countEvent(ProfilerEventType type) {
+        teamRecordedCount++;
+        if (type == ProfilerEventType.OPEN) {
+            teamOpenFrameCount++;
+        } else {
+            teamOpenFrameCount--;
+        }
     }
 
-    public boolean isRecordingEvents() {
-        return recordedEvents < MAX_EVENTS_TO_RECORD;
+    private void startSidecarMatch() {
+        if (sidecar != null && !sidecarMatchStarted) {
+            sidecar.startMatch();
+            sidecarMatchStarted = true;
+        }
     }
 }
@@ -0,0 +1,110 @@
+package battlecode.instrumenter.profiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The events recorded by a Profiler, packed one per long into fixed-size
+ * chunks rather than kept as objects. A profiled match can record millions
+ * of events, and this keeps them to 8 bytes each with nothing for the
+ * garbage collector to trace.
+ *
+ * Each event is packed as:
+ *  - bit 63: set for an OPEN event, clear for a CLOSE event
+ *  - bits 32-62: the frame id
+ *  - bits 0-31: the bytecode count the event happened at
+ */
+public final class ProfilerEventBuffer {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final long OPEN_BIT = 1L << 63;
+
+    private final List<long[]> chunks = new ArrayList<>();
+    private long[] current;
+    private int size = 0;
+
+    /**
+     * Record an event.
+     *
+     * @param type    whether a frame was opened or closed
+     * @param at      the bytecode count at the time of the event
+     * @param frameId the frame opened or closed; never negative
+     */
+    public void add(ProfilerEventType type, int at, int frameId) {
+        final int offset = size & CHUNK_MASK;
+        if (offset == 0) {
+            current = new long[CHUNK_SIZE];
+            chunks.add(current);
+        }
+
+        current[offset] = (type == ProfilerEventType.OPEN ? OPEN_BIT : 0)
+                | ((long) frameId << 32)
+                | (at & 0xFFFFFFFFL);
+        size++;
+    }
+
+    /**
+     * Forget every event recorded so far.
+     */
+    public void clear() {
+        chunks.clear();
+        current = null;
+        size = 0;
+    }
+
+    /**
+     * @return the number of events recorded
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index the index of the event, in the order recorded
+     * @return whether the event opened or closed a frame
+     */
+    public ProfilerEventType getType(int index) {
+        return unpackType(get(index));
+    }
+
+    /**
+     * @param index the index of the event, in the order recorded
+     * @return the bytecode count at the time of the event
+     */
+    public int getAt(int index) {
+        return unpackAt(get(index));
+    }
+
+    /**
+     * @param index the index of the event, in the order recorded
+     * @return the frame the event opened or closed
+     */
+    public int getFrameId(int index) {
+        return unpackFrameId(get(index));
+    }
+
+    /**
+     * @param index the index of the event, in the order recorded
+     * @return the packed event
+     */
+    long get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+        return chunks.get(index >>> CHUNK_BITS)[index & CHUNK_MASK];
+    }
+
+    static ProfilerEventType unpackType(long event) {
+        return (event & OPEN_BIT) != 0 ? ProfilerEventType.OPEN : ProfilerEventType.CLOSE;
+    }
+
+    static int unpackAt(long event) {
+        return (int) event;
+    }
+
+    static int unpackFrameId(long event) {
+        return (int) ((event & ~OPEN_BIT) >>> 32);
+    }
+}
@@ -0,0 +1,234 @@
+package battlecode.instrumenter.profiler;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the files ProfilerSidecarWriter writes, and converts them to
+ * speedscope's file format (https://www.speedscope.app/file-format-schema.json)
+ * so they can be opened at https://www.speedscope.app.
+ * <p>
+ * Usage: ProfilerSidecarReader input.bcprof output.json
+ */
+public final class ProfilerSidecarReader {
+
+    /**
+     * A profile read from a sidecar file, with frame ids that index into
+     * the frames of the whole file.
+     */
+    public static final class Profile {
+        private final String name;
+        private final ProfilerEventBuffer events = new ProfilerEventBuffer();
+
+        private Profile(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public ProfilerEventBuffer getEvents() {
+            return events;
+        }
+    }
+
+    private final List<String> frames = new ArrayList<>();
+    private final List<Profile> profiles = new ArrayList<>();
+
+    /**
+     * Read a whole sidecar file.
+     *
+     * @param in the gzipped file contents; not closed
+     * @throws IOException if the file can't be read or isn't a sidecar file
+     */
+    public ProfilerSidecarReader(InputStream in) throws IOException {
+        final DataInputStream data = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in)));
+        if (data.readInt() != ProfilerSidecarWriter.MAGIC) {
+            throw new IOException("Not a profiler sidecar file");
+        }
+        final int version = data.readInt();
+        if (version != ProfilerSidecarWriter.VERSION) {
+            throw new IOException("Unsupported profiler sidecar version " + version);
+        }
+
+        // Frame ids start over every match, but speedscope wants one list
+        final Map<String, Integer> frameIds = new HashMap<>();
+        final TIntArrayList matchFrames = new TIntArrayList();
+        final Map<Integer, Profile> profilesById = new LinkedHashMap<>();
+        int match = 0;
+
+        while (true) {
+            final int kind = data.read();
+            if (kind < 0) {
+                break;
+            }
+
+            try {
+                switch (kind) {
+                    case ProfilerSidecarWriter.MATCH:
+                        match++;
+                        matchFrames.resetQuick();
+                        break;
+                    case ProfilerSidecarWriter.FRAME: {
+                        final int local = data.readInt();
+                        final String name = data.readUTF();
+                        Integer global = frameIds.get(name);
+                        if (global == null) {
+                            global = frames.size();
+                            frames.add(name);
+                            frameIds.put(name, global);
+                        }
+                        while (matchFrames.size() <= local) {
+                            matchFrames.add(-1);
+                        }
+                        matchFrames.set(local, global);
+                        break;
+                    }
+                    case ProfilerSidecarWriter.PROFILE: {
+                        final int id = data.readInt();
+                        final Profile profile = new Profile(String.format("Match %d: %s", match, data.readUTF()));
+                        profilesById.put(id, profile);
+                        profiles.add(profile);
+                        break;
+                    }
+                    case ProfilerSidecarWriter.EVENTS: {
+                        final Profile profile = profilesById.get(data.readInt());
+                        final int count = data.readInt();
+                        if (profile == null) {
+                            throw new IOException("Events for an undeclared profile");
+                        }
+                        for (int i = 0; i < count; i++) {
+                            final long event = data.readLong();
+                            final int local = ProfilerEventBuffer.unpackFrameId(event);
+                            if (local >= matchFrames.size() || matchFrames.get(local) < 0) {
+                                throw new IOException("Event for an undeclared frame");
+                            }
+                            profile.events.add(ProfilerEventBuffer.unpackType(event),
+                                    ProfilerEventBuffer.unpackAt(event), matchFrames.get(local));
+                        }
+                        break;
+                    }
+                    default:
+                        throw new IOException("Unknown record kind " + kind);
+                }
+            } catch (EOFException e) {
+                // The engine probably stopped partway through; keep what we have
+                break;
+            }
+        }
+    }
+
+    /**
+     * @return the name of every method in the file
+     */
+    public List<String> getFrames() {
+        return frames;
+    }
+
+    /**
+     * @return every profile in the file, in the order they were started
+     */
+    public List<Profile> getProfiles() {
+        return profiles;
+    }
+
+    /**
+     * Write the file out in speedscope's format.
+     *
+     * @param out  where to write to; not closed
+     * @param name the name to show for the file
+     * @throws IOException if writing fails
+     */
+    public void writeSpeedscope(Writer out, String name) throws IOException {
+        out.write("{\"$schema\":\"https://www.speedscope.app/file-format-schema.json\"");
+        out.write(",\"name\":");
+        writeString(out, name);
+        out.write(",\"exporter\":\"battlecode\"");
+
+        out.write(",\"shared\":{\"frames\":[");
+        for (int i = 0; i < frames.size(); i++) {
+            out.write(i == 0 ? "{\"name\":" : ",{\"name\":");
+            writeString(out, frames.get(i));
+            out.write('}');
+        }
+        out.write("]}");
+
+        out.write(",\"profiles\":[");
+        for (int i = 0; i < profiles.size(); i++) {
+            final Profile profile = profiles.get(i);
+            final ProfilerEventBuffer events = profile.events;
+            if (i > 0) {
+                out.write(',');
+            }
+
+            out.write("{\"type\":\"evented\",\"name\":");
+            writeString(out, profile.name);
+            out.write(",\"unit\":\"none\",\"startValue\":0,\"endValue\":");
+            out.write(Integer.toString(events.size() == 0 ? 0 : events.getAt(events.size() - 1)));
+            out.write(",\"events\":[");
+            for (int j = 0; j < events.size(); j++) {
+                out.write(j == 0 ? "{\"type\":\"" : ",{\"type\":\"");
+                out.write(events.getType(j).getValue());
+                out.write("\",\"frame\":");
+                out.write(Integer.toString(events.getFrameId(j)));
+                out.write(",\"at\":");
+                out.write(Integer.toString(events.getAt(j)));
+                out.write('}');
+            }
+            out.write("]}");
+        }
+        out.write("]}");
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: ProfilerSidecarReader input.bcprof output.json");
+            System.exit(1);
+        }
+
+        final File input = new File(args[0]);
+        final ProfilerSidecarReader reader;
+        try (InputStream in = new FileInputStream(input)) {
+            reader = new ProfilerSidecarReader(in);
+        }
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(args[1]), StandardCharsets.UTF_8))) {
+            reader.writeSpeedscope(out, input.getName());
+        }
+    }
+}
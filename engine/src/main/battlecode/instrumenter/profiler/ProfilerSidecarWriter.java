@@ -0,0 +1,174 @@
+package battlecode.instrumenter.profiler;
+
+import battlecode.server.ErrorReporter;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streams one team's profiling data to its own file as a game runs, instead
+ * of keeping it in memory until the match footer is written into the replay.
+ * <p>
+ * The file is gzipped, and after a header of MAGIC and VERSION as ints, is a
+ * series of records, each starting with a byte saying what kind it is:
+ * <ul>
+ * <li>MATCH: a new match starts. Frame ids start over.</li>
+ * <li>FRAME: an int frame id, then the UTF method name it stands for.</li>
+ * <li>PROFILE: an int profile id, unique within the file, then the UTF
+ *     display name of the profile.</li>
+ * <li>EVENTS: an int profile id, an int count, then that many events of the
+ *     profile, packed into longs the way ProfilerEventBuffer packs them.</li>
+ * </ul>
+ * A profile's events may be split over several EVENTS records, interleaved
+ * with other profiles'. ProfilerSidecarReader turns a file into speedscope's
+ * format.
+ * <p>
+ * If writing fails, the error is reported once and the rest of the profiling
+ * data is dropped; the match itself carries on.
+ */
+public final class ProfilerSidecarWriter implements Closeable {
+    public static final int MAGIC = 0x42435046; // "BCPF"
+    public static final int VERSION = 1;
+
+    public static final byte MATCH = 1;
+    public static final byte FRAME = 2;
+    public static final byte PROFILE = 3;
+    public static final byte EVENTS = 4;
+
+    private final File file;
+    private DataOutputStream out;
+
+    private int profileCount = 0;
+
+    /**
+     * @param file the file to write to; replaced if it exists
+     * @throws IOException if the file can't be created
+     */
+    public ProfilerSidecarWriter(File file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(file))));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * @return the file being written to
+     */
+    public File getFile() {
+        return file;
+    }
+
+    public synchronized void startMatch() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(MATCH);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @param frameId the id events of the current match use for the method
+     * @param name    the display name of the method
+     */
+    public synchronized void writeFrame(int frameId, String name) {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.writeByte(FRAME);
+            out.writeInt(frameId);
+            out.writeUTF(name);
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * @param name the display name of the profile
+     * @return the id to write the profile's events under
+     */
+    public synchronized int writeProfile(String name) {
+        final int profileId = profileCount++;
+        if (out == null) {
+            return profileId;
+        }
+        try {
+            out.writeByte(PROFILE);
+            out.writeInt(profileId);
+            out.writeUTF(name);
+        } catch (IOException e) {
+            fail(e);
+        }
+        return profileId;
+    }
+
+    /**
+     * Write out events, which the caller may then clear.
+     *
+     * @param profileId the id of the profile the events belong to
+     * @param events    the events, continuing from the profile's last ones
+     */
+    public synchronized void writeEvents(int profileId, ProfilerEventBuffer events) {
+        if (out == null || events.size() == 0) {
+            return;
+        }
+        try {
+            out.writeByte(EVENTS);
+            out.writeInt(profileId);
+            out.writeInt(events.size());
+            for (int i = 0; i < events.size(); i++) {
+                out.writeLong(events.get(i));
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    /**
+     * Push everything written so far through to the file, e.g. at the end
+     * of a match.
+     */
+    public synchronized void flush() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.flush();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (out == null) {
+            return;
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            ErrorReporter.report(e, "Error writing profiler output to " + file, false);
+        }
+        out = null;
+    }
+
+    private void fail(IOException e) {
+        ErrorReporter.report(e, "Error writing profiler output to " + file
+                + "; the rest of it will be dropped", false);
+        try {
+            out.close();
+        } catch (IOException ignored) {
+            // Already reported
+        }
+        out = null;
+    }
+}
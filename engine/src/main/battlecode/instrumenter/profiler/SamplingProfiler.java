@@ -0,0 +1,83 @@
+package battlecode.instrumenter.profiler;
+
+/**
+ * A SamplingProfiler keeps track of which methods a robot is in, and every
+ * so many bytecodes adds a sample for that stack to a CallTree shared by the
+ * robots of its type.
+ * <p>
+ * Unlike a TracingProfiler, its output doesn't grow with the number of calls
+ * the robot makes, so it can stay on for a whole match.
+ */
+public class SamplingProfiler extends Profiler {
+    private final ProfilerCollection collection;
+    private final CallTree tree;
+
+    /**
+     * The number of bytecodes between samples.
+     */
+    private final int interval;
+
+    private long bytecodesUntilSample;
+
+    // the stack the robot is in
+    private int node = CallTree.ROOT;
+
+    // the number of methods entered since the tree filled up,
+    // which haven't been exited yet
+    private int untrackedDepth = 0;
+
+    /**
+     * @param collection the collection to look frame ids up in
+     * @param tree       the tree to add samples to
+     * @param interval   the number of bytecodes between samples; positive
+     */
+    public SamplingProfiler(ProfilerCollection collection, CallTree tree, int interval) {
+        this.collection = collection;
+        this.tree = tree;
+        this.interval = interval;
+        this.bytecodesUntilSample = interval;
+    }
+
+    @Override
+    public void incrementBytecodes(int amount) {
+        bytecodesUntilSample -= amount;
+        if (bytecodesUntilSample <= 0) {
+            final long count = 1 + (-bytecodesUntilSample) / interval;
+            bytecodesUntilSample += count * interval;
+            tree.addSamples(node, count);
+        }
+    }
+
+    @Override
+    public void enterMethod(int methodId) {
+        if (untrackedDepth > 0) {
+            untrackedDepth++;
+            return;
+        }
+
+        final int child = tree.getChild(node, collection.getFrameId(methodId));
+        if (child < 0) {
+            // Charge this method's samples to its caller until it exits
+            untrackedDepth++;
+            return;
+        }
+        node = child;
+    }
+
+    @Override
+    public void exitMethod(int methodId) {
+        if (untrackedDepth > 0) {
+            untrackedDepth--;
+            return;
+        }
+        if (node != CallTree.ROOT) {
+            node = tree.getParent(node);
+        }
+    }
+
+    @Override
+    public void exitOpenMethods() {
+        node = CallTree.ROOT;
+        untrackedDepth = 0;
+    }
+}
@@ -0,0 +1,148 @@
+package battlecode.instrumenter.profiler;
+
+import java.util.Arrays;
+
+/**
+ * A TracingProfiler records every method entry and exit of a robot, with the
+ * bytecode count it happened at.
+ * <p>
+ * Data is stored in such a way that it is easy to convert it to a file
+ * compatible with speedscope (https://github.com/jlfwong/speedscope)
+ * which is used in the client to show the profiling data. See
+ * https://github.com/jlfwong/speedscope/wiki/Importing-from-custom-sources
+ * for more information on speedscope's file format.
+ */
+public class TracingProfiler extends Profiler {
+    /**
+     * When streaming, the number of events to hold before writing them out.
+     */
+    private static final int STREAM_CHUNK_SIZE = 4096;
+
+    private final ProfilerCollection collection;
+    private final String name;
+
+    /**
+     * The number of events this profiler may record, including the events
+     * that will close the frames that are currently open.
+     */
+    private final int maxEvents;
+
+    /**
+     * Where to stream events to as they're recorded, or null to keep them
+     * all in memory.
+     */
+    private final ProfilerSidecarWriter sidecar;
+    private final int profileId;
+
+    private int bytecodeCounter = 0;
+
+    private final ProfilerEventBuffer events = new ProfilerEventBuffer();
+
+    // the number of events recorded, including any already streamed
+    private int recordedCount = 0;
+
+    // a stack of the frames that have been opened but not closed
+    private int[] openFrameIds = new int[16];
+    private int openFrameCount = 0;
+
+    // the number of methods entered since we ran out of events to record,
+    // which haven't been exited yet
+    private int unrecordedDepth = 0;
+
+    /**
+     * @param collection the collection to look frame ids up in
+     * @param name       the display name of the profile
+     * @param maxEvents  the number of events to record
+     * @param sidecar    where to stream events to, or null to keep them in memory
+     */
+    public TracingProfiler(ProfilerCollection collection, String name, int maxEvents,
+                           ProfilerSidecarWriter sidecar) {
+        this.collection = collection;
+        this.name = name;
+        this.maxEvents = maxEvents;
+        this.sidecar = sidecar;
+        this.profileId = sidecar != null ? sidecar.writeProfile(name) : -1;
+    }
+
+    @Override
+    public void incrementBytecodes(int amount) {
+        try {
+            bytecodeCounter = Math.addExact(bytecodeCounter, amount);
+        } catch (ArithmeticException e) {
+            bytecodeCounter = Integer.MAX_VALUE;
+        }
+    }
+
+    @Override
+    public void enterMethod(int methodId) {
+        // Leave room to close this frame and every frame that's already open
+        if (unrecordedDepth > 0 || recordedCount + openFrameCount + 2 > maxEvents
+                || !collection.canOpenFrame()) {
+            // Don't record anything until this method exits, so the events
+            // we did record stay balanced.
+            unrecordedDepth++;
+            return;
+        }
+
+        int frameId = collection.getFrameId(methodId);
+
+        record(ProfilerEventType.OPEN, frameId);
+        if (openFrameCount == openFrameIds.length) {
+            openFrameIds = Arrays.copyOf(openFrameIds, openFrameCount * 2);
+        }
+        openFrameIds[openFrameCount++] = frameId;
+    }
+
+    @Override
+    public void exitMethod(int methodId) {
+        if (unrecordedDepth > 0) {
+            unrecordedDepth--;
+            return;
+        }
+        if (openFrameCount == 0) {
+            return;
+        }
+
+        record(ProfilerEventType.CLOSE, collection.getFrameId(methodId));
+        openFrameCount--;
+    }
+
+    @Override
+    public void exitOpenMethods() {
+        while (openFrameCount > 0) {
+            record(ProfilerEventType.CLOSE, openFrameIds[--openFrameCount]);
+        }
+        unrecordedDepth = 0;
+    }
+
+    /**
+     * Stream out any events still in memory, if streaming.
+     */
+    public void flush() {
+        if (sidecar != null) {
+            sidecar.writeEvents(profileId, events);
+            events.clear();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return the events recorded; if streaming, only those not yet streamed
+     */
+    public ProfilerEventBuffer getEvents() {
+        return events;
+    }
+
+    private void record(ProfilerEventType type, int frameId) {
+        events.add(type, bytecodeCounter, frameId);
+        recordedCount++;
+        collection.countEvent(type);
+
+        if (sidecar != null && events.size() >= STREAM_CHUNK_SIZE) {
+            flush();
+        }
+    }
+}
@@ -78,11 +78,30 @@ public class LimitedPrintStream extends PrintStream {
         }
     }
 
+    /**
+     * Forget the teams' limits and what they've used of them, so that the
+     * next stream made sets them afresh; for a new replay file.
+     */
+    public static void resetLimits() {
+        for (int i = 0; i < limit.length; i++) {
+            limit[i] = -1;
+            reportedTruncation[i] = false;
+        }
+    }
+
     public void increaseByteLimit(int x) {
         if (limit[getArrayIndex()] > 0)
             limit[getArrayIndex()] += x;
     }
 
+    /**
+     * @return whether the team has used up its output limit, so that nothing
+     *         more written would be kept
+     */
+    public boolean isExhausted() {
+        return team != null && getRemainingByteLimit() == 0 && reportedTruncation[getArrayIndex()];
+    }
+
     public void setTeam(Team team) {
         this.team = team;
     }
@@ -6,19 +6,31 @@ import battlecode.common.Team;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 
 /**
  * RoboPrintStream is a wrapper for System.out that prepends a string identifying the current robot to
- * all outputted strings.  Also, RoboPrintStream will silence all output if the robot should be silenced.
+ * each line of output.  Also, RoboPrintStream will silence all output if the robot should be silenced.
+ * The robot output stream it's given gets the output without the strings, since whatever reads it
+ * knows which robot is running.
+ * <p>
+ * Output is encoded straight into byte buffers, which are only handed on when they fill up, when
+ * the stream is flushed, and when the header changes at the start of each turn.
  *
  * @author adamd
  */
 @SuppressWarnings("unused")
 public class RoboPrintStream extends PrintStream {
 
+    // Hand the buffers on once either holds this many bytes
+    private static final int FLUSH_BYTES = 8192;
+
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
     private final LimitedPrintStream real;
 
-    private boolean headerThisRound;
     private Team team;
     private RobotType type;
     private int id;
@@ -26,12 +38,25 @@ public class RoboPrintStream extends PrintStream {
 
     private boolean writeToSystemOut;
 
+    // The output waiting to be written to real
+    private byte[] content = new byte[256];
+    private int contentLength;
+
+    // The same output with headers, waiting to be written to System.out
+    private byte[] console;
+    private int consoleLength;
+
+    // The header bytes for this turn, made when first needed
+    private byte[] header;
+    private boolean atLineStart;
+
     // if maxOutputBytes is -1, then it is treated as no limit
     public RoboPrintStream(OutputStream robotOut, boolean writeToSystemOut, int maxOutputBytes) throws UnsupportedEncodingException {
         super(SilencedPrintStream.theInstance());
         this.real = new LimitedPrintStream(robotOut, true, "UTF-8", maxOutputBytes);
-        this.headerThisRound = false;
         this.writeToSystemOut = writeToSystemOut;
+        this.console = writeToSystemOut ? new byte[256] : null;
+        this.atLineStart = true;
     }
 
     //************************
@@ -39,57 +64,66 @@ public class RoboPrintStream extends PrintStream {
     //************************
 
     public void print(boolean b) {
-        String header = getHeader();
-        real.print(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + b);
+        printChars(b ? "true" : "false", 0, b ? 4 : 5);
     }
 
     public void print(char c) {
-        String header = getHeader();
-        real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        if (isDiscarding()) return;
+        final int start = contentLength;
+        ensureContent(3);
+        encode(c, (char) 0);
+        written(start);
     }
 
     public void print(char[] s) {
-        String header = getHeader();
-        real.print(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + s);
+        printChars(CharBuffer.wrap(s), 0, s.length);
     }
 
     public void print(double d) {
-        String header = getHeader();
-        real.print(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + d);
+        print(String.valueOf(d));
     }
 
     public void print(float f) {
-        String header = getHeader();
-        real.print(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + f);
+        print(String.valueOf(f));
     }
 
     public void print(int i) {
-        String header = getHeader();
-        real.print(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + i);
+        print((long) i);
     }
 
     public void print(long l) {
-        String header = getHeader();
-        real.print(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + l);
+        if (isDiscarding()) return;
+        if (l == Long.MIN_VALUE) {
+            print("-9223372036854775808");
+            return;
+        }
+        final int start = contentLength;
+        ensureContent(20);
+        if (l < 0) {
+            content[contentLength++] = '-';
+            l = -l;
+        }
+        int digits = 1;
+        for (long rest = l / 10; rest > 0; rest /= 10) {
+            digits++;
+        }
+        contentLength += digits;
+        for (int i = contentLength - 1; i >= contentLength - digits; i--) {
+            content[i] = (byte) ('0' + l % 10);
+            l /= 10;
+        }
+        written(start);
     }
 
     public void print(Object obj) {
-        String header = getHeader();
-        real.print(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + obj);
+        print(String.valueOf(obj));
     }
 
     public void print(String s) {
-        String header = getHeader();
-        real.print(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + s);
+        if (s == null) {
+            s = "null";
+        }
+        printChars(s, 0, s.length());
     }
 
     //***************************
@@ -97,63 +131,52 @@ public class RoboPrintStream extends PrintStream {
     //***************************
 
     public void println(boolean b) {
-        String header = getHeader();
-        real.println(header + b);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + b);
+        print(b);
+        println();
     }
 
     public void println(char c) {
-        String header = getHeader();
-        real.println(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + c);
+        print(c);
+        println();
     }
 
     public void println(char[] s) {
-        String header = getHeader();
-        real.println(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + s);
+        print(s);
+        println();
     }
 
     public void println(double d) {
-        String header = getHeader();
-        real.println(header + d);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + d);
+        print(d);
+        println();
     }
 
     public void println(float f) {
-        String header = getHeader();
-        real.println(header + f);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + f);
+        print(f);
+        println();
     }
 
     public void println(int i) {
-        String header = getHeader();
-        real.println(header + i);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + i);
+        print(i);
+        println();
     }
 
     public void println(long l) {
-        String header = getHeader();
-        real.println(header + l);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + l);
+        print(l);
+        println();
     }
 
     public void println(Object obj) {
-        String header = getHeader();
-        real.println(header + obj);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + obj);
+        print(obj);
+        println();
     }
 
     public void println(String s) {
-        String header = getHeader();
-        real.println(header + s);
-        if (this.writeToSystemOut) java.lang.System.out.println(header + s);
+        print(s);
+        println();
     }
 
     public void println() {
-        String header = getHeader();
-        real.println(header);
-        if (this.writeToSystemOut) java.lang.System.out.println(header);
+        write(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
     }
 
 
@@ -162,23 +185,26 @@ public class RoboPrintStream extends PrintStream {
     //*************************
 
     public PrintStream append(char c) {
-        String header = getHeader();
-        real.print(header + c);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + c);
+        print(c);
         return this;
     }
 
     public PrintStream append(CharSequence csq) {
-        String header = getHeader();
-        real.print(header + csq);
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq);
+        if (csq == null) {
+            csq = "null";
+        }
+        printChars(csq, 0, csq.length());
         return this;
     }
 
     public PrintStream append(CharSequence csq, int start, int end) {
-        String header = getHeader();
-        real.print(header + csq.subSequence(start, end).toString());
-        if (this.writeToSystemOut) java.lang.System.out.print(header + csq.subSequence(start, end).toString());
+        if (csq == null) {
+            csq = "null";
+        }
+        if (start < 0 || start > end || end > csq.length()) {
+            throw new IndexOutOfBoundsException();
+        }
+        printChars(csq, start, end);
         return this;
     }
 
@@ -193,33 +219,47 @@ public class RoboPrintStream extends PrintStream {
     }
 
     public PrintStream format(String format, Object... args) {
-        String header = getHeader();
-        real.print(header + String.format(format, args));
-        if (this.writeToSystemOut) java.lang.System.out.print(header + String.format(format, args));
+        print(String.format(format, args));
         return this;
     }
 
     public PrintStream printf(String format, Object... args) {
-        String header = getHeader();
-        real.printf(header + format, args);
-        if (this.writeToSystemOut) java.lang.System.out.printf(header + format, args);
-        return this;
+        return format(format, args);
     }
 
     public void write(byte[] buf, int off, int len) {
-        byte[] header = getHeader().getBytes();
-        byte[] buf2 = new byte[header.length + buf.length];
-        System.arraycopy(header, 0, buf2, 0, header.length);
-        System.arraycopy(buf, off, buf2, header.length, len);
-        real.write(buf2, 0, header.length + len);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf2, 0, header.length + len);
+        if (off < 0 || len < 0 || off + len > buf.length) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (isDiscarding()) return;
+        final int start = contentLength;
+        ensureContent(len);
+        System.arraycopy(buf, off, content, contentLength, len);
+        contentLength += len;
+        written(start);
     }
 
     public void write(int b) {
-        String s = getHeader() + (char) b;
-        byte[] buf = s.getBytes();
-        real.write(buf, 0, buf.length);
-        if (this.writeToSystemOut) java.lang.System.out.write(buf, 0, buf.length);
+        if (isDiscarding()) return;
+        final int start = contentLength;
+        ensureContent(1);
+        content[contentLength++] = (byte) b;
+        written(start);
+    }
+
+    /**
+     * Hand everything printed so far on to the robot output stream and
+     * System.out.
+     */
+    public void flush() {
+        if (contentLength > 0) {
+            real.write(content, 0, contentLength);
+            contentLength = 0;
+        }
+        if (consoleLength > 0) {
+            java.lang.System.out.write(console, 0, consoleLength);
+            consoleLength = 0;
+        }
     }
 
     //**************************
@@ -228,6 +268,7 @@ public class RoboPrintStream extends PrintStream {
 
     /**
      * Update the header prepended to messages printed with the stream.
+     * Anything printed with the old header is flushed first.
      *
      * @param team
      * @param type
@@ -235,17 +276,119 @@ public class RoboPrintStream extends PrintStream {
      * @param round
      */
     public void updateHeader(Team team, RobotType type, int id, int round) {
+        flush();
         this.team = team;
         this.type = type;
         this.id = id;
         this.round = round;
-        this.headerThisRound = false;
+        this.header = null;
+        this.atLineStart = true;
         this.real.setTeam(team);
     }
 
-    private String getHeader() {
-        String s = "[" + team + ":" + type + "#" + id + "@" + round + "] ";
-        real.increaseByteLimit(s.length());
-        return s;
+    /**
+     * @return whether anything printed now would be thrown away, so there's
+     *         no point encoding it
+     */
+    private boolean isDiscarding() {
+        return !writeToSystemOut && contentLength == 0 && real.isExhausted();
+    }
+
+    private void printChars(CharSequence s, int start, int end) {
+        if (isDiscarding()) return;
+        final int from = contentLength;
+        // No char takes more than 3 bytes; a surrogate pair takes 4
+        ensureContent(3 * (end - start));
+        for (int i = start; i < end; i++) {
+            final char c = s.charAt(i);
+            final char next = i + 1 < end ? s.charAt(i + 1) : 0;
+            if (encode(c, next)) {
+                i++;
+            }
+        }
+        written(from);
+    }
+
+    /**
+     * Encode a char as UTF-8 onto the end of content, which must have room
+     * for it. A lone surrogate is written as '?', like PrintStream does.
+     *
+     * @param c    the char
+     * @param next the char after it, or 0 if there isn't one
+     * @return whether next was used up too, as the low half of a surrogate pair
+     */
+    private boolean encode(char c, char next) {
+        final byte[] b = content;
+        int n = contentLength;
+        boolean pair = false;
+        if (c < 0x80) {
+            b[n++] = (byte) c;
+        } else if (c < 0x800) {
+            b[n++] = (byte) (0xc0 | (c >> 6));
+            b[n++] = (byte) (0x80 | (c & 0x3f));
+        } else if (!Character.isSurrogate(c)) {
+            b[n++] = (byte) (0xe0 | (c >> 12));
+            b[n++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+            b[n++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c) && Character.isLowSurrogate(next)) {
+            final int cp = Character.toCodePoint(c, next);
+            b[n++] = (byte) (0xf0 | (cp >> 18));
+            b[n++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+            b[n++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+            b[n++] = (byte) (0x80 | (cp & 0x3f));
+            pair = true;
+        } else {
+            b[n++] = '?';
+        }
+        contentLength = n;
+        return pair;
+    }
+
+    private void ensureContent(int more) {
+        if (contentLength + more > content.length) {
+            content = Arrays.copyOf(content, Math.max(2 * content.length, contentLength + more));
+        }
+    }
+
+    private void ensureConsole(int more) {
+        if (consoleLength + more > console.length) {
+            console = Arrays.copyOf(console, Math.max(2 * console.length, consoleLength + more));
+        }
+    }
+
+    /**
+     * Copy the bytes added to content since start to console, with a header
+     * at the start of each line, and flush if either buffer is full enough.
+     */
+    private void written(int start) {
+        if (writeToSystemOut) {
+            if (header == null) {
+                header = ("[" + team + ":" + type + "#" + id + "@" + round + "] ")
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            int lineStart = start;
+            while (lineStart < contentLength) {
+                int lineEnd = lineStart;
+                while (lineEnd < contentLength && content[lineEnd] != '\n') {
+                    lineEnd++;
+                }
+                if (lineEnd < contentLength) {
+                    // Include the newline
+                    lineEnd++;
+                }
+                ensureConsole(header.length + lineEnd - lineStart);
+                if (atLineStart) {
+                    System.arraycopy(header, 0, console, consoleLength, header.length);
+                    consoleLength += header.length;
+                }
+                System.arraycopy(content, lineStart, console, consoleLength, lineEnd - lineStart);
+                consoleLength += lineEnd - lineStart;
+                atLineStart = content[lineEnd - 1] == '\n';
+                lineStart = lineEnd;
+            }
+        }
+        if (contentLength >= FLUSH_BYTES || consoleLength >= FLUSH_BYTES) {
+            flush();
+        }
     }
 }
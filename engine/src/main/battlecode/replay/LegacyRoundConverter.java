@@ -0,0 +1,563 @@
+package battlecode.replay;
+
+import battlecode.schema.BodyTypeMetadata;
+import battlecode.schema.Constants;
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.GameFooter;
+import battlecode.schema.GameHeader;
+import battlecode.schema.GameMap;
+import battlecode.schema.GameWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.MatchFooter;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.ProfilerEvent;
+import battlecode.schema.ProfilerFile;
+import battlecode.schema.ProfilerProfile;
+import battlecode.schema.RGBTable;
+import battlecode.schema.Round;
+import battlecode.schema.RoundFormat;
+import battlecode.schema.SpawnedBodyTable;
+import battlecode.schema.TeamData;
+import battlecode.schema.Vec;
+import battlecode.schema.VecTable;
+import battlecode.util.VarInts;
+import com.google.flatbuffers.FlatBufferBuilder;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
+
+import static battlecode.util.FlatHelpers.*;
+
+/**
+ * Converts a replay written with COMPACT rounds back to LEGACY rounds, for
+ * viewers that don't understand compact ones. Every round gets the location
+ * of every robot and every well and island again, and bytecodes go back to
+ * plain ints. Every robot that ran gets its indicator string again, unless
+ * it never set one, and every robot its indicator dots and lines. Robots are
+ * listed in order of ID, rather than in the order the engine happened to
+ * list them.
+ * <p>
+ * Replays with LEGACY rounds come out the same, apart from that order.
+ * <p>
+ * Usage: LegacyRoundConverter compact.bc23 [legacy.bc23]
+ */
+public final class LegacyRoundConverter {
+    private final Replay replay;
+    private final FlatBufferBuilder builder;
+
+    // The state of the match being converted
+    private ReplayState state;
+    // The last values of each well and island, in the order they were first
+    // listed in, which is the order the engine lists them in
+    private final Map<Integer, int[]> wells = new LinkedHashMap<>();
+    private final Map<Integer, int[]> islands = new LinkedHashMap<>();
+    // For COMPACT rounds: the string table, each robot's last indicator
+    // string, and each robot's last indicator dots and lines, by ID
+    private boolean compact;
+    private final List<String> stringTable = new ArrayList<>();
+    private final Map<Integer, String> strings = new HashMap<>();
+    private final Map<Integer, List<int[]>> dots = new TreeMap<>();
+    private final Map<Integer, List<int[]>> lines = new TreeMap<>();
+
+    private LegacyRoundConverter(Replay replay) {
+        this.replay = replay;
+        this.builder = new FlatBufferBuilder(1 << 20);
+    }
+
+    /**
+     * Convert a replay, which has to fit in memory once more.
+     *
+     * @param replay the replay to convert
+     * @param out    where to write the gzipped GameWrapper; not closed
+     * @throws IOException if writing fails
+     */
+    public static void convert(Replay replay, OutputStream out) throws IOException {
+        final FlatBufferBuilder builder = new LegacyRoundConverter(replay).convert();
+
+        final GZIPOutputStream zipper = new GZIPOutputStream(out, 1 << 16);
+        final ByteBuffer data = builder.dataBuffer();
+        zipper.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        zipper.finish();
+    }
+
+    private FlatBufferBuilder convert() {
+        final GameWrapper wrapper = replay.getWrapper();
+        final GameHeader gameHeader = replay.getGameHeader();
+        final EventWrapper event = new EventWrapper();
+        final Round round = new Round();
+        compact = gameHeader.roundFormat() == RoundFormat.COMPACT;
+
+        final int[] events = new int[wrapper.eventsLength()];
+        for (int i = 0; i < events.length; i++) {
+            wrapper.events(event, i);
+            final int eventP;
+            switch (event.eType()) {
+                case Event.GameHeader:
+                    eventP = copyGameHeader(gameHeader);
+                    break;
+                case Event.MatchHeader:
+                    final MatchHeader matchHeader = (MatchHeader) event.e(new MatchHeader());
+                    state = new ReplayState(gameHeader, matchHeader);
+                    wells.clear();
+                    islands.clear();
+                    stringTable.clear();
+                    strings.clear();
+                    dots.clear();
+                    lines.clear();
+                    eventP = copyMatchHeader(matchHeader);
+                    break;
+                case Event.Round:
+                    eventP = convertRound((Round) event.e(round));
+                    break;
+                case Event.MatchFooter:
+                    eventP = copyMatchFooter((MatchFooter) event.e(new MatchFooter()));
+                    break;
+                case Event.GameFooter:
+                    eventP = GameFooter.createGameFooter(builder, ((GameFooter) event.e(new GameFooter())).winner());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type " + event.eType() + " at " + i);
+            }
+            events[i] = EventWrapper.createEventWrapper(builder, event.eType(), eventP);
+        }
+
+        final int eventsP = GameWrapper.createEventsVector(builder, events);
+        final int matchHeadersP = copyVector(wrapper.matchHeadersAsByteBuffer(), 4);
+        final int matchFootersP = copyVector(wrapper.matchFootersAsByteBuffer(), 4);
+        final int keyframesP = copyVector(wrapper.keyframesAsByteBuffer(), 4);
+        builder.finish(GameWrapper.createGameWrapper(builder, eventsP, matchHeadersP, matchFootersP, keyframesP));
+        return builder;
+    }
+
+    private int convertRound(Round r) {
+        if (state == null) {
+            throw new IllegalStateException("Round " + r.roundID() + " before any match header");
+        }
+        state.apply(r);
+
+        // Every robot, where it is now
+        final TIntArrayList ids = new TIntArrayList(state.getRobotCount());
+        final TIntArrayList xs = new TIntArrayList(state.getRobotCount());
+        final TIntArrayList ys = new TIntArrayList(state.getRobotCount());
+        state.eachRobot(robot -> {
+            ids.add(robot.getID());
+            return true;
+        });
+        ids.sort();
+        for (int i = 0; i < ids.size(); i++) {
+            final ReplayState.Robot robot = state.getRobot(ids.get(i));
+            xs.add(robot.getLocation().x);
+            ys.add(robot.getLocation().y);
+        }
+        final int movedIDsP = intVector(builder, ids, Round::startMovedIDsVector);
+        final int movedLocsP = createVecTable(builder, xs, ys);
+
+        // Every robot that ran
+        int bytecodeIDsP = copyVector(r.bytecodeIDsAsByteBuffer(), 4);
+        int bytecodesUsedP = copyVector(r.bytecodesUsedAsByteBuffer(), 4);
+        final TIntArrayList bytecodeIDs = new TIntArrayList();
+        final ByteBuffer packed = r.bytecodesPackedAsByteBuffer();
+        if (packed != null) {
+            final TIntArrayList bytecodesUsed = new TIntArrayList();
+            int id = 0;
+            while (packed.hasRemaining()) {
+                id += VarInts.read(packed);
+                bytecodeIDs.add(id);
+                bytecodesUsed.add(VarInts.read(packed));
+            }
+            bytecodeIDsP = intVector(builder, bytecodeIDs, Round::startBytecodeIDsVector);
+            bytecodesUsedP = intVector(builder, bytecodesUsed, Round::startBytecodesUsedVector);
+        }
+
+        // Every well and island, as of now
+        for (int i = 0; i < r.resourceWellLocsLength(); i++) {
+            wells.put(r.resourceWellLocs(i), new int[] {r.wellAdamantiumValues(i), r.wellManaValues(i),
+                    r.wellElixirValues(i), r.resourceID(i), r.wellAccelerationID(i)});
+        }
+        for (int i = 0; i < r.islandIDsLength(); i++) {
+            islands.put(r.islandIDs(i), new int[] {r.islandTurnoverTurns(i), r.islandOwnership(i)});
+        }
+        final int[][] wellColumns = columns(wells, 5);
+        final int[][] islandColumns = columns(islands, 2);
+
+        final int teamIDsP = copyVector(r.teamIDsAsByteBuffer(), 4);
+        final int teamAdChangesP = copyVector(r.teamAdChangesAsByteBuffer(), 4);
+        final int teamMnChangesP = copyVector(r.teamMnChangesAsByteBuffer(), 4);
+        final int teamExChangesP = copyVector(r.teamExChangesAsByteBuffer(), 4);
+        final int spawnedBodiesP = copySpawnedBodies(r.spawnedBodies());
+        final int diedIDsP = copyVector(r.diedIDsAsByteBuffer(), 4);
+        final int actionIDsP = copyVector(r.actionIDsAsByteBuffer(), 4);
+        final int actionsP = copyVector(r.actionsAsByteBuffer(), 1);
+        final int actionTargetsP = copyVector(r.actionTargetsAsByteBuffer(), 4);
+        final int islandIDsP = Round.createIslandIDsVector(builder, keys(islands));
+        final int islandTurnoverTurnsP = Round.createIslandTurnoverTurnsVector(builder, islandColumns[0]);
+        final int islandOwnershipP = Round.createIslandOwnershipVector(builder, islandColumns[1]);
+        final int resourceWellLocsP = Round.createResourceWellLocsVector(builder, keys(wells));
+        final int wellAdamantiumValuesP = Round.createWellAdamantiumValuesVector(builder, wellColumns[0]);
+        final int wellManaValuesP = Round.createWellManaValuesVector(builder, wellColumns[1]);
+        final int wellElixirValuesP = Round.createWellElixirValuesVector(builder, wellColumns[2]);
+        final int resourceIDP = Round.createResourceIDVector(builder, wellColumns[3]);
+        final int wellAccelerationIDP = Round.createWellAccelerationIDVector(builder, wellColumns[4]);
+        int indicatorStringIDsP;
+        int indicatorStringsP = 0;
+        int indicatorDotIDsP;
+        int indicatorDotLocsP;
+        int indicatorDotRGBsP;
+        int indicatorLineIDsP;
+        int indicatorLineStartLocsP;
+        int indicatorLineEndLocsP;
+        int indicatorLineRGBsP;
+        if (compact) {
+            // Every robot's indicators, as of now
+            applyIndicators(r);
+
+            final TIntArrayList stringIDs = new TIntArrayList();
+            final TIntArrayList stringOffsets = new TIntArrayList();
+            for (int i = 0; i < bytecodeIDs.size(); i++) {
+                final String string = strings.get(bytecodeIDs.get(i));
+                if (string != null) {
+                    stringIDs.add(bytecodeIDs.get(i));
+                    stringOffsets.add(builder.createString(string));
+                }
+            }
+            indicatorStringIDsP = intVector(builder, stringIDs, Round::startIndicatorStringIDsVector);
+            indicatorStringsP = offsetVector(builder, stringOffsets, Round::startIndicatorStringsVector);
+
+            final TIntArrayList[] dotColumns = rows(dots, 5);
+            indicatorDotIDsP = intVector(builder, dotColumns[0], Round::startIndicatorDotIDsVector);
+            indicatorDotLocsP = createVecTable(builder, dotColumns[1], dotColumns[2]);
+            indicatorDotRGBsP = createRGBTable(builder, dotColumns[3], dotColumns[4], dotColumns[5]);
+
+            final TIntArrayList[] lineColumns = rows(lines, 7);
+            indicatorLineIDsP = intVector(builder, lineColumns[0], Round::startIndicatorLineIDsVector);
+            indicatorLineStartLocsP = createVecTable(builder, lineColumns[1], lineColumns[2]);
+            indicatorLineEndLocsP = createVecTable(builder, lineColumns[3], lineColumns[4]);
+            indicatorLineRGBsP = createRGBTable(builder, lineColumns[5], lineColumns[6], lineColumns[7]);
+
+            for (int i = 0; i < r.diedIDsLength(); i++) {
+                strings.remove(r.diedIDs(i));
+                dots.remove(r.diedIDs(i));
+                lines.remove(r.diedIDs(i));
+            }
+        } else {
+            indicatorStringIDsP = copyVector(r.indicatorStringIDsAsByteBuffer(), 4);
+            if (r.indicatorStringIDsAsByteBuffer() != null) {
+                final int[] strings = new int[r.indicatorStringsLength()];
+                for (int i = 0; i < strings.length; i++) {
+                    strings[i] = builder.createString(r.indicatorStrings(i));
+                }
+                indicatorStringsP = Round.createIndicatorStringsVector(builder, strings);
+            }
+            indicatorDotIDsP = copyVector(r.indicatorDotIDsAsByteBuffer(), 4);
+            indicatorDotLocsP = copyVecTable(r.indicatorDotLocs());
+            indicatorDotRGBsP = copyRGBTable(r.indicatorDotRGBs());
+            indicatorLineIDsP = copyVector(r.indicatorLineIDsAsByteBuffer(), 4);
+            indicatorLineStartLocsP = copyVecTable(r.indicatorLineStartLocs());
+            indicatorLineEndLocsP = copyVecTable(r.indicatorLineEndLocs());
+            indicatorLineRGBsP = copyRGBTable(r.indicatorLineRGBs());
+        }
+        final int keyframeP = copyKeyframe(r.keyframe());
+        final int logIDsP = copyVector(r.logIDsAsByteBuffer(), 4);
+        final int logLengthsP = copyVector(r.logLengthsAsByteBuffer(), 4);
+        final int logBytesP = copyVector(r.logBytesAsByteBuffer(), 1);
+        final int logDroppedBytesP = copyVector(r.logDroppedBytesAsByteBuffer(), 4);
+
+        return Round.createRound(builder, teamIDsP, teamAdChangesP, teamMnChangesP, teamExChangesP,
+                movedIDsP, movedLocsP, spawnedBodiesP, diedIDsP, actionIDsP, actionsP, actionTargetsP,
+                islandIDsP, islandTurnoverTurnsP, islandOwnershipP,
+                resourceWellLocsP, wellAdamantiumValuesP, wellManaValuesP, wellElixirValuesP, resourceIDP,
+                wellAccelerationIDP, indicatorStringIDsP, indicatorStringsP,
+                indicatorDotIDsP, indicatorDotLocsP, indicatorDotRGBsP,
+                indicatorLineIDsP, indicatorLineStartLocsP, indicatorLineEndLocsP, indicatorLineRGBsP,
+                r.roundID(), bytecodeIDsP, bytecodesUsedP, keyframeP, 0, 0, 0, 0,
+                logIDsP, logLengthsP, logBytesP, logDroppedBytesP);
+    }
+
+    /**
+     * Bring the indicators up to date with a COMPACT round.
+     */
+    private void applyIndicators(Round r) {
+        if (r.keyframe() != null) {
+            stringTable.clear();
+        }
+        for (int i = 0; i < r.indicatorStringsLength(); i++) {
+            stringTable.add(r.indicatorStrings(i));
+        }
+        for (int i = 0; i < r.indicatorStringIDsLength(); i++) {
+            strings.put(r.indicatorStringIDs(i), stringTable.get(r.indicatorStringIndices(i)));
+        }
+
+        for (int i = 0; i < r.indicatorChangedIDsLength(); i++) {
+            dots.remove(r.indicatorChangedIDs(i));
+            lines.remove(r.indicatorChangedIDs(i));
+        }
+        final VecTable dotLocs = r.indicatorDotLocs();
+        final RGBTable dotRGBs = r.indicatorDotRGBs();
+        for (int i = 0; i < r.indicatorDotIDsLength(); i++) {
+            dots.computeIfAbsent(r.indicatorDotIDs(i), id -> new ArrayList<>()).add(new int[] {
+                    dotLocs.xs(i), dotLocs.ys(i), dotRGBs.red(i), dotRGBs.green(i), dotRGBs.blue(i)});
+        }
+        final VecTable lineStarts = r.indicatorLineStartLocs();
+        final VecTable lineEnds = r.indicatorLineEndLocs();
+        final RGBTable lineRGBs = r.indicatorLineRGBs();
+        for (int i = 0; i < r.indicatorLineIDsLength(); i++) {
+            lines.computeIfAbsent(r.indicatorLineIDs(i), id -> new ArrayList<>()).add(new int[] {
+                    lineStarts.xs(i), lineStarts.ys(i), lineEnds.xs(i), lineEnds.ys(i),
+                    lineRGBs.red(i), lineRGBs.green(i), lineRGBs.blue(i)});
+        }
+    }
+
+    /**
+     * @return the robot IDs, then each of the count columns of the rows
+     */
+    private static TIntArrayList[] rows(Map<Integer, List<int[]>> values, int count) {
+        final TIntArrayList[] columns = new TIntArrayList[count + 1];
+        for (int j = 0; j <= count; j++) {
+            columns[j] = new TIntArrayList();
+        }
+        for (Map.Entry<Integer, List<int[]>> entry : values.entrySet()) {
+            for (int[] row : entry.getValue()) {
+                columns[0].add(entry.getKey());
+                for (int j = 0; j < count; j++) {
+                    columns[j + 1].add(row[j]);
+                }
+            }
+        }
+        return columns;
+    }
+
+    private static int[] keys(Map<Integer, int[]> values) {
+        final int[] keys = new int[values.size()];
+        int i = 0;
+        for (int key : values.keySet()) {
+            keys[i++] = key;
+        }
+        return keys;
+    }
+
+    private static int[][] columns(Map<Integer, int[]> values, int count) {
+        final int[][] columns = new int[count][values.size()];
+        int i = 0;
+        for (int[] row : values.values()) {
+            for (int j = 0; j < count; j++) {
+                columns[j][i] = row[j];
+            }
+            i++;
+        }
+        return columns;
+    }
+
+    /**
+     * Copy a vector of scalars as it is.
+     *
+     * @param data the vector, from one of the ...AsByteBuffer() accessors
+     * @param size the size of each element
+     * @return the offset of the copy, or 0 if data is null
+     */
+    private int copyVector(ByteBuffer data, int size) {
+        if (data == null) {
+            return 0;
+        }
+        builder.createUnintializedVector(size, data.remaining() / size, size).put(data);
+        return builder.endVector();
+    }
+
+    private int copyString(String s) {
+        return s != null ? builder.createString(s) : 0;
+    }
+
+    private int copyVecTable(VecTable t) {
+        if (t == null) {
+            return 0;
+        }
+        final int xsP = copyVector(t.xsAsByteBuffer(), 4);
+        final int ysP = copyVector(t.ysAsByteBuffer(), 4);
+        return VecTable.createVecTable(builder, xsP, ysP);
+    }
+
+    private int copyRGBTable(RGBTable t) {
+        if (t == null) {
+            return 0;
+        }
+        final int redP = copyVector(t.redAsByteBuffer(), 4);
+        final int greenP = copyVector(t.greenAsByteBuffer(), 4);
+        final int blueP = copyVector(t.blueAsByteBuffer(), 4);
+        return RGBTable.createRGBTable(builder, redP, greenP, blueP);
+    }
+
+    private int copySpawnedBodies(SpawnedBodyTable t) {
+        if (t == null) {
+            return 0;
+        }
+        final int robotIDsP = copyVector(t.robotIDsAsByteBuffer(), 4);
+        final int teamIDsP = copyVector(t.teamIDsAsByteBuffer(), 1);
+        final int typesP = copyVector(t.typesAsByteBuffer(), 1);
+        final int locsP = copyVecTable(t.locs());
+        return SpawnedBodyTable.createSpawnedBodyTable(builder, robotIDsP, teamIDsP, typesP, locsP);
+    }
+
+    private int copyKeyframe(Keyframe k) {
+        if (k == null) {
+            return 0;
+        }
+        return Keyframe.createKeyframe(builder,
+                copyVector(k.robotIDsAsByteBuffer(), 4),
+                copyVector(k.robotTeamIDsAsByteBuffer(), 1),
+                copyVector(k.robotTypesAsByteBuffer(), 1),
+                copyVecTable(k.robotLocs()),
+                copyVector(k.robotHealthsAsByteBuffer(), 4),
+                copyVector(k.robotAdamantiumAsByteBuffer(), 4),
+                copyVector(k.robotManaAsByteBuffer(), 4),
+                copyVector(k.robotElixirAsByteBuffer(), 4),
+                copyVector(k.robotStandardAnchorsAsByteBuffer(), 1),
+                copyVector(k.robotAcceleratingAnchorsAsByteBuffer(), 1),
+                copyVector(k.teamIDsAsByteBuffer(), 4),
+                copyVector(k.teamAdamantiumAsByteBuffer(), 4),
+                copyVector(k.teamManaAsByteBuffer(), 4),
+                copyVector(k.teamElixirAsByteBuffer(), 4));
+    }
+
+    /**
+     * Copy the game header, with LEGACY rounds.
+     */
+    private int copyGameHeader(GameHeader h) {
+        final int specVersionP = copyString(h.specVersion());
+
+        final int[] teams = new int[h.teamsLength()];
+        for (int i = 0; i < teams.length; i++) {
+            final TeamData team = h.teams(i);
+            final int nameP = copyString(team.name());
+            final int packageNameP = copyString(team.packageName());
+            teams[i] = TeamData.createTeamData(builder, nameP, packageNameP, team.teamID());
+        }
+        final int teamsP = GameHeader.createTeamsVector(builder, teams);
+
+        final int[] metadata = new int[h.bodyTypeMetadataLength()];
+        for (int i = 0; i < metadata.length; i++) {
+            final BodyTypeMetadata m = h.bodyTypeMetadata(i);
+            metadata[i] = BodyTypeMetadata.createBodyTypeMetadata(builder, m.type(), m.buildCostAd(),
+                    m.buildCostMn(), m.buildCostEx(), m.actionCooldown(), m.movementCooldown(), m.health(),
+                    m.actionRadiusSquared(), m.visionRadiusSquared(), m.bytecodeLimit());
+        }
+        final int metadataP = GameHeader.createBodyTypeMetadataVector(builder, metadata);
+
+        final Constants c = h.constants();
+        final int constantsP = c == null ? 0 : Constants.createConstants(builder,
+                c.increasePeriod(), c.AdAdditiveIncrease(), c.MnAdditiveIncrease());
+
+        GameHeader.startGameHeader(builder);
+        GameHeader.addSpecVersion(builder, specVersionP);
+        GameHeader.addTeams(builder, teamsP);
+        GameHeader.addBodyTypeMetadata(builder, metadataP);
+        GameHeader.addConstants(builder, constantsP);
+        return GameHeader.endGameHeader(builder);
+    }
+
+    private int copyMatchHeader(MatchHeader h) {
+        final GameMap map = h.map();
+        final int nameP = copyString(map.name());
+        final int bodiesP = copySpawnedBodies(map.bodies());
+        final int wallsP = copyVector(map.wallsAsByteBuffer(), 1);
+        final int cloudsP = copyVector(map.cloudsAsByteBuffer(), 1);
+        final int currentsP = copyVector(map.currentsAsByteBuffer(), 4);
+        final int islandsP = copyVector(map.islandsAsByteBuffer(), 4);
+        final int resourcesP = copyVector(map.resourcesAsByteBuffer(), 4);
+
+        GameMap.startGameMap(builder);
+        GameMap.addName(builder, nameP);
+        final Vec minCorner = map.minCorner();
+        if (minCorner != null) {
+            GameMap.addMinCorner(builder, Vec.createVec(builder, minCorner.x(), minCorner.y()));
+        }
+        final Vec maxCorner = map.maxCorner();
+        if (maxCorner != null) {
+            GameMap.addMaxCorner(builder, Vec.createVec(builder, maxCorner.x(), maxCorner.y()));
+        }
+        GameMap.addSymmetry(builder, map.symmetry());
+        GameMap.addBodies(builder, bodiesP);
+        GameMap.addRandomSeed(builder, map.randomSeed());
+        GameMap.addWalls(builder, wallsP);
+        GameMap.addClouds(builder, cloudsP);
+        GameMap.addCurrents(builder, currentsP);
+        GameMap.addIslands(builder, islandsP);
+        GameMap.addResources(builder, resourcesP);
+        final int mapP = GameMap.endGameMap(builder);
+
+        return MatchHeader.createMatchHeader(builder, mapP, h.maxRounds());
+    }
+
+    private int copyMatchFooter(MatchFooter f) {
+        final int[] files = new int[f.profilerFilesLength()];
+        for (int i = 0; i < files.length; i++) {
+            final ProfilerFile file = f.profilerFiles(i);
+
+            int framesP = 0;
+            if (file.framesLength() > 0) {
+                final int[] frames = new int[file.framesLength()];
+                for (int j = 0; j < frames.length; j++) {
+                    frames[j] = builder.createString(file.frames(j));
+                }
+                framesP = ProfilerFile.createFramesVector(builder, frames);
+            }
+
+            int profilesP = 0;
+            if (file.profilesLength() > 0) {
+                final int[] profiles = new int[file.profilesLength()];
+                final ProfilerEvent event = new ProfilerEvent();
+                for (int j = 0; j < profiles.length; j++) {
+                    final ProfilerProfile profile = file.profiles(j);
+                    final int[] events = new int[profile.eventsLength()];
+                    for (int k = 0; k < events.length; k++) {
+                        profile.events(event, k);
+                        events[k] = ProfilerEvent.createProfilerEvent(builder, event.isOpen(), event.at(),
+                                event.frame());
+                    }
+                    final int nameP = copyString(profile.name());
+                    final int eventsP = ProfilerProfile.createEventsVector(builder, events);
+                    profiles[j] = ProfilerProfile.createProfilerProfile(builder, nameP, eventsP);
+                }
+                profilesP = ProfilerFile.createProfilesVector(builder, profiles);
+            }
+
+            files[i] = ProfilerFile.createProfilerFile(builder, framesP, profilesP, copyString(file.sidecar()));
+        }
+        final int filesP = MatchFooter.createProfilerFilesVector(builder, files);
+
+        return MatchFooter.createMatchFooter(builder, f.winner(), f.totalRounds(), filesP);
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: LegacyRoundConverter compact.bc23 [legacy.bc23]");
+            System.exit(1);
+        }
+
+        final String input = args[0];
+        final String output;
+        if (args.length == 2) {
+            output = args[1];
+        } else if (input.endsWith(".bc23")) {
+            output = input.substring(0, input.length() - ".bc23".length()) + "-legacy.bc23";
+        } else {
+            output = input + "-legacy.bc23";
+        }
+
+        final Replay replay = Replay.open(new File(input));
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(output)))) {
+            convert(replay, out);
+        }
+    }
+}
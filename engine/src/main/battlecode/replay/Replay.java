@@ -0,0 +1,212 @@
+package battlecode.replay;
+
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.GameFooter;
+import battlecode.schema.GameHeader;
+import battlecode.schema.GameWrapper;
+import battlecode.schema.MatchFooter;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.Round;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A replay file, read into memory once and then read straight out of the
+ * flatbuffer: nothing is parsed until it's asked for, and rounds can be
+ * read in any order.
+ *
+ * Round r of match m is the event at matchHeaders[m] + r, so rounds are
+ * found without looking at the events before them.
+ *
+ * Reading from several threads at once is fine as long as each thread
+ * passes its own tables to the methods that take one.
+ */
+public final class Replay {
+    private static final int GZIP_MAGIC = 0x8b1f;
+
+    private final GameWrapper wrapper;
+
+    private Replay(ByteBuffer buffer) {
+        this.wrapper = GameWrapper.getRootAsGameWrapper(buffer);
+    }
+
+    /**
+     * Read a replay file. Gzipped replays (the usual .bc23 files) are
+     * decompressed into memory; uncompressed ones are memory-mapped.
+     *
+     * @param file the replay to read
+     * @return the replay
+     * @throws IOException if the file can't be read
+     */
+    public static Replay open(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            final long length = raf.length();
+            if (length < 2 || (raf.read() | raf.read() << 8) != GZIP_MAGIC) {
+                final FileChannel channel = raf.getChannel();
+                return new Replay(channel.map(FileChannel.MapMode.READ_ONLY, 0, length));
+            }
+
+            // The last four bytes of a gzip file are the uncompressed size,
+            // mod 2^32, which is enough to read it all without copying
+            raf.seek(length - 4);
+            final int size = Integer.reverseBytes(raf.readInt());
+            try (InputStream in = new GZIPInputStream(new FileInputStream(file), 1 << 16)) {
+                return new Replay(ByteBuffer.wrap(readFully(in, size)));
+            }
+        }
+    }
+
+    /**
+     * @param buffer an uncompressed GameWrapper
+     * @return the replay in it
+     */
+    public static Replay wrap(ByteBuffer buffer) {
+        return new Replay(buffer);
+    }
+
+    private static byte[] readFully(InputStream in, int sizeHint) throws IOException {
+        byte[] data = new byte[Math.max(sizeHint, 0)];
+        int read = 0;
+        int count;
+        while (read < data.length && (count = in.read(data, read, data.length - read)) > 0) {
+            read += count;
+        }
+        if (read < data.length) {
+            final byte[] shorter = new byte[read];
+            System.arraycopy(data, 0, shorter, 0, read);
+            return shorter;
+        }
+
+        // The hint was wrong; it wraps around for games over 4GB
+        final ByteArrayOutputStream rest = new ByteArrayOutputStream();
+        final byte[] buffer = new byte[1 << 16];
+        while ((count = in.read(buffer)) > 0) {
+            rest.write(buffer, 0, count);
+        }
+        if (rest.size() == 0) {
+            return data;
+        }
+        final byte[] longer = new byte[data.length + rest.size()];
+        System.arraycopy(data, 0, longer, 0, data.length);
+        System.arraycopy(rest.toByteArray(), 0, longer, data.length, rest.size());
+        return longer;
+    }
+
+    /**
+     * @return the GameWrapper at the root of the replay
+     */
+    public GameWrapper getWrapper() {
+        return wrapper;
+    }
+
+    public GameHeader getGameHeader() {
+        return (GameHeader) event(0, Event.GameHeader).e(new GameHeader());
+    }
+
+    public GameFooter getGameFooter() {
+        return (GameFooter) event(wrapper.eventsLength() - 1, Event.GameFooter).e(new GameFooter());
+    }
+
+    public int getMatchCount() {
+        return wrapper.matchHeadersLength();
+    }
+
+    public MatchHeader getMatchHeader(int match) {
+        return (MatchHeader) event(wrapper.matchHeaders(match), Event.MatchHeader).e(new MatchHeader());
+    }
+
+    /**
+     * @return the footer of the match, or null if the replay ends first
+     */
+    public MatchFooter getMatchFooter(int match) {
+        if (match >= wrapper.matchFootersLength()) {
+            return null;
+        }
+        return (MatchFooter) event(wrapper.matchFooters(match), Event.MatchFooter).e(new MatchFooter());
+    }
+
+    /**
+     * @return the number of rounds in the match
+     */
+    public int getRoundCount(int match) {
+        final int end = match < wrapper.matchFootersLength()
+                ? wrapper.matchFooters(match)
+                : wrapper.eventsLength();
+        return end - wrapper.matchHeaders(match) - 1;
+    }
+
+    /**
+     * @param match    the match's index
+     * @param roundNum the round's number, starting from 1
+     * @param round    the table to read the round into
+     * @return round
+     */
+    public Round getRound(int match, int roundNum, Round round) {
+        if (roundNum < 1 || roundNum > getRoundCount(match)) {
+            throw new IndexOutOfBoundsException("Match " + match + " has no round " + roundNum);
+        }
+        return (Round) event(wrapper.matchHeaders(match) + roundNum, Event.Round).e(round);
+    }
+
+    public Round getRound(int match, int roundNum) {
+        return getRound(match, roundNum, new Round());
+    }
+
+    /**
+     * Work out the state at the end of a round. Starts from the last
+     * keyframe at or before the round if the replay has any, so only the
+     * rounds after it are read.
+     *
+     * @param match    the match's index
+     * @param roundNum the round's number; 0 for the start of the match
+     * @return the state at the end of the round
+     */
+    public ReplayState getState(int match, int roundNum) {
+        final ReplayState state = new ReplayState(getGameHeader(), getMatchHeader(match));
+        final Round round = new Round();
+
+        int keyframeRound = 0;
+        final int header = wrapper.matchHeaders(match);
+        // Keyframes are in order, so the one we want is the last one in range
+        int lo = 0;
+        int hi = wrapper.keyframesLength() - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int index = wrapper.keyframes(mid);
+            if (index <= header) {
+                lo = mid + 1;
+            } else if (index > header + roundNum) {
+                hi = mid - 1;
+            } else {
+                keyframeRound = index - header;
+                lo = mid + 1;
+            }
+        }
+        if (keyframeRound > 0) {
+            state.load(getRound(match, keyframeRound, round).keyframe(), keyframeRound);
+        }
+
+        for (int i = keyframeRound + 1; i <= roundNum; i++) {
+            state.apply(getRound(match, i, round));
+        }
+        return state;
+    }
+
+    private EventWrapper event(int index, byte type) {
+        final EventWrapper event = wrapper.events(index);
+        if (event.eType() != type) {
+            throw new IllegalStateException("Event " + index + " is a " + Event.name(event.eType())
+                    + ", not a " + Event.name(type));
+        }
+        return event;
+    }
+}
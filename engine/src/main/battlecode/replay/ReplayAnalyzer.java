@@ -0,0 +1,104 @@
+package battlecode.replay;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Totals up the replays in some directories, several at a time.
+ * <p>
+ * Usage: ReplayAnalyzer [-t threads] (replay.bc23 | directory)...
+ */
+public final class ReplayAnalyzer {
+    private ReplayAnalyzer() {}
+
+    /**
+     * Read replays on several threads and total them up. Replays that can't
+     * be read are reported to System.err and left out.
+     *
+     * @param files the replays to read
+     * @param threads the number of replays to read at once
+     * @return the totals
+     */
+    public static ReplayStats analyze(List<File> files, int threads) {
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads), r -> {
+            final Thread thread = new Thread(r, "replay analyzer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<ReplayStats>> results = new ArrayList<>();
+            for (File file : files) {
+                results.add(pool.submit(() -> {
+                    final ReplayStats stats = new ReplayStats();
+                    stats.add(Replay.open(file));
+                    return stats;
+                }));
+            }
+
+            // Merge in file order, so the totals don't depend on timing
+            final ReplayStats total = new ReplayStats();
+            for (int i = 0; i < files.size(); i++) {
+                try {
+                    total.merge(results.get(i).get());
+                } catch (ExecutionException e) {
+                    System.err.println("Couldn't read " + files.get(i) + ": " + e.getCause());
+                }
+            }
+            return total;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted reading replays", e);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * @return the .bc23 files in a directory and its subdirectories, or the
+     *         file itself if it isn't a directory
+     */
+    public static List<File> findReplays(File path) {
+        final List<File> replays = new ArrayList<>();
+        if (!path.isDirectory()) {
+            replays.add(path);
+            return replays;
+        }
+        final File[] children = path.listFiles();
+        if (children == null) {
+            return replays;
+        }
+        Arrays.sort(children);
+        for (File child : children) {
+            if (child.isDirectory()) {
+                replays.addAll(findReplays(child));
+            } else if (child.getName().endsWith(".bc23")) {
+                replays.add(child);
+            }
+        }
+        return replays;
+    }
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        final List<File> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-t") && i + 1 < args.length) {
+                threads = Integer.parseInt(args[++i]);
+            } else {
+                files.addAll(findReplays(new File(args[i])));
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: ReplayAnalyzer [-t threads] (replay.bc23 | directory)...");
+            System.exit(1);
+        }
+
+        analyze(files, threads).print(System.out);
+    }
+}
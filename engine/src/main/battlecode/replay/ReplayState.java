@@ -0,0 +1,292 @@
+package battlecode.replay;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.schema.Action;
+import battlecode.schema.BodyTypeMetadata;
+import battlecode.schema.GameHeader;
+import battlecode.schema.GameMap;
+import battlecode.schema.Keyframe;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.Round;
+import battlecode.schema.SpawnedBodyTable;
+import battlecode.schema.VecTable;
+import battlecode.util.TeamMapping;
+import battlecode.util.VarInts;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.procedure.TObjectProcedure;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The robots and teams of a match, as of the end of some round, worked out
+ * from the replay by applying each round's spawns, moves, deaths and
+ * actions in turn.
+ *
+ * Both round formats are understood. Anchors aren't tracked, and neither
+ * are wells and islands: LEGACY rounds list all of them, and COMPACT rounds
+ * do in rounds with a keyframe; LegacyRoundConverter keeps track of them.
+ */
+public final class ReplayState {
+    /**
+     * The health each body type spawns with, by BodyType.
+     */
+    private final int[] spawnHealth;
+
+    private final TIntObjectHashMap<Robot> robots;
+
+    // Indexed by team ID
+    private final int[] teamAdamantium;
+    private final int[] teamMana;
+    private final int[] teamElixir;
+
+    private int round;
+
+    // For the tiles in COMPACT rounds
+    private final int originX;
+    private final int originY;
+    private final int width;
+
+    private final SpawnedBodyTable spawned;
+    private final VecTable locs;
+
+    /**
+     * @param gameHeader the game's header, for the health of each body type
+     * @param matchHeader the match's header, for the bodies it starts with
+     */
+    public ReplayState(GameHeader gameHeader, MatchHeader matchHeader) {
+        this.spawnHealth = new int[gameHeader.bodyTypeMetadataLength()];
+        final BodyTypeMetadata metadata = new BodyTypeMetadata();
+        for (int i = 0; i < spawnHealth.length; i++) {
+            gameHeader.bodyTypeMetadata(metadata, i);
+            if (metadata.type() >= 0 && metadata.type() < spawnHealth.length) {
+                spawnHealth[metadata.type()] = metadata.health();
+            }
+        }
+
+        this.robots = new TIntObjectHashMap<>();
+        this.teamAdamantium = new int[3];
+        this.teamMana = new int[3];
+        this.teamElixir = new int[3];
+        this.spawned = new SpawnedBodyTable();
+        this.locs = new VecTable();
+
+        final GameMap map = matchHeader.map();
+        this.originX = map.minCorner().x();
+        this.originY = map.minCorner().y();
+        this.width = map.maxCorner().x() - originX;
+
+        addSpawned(map.bodies(spawned));
+    }
+
+    /**
+     * @return the last round applied; 0 at the start of the match
+     */
+    public int getRound() {
+        return round;
+    }
+
+    /**
+     * @return the robot with the given ID, or null if there isn't one
+     */
+    public Robot getRobot(int id) {
+        return robots.get(id);
+    }
+
+    public int getRobotCount() {
+        return robots.size();
+    }
+
+    /**
+     * Apply an operation to every robot. Return false to stop iterating.
+     */
+    public void eachRobot(TObjectProcedure<Robot> op) {
+        robots.forEachValue(op);
+    }
+
+    public int getAdamantium(Team team) {
+        return teamAdamantium[TeamMapping.id(team)];
+    }
+
+    public int getMana(Team team) {
+        return teamMana[TeamMapping.id(team)];
+    }
+
+    public int getElixir(Team team) {
+        return teamElixir[TeamMapping.id(team)];
+    }
+
+    /**
+     * Apply the round after the last one.
+     *
+     * Robots spawn first, so actions on them apply, and die last, so the
+     * actions that killed them apply too.
+     */
+    public void apply(Round r) {
+        addSpawned(r.spawnedBodies(spawned));
+
+        for (int i = 0; i < r.actionIDsLength(); i++) {
+            final Robot robot = robots.get(r.actionIDs(i));
+            if (robot == null) {
+                continue;
+            }
+            final int target = r.actionTargets(i);
+            switch (r.actions(i)) {
+                case Action.CHANGE_HEALTH:
+                    robot.health += target;
+                    break;
+                case Action.CHANGE_ADAMANTIUM:
+                    robot.adamantium += target;
+                    break;
+                case Action.CHANGE_MANA:
+                    robot.mana += target;
+                    break;
+                case Action.CHANGE_ELIXIR:
+                    robot.elixir += target;
+                    break;
+                case Action.THROW_ATTACK:
+                    // Throwing empties the carrier without a change action
+                    robot.adamantium = 0;
+                    robot.mana = 0;
+                    robot.elixir = 0;
+                    break;
+            }
+        }
+
+        if (r.movedLocs(locs) != null) {
+            for (int i = 0; i < r.movedIDsLength(); i++) {
+                move(r.movedIDs(i), locs.xs(i), locs.ys(i));
+            }
+        }
+        final ByteBuffer packed = r.movedPackedAsByteBuffer();
+        if (packed != null) {
+            int id = 0;
+            while (packed.hasRemaining()) {
+                id += VarInts.read(packed);
+                final int tile = VarInts.read(packed);
+                move(id, originX + tile % width, originY + tile / width);
+            }
+        }
+
+        for (int i = 0; i < r.diedIDsLength(); i++) {
+            robots.remove(r.diedIDs(i));
+        }
+
+        for (int i = 0; i < r.teamIDsLength(); i++) {
+            final int team = r.teamIDs(i);
+            teamAdamantium[team] += r.teamAdChanges(i);
+            teamMana[team] += r.teamMnChanges(i);
+            teamElixir[team] += r.teamExChanges(i);
+        }
+
+        round = r.roundID();
+    }
+
+    /**
+     * Replace the whole state with a keyframe.
+     *
+     * @param keyframe the keyframe
+     * @param roundNum the round it's from
+     */
+    public void load(Keyframe keyframe, int roundNum) {
+        robots.clear();
+        keyframe.robotLocs(locs);
+        for (int i = 0; i < keyframe.robotIDsLength(); i++) {
+            final Robot robot = new Robot(keyframe.robotIDs(i), keyframe.robotTeamIDs(i), keyframe.robotTypes(i),
+                    locs.xs(i), locs.ys(i), keyframe.robotHealths(i));
+            robot.adamantium = keyframe.robotAdamantium(i);
+            robot.mana = keyframe.robotMana(i);
+            robot.elixir = keyframe.robotElixir(i);
+            robots.put(robot.id, robot);
+        }
+
+        for (int i = 0; i < keyframe.teamIDsLength(); i++) {
+            final int team = keyframe.teamIDs(i);
+            teamAdamantium[team] = keyframe.teamAdamantium(i);
+            teamMana[team] = keyframe.teamMana(i);
+            teamElixir[team] = keyframe.teamElixir(i);
+        }
+
+        round = roundNum;
+    }
+
+    private void move(int id, int x, int y) {
+        final Robot robot = robots.get(id);
+        if (robot != null) {
+            robot.x = x;
+            robot.y = y;
+        }
+    }
+
+    private void addSpawned(SpawnedBodyTable bodies) {
+        if (bodies == null) {
+            return;
+        }
+        bodies.locs(locs);
+        for (int i = 0; i < bodies.robotIDsLength(); i++) {
+            final byte type = bodies.types(i);
+            final Robot robot = new Robot(bodies.robotIDs(i), bodies.teamIDs(i), type,
+                    locs.xs(i), locs.ys(i), type >= 0 && type < spawnHealth.length ? spawnHealth[type] : 0);
+            robots.put(robot.id, robot);
+        }
+    }
+
+    /**
+     * A robot, as of the end of the last round applied.
+     */
+    public static final class Robot {
+        private final int id;
+        private final byte team;
+        private final byte type;
+        private int x;
+        private int y;
+        private int health;
+        private int adamantium;
+        private int mana;
+        private int elixir;
+
+        private Robot(int id, byte team, byte type, int x, int y, int health) {
+            this.id = id;
+            this.team = team;
+            this.type = type;
+            this.x = x;
+            this.y = y;
+            this.health = health;
+        }
+
+        public int getID() {
+            return id;
+        }
+
+        public Team getTeam() {
+            return TeamMapping.team(team);
+        }
+
+        /**
+         * @return the robot's BodyType
+         */
+        public byte getType() {
+            return type;
+        }
+
+        public MapLocation getLocation() {
+            return new MapLocation(x, y);
+        }
+
+        public int getHealth() {
+            return health;
+        }
+
+        public int getAdamantium() {
+            return adamantium;
+        }
+
+        public int getMana() {
+            return mana;
+        }
+
+        public int getElixir() {
+            return elixir;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package battlecode.replay;
+
+import battlecode.schema.Action;
+import battlecode.schema.BodyType;
+import battlecode.schema.GameHeader;
+import battlecode.schema.MatchFooter;
+import battlecode.schema.Round;
+import battlecode.schema.SpawnedBodyTable;
+
+import java.io.PrintStream;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Totals over any number of replays. Each thread can fill in its own, and
+ * they can then be merged.
+ */
+public final class ReplayStats {
+    private int games;
+    private int matches;
+    private long rounds;
+
+    // Matches won by each team, by name
+    private final Map<String, Integer> wins = new TreeMap<>();
+    // Matches and rounds played on each map, by name
+    private final Map<String, Integer> mapMatches = new TreeMap<>();
+    private final Map<String, Long> mapRounds = new TreeMap<>();
+
+    // By BodyType
+    private final long[] spawned = new long[BodyType.names.length];
+    private final long[] died = new long[BodyType.names.length];
+    // By Action
+    private final long[] actions = new long[Action.names.length];
+
+    /**
+     * Add every match in a replay.
+     */
+    public void add(Replay replay) {
+        final GameHeader header = replay.getGameHeader();
+        final SpawnedBodyTable spawnedBodies = new SpawnedBodyTable();
+        final Round round = new Round();
+
+        games++;
+        for (int match = 0; match < replay.getMatchCount(); match++) {
+            final ReplayState state = new ReplayState(header, replay.getMatchHeader(match));
+            final int roundCount = replay.getRoundCount(match);
+            for (int i = 1; i <= roundCount; i++) {
+                replay.getRound(match, i, round);
+
+                if (round.spawnedBodies(spawnedBodies) != null) {
+                    for (int j = 0; j < spawnedBodies.typesLength(); j++) {
+                        count(spawned, spawnedBodies.types(j));
+                    }
+                }
+                for (int j = 0; j < round.actionsLength(); j++) {
+                    count(actions, round.actions(j));
+                }
+                // Look the dead up before they're removed
+                for (int j = 0; j < round.diedIDsLength(); j++) {
+                    final ReplayState.Robot robot = state.getRobot(round.diedIDs(j));
+                    if (robot != null) {
+                        count(died, robot.getType());
+                    }
+                }
+
+                state.apply(round);
+            }
+
+            final String map = replay.getMatchHeader(match).map().name();
+            matches++;
+            rounds += roundCount;
+            mapMatches.merge(map, 1, Integer::sum);
+            mapRounds.merge(map, (long) roundCount, Long::sum);
+
+            final MatchFooter footer = replay.getMatchFooter(match);
+            if (footer != null) {
+                for (int j = 0; j < header.teamsLength(); j++) {
+                    if (header.teams(j).teamID() == footer.winner()) {
+                        wins.merge(header.teams(j).name(), 1, Integer::sum);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add the totals from other to these.
+     */
+    public void merge(ReplayStats other) {
+        games += other.games;
+        matches += other.matches;
+        rounds += other.rounds;
+        other.wins.forEach((k, v) -> wins.merge(k, v, Integer::sum));
+        other.mapMatches.forEach((k, v) -> mapMatches.merge(k, v, Integer::sum));
+        other.mapRounds.forEach((k, v) -> mapRounds.merge(k, v, Long::sum));
+        for (int i = 0; i < spawned.length; i++) {
+            spawned[i] += other.spawned[i];
+            died[i] += other.died[i];
+        }
+        for (int i = 0; i < actions.length; i++) {
+            actions[i] += other.actions[i];
+        }
+    }
+
+    private static void count(long[] counts, byte index) {
+        if (index >= 0 && index < counts.length) {
+            counts[index]++;
+        }
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getMatches() {
+        return matches;
+    }
+
+    public long getRounds() {
+        return rounds;
+    }
+
+    /**
+     * @return the number of matches each team won, by name
+     */
+    public Map<String, Integer> getWins() {
+        return wins;
+    }
+
+    /**
+     * @return the number of bodies of a BodyType spawned, not counting the
+     *         ones matches start with
+     */
+    public long getSpawned(byte bodyType) {
+        return spawned[bodyType];
+    }
+
+    public long getDied(byte bodyType) {
+        return died[bodyType];
+    }
+
+    public long getActions(byte action) {
+        return actions[action];
+    }
+
+    public void print(PrintStream out) {
+        out.println(games + " games, " + matches + " matches, " + rounds + " rounds");
+
+        out.println("Wins:");
+        wins.forEach((team, count) -> out.println("  " + team + ": " + count));
+
+        out.println("Maps:");
+        mapMatches.forEach((map, count) -> out.println("  " + map + ": " + count + " matches, "
+                + String.format("%.1f", (double) mapRounds.get(map) / count) + " rounds on average"));
+
+        out.println("Bodies (spawned / died):");
+        for (int i = 0; i < spawned.length; i++) {
+            out.println("  " + BodyType.name(i) + ": " + spawned[i] + " / " + died[i]);
+        }
+
+        out.println("Actions:");
+        for (int i = 0; i < actions.length; i++) {
+            out.println("  " + Action.name(i) + ": " + actions[i]);
+        }
+    }
+}
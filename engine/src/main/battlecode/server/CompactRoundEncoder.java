@@ -0,0 +1,247 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.util.VarInts;
+import gnu.trove.list.TByteList;
+import gnu.trove.iterator.TIntObjectIterator;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntIntHashMap;
+import gnu.trove.map.hash.TIntLongHashMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Remembers what the rounds of a match have said so far, so that COMPACT
+ * rounds only have to say what changed. Rounds have to be given to it in
+ * order, and startMatch called before each match's first round.
+ *
+ * @see battlecode.schema.RoundFormat
+ */
+final class CompactRoundEncoder {
+    private int originX;
+    private int originY;
+    private int width;
+
+    // The last tile each robot was on, by ID
+    private final TIntIntHashMap tiles = new TIntIntHashMap(64, 0.5f, -1, -1);
+    // The last values of each well, by location
+    private final TIntObjectHashMap<int[]> wells = new TIntObjectHashMap<>();
+    // The last turnover turns and owner of each island, by ID
+    private final TIntLongHashMap islands = new TIntLongHashMap();
+    // The index of each string in the string table
+    private final TObjectIntHashMap<String> stringTable = new TObjectIntHashMap<>(64, 0.5f, -1);
+    // The last indicator string of each robot, by ID
+    private final TIntObjectHashMap<String> strings = new TIntObjectHashMap<>();
+    // The last indicator dots and lines of each robot, by ID
+    private final TIntObjectHashMap<int[]> indicators = new TIntObjectHashMap<>();
+
+    // Robot IDs in the high half and their values in the low half, to sort
+    private long[] sorted = new long[64];
+
+    /**
+     * Forget the last match.
+     *
+     * @param origin the bottom corner of the new match's map
+     * @param width  the width of the new match's map
+     */
+    void startMatch(MapLocation origin, int width) {
+        this.originX = origin.x;
+        this.originY = origin.y;
+        this.width = width;
+        tiles.clear();
+        wells.clear();
+        islands.clear();
+        stringTable.clear();
+        strings.clear();
+        indicators.clear();
+    }
+
+    /**
+     * Empty the string table, for a round with a keyframe.
+     */
+    void clearStringTable() {
+        stringTable.clear();
+    }
+
+    /**
+     * Forget the robots that died in the round, once it has been packed.
+     *
+     * @param died the robots that died
+     */
+    void forget(TIntList died) {
+        for (int i = 0; i < died.size(); i++) {
+            final int id = died.get(i);
+            tiles.remove(id);
+            strings.remove(id);
+            indicators.remove(id);
+        }
+    }
+
+    /**
+     * Pack the robots whose tile changed since the last round into varints.
+     *
+     * @param ids the robots at the end of the round
+     * @param xs  their x coordinates
+     * @param ys  their y coordinates
+     * @param out where to append the varints
+     */
+    void packMoved(TIntList ids, TIntList xs, TIntList ys, TByteList out) {
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            final int id = ids.get(i);
+            final int tile = xs.get(i) - originX + (ys.get(i) - originY) * width;
+            if (tiles.put(id, tile) != tile) {
+                count = addSorted(count, id, tile);
+            }
+        }
+        pack(count, out);
+    }
+
+    /**
+     * Pack the bytecodes used by every robot that ran into varints.
+     *
+     * @param ids  the robots that ran
+     * @param used the bytecodes they used
+     * @param out  where to append the varints
+     */
+    void packBytecodes(TIntList ids, TIntList used, TByteList out) {
+        int count = 0;
+        for (int i = 0; i < ids.size(); i++) {
+            count = addSorted(count, ids.get(i), used.get(i));
+        }
+        pack(count, out);
+    }
+
+    /**
+     * Note a well's values at the end of the round.
+     *
+     * @return whether they changed since the last round
+     */
+    boolean wellChanged(int loc, int adamantium, int mana, int elixir, int resourceID, int accelerationID) {
+        int[] last = wells.get(loc);
+        if (last == null) {
+            last = new int[5];
+            wells.put(loc, last);
+        } else if (last[0] == adamantium && last[1] == mana && last[2] == elixir
+                && last[3] == resourceID && last[4] == accelerationID) {
+            return false;
+        }
+        last[0] = adamantium;
+        last[1] = mana;
+        last[2] = elixir;
+        last[3] = resourceID;
+        last[4] = accelerationID;
+        return true;
+    }
+
+    /**
+     * Note an island's turnover turns and owner at the end of the round.
+     *
+     * @return whether they changed since the last round
+     */
+    boolean islandChanged(int id, int turnoverTurns, int owner) {
+        final long packed = (long) turnoverTurns << 32 | (owner & 0xFFFFFFFFL);
+        if (islands.containsKey(id) && islands.get(id) == packed) {
+            return false;
+        }
+        islands.put(id, packed);
+        return true;
+    }
+
+    /**
+     * Note a robot's indicator string at the end of its turn. Robots start
+     * out with an empty one.
+     *
+     * @return whether it changed since the robot's last turn
+     */
+    boolean stringChanged(int id, String string) {
+        final String last = strings.put(id, string);
+        return !string.equals(last == null ? "" : last);
+    }
+
+    /**
+     * Look a string up in the string table, adding it to the end if it's
+     * not there yet.
+     *
+     * @param string the string
+     * @param added  where to append the string if it was added
+     * @return its index in the table
+     */
+    int intern(String string, List<String> added) {
+        int index = stringTable.get(string);
+        if (index == -1) {
+            index = stringTable.size();
+            stringTable.put(string, index);
+            added.add(string);
+        }
+        return index;
+    }
+
+    /**
+     * Note the indicator dots and lines of every robot at the end of the
+     * round.
+     *
+     * @param current each robot's dots and lines, flattened into one list;
+     *                robots without any are left out
+     * @param all     whether to count every robot with dots or lines as
+     *                changed, for a round with a keyframe
+     * @param changed where to add the robots whose dots or lines changed
+     *                since the last round, including the ones that no longer
+     *                have any, in order of ID
+     */
+    void indicatorsChanged(TIntObjectMap<TIntArrayList> current, boolean all, TIntList changed) {
+        final int start = changed.size();
+        for (TIntObjectIterator<TIntArrayList> it = current.iterator(); it.hasNext(); ) {
+            it.advance();
+            final int[] last = indicators.get(it.key());
+            if (all || last == null || !sameInts(last, it.value())) {
+                indicators.put(it.key(), it.value().toArray());
+                changed.add(it.key());
+            }
+        }
+        for (TIntObjectIterator<int[]> it = indicators.iterator(); it.hasNext(); ) {
+            it.advance();
+            if (!current.containsKey(it.key())) {
+                changed.add(it.key());
+                it.remove();
+            }
+        }
+        changed.sort(start, changed.size());
+    }
+
+    private static boolean sameInts(int[] a, TIntList b) {
+        if (a.length != b.size()) {
+            return false;
+        }
+        for (int i = 0; i < a.length; i++) {
+            if (a[i] != b.get(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int addSorted(int count, int id, int value) {
+        if (count == sorted.length) {
+            sorted = Arrays.copyOf(sorted, count * 2);
+        }
+        sorted[count] = (long) id << 32 | (value & 0xFFFFFFFFL);
+        return count + 1;
+    }
+
+    private void pack(int count, TByteList out) {
+        Arrays.sort(sorted, 0, count);
+        int lastID = 0;
+        for (int i = 0; i < count; i++) {
+            final int id = (int) (sorted[i] >>> 32);
+            VarInts.write(out, id - lastID);
+            VarInts.write(out, (int) sorted[i]);
+            lastID = id;
+        }
+    }
+}
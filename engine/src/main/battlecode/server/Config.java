@@ -42,6 +42,14 @@ public class Config {
         // This does not affect output to stdout
         defaults.setProperty("bc.server.robot-player-replay-file-per-team-limit-bytes","-1");
 
+        // The most bytes of what a robot prints in one turn to keep in the
+        // replay; if it prints more, the last ones are kept. What robots print
+        // is kept when either this or the per-team limit above is set, with
+        // each turn bounded by this, or by 8192 bytes if it's 0; the per-team
+        // limit bounds the whole file. With neither set, robots that print
+        // nowhere else aren't given anything to print to.
+        defaults.setProperty("bc.server.robot-log-bytes", "0");
+
         defaults.setProperty("bc.server.save-file", "match.rms");
         defaults.setProperty("bc.server.transcribe-input", "match.rms");
         defaults.setProperty("bc.server.transcribe-output", "transcribed.txt");
@@ -52,6 +60,53 @@ public class Config {
         defaults.setProperty("bc.server.validate-maps", "true");
         defaults.setProperty("bc.server.alternate-order", "false");
 
+        // Whether to write each event to <save-file>.stream as it's made, rather
+        // than keeping the whole game in memory and writing the save file at the
+        // end. ReplayStreamReader converts these files to the usual format.
+        defaults.setProperty("bc.server.stream-replay", "false");
+
+        // The number of rounds that can wait to be written to the replay, on
+        // another thread, while the next round runs. 0 writes each round
+        // before the next one starts. Replays are the same either way.
+        defaults.setProperty("bc.server.round-pipeline-depth", "0");
+
+        // The number of finished games whose replays can be built, compressed
+        // and saved in the background while the next game runs. 0 saves each
+        // replay before the next game starts. All replays are saved before
+        // the server exits either way.
+        defaults.setProperty("bc.server.pending-replay-writes", "0");
+
+        // The number of threads to compress each replay on. Above 1, the
+        // replay is split into blocks of replay-compression-block-size bytes
+        // that are compressed at the same time, then written straight to the
+        // save file as one ordinary gzip stream.
+        defaults.setProperty("bc.server.replay-compression-threads", "1");
+        defaults.setProperty("bc.server.replay-compression-block-size", "131072");
+
+        // Every this many rounds, the replay holds the full state of the
+        // robots and teams, so viewers can jump to a round without playing
+        // every round before it. 0 writes no keyframes.
+        defaults.setProperty("bc.server.keyframe-interval", "0");
+
+        // Whether to write rounds in the compact format, which packs robot
+        // locations and bytecodes into varints and only lists the robots,
+        // wells and islands that changed. Ignored when the websocket is on,
+        // since the live client only reads legacy rounds; see
+        // LegacyRoundConverter for reading compact replays with older viewers.
+        defaults.setProperty("bc.server.compact-rounds", "false");
+
+        // Whether to count the bytes and build time of each event type and
+        // each group of round fields, print them to the debug log at the end
+        // of each match, and write them next to the replay (e.g.
+        // replay-stats.json for replay.bc23) at the end of each game.
+        defaults.setProperty("bc.server.replay-stats", "false");
+
+        // Whether to play games without making a replay at all, for runs that
+        // only care who won. Nothing is saved or sent to clients, and each
+        // match's result is printed on one line. Overrides stream-replay and
+        // replay-stats.
+        defaults.setProperty("bc.server.no-replay", "false");
+
 
 
         // Whether to write robot player output to match files / system out
@@ -63,8 +118,40 @@ public class Config {
         defaults.setProperty("bc.engine.silence-d", "false");
         defaults.setProperty("bc.engine.debug-methods", "false");
         defaults.setProperty("bc.engine.enable-profiler", "false");
+        // The number of profiler events (method entries and exits) to record
+        // for each robot; events past this are dropped. Replays grow by about
+        // 25 bytes per event.
+        defaults.setProperty("bc.engine.profiler-events-per-robot", "100000");
+        // The number of profiler events all of a team's robots may record
+        // between them in a match, about 50MB; more than this and the client
+        // can hang opening the replay.
+        defaults.setProperty("bc.engine.profiler-events-per-team", "2000000");
+        // If positive, the profiler samples which methods each robot is in every
+        // this many bytecodes and writes one profile per robot type, rather than
+        // recording every method call of every robot. Its cost doesn't grow with
+        // the number of calls, so it can stay on for a whole match.
+        defaults.setProperty("bc.engine.profiler-sample-interval", "0");
+        // Whether to stream profiler output to a file per team next to the replay
+        // (e.g. replay-A.bcprof) as the match runs, rather than keeping it in
+        // memory and putting it in the replay. ProfilerSidecarReader converts
+        // these files for speedscope.
+        defaults.setProperty("bc.engine.profiler-sidecar", "false");
         defaults.setProperty("bc.engine.show-indicators", "true");
 
+        // Whether to run robot players on virtual threads rather than platform threads.
+        // Requires a Java 21+ runtime; ignored (with a warning) otherwise.
+        defaults.setProperty("bc.engine.virtual-threads", "false");
+
+        // The number of robot sandboxes (classloaders and parked threads) to keep
+        // ready for each team, so spawning robots doesn't stall the round.
+        // 0 builds every sandbox when its robot spawns.
+        defaults.setProperty("bc.engine.sandbox-pool-size", "0");
+
+        // Whether the instrumenter should merge bytecode charges across code
+        // that can't observe them (e.g. charging loops once per iteration).
+        // Robots are charged the same either way.
+        defaults.setProperty("bc.engine.coalesce-bytecode-charges", "false");
+
         defaults.setProperty("bc.game.team-a", "team000");
         defaults.setProperty("bc.game.team-b", "team000");
         defaults.setProperty("bc.game.maps", "glass");
@@ -1,26 +1,40 @@
 package battlecode.server;
 
+import battlecode.common.Anchor;
 import battlecode.common.GameConstants;
 import battlecode.common.MapLocation;
 import battlecode.common.ResourceType;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
-import battlecode.instrumenter.profiler.Profiler;
+import battlecode.instrumenter.profiler.CallTree;
 import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.instrumenter.profiler.ProfilerEventBuffer;
 import battlecode.instrumenter.profiler.ProfilerEventType;
+import battlecode.instrumenter.profiler.ProfilerSidecarWriter;
+import battlecode.instrumenter.profiler.TracingProfiler;
 import battlecode.schema.*;
+import battlecode.server.ReplayEncodeStats.RoundGroup;
 import battlecode.util.FlatHelpers;
+import battlecode.util.ParallelGzip;
 import battlecode.util.TeamMapping;
 import battlecode.world.*;
 import com.google.flatbuffers.FlatBufferBuilder;
 import gnu.trove.list.array.TByteArrayList;
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import java.util.List;
 import java.util.ArrayList;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.function.ToIntFunction;
 import java.util.zip.GZIPOutputStream;
 
@@ -31,6 +45,11 @@ import static battlecode.util.FlatHelpers.*;
  */
 public strictfp class GameMaker {
 
+    /**
+     * How long the round serializer thread waits for a round before exiting.
+     */
+    private static final long ROUND_SERIALIZER_IDLE_SECONDS = 60;
+
     /**
      * The protocol expects a series of valid state transitions;
      * we ensure that's true.
@@ -59,9 +78,21 @@ public strictfp class GameMaker {
 
     /**
      * We write the whole match to this builder, then write it to a file.
+     * Null if the game is streamed to replayStream instead.
      */
     private final FlatBufferBuilder fileBuilder;
 
+    /**
+     * If not null, each event is written here as soon as it's made, and the
+     * game is never held in memory.
+     */
+    private final ReplayStreamWriter replayStream;
+
+    /**
+     * Whether the GameWrapper has been added to fileBuilder.
+     */
+    private boolean gameWrapperFinished;
+
     /**
      * Null until the end of the match.
      */
@@ -71,8 +102,10 @@ public strictfp class GameMaker {
      * We have a separate byte[] for each packet sent to the client.
      * This is necessary because flatbuffers shares metadata between structures, so we
      * can't just cut out chunks of the larger buffer :/
+     * It goes the other way, though: finished packets are copied into fileBuilder whole.
+     * Null if packets aren't sent anywhere.
      */
-    private FlatBufferBuilder packetBuilder;
+    private final FlatBufferBuilder packetBuilder;
 
     /**
      * The server we're sending packets on.
@@ -94,41 +127,261 @@ public strictfp class GameMaker {
     private TIntArrayList events;
     private TIntArrayList matchHeaders;
     private TIntArrayList matchFooters;
+    private TIntArrayList keyframes;
+
+    /**
+     * The number of events made so far.
+     */
+    private int eventCount;
 
     /**
      * The MatchMaker associated with this GameMaker.
      */
     private final MatchMaker matchMaker;
 
+    /**
+     * Whether events are built at all; false for a GameMaker made by
+     * withoutReplay.
+     */
+    private final boolean recording;
+
     /**
      * Whether to serialize indicator dots and lines into the flatbuffer.
      */
     private final boolean showIndicators;
 
+    /**
+     * Every this many rounds, a round holds a keyframe; 0 for none.
+     */
+    private final int keyframeInterval;
+
+    /**
+     * If not null, rounds are written in the COMPACT RoundFormat, and this
+     * remembers what the rounds before have said.
+     */
+    private final CompactRoundEncoder compactRounds;
+
+    /**
+     * If not null, counts the bytes and time each part of the replay takes.
+     */
+    private final ReplayEncodeStats encodeStats;
+
+    /**
+     * The most bytes of a robot's output to keep from each of its turns; 0
+     * to keep none.
+     */
+    private final int robotLogBytes;
+
+    /**
+     * If not null, rounds are built on this thread while the next round
+     * runs. Other events wait for it to finish the rounds before them, and
+     * are built on the calling thread.
+     */
+    private final ThreadPoolExecutor roundSerializer;
+
+    /**
+     * Cleared rounds for MatchMaker to fill, if there's a roundSerializer.
+     * MatchMaker waits for one when every other round is still waiting to be
+     * built.
+     */
+    private final BlockingQueue<RoundData> freeRounds;
+
+    /**
+     * The last round given to roundSerializer, if it may not be built yet.
+     */
+    private Future<?> lastRound;
+
+    /**
+     * The first error roundSerializer hit; no more rounds are built after it.
+     */
+    private volatile RuntimeException roundSerializerError;
+
     /**
      * @param gameInfo the mapping of teams to bytes
      * @param packetSink the NetServer to send packets to
      * @param showIndicators whether to write indicator dots and lines to replay
      */
     public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final boolean showIndicators) {
+        this(gameInfo, new Options().setPacketSink(packetSink).setShowIndicators(showIndicators));
+    }
+
+    /**
+     * @param gameInfo the mapping of teams to bytes
+     * @param options how to build, write and send the game
+     */
+    public GameMaker(final GameInfo gameInfo, final Options options) {
+        if (options.compactRounds && options.packetSink != null) {
+            throw new IllegalArgumentException("Compact rounds can't be sent to a packetSink");
+        }
         this.state = State.GAME_HEADER;
 
         this.gameInfo = gameInfo;
+        this.recording = true;
 
-        this.packetSink = packetSink;
-        if (packetSink != null) {
-            this.packetBuilder = new FlatBufferBuilder();
-        }
+        this.packetSink = options.packetSink;
+        this.replayStream = options.replayStream;
+        this.packetBuilder = options.packetSink != null || options.replayStream != null
+                ? new FlatBufferBuilder() : null;
 
-        this.fileBuilder = new FlatBufferBuilder();
+        this.fileBuilder = options.replayStream == null ? new FlatBufferBuilder() : null;
 
         this.events = new TIntArrayList();
         this.matchHeaders = new TIntArrayList();
         this.matchFooters = new TIntArrayList();
+        this.keyframes = new TIntArrayList();
+
+        if (options.roundPipelineDepth > 0) {
+            this.roundSerializer = new ThreadPoolExecutor(1, 1,
+                    ROUND_SERIALIZER_IDLE_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    r -> {
+                        final Thread thread = new Thread(r, "round serializer");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            this.roundSerializer.allowCoreThreadTimeOut(true);
+            this.freeRounds = new ArrayBlockingQueue<>(options.roundPipelineDepth);
+            for (int i = 0; i < options.roundPipelineDepth; i++) {
+                this.freeRounds.add(new RoundData());
+            }
+        } else {
+            this.roundSerializer = null;
+            this.freeRounds = null;
+        }
+
+        this.showIndicators = options.showIndicators;
+        this.keyframeInterval = options.keyframeInterval;
+        this.compactRounds = options.compactRounds ? new CompactRoundEncoder() : null;
+        this.encodeStats = options.encodeStats;
+        this.robotLogBytes = Math.max(0, options.robotLogBytes);
 
         this.matchMaker = new MatchMaker();
+    }
+
+    private GameMaker(final GameInfo gameInfo) {
+        this.state = State.GAME_HEADER;
 
-        this.showIndicators = showIndicators;
+        this.gameInfo = gameInfo;
+        this.recording = false;
+
+        this.packetSink = null;
+        this.replayStream = null;
+        this.packetBuilder = null;
+        this.fileBuilder = null;
+        this.roundSerializer = null;
+        this.freeRounds = null;
+
+        this.showIndicators = false;
+        this.keyframeInterval = 0;
+        this.compactRounds = null;
+        this.encodeStats = null;
+        this.robotLogBytes = 0;
+
+        this.matchMaker = new NoReplayMatchMaker();
+    }
+
+    /**
+     * How a GameMaker builds, writes and sends its game. Each setter returns
+     * the options, so they can be chained; anything not set is left at what
+     * the field says.
+     */
+    public static final class Options {
+        private NetServer packetSink = null;
+        private boolean showIndicators = true;
+        private ReplayStreamWriter replayStream = null;
+        private int roundPipelineDepth = 0;
+        private int keyframeInterval = 0;
+        private boolean compactRounds = false;
+        private ReplayEncodeStats encodeStats = null;
+        private int robotLogBytes = 0;
+
+        /**
+         * @param packetSink the NetServer to send packets to, or null not to
+         */
+        public Options setPacketSink(final NetServer packetSink) {
+            this.packetSink = packetSink;
+            return this;
+        }
+
+        /**
+         * @param showIndicators whether to write indicator dots and lines to
+         *                       replay
+         */
+        public Options setShowIndicators(final boolean showIndicators) {
+            this.showIndicators = showIndicators;
+            return this;
+        }
+
+        /**
+         * @param replayStream where to write each event as it's made, or null
+         *                     to build the whole game in memory for writeGame
+         */
+        public Options setReplayStream(final ReplayStreamWriter replayStream) {
+            this.replayStream = replayStream;
+            return this;
+        }
+
+        /**
+         * @param roundPipelineDepth the number of rounds that can wait to be
+         *                           built on another thread while the next
+         *                           round runs; 0 builds each round before
+         *                           makeRound returns
+         */
+        public Options setRoundPipelineDepth(final int roundPipelineDepth) {
+            this.roundPipelineDepth = roundPipelineDepth;
+            return this;
+        }
+
+        /**
+         * @param keyframeInterval every this many rounds, write the full state
+         *                         of the robots and teams; 0 for never
+         */
+        public Options setKeyframeInterval(final int keyframeInterval) {
+            this.keyframeInterval = keyframeInterval;
+            return this;
+        }
+
+        /**
+         * @param compactRounds whether to write rounds in the COMPACT
+         *                      RoundFormat, which only lists what changed;
+         *                      can't be used with a packetSink, whose client
+         *                      only reads LEGACY rounds
+         */
+        public Options setCompactRounds(final boolean compactRounds) {
+            this.compactRounds = compactRounds;
+            return this;
+        }
+
+        /**
+         * @param encodeStats where to count the bytes and time each part of
+         *                    the replay takes, or null not to
+         */
+        public Options setEncodeStats(final ReplayEncodeStats encodeStats) {
+            this.encodeStats = encodeStats;
+            return this;
+        }
+
+        /**
+         * @param robotLogBytes the most bytes of what a robot prints in a
+         *                      turn to write to the replay, keeping the last
+         *                      ones; 0 to write none
+         */
+        public Options setRobotLogBytes(final int robotLogBytes) {
+            this.robotLogBytes = robotLogBytes;
+            return this;
+        }
+    }
+
+    /**
+     * Make a GameMaker that records nothing, for games where only the result
+     * matters. Its MatchMaker ignores everything it's given, and there's no
+     * game to write or send anywhere.
+     *
+     * @param gameInfo the game being played
+     * @return a GameMaker that only checks its events come in a valid order
+     */
+    public static GameMaker withoutReplay(final GameInfo gameInfo) {
+        return new GameMaker(gameInfo);
     }
 
     /**
@@ -158,26 +411,19 @@ public strictfp class GameMaker {
      * @return game as a packed flatbuffer byte array.
      */
     public byte[] toBytes() {
+        if (!recording) {
+            throw new IllegalStateException("Game was played without a replay");
+        }
+        if (replayStream != null) {
+            throw new IllegalStateException("Game was streamed to " + replayStream.getFile());
+        }
         if (finishedGame == null) {
-            assertState(State.DONE);
-
-            int events = GameWrapper.createEventsVector(fileBuilder, this.events.toArray());
-            int matchHeaders = GameWrapper.createMatchHeadersVector(fileBuilder, this.matchHeaders.toArray());
-            int matchFooters = GameWrapper.createMatchFootersVector(fileBuilder, this.matchFooters.toArray());
-
-            GameWrapper.startGameWrapper(fileBuilder);
-            GameWrapper.addEvents(fileBuilder, events);
-            GameWrapper.addMatchHeaders(fileBuilder, matchHeaders);
-            GameWrapper.addMatchFooters(fileBuilder, matchFooters);
-
-            fileBuilder.finish(GameWrapper.endGameWrapper(fileBuilder));
-
-            byte[] rawBytes = fileBuilder.sizedByteArray();
+            ByteBuffer rawBytes = finishGameWrapper();
 
             try {
                 ByteArrayOutputStream result = new ByteArrayOutputStream();
                 GZIPOutputStream zipper = new GZIPOutputStream(result);
-                IOUtils.copy(new ByteArrayInputStream(rawBytes), zipper);
+                zipper.write(rawBytes.array(), rawBytes.arrayOffset() + rawBytes.position(), rawBytes.remaining());
                 zipper.close();
                 zipper.flush();
                 result.flush();
@@ -189,41 +435,222 @@ public strictfp class GameMaker {
         return finishedGame;
     }
 
+    /**
+     * Add the GameWrapper to the front of the file, if it isn't there yet.
+     *
+     * @return the whole uncompressed game, in fileBuilder's buffer
+     */
+    private ByteBuffer finishGameWrapper() {
+        if (!gameWrapperFinished) {
+            assertState(State.DONE);
+
+            int events = GameWrapper.createEventsVector(fileBuilder, this.events.toArray());
+            int matchHeaders = GameWrapper.createMatchHeadersVector(fileBuilder, this.matchHeaders.toArray());
+            int matchFooters = GameWrapper.createMatchFootersVector(fileBuilder, this.matchFooters.toArray());
+            // Left out entirely when there are none, so old readers see the same file
+            int keyframes = this.keyframes.isEmpty() ? 0
+                    : GameWrapper.createKeyframesVector(fileBuilder, this.keyframes.toArray());
+
+            GameWrapper.startGameWrapper(fileBuilder);
+            GameWrapper.addEvents(fileBuilder, events);
+            GameWrapper.addMatchHeaders(fileBuilder, matchHeaders);
+            GameWrapper.addMatchFooters(fileBuilder, matchFooters);
+            GameWrapper.addKeyframes(fileBuilder, keyframes);
+
+            fileBuilder.finish(GameWrapper.endGameWrapper(fileBuilder));
+            gameWrapperFinished = true;
+        }
+        return fileBuilder.dataBuffer();
+    }
+
     /**
      * Write a match out to a file.
      *
+     * If the game was streamed, it's already been written to the stream's
+     * file, so this just finishes that file.
+     *
      * @param saveFile the file to save to
      */
     public void writeGame(File saveFile) {
+        writeGame(saveFile, null);
+    }
+
+    /**
+     * Write a match out to a file.
+     *
+     * @param saveFile the file to save to
+     * @param compressor if not null, used to compress the game straight to
+     *                   the file; otherwise it's compressed on this thread
+     */
+    public void writeGame(File saveFile, ParallelGzip compressor) {
         if (saveFile == null) {
             throw new RuntimeException("Null file provided to writeGame");
         }
+        if (!recording) {
+            throw new IllegalStateException("Game was played without a replay");
+        }
 
-        try {
-            FileUtils.writeByteArrayToFile(saveFile, toBytes());
+        if (replayStream != null) {
+            assertState(State.DONE);
+            try {
+                replayStream.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+
+        if (compressor == null || finishedGame != null) {
+            try {
+                FileUtils.writeByteArrayToFile(saveFile, toBytes());
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return;
+        }
+
+        ByteBuffer rawBytes = finishGameWrapper();
+        try (OutputStream out = new BufferedOutputStream(FileUtils.openOutputStream(saveFile), 1 << 16)) {
+            compressor.compress(rawBytes.array(), rawBytes.arrayOffset() + rawBytes.position(),
+                    rawBytes.remaining(), out);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Run the same logic for both builders.
+     * Build an event after any rounds still waiting to be built.
      *
-     * @param perBuilder called with each builder; return event id. Should not mutate state.
+     * @param type the Event type of the event
+     * @param perBuilder called with the builder to build in; return event id.
      */
-    private void createEvent(ToIntFunction<FlatBufferBuilder> perBuilder) {
-        // make file event and add its offset to the list
-        int eventAP = perBuilder.applyAsInt(fileBuilder);
-        events.add(eventAP);
+    private void createEvent(byte type, ToIntFunction<FlatBufferBuilder> perBuilder) {
+        if (!recording) {
+            return;
+        }
+        finishRounds();
+        buildEvent(type, perBuilder);
+    }
 
-        if (packetSink != null) {
-            // make packet event and package it up
-            int eventBP = perBuilder.applyAsInt(packetBuilder);
-            packetBuilder.finish(eventBP);
-            packetSink.addEvent(packetBuilder.sizedByteArray());
+    /**
+     * Hand a filled round to roundSerializer to build.
+     *
+     * @param round the round to build; cleared and reused once it's built
+     * @param roundNum the round's number
+     * @return a cleared round to fill next
+     */
+    private RoundData submitRound(RoundData round, int roundNum) {
+        checkRoundSerializer();
+
+        // Take the next round first: until then freeRounds may be full, with
+        // no room for this one to go back once it's built
+        final RoundData next;
+        try {
+            next = freeRounds.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for a round to be built", e);
+        }
+
+        lastRound = roundSerializer.submit(() -> {
+            try {
+                if (roundSerializerError == null) {
+                    buildEvent(Event.Round, (builder) -> buildRound(builder, round, roundNum));
+                }
+            } catch (RuntimeException e) {
+                roundSerializerError = e;
+            } finally {
+                round.clear();
+                freeRounds.add(round);
+            }
+        });
+        return next;
+    }
 
-            // reset packet builder
-            packetBuilder = new FlatBufferBuilder(packetBuilder.dataBuffer());
+    /**
+     * Build a round's event, and note where it is if it holds a keyframe.
+     *
+     * @return the offset of the EventWrapper
+     */
+    private int buildRound(FlatBufferBuilder builder, RoundData round, int roundNum) {
+        if (round.hasKeyframe) {
+            // buildEvent has already counted this event
+            keyframes.add(eventCount - 1);
+        }
+        return round.build(builder, roundNum, compactRounds, encodeStats);
+    }
+
+    /**
+     * Wait for roundSerializer to build every round given to it.
+     */
+    private void finishRounds() {
+        if (lastRound == null) {
+            return;
+        }
+        try {
+            lastRound.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted waiting for rounds to be built", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Error building rounds", e.getCause());
+        }
+        lastRound = null;
+        checkRoundSerializer();
+    }
+
+    private void checkRoundSerializer() {
+        if (roundSerializerError != null) {
+            throw new RuntimeException("Error building rounds", roundSerializerError);
+        }
+    }
+
+    /**
+     * Build an event and add it to the file, and send it to the packet sink
+     * and replay stream if there are any.
+     *
+     * If the event has to be sent anywhere, it's built once, by itself, in
+     * packetBuilder; those bytes are what gets sent, and they're copied into
+     * the file as they are rather than built again there.
+     *
+     * @param type the Event type of the event
+     * @param perBuilder called with the builder to build in; return event id.
+     */
+    private void buildEvent(byte type, ToIntFunction<FlatBufferBuilder> perBuilder) {
+        eventCount++;
+        final long start = encodeStats != null ? System.nanoTime() : 0;
+
+        if (packetBuilder == null) {
+            // make file event and add its offset to the list
+            final int before = fileBuilder.offset();
+            events.add(perBuilder.applyAsInt(fileBuilder));
+            if (encodeStats != null) {
+                encodeStats.countEvent(type, fileBuilder.offset() - before, System.nanoTime() - start);
+            }
+            return;
+        }
+
+        // make packet event and package it up
+        int eventP = perBuilder.applyAsInt(packetBuilder);
+        packetBuilder.finish(eventP);
+        byte[] packet = packetBuilder.sizedByteArray();
+        packetBuilder.clear();
+
+        if (fileBuilder != null) {
+            events.add(FlatHelpers.addFinishedBuffer(fileBuilder, packet));
+        }
+        if (packetSink != null) {
+            packetSink.addEvent(packet);
+        }
+        if (replayStream != null) {
+            try {
+                replayStream.writeEvent(packet);
+            } catch (IOException e) {
+                throw new RuntimeException("Error writing replay stream", e);
+            }
+        }
+        if (encodeStats != null) {
+            encodeStats.countEvent(type, packet.length, System.nanoTime() - start);
         }
     }
 
@@ -238,7 +665,7 @@ public strictfp class GameMaker {
 
         changeState(State.GAME_HEADER, State.IN_GAME);
 
-        createEvent((builder) -> {
+        createEvent(Event.GameHeader, (builder) -> {
             int specVersionOffset = builder.createString(GameConstants.SPEC_VERSION);
 
             int name = builder.createString(gameInfo.getTeamAName());
@@ -273,6 +700,7 @@ public strictfp class GameMaker {
             GameHeader.addTeams(builder, teamsOffset);
             GameHeader.addBodyTypeMetadata(builder, bodyTypeMetadataOffset);
             GameHeader.addConstants(builder, constantsOffset);
+            GameHeader.addRoundFormat(builder, compactRounds != null ? RoundFormat.COMPACT : RoundFormat.LEGACY);
             int gameHeaderOffset = GameHeader.endGameHeader(builder);
 
             return EventWrapper.createEventWrapper(builder, Event.GameHeader, gameHeaderOffset);
@@ -315,7 +743,7 @@ public strictfp class GameMaker {
     public void makeGameFooter(Team winner) {
         changeState(State.IN_GAME, State.DONE);
 
-        createEvent((builder) -> EventWrapper.createEventWrapper(builder, Event.GameFooter,
+        createEvent(Event.GameFooter, (builder) -> EventWrapper.createEventWrapper(builder, Event.GameFooter,
                 GameFooter.createGameFooter(builder, TeamMapping.id(winner))));
     }
 
@@ -328,138 +756,68 @@ public strictfp class GameMaker {
      * There is only one of these per GameMaker.
      */
     public class MatchMaker {
-        private TIntArrayList movedIDs; // ints
-        // VecTable for movedLocs in Round
-        private TIntArrayList movedLocsX;
-        private TIntArrayList movedLocsY;
-
-        // SpawnedBodyTable for spawnedBodies
-        private TIntArrayList spawnedBodiesRobotIDs;
-        private TByteArrayList spawnedBodiesTeamIDs;
-        private TByteArrayList spawnedBodiesTypes;
-        private TIntArrayList spawnedBodiesLocsXs; //For locs
-        private TIntArrayList spawnedBodiesLocsYs; //For locs
-
-        private TIntArrayList diedIDs; // ints
-
-        private TIntArrayList actionIDs; // ints
-        private TByteArrayList actions; // Actions
-        private TIntArrayList actionTargets; // ints (IDs)
-
-        // Round statistics
-        private TIntArrayList teamIDs;
-        private TIntArrayList teamMnChanges;
-        private TIntArrayList teamAdChanges;
-        private TIntArrayList teamExChanges;
+        // The round being collected
+        private RoundData round;
 
-        private TIntArrayList islandIDs;
-        private TIntArrayList islandTurnoverTurns;
-        private TIntArrayList islandOwnership;
+        // Where robots print to during their turns, if it's kept
+        private final RobotLogBuffer logs;
 
-        private TIntArrayList resourceWellLocs;
-        private TIntArrayList resourceWellAdValue;
-        private TIntArrayList resourceWellMnValue;
-        private TIntArrayList resourceWellExValue;
-        private TIntArrayList resourceWellID;
-        private TIntArrayList wellAccelerationID;
-
-        private TIntArrayList indicatorStringIDs;
-        private ArrayList<String> indicatorStrings;
-
-        // Indicator dots with locations and RGB values
-        private TIntArrayList indicatorDotIDs;
-        private TIntArrayList indicatorDotLocsX;
-        private TIntArrayList indicatorDotLocsY;
-        private TIntArrayList indicatorDotRGBsRed;
-        private TIntArrayList indicatorDotRGBsGreen;
-        private TIntArrayList indicatorDotRGBsBlue;
-
-        // Indicator lines with locations and RGB values
-        private TIntArrayList indicatorLineIDs;
-        private TIntArrayList indicatorLineStartLocsX;
-        private TIntArrayList indicatorLineStartLocsY;
-        private TIntArrayList indicatorLineEndLocsX;
-        private TIntArrayList indicatorLineEndLocsY;
-        private TIntArrayList indicatorLineRGBsRed;
-        private TIntArrayList indicatorLineRGBsGreen;
-        private TIntArrayList indicatorLineRGBsBlue;
-
-        // Robot IDs and their bytecode usage
-        private TIntArrayList bytecodeIDs;
-        private TIntArrayList bytecodesUsed;
+        public MatchMaker() {
+            this(true);
+        }
 
-        // Used to write logs.
-        private final ByteArrayOutputStream logger;
+        private MatchMaker(boolean recording) {
+            this.round = recording ? new RoundData() : null;
+            this.logs = recording && robotLogBytes > 0 ? new RobotLogBuffer(robotLogBytes) : null;
+        }
 
-        public MatchMaker() {
-            this.movedIDs = new TIntArrayList();
-            this.movedLocsX = new TIntArrayList();
-            this.movedLocsY = new TIntArrayList();
-            this.spawnedBodiesRobotIDs = new TIntArrayList();
-            this.spawnedBodiesTeamIDs = new TByteArrayList();
-            this.spawnedBodiesTypes = new TByteArrayList();
-            this.spawnedBodiesLocsXs = new TIntArrayList();
-            this.spawnedBodiesLocsYs = new TIntArrayList();
-            this.diedIDs = new TIntArrayList();
-            this.actionIDs = new TIntArrayList();
-            this.actions = new TByteArrayList();
-            this.actionTargets = new TIntArrayList();
-            this.teamIDs = new TIntArrayList();
-            this.teamMnChanges = new TIntArrayList();
-            this.teamAdChanges = new TIntArrayList();
-            this.teamExChanges = new TIntArrayList();
-            this.islandIDs = new TIntArrayList();
-            this.islandTurnoverTurns = new TIntArrayList();
-            this.islandOwnership = new TIntArrayList();
-            this.resourceWellLocs = new TIntArrayList();
-            this.resourceWellAdValue = new TIntArrayList();
-            this.resourceWellMnValue = new TIntArrayList();
-            this.resourceWellExValue = new TIntArrayList();
-            this.resourceWellID = new TIntArrayList();
-            this.wellAccelerationID = new TIntArrayList();
-            this.indicatorStringIDs = new TIntArrayList();
-            this.indicatorStrings = new ArrayList<>();
-            this.indicatorDotIDs = new TIntArrayList();
-            this.indicatorDotLocsX = new TIntArrayList();
-            this.indicatorDotLocsY = new TIntArrayList();
-            this.indicatorDotRGBsRed = new TIntArrayList();
-            this.indicatorDotRGBsBlue = new TIntArrayList();
-            this.indicatorDotRGBsGreen = new TIntArrayList();
-            this.indicatorLineIDs = new TIntArrayList();
-            this.indicatorLineStartLocsX = new TIntArrayList();
-            this.indicatorLineStartLocsY = new TIntArrayList();
-            this.indicatorLineEndLocsX = new TIntArrayList();
-            this.indicatorLineEndLocsY = new TIntArrayList();
-            this.indicatorLineRGBsRed = new TIntArrayList();
-            this.indicatorLineRGBsBlue = new TIntArrayList();
-            this.indicatorLineRGBsGreen = new TIntArrayList();
-            this.bytecodeIDs = new TIntArrayList();
-            this.bytecodesUsed = new TIntArrayList();
-            this.logger = new ByteArrayOutputStream();
+        /**
+         * @return whether anything given to this MatchMaker is kept; if not,
+         *         callers can skip working out what to give it
+         */
+        public boolean isRecording() {
+            return true;
         }
 
         public void makeMatchHeader(LiveMap gameMap) {
             changeState(State.IN_GAME, State.IN_MATCH);
 
-            createEvent((builder) -> {
+            if (encodeStats != null) {
+                encodeStats.startMatch(gameMap.getMapName());
+            }
+            createEvent(Event.MatchHeader, (builder) -> {
                 int map = GameMapIO.Serial.serialize(builder, gameMap);
 
                 return EventWrapper.createEventWrapper(builder, Event.MatchHeader,
                         MatchHeader.createMatchHeader(builder, map, gameMap.getRounds()));
             });
 
-            matchHeaders.add(events.size() - 1);
+            matchHeaders.add(eventCount - 1);
 
-            clearData();
+            // The rounds before have all been built, so this is safe to reset
+            if (compactRounds != null) {
+                compactRounds.startMatch(gameMap.getOrigin(), gameMap.getWidth());
+            }
+            round.clear();
         }
 
         public void makeMatchFooter(Team winTeam, int totalRounds, List<ProfilerCollection> profilerCollections) {
             changeState(State.IN_MATCH, State.IN_GAME);
 
-            createEvent((builder) -> {
+            createEvent(Event.MatchFooter, (builder) -> {
                 TIntArrayList profilerFiles = new TIntArrayList();
 
                 for (ProfilerCollection profilerCollection : profilerCollections) {
+                    ProfilerSidecarWriter sidecar = profilerCollection.getSidecar();
+                    if (sidecar != null) {
+                        int sidecarOffset = builder.createString(sidecar.getFile().getName());
+
+                        ProfilerFile.startProfilerFile(builder);
+                        ProfilerFile.addSidecar(builder, sidecarOffset);
+                        profilerFiles.add(ProfilerFile.endProfilerFile(builder));
+                        continue;
+                    }
+
                     TIntArrayList frames = new TIntArrayList();
                     TIntArrayList profiles = new TIntArrayList();
 
@@ -467,30 +825,18 @@ public strictfp class GameMaker {
                         frames.add(builder.createString(frame));
                     }
 
-                    for (Profiler profiler : profilerCollection.getProfilers()) {
-                        TIntArrayList events = new TIntArrayList();
-
-                        for (battlecode.instrumenter.profiler.ProfilerEvent event : profiler.getEvents()) {
-                            ProfilerEvent.startProfilerEvent(builder);
-                            ProfilerEvent.addIsOpen(builder, event.getType() == ProfilerEventType.OPEN);
-                            ProfilerEvent.addAt(builder, event.getAt());
-                            ProfilerEvent.addFrame(builder, event.getFrameId());
-                            events.add(ProfilerEvent.endProfilerEvent(builder));
-                        }
-
-                        int nameOffset = builder.createString(profiler.getName());
-                        int eventsOffset = ProfilerProfile.createEventsVector(builder, events.toArray());
+                    for (TracingProfiler profiler : profilerCollection.getProfilers()) {
+                        profiles.add(createProfilerProfile(builder, profiler.getName(), profiler.getEvents()));
+                    }
 
-                        ProfilerProfile.startProfilerProfile(builder);
-                        ProfilerProfile.addName(builder, nameOffset);
-                        ProfilerProfile.addEvents(builder, eventsOffset);
-                        profiles.add(ProfilerProfile.endProfilerProfile(builder));
+                    for (CallTree tree : profilerCollection.getCallTrees()) {
+                        profiles.add(createProfilerProfile(builder, tree.getName(), tree.toEvents()));
                     }
 
                     int framesOffset = ProfilerFile.createFramesVector(builder, frames.toArray());
                     int profilesOffset = ProfilerFile.createProfilesVector(builder, profiles.toArray());
 
-                    profilerFiles.add(ProfilerFile.createProfilerFile(builder, framesOffset, profilesOffset));
+                    profilerFiles.add(ProfilerFile.createProfilerFile(builder, framesOffset, profilesOffset, 0));
                 }
 
                 int profilerFilesOffset = MatchFooter.createProfilerFilesVector(builder, profilerFiles.toArray());
@@ -499,264 +845,891 @@ public strictfp class GameMaker {
                     MatchFooter.createMatchFooter(builder, TeamMapping.id(winTeam), totalRounds, profilerFilesOffset));
             });
 
-            matchFooters.add(events.size() - 1);
+            matchFooters.add(eventCount - 1);
+            if (encodeStats != null) {
+                encodeStats.endMatch();
+            }
+        }
+
+        private int createProfilerProfile(FlatBufferBuilder builder, String name, ProfilerEventBuffer buffer) {
+            TIntArrayList events = new TIntArrayList();
+
+            for (int i = 0; i < buffer.size(); i++) {
+                ProfilerEvent.startProfilerEvent(builder);
+                ProfilerEvent.addIsOpen(builder, buffer.getType(i) == ProfilerEventType.OPEN);
+                ProfilerEvent.addAt(builder, buffer.getAt(i));
+                ProfilerEvent.addFrame(builder, buffer.getFrameId(i));
+                events.add(ProfilerEvent.endProfilerEvent(builder));
+            }
+
+            int nameOffset = builder.createString(name);
+            int eventsOffset = ProfilerProfile.createEventsVector(builder, events.toArray());
+
+            ProfilerProfile.startProfilerProfile(builder);
+            ProfilerProfile.addName(builder, nameOffset);
+            ProfilerProfile.addEvents(builder, eventsOffset);
+            return ProfilerProfile.endProfilerProfile(builder);
         }
 
         public void makeRound(int roundNum) {
             assertState(State.IN_MATCH);
 
-            try {
-                this.logger.flush();
-            } catch (IOException e) {
-                throw new RuntimeException("Can't flush byte[]outputstream?", e);
-            }
-            // byte[] logs = this.logger.toByteArray();
-            this.logger.reset();
-
-            createEvent((builder) -> {
-                // The bodies that spawned
-                int spawnedBodiesLocsP = createVecTable(builder, spawnedBodiesLocsXs, spawnedBodiesLocsYs);
-                int spawnedBodiesRobotIDsP = SpawnedBodyTable.createRobotIDsVector(builder, spawnedBodiesRobotIDs.toArray());
-                int spawnedBodiesTeamIDsP = SpawnedBodyTable.createTeamIDsVector(builder, spawnedBodiesTeamIDs.toArray());
-                int spawnedBodiesTypesP = SpawnedBodyTable.createTypesVector(builder, spawnedBodiesTypes.toArray());
-                SpawnedBodyTable.startSpawnedBodyTable(builder);
-                SpawnedBodyTable.addLocs(builder, spawnedBodiesLocsP);
-                SpawnedBodyTable.addRobotIDs(builder, spawnedBodiesRobotIDsP);
-                SpawnedBodyTable.addTeamIDs(builder, spawnedBodiesTeamIDsP);
-                SpawnedBodyTable.addTypes(builder, spawnedBodiesTypesP);
-                int spawnedBodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
-
-                // Round statistics
-                int teamIDsP = Round.createTeamIDsVector(builder, teamIDs.toArray());
-                int teamAdChangesP = Round.createTeamAdChangesVector(builder, teamAdChanges.toArray());
-                int teamMnChangesP = Round.createTeamMnChangesVector(builder, teamMnChanges.toArray());
-                int teamExChangesP = Round.createTeamExChangesVector(builder, teamExChanges.toArray());
-
-
-                // The bodies that moved
-                int movedIDsP = Round.createMovedIDsVector(builder, movedIDs.toArray());
-                int movedLocsP = createVecTable(builder, movedLocsX, movedLocsY);
-
-                // The bodies that died
-                int diedIDsP = Round.createDiedIDsVector(builder, diedIDs.toArray());
-
-                // The actions that happened
-                int actionIDsP = Round.createActionIDsVector(builder, actionIDs.toArray());
-                int actionsP = Round.createActionsVector(builder, actions.toArray());
-                int actionTargetsP = Round.createActionTargetsVector(builder, actionTargets.toArray());
-
-                // The information about islands
-                int islandIDsP = Round.createIslandIDsVector(builder, islandIDs.toArray());
-                int islandTurnoverTurnsP = Round.createIslandTurnoverTurnsVector(builder, islandTurnoverTurns.toArray());
-                int islandOwnershipP = Round.createIslandOwnershipVector(builder, islandOwnership.toArray());     
-
-                // The information about wells
-                int resourceWellLocsP = Round.createResourceWellLocsVector(builder, resourceWellLocs.toArray());
-                int resourceWellAdValueP = Round.createWellAdamantiumValuesVector(builder, resourceWellAdValue.toArray());
-                int resourceWellMnValueP = Round.createWellManaValuesVector(builder, resourceWellMnValue.toArray());
-                int resourceWellExValueP = Round.createWellElixirValuesVector(builder, resourceWellExValue.toArray());
-                int resourceWellIDsP = Round.createResourceIDVector(builder, resourceWellID.toArray());
-                int wellAccelerationIDsP = Round.createWellAccelerationIDVector(builder, wellAccelerationID.toArray());
-
-                // The indicator strings that were set
-                int indicatorStringIDsP = Round.createIndicatorStringIDsVector(builder, indicatorStringIDs.toArray());
-                TIntArrayList indicatorStringsIntList = new TIntArrayList();
-                for (String s : indicatorStrings) {
-                    indicatorStringsIntList.add(builder.createString(s));
-                }
-                int indicatorStringsP = Round.createIndicatorStringsVector(builder, indicatorStringsIntList.toArray());
-
-                // The indicator dots that were set
-                int indicatorDotIDsP = Round.createIndicatorDotIDsVector(builder, indicatorDotIDs.toArray());
-                int indicatorDotLocsP = createVecTable(builder, indicatorDotLocsX, indicatorDotLocsY);
-                int indicatorDotRGBsP = createRGBTable(builder, indicatorDotRGBsRed, indicatorDotRGBsGreen, indicatorDotRGBsBlue);
-
-                // The indicator lines that were set
-                int indicatorLineIDsP = Round.createIndicatorLineIDsVector(builder, indicatorLineIDs.toArray());
-                int indicatorLineStartLocsP = createVecTable(builder, indicatorLineStartLocsX, indicatorLineStartLocsY);
-                int indicatorLineEndLocsP = createVecTable(builder, indicatorLineEndLocsX, indicatorLineEndLocsY);
-                int indicatorLineRGBsP = createRGBTable(builder, indicatorLineRGBsRed, indicatorLineRGBsGreen, indicatorLineRGBsBlue);
-
-                // The bytecode usage
-                int bytecodeIDsP = Round.createBytecodeIDsVector(builder, bytecodeIDs.toArray());
-                int bytecodesUsedP = Round.createBytecodesUsedVector(builder, bytecodesUsed.toArray());
-
-                Round.startRound(builder);
-                Round.addTeamIDs(builder, teamIDsP);
-                Round.addTeamAdChanges(builder, teamAdChangesP);
-                Round.addTeamMnChanges(builder, teamMnChangesP);
-                Round.addTeamExChanges(builder, teamExChangesP);
-                Round.addMovedIDs(builder, movedIDsP);
-                Round.addMovedLocs(builder, movedLocsP);
-                Round.addSpawnedBodies(builder, spawnedBodiesP);
-                Round.addDiedIDs(builder, diedIDsP);
-                Round.addActionIDs(builder, actionIDsP);
-                Round.addActions(builder, actionsP);
-                Round.addActionTargets(builder, actionTargetsP);
-                Round.addIslandIDs(builder, islandIDsP);
-                Round.addIslandTurnoverTurns(builder, islandTurnoverTurnsP);
-                Round.addIslandOwnership(builder, islandOwnershipP);
-                Round.addResourceWellLocs(builder, resourceWellLocsP);
-                Round.addWellAdamantiumValues(builder, resourceWellAdValueP);
-                Round.addWellManaValues(builder, resourceWellMnValueP);
-                Round.addWellElixirValues(builder, resourceWellExValueP);
-                Round.addResourceID(builder, resourceWellIDsP);
-                Round.addWellAccelerationID(builder, wellAccelerationIDsP);
-                Round.addIndicatorStringIDs(builder, indicatorStringIDsP);
-                Round.addIndicatorStrings(builder, indicatorStringsP);
-                Round.addIndicatorDotIDs(builder, indicatorDotIDsP);
-                Round.addIndicatorDotLocs(builder, indicatorDotLocsP);
-                Round.addIndicatorDotRGBs(builder, indicatorDotRGBsP);
-                Round.addIndicatorLineIDs(builder, indicatorLineIDsP);
-                Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsP);
-                Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsP);
-                Round.addIndicatorLineRGBs(builder, indicatorLineRGBsP);
-                Round.addRoundID(builder, roundNum);
-                Round.addBytecodeIDs(builder, bytecodeIDsP);
-                Round.addBytecodesUsed(builder, bytecodesUsedP);
-                int round = Round.endRound(builder);
-                return EventWrapper.createEventWrapper(builder, Event.Round, round);
-            });
-
-            clearData();
+            if (roundSerializer != null) {
+                round = submitRound(round, roundNum);
+            } else {
+                createEvent(Event.Round, (builder) -> buildRound(builder, round, roundNum));
+                round.clear();
+            }
         }
 
         /**
-         * @return an outputstream that will be baked into the output file
+         * @return where robots should print to, for addLogs to put in the
+         *         replay; null if nothing they print is kept
          */
         public OutputStream getOut() {
-            return logger;
+            return logs;
+        }
+
+        /**
+         * Take what a robot printed to getOut during the turn it just
+         * finished.
+         *
+         * @param id the robot's ID
+         */
+        public void addLogs(int id) {
+            if (logs == null || logs.isEmpty()) {
+                return;
+            }
+            round.logIDs.add(id);
+            round.logDroppedBytes.add(logs.dropped());
+            round.logLengths.add(logs.drainTo(round.logBytes));
         }
 
         public void addMoved(int id, MapLocation newLocation) {
-            movedIDs.add(id);
-            movedLocsX.add(newLocation.x);
-            movedLocsY.add(newLocation.y);
+            round.movedIDs.add(id);
+            round.movedLocsX.add(newLocation.x);
+            round.movedLocsY.add(newLocation.y);
         }
 
         public void addDied(int id) {
-            diedIDs.add(id);
+            round.diedIDs.add(id);
         }
 
         public void addAction(int userID, byte action, int targetID) {
-            actionIDs.add(userID);
-            actions.add(action);
-            actionTargets.add(targetID);
+            round.actionIDs.add(userID);
+            round.actions.add(action);
+            round.actionTargets.add(targetID);
         }
 
         public void addWell(Well well, int location) {
-            resourceWellLocs.add(location);
-            resourceWellAdValue.add(well.getResource(ResourceType.ADAMANTIUM));
-            resourceWellMnValue.add(well.getResource(ResourceType.MANA));
-            resourceWellExValue.add(well.getResource(ResourceType.ELIXIR));
-            resourceWellID.add(well.getResourceType().resourceID);
-            wellAccelerationID.add(well.accelerationId());
+            round.resourceWellLocs.add(location);
+            round.resourceWellAdValue.add(well.getResource(ResourceType.ADAMANTIUM));
+            round.resourceWellMnValue.add(well.getResource(ResourceType.MANA));
+            round.resourceWellExValue.add(well.getResource(ResourceType.ELIXIR));
+            round.resourceWellID.add(well.getResourceType().resourceID);
+            round.wellAccelerationID.add(well.accelerationId());
         }
 
         public void addIslandInfo(Island island) {
-            islandIDs.add(island.getID());
-            islandTurnoverTurns.add(island.getHealth());
-            islandOwnership.add(island.getTeamInt());
+            round.islandIDs.add(island.getID());
+            round.islandTurnoverTurns.add(island.getHealth());
+            round.islandOwnership.add(island.getTeamInt());
         }
 
         public void addTeamInfo(Team team, int adChange, int mnChange, int exChange) {
-            teamIDs.add(TeamMapping.id(team));
-            teamAdChanges.add(adChange);
-            teamMnChanges.add(mnChange);
-            teamExChanges.add(exChange);
+            round.teamIDs.add(TeamMapping.id(team));
+            round.teamAdChanges.add(adChange);
+            round.teamMnChanges.add(mnChange);
+            round.teamExChanges.add(exChange);
         }
 
         public void addIndicatorString(int id, String string) {
             if (!showIndicators) {
                 return;
             }
-            indicatorStringIDs.add(id);
-            indicatorStrings.add(string);
+            round.indicatorStringIDs.add(id);
+            round.indicatorStrings.add(string);
         }
 
         public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {
             if (!showIndicators) {
                 return;
             }
-            indicatorDotIDs.add(id);
-            indicatorDotLocsX.add(loc.x);
-            indicatorDotLocsY.add(loc.y);
-            indicatorDotRGBsRed.add(red);
-            indicatorDotRGBsGreen.add(green);
-            indicatorDotRGBsBlue.add(blue);
+            round.indicatorDotIDs.add(id);
+            round.indicatorDotLocsX.add(loc.x);
+            round.indicatorDotLocsY.add(loc.y);
+            round.indicatorDotRGBsRed.add(red);
+            round.indicatorDotRGBsGreen.add(green);
+            round.indicatorDotRGBsBlue.add(blue);
         }
 
         public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
             if (!showIndicators) {
                 return;
             }
-            indicatorLineIDs.add(id);
-            indicatorLineStartLocsX.add(startLoc.x);
-            indicatorLineStartLocsY.add(startLoc.y);
-            indicatorLineEndLocsX.add(endLoc.x);
-            indicatorLineEndLocsY.add(endLoc.y);
-            indicatorLineRGBsRed.add(red);
-            indicatorLineRGBsGreen.add(green);
-            indicatorLineRGBsBlue.add(blue);
+            round.indicatorLineIDs.add(id);
+            round.indicatorLineStartLocsX.add(startLoc.x);
+            round.indicatorLineStartLocsY.add(startLoc.y);
+            round.indicatorLineEndLocsX.add(endLoc.x);
+            round.indicatorLineEndLocsY.add(endLoc.y);
+            round.indicatorLineRGBsRed.add(red);
+            round.indicatorLineRGBsGreen.add(green);
+            round.indicatorLineRGBsBlue.add(blue);
         }
 
         public void addBytecodes(int id, int bytecodes) {
-            bytecodeIDs.add(id);
-            bytecodesUsed.add(bytecodes);
+            round.bytecodeIDs.add(id);
+            round.bytecodesUsed.add(bytecodes);
         }
 
         public void addSpawnedRobot(InternalRobot robot) {
-            spawnedBodiesRobotIDs.add(robot.getID());
-            spawnedBodiesLocsXs.add(robot.getLocation().x);
-            spawnedBodiesLocsYs.add(robot.getLocation().y);
-            spawnedBodiesTeamIDs.add(TeamMapping.id(robot.getTeam()));
-            spawnedBodiesTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
-        }
-
-        private void clearData() {
-            movedIDs.clear();
-            movedLocsX.clear();
-            movedLocsY.clear();
-            spawnedBodiesRobotIDs.clear();
-            spawnedBodiesTeamIDs.clear();
-            spawnedBodiesTypes.clear();
-            spawnedBodiesLocsXs.clear();
-            spawnedBodiesLocsYs.clear();
-            diedIDs.clear();
-            actionIDs.clear();
-            actions.clear();
-            actionTargets.clear();
-            teamIDs.clear();
-            teamAdChanges.clear();
-            teamMnChanges.clear();
-            teamExChanges.clear();
-            islandIDs.clear();
-            islandTurnoverTurns.clear();
-            islandOwnership.clear();
-            resourceWellLocs.clear();
-            resourceWellAdValue.clear();
-            resourceWellMnValue.clear();
-            resourceWellExValue.clear();
-            resourceWellID.clear();
-            wellAccelerationID.clear();
-            indicatorStringIDs.clear();
+            round.spawnedBodiesRobotIDs.add(robot.getID());
+            round.spawnedBodiesLocsXs.add(robot.getLocation().x);
+            round.spawnedBodiesLocsYs.add(robot.getLocation().y);
+            round.spawnedBodiesTeamIDs.add(TeamMapping.id(robot.getTeam()));
+            round.spawnedBodiesTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
+        }
+
+        /**
+         * @return whether the state at the end of the round should be added
+         *         with addKeyframeRobot and addKeyframeTeam
+         */
+        public boolean isKeyframeRound(int roundNum) {
+            return keyframeInterval > 0 && roundNum % keyframeInterval == 0;
+        }
+
+        public void addKeyframeRobot(InternalRobot robot) {
+            round.hasKeyframe = true;
+            round.keyframeRobotIDs.add(robot.getID());
+            round.keyframeRobotTeamIDs.add(TeamMapping.id(robot.getTeam()));
+            round.keyframeRobotTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
+            round.keyframeRobotLocsX.add(robot.getLocation().x);
+            round.keyframeRobotLocsY.add(robot.getLocation().y);
+            round.keyframeRobotHealths.add(robot.getHealth());
+            round.keyframeRobotAdamantium.add(robot.getResource(ResourceType.ADAMANTIUM));
+            round.keyframeRobotMana.add(robot.getResource(ResourceType.MANA));
+            round.keyframeRobotElixir.add(robot.getResource(ResourceType.ELIXIR));
+            round.keyframeRobotStandardAnchors.add((byte) robot.getNumAnchors(Anchor.STANDARD));
+            round.keyframeRobotAcceleratingAnchors.add((byte) robot.getNumAnchors(Anchor.ACCELERATING));
+        }
+
+        public void addKeyframeTeam(Team team, int adamantium, int mana, int elixir) {
+            round.hasKeyframe = true;
+            round.keyframeTeamIDs.add(TeamMapping.id(team));
+            round.keyframeTeamAdamantium.add(adamantium);
+            round.keyframeTeamMana.add(mana);
+            round.keyframeTeamElixir.add(elixir);
+        }
+
+    }
+
+    /**
+     * The MatchMaker of a GameMaker made by withoutReplay, which throws away
+     * everything it's given.
+     */
+    private class NoReplayMatchMaker extends MatchMaker {
+        NoReplayMatchMaker() {
+            super(false);
+        }
+
+        @Override
+        public boolean isRecording() {
+            return false;
+        }
+
+        @Override
+        public void makeMatchHeader(LiveMap gameMap) {
+            changeState(State.IN_GAME, State.IN_MATCH);
+        }
+
+        @Override
+        public void makeMatchFooter(Team winTeam, int totalRounds, List<ProfilerCollection> profilerCollections) {
+            changeState(State.IN_MATCH, State.IN_GAME);
+        }
+
+        @Override
+        public void makeRound(int roundNum) {
+            assertState(State.IN_MATCH);
+        }
+
+        @Override
+        public OutputStream getOut() {
+            return null;
+        }
+
+        @Override
+        public void addLogs(int id) {}
+
+        @Override
+        public void addMoved(int id, MapLocation newLocation) {}
+
+        @Override
+        public void addDied(int id) {}
+
+        @Override
+        public void addAction(int userID, byte action, int targetID) {}
+
+        @Override
+        public void addWell(Well well, int location) {}
+
+        @Override
+        public void addIslandInfo(Island island) {}
+
+        @Override
+        public void addTeamInfo(Team team, int adChange, int mnChange, int exChange) {}
+
+        @Override
+        public void addIndicatorString(int id, String string) {}
+
+        @Override
+        public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {}
+
+        @Override
+        public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {}
+
+        @Override
+        public void addBytecodes(int id, int bytecodes) {}
+
+        @Override
+        public void addSpawnedRobot(InternalRobot robot) {}
+
+        @Override
+        public boolean isKeyframeRound(int roundNum) {
+            return false;
+        }
+
+        @Override
+        public void addKeyframeRobot(InternalRobot robot) {}
+
+        @Override
+        public void addKeyframeTeam(Team team, int adamantium, int mana, int elixir) {}
+    }
+
+    /**
+     * The events of one round, as MatchMaker collects them.
+     */
+    private static final class RoundData {
+        private final TIntArrayList movedIDs; // ints
+        // VecTable for movedLocs in Round
+        private final TIntArrayList movedLocsX;
+        private final TIntArrayList movedLocsY;
+
+        // SpawnedBodyTable for spawnedBodies
+        private final TIntArrayList spawnedBodiesRobotIDs;
+        private final TByteArrayList spawnedBodiesTeamIDs;
+        private final TByteArrayList spawnedBodiesTypes;
+        private final TIntArrayList spawnedBodiesLocsXs; //For locs
+        private final TIntArrayList spawnedBodiesLocsYs; //For locs
+
+        private final TIntArrayList diedIDs; // ints
+
+        private final TIntArrayList actionIDs; // ints
+        private final TByteArrayList actions; // Actions
+        private final TIntArrayList actionTargets; // ints (IDs)
+
+        // Round statistics
+        private final TIntArrayList teamIDs;
+        private final TIntArrayList teamMnChanges;
+        private final TIntArrayList teamAdChanges;
+        private final TIntArrayList teamExChanges;
+
+        private final TIntArrayList islandIDs;
+        private final TIntArrayList islandTurnoverTurns;
+        private final TIntArrayList islandOwnership;
+
+        private final TIntArrayList resourceWellLocs;
+        private final TIntArrayList resourceWellAdValue;
+        private final TIntArrayList resourceWellMnValue;
+        private final TIntArrayList resourceWellExValue;
+        private final TIntArrayList resourceWellID;
+        private final TIntArrayList wellAccelerationID;
+
+        private final TIntArrayList indicatorStringIDs;
+        private final ArrayList<String> indicatorStrings;
+        // Where each indicator string was put in the builder; reused every round
+        private final TIntArrayList indicatorStringOffsets;
+
+        // Indicator dots with locations and RGB values
+        private final TIntArrayList indicatorDotIDs;
+        private final TIntArrayList indicatorDotLocsX;
+        private final TIntArrayList indicatorDotLocsY;
+        private final TIntArrayList indicatorDotRGBsRed;
+        private final TIntArrayList indicatorDotRGBsGreen;
+        private final TIntArrayList indicatorDotRGBsBlue;
+
+        // Indicator lines with locations and RGB values
+        private final TIntArrayList indicatorLineIDs;
+        private final TIntArrayList indicatorLineStartLocsX;
+        private final TIntArrayList indicatorLineStartLocsY;
+        private final TIntArrayList indicatorLineEndLocsX;
+        private final TIntArrayList indicatorLineEndLocsY;
+        private final TIntArrayList indicatorLineRGBsRed;
+        private final TIntArrayList indicatorLineRGBsGreen;
+        private final TIntArrayList indicatorLineRGBsBlue;
+
+        // Robot IDs and their bytecode usage
+        private final TIntArrayList bytecodeIDs;
+        private final TIntArrayList bytecodesUsed;
+
+        // What robots printed, one after another, and how much of it is each's
+        private final TIntArrayList logIDs;
+        private final TIntArrayList logLengths;
+        private final TByteArrayList logBytes;
+        private final TIntArrayList logDroppedBytes;
+
+        // Varints for COMPACT rounds; reused every round
+        private final TByteArrayList packed;
+
+        // COMPACT rounds: the table index of each kept indicator string, and
+        // the strings that are new to the table
+        private final TIntArrayList indicatorStringIndices;
+        private final ArrayList<String> newIndicatorStrings;
+        // COMPACT rounds: the robots whose indicator dots or lines changed
+        private final TIntArrayList indicatorChangedIDs;
+        // COMPACT rounds: each robot's dots and lines, flattened; the lists
+        // come from the pool and are reused every round
+        private final TIntObjectHashMap<TIntArrayList> robotIndicators;
+        private final ArrayList<TIntArrayList> robotIndicatorPool;
+
+        // Keyframe with the state of every robot and team, if hasKeyframe
+        private boolean hasKeyframe;
+        private final TIntArrayList keyframeRobotIDs;
+        private final TByteArrayList keyframeRobotTeamIDs;
+        private final TByteArrayList keyframeRobotTypes;
+        private final TIntArrayList keyframeRobotLocsX;
+        private final TIntArrayList keyframeRobotLocsY;
+        private final TIntArrayList keyframeRobotHealths;
+        private final TIntArrayList keyframeRobotAdamantium;
+        private final TIntArrayList keyframeRobotMana;
+        private final TIntArrayList keyframeRobotElixir;
+        private final TByteArrayList keyframeRobotStandardAnchors;
+        private final TByteArrayList keyframeRobotAcceleratingAnchors;
+        private final TIntArrayList keyframeTeamIDs;
+        private final TIntArrayList keyframeTeamAdamantium;
+        private final TIntArrayList keyframeTeamMana;
+        private final TIntArrayList keyframeTeamElixir;
+
+        RoundData() {
+            this.movedIDs = new TIntArrayList();
+            this.movedLocsX = new TIntArrayList();
+            this.movedLocsY = new TIntArrayList();
+            this.spawnedBodiesRobotIDs = new TIntArrayList();
+            this.spawnedBodiesTeamIDs = new TByteArrayList();
+            this.spawnedBodiesTypes = new TByteArrayList();
+            this.spawnedBodiesLocsXs = new TIntArrayList();
+            this.spawnedBodiesLocsYs = new TIntArrayList();
+            this.diedIDs = new TIntArrayList();
+            this.actionIDs = new TIntArrayList();
+            this.actions = new TByteArrayList();
+            this.actionTargets = new TIntArrayList();
+            this.teamIDs = new TIntArrayList();
+            this.teamMnChanges = new TIntArrayList();
+            this.teamAdChanges = new TIntArrayList();
+            this.teamExChanges = new TIntArrayList();
+            this.islandIDs = new TIntArrayList();
+            this.islandTurnoverTurns = new TIntArrayList();
+            this.islandOwnership = new TIntArrayList();
+            this.resourceWellLocs = new TIntArrayList();
+            this.resourceWellAdValue = new TIntArrayList();
+            this.resourceWellMnValue = new TIntArrayList();
+            this.resourceWellExValue = new TIntArrayList();
+            this.resourceWellID = new TIntArrayList();
+            this.wellAccelerationID = new TIntArrayList();
+            this.indicatorStringIDs = new TIntArrayList();
+            this.indicatorStrings = new ArrayList<>();
+            this.indicatorStringOffsets = new TIntArrayList();
+            this.indicatorDotIDs = new TIntArrayList();
+            this.indicatorDotLocsX = new TIntArrayList();
+            this.indicatorDotLocsY = new TIntArrayList();
+            this.indicatorDotRGBsRed = new TIntArrayList();
+            this.indicatorDotRGBsBlue = new TIntArrayList();
+            this.indicatorDotRGBsGreen = new TIntArrayList();
+            this.indicatorLineIDs = new TIntArrayList();
+            this.indicatorLineStartLocsX = new TIntArrayList();
+            this.indicatorLineStartLocsY = new TIntArrayList();
+            this.indicatorLineEndLocsX = new TIntArrayList();
+            this.indicatorLineEndLocsY = new TIntArrayList();
+            this.indicatorLineRGBsRed = new TIntArrayList();
+            this.indicatorLineRGBsBlue = new TIntArrayList();
+            this.indicatorLineRGBsGreen = new TIntArrayList();
+            this.bytecodeIDs = new TIntArrayList();
+            this.bytecodesUsed = new TIntArrayList();
+            this.logIDs = new TIntArrayList();
+            this.logLengths = new TIntArrayList();
+            this.logBytes = new TByteArrayList();
+            this.logDroppedBytes = new TIntArrayList();
+            this.packed = new TByteArrayList();
+            this.indicatorStringIndices = new TIntArrayList();
+            this.newIndicatorStrings = new ArrayList<>();
+            this.indicatorChangedIDs = new TIntArrayList();
+            this.robotIndicators = new TIntObjectHashMap<>();
+            this.robotIndicatorPool = new ArrayList<>();
+            this.keyframeRobotIDs = new TIntArrayList();
+            this.keyframeRobotTeamIDs = new TByteArrayList();
+            this.keyframeRobotTypes = new TByteArrayList();
+            this.keyframeRobotLocsX = new TIntArrayList();
+            this.keyframeRobotLocsY = new TIntArrayList();
+            this.keyframeRobotHealths = new TIntArrayList();
+            this.keyframeRobotAdamantium = new TIntArrayList();
+            this.keyframeRobotMana = new TIntArrayList();
+            this.keyframeRobotElixir = new TIntArrayList();
+            this.keyframeRobotStandardAnchors = new TByteArrayList();
+            this.keyframeRobotAcceleratingAnchors = new TByteArrayList();
+            this.keyframeTeamIDs = new TIntArrayList();
+            this.keyframeTeamAdamantium = new TIntArrayList();
+            this.keyframeTeamMana = new TIntArrayList();
+            this.keyframeTeamElixir = new TIntArrayList();
+        }
+
+        /**
+         * Build this round's event in builder.
+         *
+         * @param compact if not null, build a COMPACT round with it; the
+         *                wells, islands and indicators that didn't change
+         *                are removed
+         * @param stats   if not null, where to count each group of fields
+         * @return the offset of the EventWrapper
+         */
+        int build(FlatBufferBuilder builder, int roundNum, CompactRoundEncoder compact, ReplayEncodeStats stats) {
+            if (stats != null) {
+                stats.markRound(builder);
+            }
+            if (compact != null) {
+                dropUnchanged(compact);
+            }
+            count(stats, RoundGroup.DIFFS, builder);
+
+            // The bodies that spawned
+            int spawnedBodiesLocsP = createVecTable(builder, spawnedBodiesLocsXs, spawnedBodiesLocsYs);
+            int spawnedBodiesRobotIDsP = intVector(builder, spawnedBodiesRobotIDs, SpawnedBodyTable::startRobotIDsVector);
+            int spawnedBodiesTeamIDsP = byteVector(builder, spawnedBodiesTeamIDs, SpawnedBodyTable::startTeamIDsVector);
+            int spawnedBodiesTypesP = byteVector(builder, spawnedBodiesTypes, SpawnedBodyTable::startTypesVector);
+            SpawnedBodyTable.startSpawnedBodyTable(builder);
+            SpawnedBodyTable.addLocs(builder, spawnedBodiesLocsP);
+            SpawnedBodyTable.addRobotIDs(builder, spawnedBodiesRobotIDsP);
+            SpawnedBodyTable.addTeamIDs(builder, spawnedBodiesTeamIDsP);
+            SpawnedBodyTable.addTypes(builder, spawnedBodiesTypesP);
+            int spawnedBodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
+            count(stats, RoundGroup.SPAWNED, builder);
+
+            // Round statistics
+            int teamIDsP = intVector(builder, teamIDs, Round::startTeamIDsVector);
+            int teamAdChangesP = intVector(builder, teamAdChanges, Round::startTeamAdChangesVector);
+            int teamMnChangesP = intVector(builder, teamMnChanges, Round::startTeamMnChangesVector);
+            int teamExChangesP = intVector(builder, teamExChanges, Round::startTeamExChangesVector);
+            count(stats, RoundGroup.TEAMS, builder);
+
+
+            // The bodies that moved
+            int movedIDsP = 0;
+            int movedLocsP = 0;
+            int movedPackedP = 0;
+            if (compact == null) {
+                movedIDsP = intVector(builder, movedIDs, Round::startMovedIDsVector);
+                movedLocsP = createVecTable(builder, movedLocsX, movedLocsY);
+            } else {
+                packed.resetQuick();
+                compact.packMoved(movedIDs, movedLocsX, movedLocsY, packed);
+                movedPackedP = byteVector(builder, packed, Round::startMovedPackedVector);
+            }
+            count(stats, RoundGroup.MOVED, builder);
+
+            // The bodies that died
+            int diedIDsP = intVector(builder, diedIDs, Round::startDiedIDsVector);
+            count(stats, RoundGroup.DIED, builder);
+
+            // The actions that happened
+            int actionIDsP = intVector(builder, actionIDs, Round::startActionIDsVector);
+            int actionsP = byteVector(builder, actions, Round::startActionsVector);
+            int actionTargetsP = intVector(builder, actionTargets, Round::startActionTargetsVector);
+            count(stats, RoundGroup.ACTIONS, builder);
+
+            // The information about islands
+            int islandIDsP = intVector(builder, islandIDs, Round::startIslandIDsVector);
+            int islandTurnoverTurnsP = intVector(builder, islandTurnoverTurns, Round::startIslandTurnoverTurnsVector);
+            int islandOwnershipP = intVector(builder, islandOwnership, Round::startIslandOwnershipVector);     
+            count(stats, RoundGroup.ISLANDS, builder);
+
+            // The information about wells
+            int resourceWellLocsP = intVector(builder, resourceWellLocs, Round::startResourceWellLocsVector);
+            int resourceWellAdValueP = intVector(builder, resourceWellAdValue, Round::startWellAdamantiumValuesVector);
+            int resourceWellMnValueP = intVector(builder, resourceWellMnValue, Round::startWellManaValuesVector);
+            int resourceWellExValueP = intVector(builder, resourceWellExValue, Round::startWellElixirValuesVector);
+            int resourceWellIDsP = intVector(builder, resourceWellID, Round::startResourceIDVector);
+            int wellAccelerationIDsP = intVector(builder, wellAccelerationID, Round::startWellAccelerationIDVector);
+            count(stats, RoundGroup.WELLS, builder);
+
+            // The indicator strings that were set
+            int indicatorStringIDsP = intVector(builder, indicatorStringIDs, Round::startIndicatorStringIDsVector);
+            int indicatorStringIndicesP = 0;
+            if (compact != null) {
+                indicatorStringIndicesP = intVector(builder, indicatorStringIndices,
+                        Round::startIndicatorStringIndicesVector);
+            }
+            indicatorStringOffsets.resetQuick();
+            for (String s : indicatorStrings) {
+                indicatorStringOffsets.add(builder.createString(s));
+            }
+            int indicatorStringsP = offsetVector(builder, indicatorStringOffsets, Round::startIndicatorStringsVector);
+            count(stats, RoundGroup.INDICATOR_STRINGS, builder);
+
+            // The indicator dots that were set
+            int indicatorDotIDsP = intVector(builder, indicatorDotIDs, Round::startIndicatorDotIDsVector);
+            int indicatorDotLocsP = createVecTable(builder, indicatorDotLocsX, indicatorDotLocsY);
+            int indicatorDotRGBsP = createRGBTable(builder, indicatorDotRGBsRed, indicatorDotRGBsGreen, indicatorDotRGBsBlue);
+
+            // The indicator lines that were set
+            int indicatorLineIDsP = intVector(builder, indicatorLineIDs, Round::startIndicatorLineIDsVector);
+            int indicatorLineStartLocsP = createVecTable(builder, indicatorLineStartLocsX, indicatorLineStartLocsY);
+            int indicatorLineEndLocsP = createVecTable(builder, indicatorLineEndLocsX, indicatorLineEndLocsY);
+            int indicatorLineRGBsP = createRGBTable(builder, indicatorLineRGBsRed, indicatorLineRGBsGreen, indicatorLineRGBsBlue);
+            int indicatorChangedIDsP = 0;
+            if (compact != null) {
+                indicatorChangedIDsP = intVector(builder, indicatorChangedIDs, Round::startIndicatorChangedIDsVector);
+            }
+            count(stats, RoundGroup.INDICATOR_DOTS_AND_LINES, builder);
+
+            // The bytecode usage
+            int bytecodeIDsP = 0;
+            int bytecodesUsedP = 0;
+            int bytecodesPackedP = 0;
+            if (compact == null) {
+                bytecodeIDsP = intVector(builder, bytecodeIDs, Round::startBytecodeIDsVector);
+                bytecodesUsedP = intVector(builder, bytecodesUsed, Round::startBytecodesUsedVector);
+            } else {
+                packed.resetQuick();
+                compact.packBytecodes(bytecodeIDs, bytecodesUsed, packed);
+                bytecodesPackedP = byteVector(builder, packed, Round::startBytecodesPackedVector);
+                compact.forget(diedIDs);
+            }
+            count(stats, RoundGroup.BYTECODES, builder);
+
+            // What robots printed; left out when nothing was
+            int logIDsP = 0;
+            int logLengthsP = 0;
+            int logBytesP = 0;
+            int logDroppedBytesP = 0;
+            if (!logIDs.isEmpty()) {
+                logIDsP = intVector(builder, logIDs, Round::startLogIDsVector);
+                logLengthsP = intVector(builder, logLengths, Round::startLogLengthsVector);
+                logBytesP = byteVector(builder, logBytes, Round::startLogBytesVector);
+                logDroppedBytesP = intVector(builder, logDroppedBytes, Round::startLogDroppedBytesVector);
+            }
+            count(stats, RoundGroup.LOGS, builder);
+
+            int keyframeP = hasKeyframe ? buildKeyframe(builder) : 0;
+            count(stats, RoundGroup.KEYFRAME, builder);
+
+            Round.startRound(builder);
+            Round.addTeamIDs(builder, teamIDsP);
+            Round.addTeamAdChanges(builder, teamAdChangesP);
+            Round.addTeamMnChanges(builder, teamMnChangesP);
+            Round.addTeamExChanges(builder, teamExChangesP);
+            Round.addMovedIDs(builder, movedIDsP);
+            Round.addMovedLocs(builder, movedLocsP);
+            Round.addSpawnedBodies(builder, spawnedBodiesP);
+            Round.addDiedIDs(builder, diedIDsP);
+            Round.addActionIDs(builder, actionIDsP);
+            Round.addActions(builder, actionsP);
+            Round.addActionTargets(builder, actionTargetsP);
+            Round.addIslandIDs(builder, islandIDsP);
+            Round.addIslandTurnoverTurns(builder, islandTurnoverTurnsP);
+            Round.addIslandOwnership(builder, islandOwnershipP);
+            Round.addResourceWellLocs(builder, resourceWellLocsP);
+            Round.addWellAdamantiumValues(builder, resourceWellAdValueP);
+            Round.addWellManaValues(builder, resourceWellMnValueP);
+            Round.addWellElixirValues(builder, resourceWellExValueP);
+            Round.addResourceID(builder, resourceWellIDsP);
+            Round.addWellAccelerationID(builder, wellAccelerationIDsP);
+            Round.addIndicatorStringIDs(builder, indicatorStringIDsP);
+            Round.addIndicatorStrings(builder, indicatorStringsP);
+            Round.addIndicatorDotIDs(builder, indicatorDotIDsP);
+            Round.addIndicatorDotLocs(builder, indicatorDotLocsP);
+            Round.addIndicatorDotRGBs(builder, indicatorDotRGBsP);
+            Round.addIndicatorLineIDs(builder, indicatorLineIDsP);
+            Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsP);
+            Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsP);
+            Round.addIndicatorLineRGBs(builder, indicatorLineRGBsP);
+            Round.addRoundID(builder, roundNum);
+            Round.addBytecodeIDs(builder, bytecodeIDsP);
+            Round.addBytecodesUsed(builder, bytecodesUsedP);
+            Round.addKeyframe(builder, keyframeP);
+            Round.addMovedPacked(builder, movedPackedP);
+            Round.addBytecodesPacked(builder, bytecodesPackedP);
+            Round.addIndicatorStringIndices(builder, indicatorStringIndicesP);
+            Round.addIndicatorChangedIDs(builder, indicatorChangedIDsP);
+            Round.addLogIDs(builder, logIDsP);
+            Round.addLogLengths(builder, logLengthsP);
+            Round.addLogBytes(builder, logBytesP);
+            Round.addLogDroppedBytes(builder, logDroppedBytesP);
+            int round = Round.endRound(builder);
+            int event = EventWrapper.createEventWrapper(builder, Event.Round, round);
+            count(stats, RoundGroup.TABLE, builder);
+            return event;
+        }
+
+        private static void count(ReplayEncodeStats stats, RoundGroup group, FlatBufferBuilder builder) {
+            if (stats != null) {
+                stats.countRoundGroup(group, builder);
+            }
+        }
+
+        /**
+         * Remove the wells, islands and indicators whose values are the same
+         * as in the last round, unless the round has a keyframe, which goes
+         * with all of them, and swap indicator strings for table indices.
+         * Only done for COMPACT rounds, which are never sent to packetSink.
+         */
+        private void dropUnchanged(CompactRoundEncoder compact) {
+            int kept = 0;
+            for (int i = 0; i < resourceWellLocs.size(); i++) {
+                final boolean changed = compact.wellChanged(resourceWellLocs.get(i), resourceWellAdValue.get(i),
+                        resourceWellMnValue.get(i), resourceWellExValue.get(i), resourceWellID.get(i),
+                        wellAccelerationID.get(i));
+                if (changed || hasKeyframe) {
+                    resourceWellLocs.set(kept, resourceWellLocs.get(i));
+                    resourceWellAdValue.set(kept, resourceWellAdValue.get(i));
+                    resourceWellMnValue.set(kept, resourceWellMnValue.get(i));
+                    resourceWellExValue.set(kept, resourceWellExValue.get(i));
+                    resourceWellID.set(kept, resourceWellID.get(i));
+                    wellAccelerationID.set(kept, wellAccelerationID.get(i));
+                    kept++;
+                }
+            }
+            final int wells = resourceWellLocs.size();
+            resourceWellLocs.remove(kept, wells - kept);
+            resourceWellAdValue.remove(kept, wells - kept);
+            resourceWellMnValue.remove(kept, wells - kept);
+            resourceWellExValue.remove(kept, wells - kept);
+            resourceWellID.remove(kept, wells - kept);
+            wellAccelerationID.remove(kept, wells - kept);
+
+            kept = 0;
+            for (int i = 0; i < islandIDs.size(); i++) {
+                final boolean changed = compact.islandChanged(islandIDs.get(i), islandTurnoverTurns.get(i),
+                        islandOwnership.get(i));
+                if (changed || hasKeyframe) {
+                    islandIDs.set(kept, islandIDs.get(i));
+                    islandTurnoverTurns.set(kept, islandTurnoverTurns.get(i));
+                    islandOwnership.set(kept, islandOwnership.get(i));
+                    kept++;
+                }
+            }
+            final int islands = islandIDs.size();
+            islandIDs.remove(kept, islands - kept);
+            islandTurnoverTurns.remove(kept, islands - kept);
+            islandOwnership.remove(kept, islands - kept);
+
+            dropUnchangedStrings(compact);
+            dropUnchangedDotsAndLines(compact);
+        }
+
+        private void dropUnchangedStrings(CompactRoundEncoder compact) {
+            if (hasKeyframe) {
+                compact.clearStringTable();
+            }
+            int kept = 0;
+            for (int i = 0; i < indicatorStringIDs.size(); i++) {
+                final int id = indicatorStringIDs.get(i);
+                final String string = indicatorStrings.get(i);
+                if (compact.stringChanged(id, string) || hasKeyframe) {
+                    indicatorStringIDs.set(kept, id);
+                    indicatorStringIndices.add(compact.intern(string, newIndicatorStrings));
+                    kept++;
+                }
+            }
+            indicatorStringIDs.remove(kept, indicatorStringIDs.size() - kept);
+            indicatorStrings.clear();
+            indicatorStrings.addAll(newIndicatorStrings);
+            newIndicatorStrings.clear();
+        }
+
+        private void dropUnchangedDotsAndLines(CompactRoundEncoder compact) {
+            // Flatten each robot's dots, then its lines, into one list, each
+            // tagged so that a dot can't look like part of a line
+            robotIndicators.clear();
+            int pooled = 0;
+            for (int i = 0; i < indicatorDotIDs.size(); i++) {
+                TIntArrayList list = robotIndicators.get(indicatorDotIDs.get(i));
+                if (list == null) {
+                    list = pooledIndicatorList(pooled++);
+                    robotIndicators.put(indicatorDotIDs.get(i), list);
+                }
+                list.add(0);
+                list.add(indicatorDotLocsX.get(i));
+                list.add(indicatorDotLocsY.get(i));
+                list.add(indicatorDotRGBsRed.get(i));
+                list.add(indicatorDotRGBsGreen.get(i));
+                list.add(indicatorDotRGBsBlue.get(i));
+            }
+            for (int i = 0; i < indicatorLineIDs.size(); i++) {
+                TIntArrayList list = robotIndicators.get(indicatorLineIDs.get(i));
+                if (list == null) {
+                    list = pooledIndicatorList(pooled++);
+                    robotIndicators.put(indicatorLineIDs.get(i), list);
+                }
+                list.add(1);
+                list.add(indicatorLineStartLocsX.get(i));
+                list.add(indicatorLineStartLocsY.get(i));
+                list.add(indicatorLineEndLocsX.get(i));
+                list.add(indicatorLineEndLocsY.get(i));
+                list.add(indicatorLineRGBsRed.get(i));
+                list.add(indicatorLineRGBsGreen.get(i));
+                list.add(indicatorLineRGBsBlue.get(i));
+            }
+            compact.indicatorsChanged(robotIndicators, hasKeyframe, indicatorChangedIDs);
+
+            int kept = 0;
+            for (int i = 0; i < indicatorDotIDs.size(); i++) {
+                if (indicatorChangedIDs.binarySearch(indicatorDotIDs.get(i)) >= 0) {
+                    indicatorDotIDs.set(kept, indicatorDotIDs.get(i));
+                    indicatorDotLocsX.set(kept, indicatorDotLocsX.get(i));
+                    indicatorDotLocsY.set(kept, indicatorDotLocsY.get(i));
+                    indicatorDotRGBsRed.set(kept, indicatorDotRGBsRed.get(i));
+                    indicatorDotRGBsGreen.set(kept, indicatorDotRGBsGreen.get(i));
+                    indicatorDotRGBsBlue.set(kept, indicatorDotRGBsBlue.get(i));
+                    kept++;
+                }
+            }
+            final int dots = indicatorDotIDs.size();
+            indicatorDotIDs.remove(kept, dots - kept);
+            indicatorDotLocsX.remove(kept, dots - kept);
+            indicatorDotLocsY.remove(kept, dots - kept);
+            indicatorDotRGBsRed.remove(kept, dots - kept);
+            indicatorDotRGBsGreen.remove(kept, dots - kept);
+            indicatorDotRGBsBlue.remove(kept, dots - kept);
+
+            kept = 0;
+            for (int i = 0; i < indicatorLineIDs.size(); i++) {
+                if (indicatorChangedIDs.binarySearch(indicatorLineIDs.get(i)) >= 0) {
+                    indicatorLineIDs.set(kept, indicatorLineIDs.get(i));
+                    indicatorLineStartLocsX.set(kept, indicatorLineStartLocsX.get(i));
+                    indicatorLineStartLocsY.set(kept, indicatorLineStartLocsY.get(i));
+                    indicatorLineEndLocsX.set(kept, indicatorLineEndLocsX.get(i));
+                    indicatorLineEndLocsY.set(kept, indicatorLineEndLocsY.get(i));
+                    indicatorLineRGBsRed.set(kept, indicatorLineRGBsRed.get(i));
+                    indicatorLineRGBsGreen.set(kept, indicatorLineRGBsGreen.get(i));
+                    indicatorLineRGBsBlue.set(kept, indicatorLineRGBsBlue.get(i));
+                    kept++;
+                }
+            }
+            final int lines = indicatorLineIDs.size();
+            indicatorLineIDs.remove(kept, lines - kept);
+            indicatorLineStartLocsX.remove(kept, lines - kept);
+            indicatorLineStartLocsY.remove(kept, lines - kept);
+            indicatorLineEndLocsX.remove(kept, lines - kept);
+            indicatorLineEndLocsY.remove(kept, lines - kept);
+            indicatorLineRGBsRed.remove(kept, lines - kept);
+            indicatorLineRGBsGreen.remove(kept, lines - kept);
+            indicatorLineRGBsBlue.remove(kept, lines - kept);
+        }
+
+        private TIntArrayList pooledIndicatorList(int index) {
+            if (index == robotIndicatorPool.size()) {
+                robotIndicatorPool.add(new TIntArrayList());
+            }
+            final TIntArrayList list = robotIndicatorPool.get(index);
+            list.resetQuick();
+            return list;
+        }
+
+        /**
+         * @return the offset of the Keyframe
+         */
+        private int buildKeyframe(FlatBufferBuilder builder) {
+            int robotIDsP = intVector(builder, keyframeRobotIDs, Keyframe::startRobotIDsVector);
+            int robotTeamIDsP = byteVector(builder, keyframeRobotTeamIDs, Keyframe::startRobotTeamIDsVector);
+            int robotTypesP = byteVector(builder, keyframeRobotTypes, Keyframe::startRobotTypesVector);
+            int robotLocsP = createVecTable(builder, keyframeRobotLocsX, keyframeRobotLocsY);
+            int robotHealthsP = intVector(builder, keyframeRobotHealths, Keyframe::startRobotHealthsVector);
+            int robotAdamantiumP = intVector(builder, keyframeRobotAdamantium, Keyframe::startRobotAdamantiumVector);
+            int robotManaP = intVector(builder, keyframeRobotMana, Keyframe::startRobotManaVector);
+            int robotElixirP = intVector(builder, keyframeRobotElixir, Keyframe::startRobotElixirVector);
+            int robotStandardAnchorsP = byteVector(builder, keyframeRobotStandardAnchors,
+                    Keyframe::startRobotStandardAnchorsVector);
+            int robotAcceleratingAnchorsP = byteVector(builder, keyframeRobotAcceleratingAnchors,
+                    Keyframe::startRobotAcceleratingAnchorsVector);
+            int teamIDsP = intVector(builder, keyframeTeamIDs, Keyframe::startTeamIDsVector);
+            int teamAdamantiumP = intVector(builder, keyframeTeamAdamantium, Keyframe::startTeamAdamantiumVector);
+            int teamManaP = intVector(builder, keyframeTeamMana, Keyframe::startTeamManaVector);
+            int teamElixirP = intVector(builder, keyframeTeamElixir, Keyframe::startTeamElixirVector);
+
+            return Keyframe.createKeyframe(builder, robotIDsP, robotTeamIDsP, robotTypesP, robotLocsP,
+                    robotHealthsP, robotAdamantiumP, robotManaP, robotElixirP,
+                    robotStandardAnchorsP, robotAcceleratingAnchorsP,
+                    teamIDsP, teamAdamantiumP, teamManaP, teamElixirP);
+        }
+
+        /**
+         * Empty the round for reuse. resetQuick keeps each list's array,
+         * where Trove's clear would swap it for a new, small one.
+         */
+        void clear() {
+            movedIDs.resetQuick();
+            movedLocsX.resetQuick();
+            movedLocsY.resetQuick();
+            spawnedBodiesRobotIDs.resetQuick();
+            spawnedBodiesTeamIDs.resetQuick();
+            spawnedBodiesTypes.resetQuick();
+            spawnedBodiesLocsXs.resetQuick();
+            spawnedBodiesLocsYs.resetQuick();
+            diedIDs.resetQuick();
+            actionIDs.resetQuick();
+            actions.resetQuick();
+            actionTargets.resetQuick();
+            teamIDs.resetQuick();
+            teamAdChanges.resetQuick();
+            teamMnChanges.resetQuick();
+            teamExChanges.resetQuick();
+            islandIDs.resetQuick();
+            islandTurnoverTurns.resetQuick();
+            islandOwnership.resetQuick();
+            resourceWellLocs.resetQuick();
+            resourceWellAdValue.resetQuick();
+            resourceWellMnValue.resetQuick();
+            resourceWellExValue.resetQuick();
+            resourceWellID.resetQuick();
+            wellAccelerationID.resetQuick();
+            indicatorStringIDs.resetQuick();
             indicatorStrings.clear();
-            indicatorDotIDs.clear();
-            indicatorDotLocsX.clear();
-            indicatorDotLocsY.clear();
-            indicatorDotRGBsRed.clear();
-            indicatorDotRGBsBlue.clear();
-            indicatorDotRGBsGreen.clear();
-            indicatorLineIDs.clear();
-            indicatorLineStartLocsX.clear();
-            indicatorLineStartLocsY.clear();
-            indicatorLineEndLocsX.clear();
-            indicatorLineEndLocsY.clear();
-            indicatorLineRGBsRed.clear();
-            indicatorLineRGBsBlue.clear();
-            indicatorLineRGBsGreen.clear();
-            bytecodeIDs.clear();
-            bytecodesUsed.clear();
+            indicatorStringIndices.resetQuick();
+            indicatorChangedIDs.resetQuick();
+            indicatorDotIDs.resetQuick();
+            indicatorDotLocsX.resetQuick();
+            indicatorDotLocsY.resetQuick();
+            indicatorDotRGBsRed.resetQuick();
+            indicatorDotRGBsBlue.resetQuick();
+            indicatorDotRGBsGreen.resetQuick();
+            indicatorLineIDs.resetQuick();
+            indicatorLineStartLocsX.resetQuick();
+            indicatorLineStartLocsY.resetQuick();
+            indicatorLineEndLocsX.resetQuick();
+            indicatorLineEndLocsY.resetQuick();
+            indicatorLineRGBsRed.resetQuick();
+            indicatorLineRGBsBlue.resetQuick();
+            indicatorLineRGBsGreen.resetQuick();
+            bytecodeIDs.resetQuick();
+            bytecodesUsed.resetQuick();
+            logIDs.resetQuick();
+            logLengths.resetQuick();
+            logBytes.resetQuick();
+            logDroppedBytes.resetQuick();
+            hasKeyframe = false;
+            keyframeRobotIDs.resetQuick();
+            keyframeRobotTeamIDs.resetQuick();
+            keyframeRobotTypes.resetQuick();
+            keyframeRobotLocsX.resetQuick();
+            keyframeRobotLocsY.resetQuick();
+            keyframeRobotHealths.resetQuick();
+            keyframeRobotAdamantium.resetQuick();
+            keyframeRobotMana.resetQuick();
+            keyframeRobotElixir.resetQuick();
+            keyframeRobotStandardAnchors.resetQuick();
+            keyframeRobotAcceleratingAnchors.resetQuick();
+            keyframeTeamIDs.resetQuick();
+            keyframeTeamAdamantium.resetQuick();
+            keyframeTeamMana.resetQuick();
+            keyframeTeamElixir.resetQuick();
         }
     }
 }
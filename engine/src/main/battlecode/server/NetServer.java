@@ -5,9 +5,12 @@ import org.java_websocket.handshake.ClientHandshake;
 import org.java_websocket.server.WebSocketServer;
 
 import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedByInterruptException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
@@ -16,18 +19,68 @@ import java.util.concurrent.TimeUnit;
  * Serve a battlecode match over a websocket connection.
  *
  * Sends one battlecode event per websocket message; ignores incoming messages.
+ * A client that connects with "batched=1" in its query string gets frames of
+ * one or more events instead, each an int length followed by that many bytes
+ * of event, like ReplayStreamWriter writes them. When such a client falls
+ * behind, everything it's waiting for is sent as one frame, up to
+ * MAX_BATCH_BYTES.
+ *
+ * Each client is sent events on its own thread, which holds off while the
+ * client still has data waiting to go out. Clients that keep up set the pace:
+ * while one is more than maxClientLagBytes of events behind, no more events
+ * are taken from the bounded queue that addEvent puts them in, and once that's
+ * full addEvent blocks, so the game slows down rather than letting unsent
+ * events pile up. That wait lasts at most clientWaitMillis; a client still
+ * behind after it stops setting the pace and catches up from the kept events
+ * at its own speed, batched if it asked for that, so one slow client can't
+ * stall the others. A client that connects late catches up the same way. A
+ * client that hasn't taken what it was last sent within clientStallMillis is
+ * closed. Every event is kept for clients that connect later, like the replay
+ * is.
  *
  * @author james
  */
 public class NetServer extends WebSocketServer {
 
+    // The most bytes of events to put in one frame for a batched client,
+    // unless a single event is bigger
+    private static final int MAX_BATCH_BYTES = 1 << 20;
+
+    // How long a client thread waits before checking on its client again
+    private static final long CLIENT_POLL_MILLIS = 5;
+
+    // How long finish waits for clients to take the last of the events, and
+    // then for them to close
+    private static final long FINISH_DRAIN_MILLIS = 30000;
+    private static final long FINISH_CLOSE_MILLIS = 1000;
+
+    // The defaults for how many events can wait to be added, how many bytes
+    // of events a client can fall behind, how long the game waits for a
+    // client that's fallen further, and how long a client has to take what it
+    // was sent before it's closed
+    private static final int QUEUE_CAPACITY = 64;
+    private static final long MAX_CLIENT_LAG_BYTES = 8 * MAX_BATCH_BYTES;
+    private static final long CLIENT_WAIT_MILLIS = 1000;
+    private static final long CLIENT_STALL_MILLIS = 30000;
+
     private final List<byte[]> previousEvents;
     private final BlockingQueue<byte[]> incomingEvents;
+    private final Map<WebSocket, Client> clients;
 
     private boolean waitForClient;
 
-    private boolean done = false;
-    private boolean connected = false;
+    private final long maxClientLagBytes;
+    private final long clientWaitMillis;
+    private final long clientStallMillis;
+
+    private volatile boolean done = false;
+    private volatile boolean connected = false;
+
+    // Set once every event is in previousEvents; guarded by previousEvents
+    private boolean allEventsAdded = false;
+
+    // The total length of previousEvents; guarded by previousEvents
+    private long addedBytes = 0;
 
     private Thread queueThread;
 
@@ -36,12 +89,34 @@ public class NetServer extends WebSocketServer {
      * @param port
      */
     public NetServer(int port, boolean waitForClient) {
+        this(port, waitForClient, QUEUE_CAPACITY, MAX_CLIENT_LAG_BYTES, CLIENT_WAIT_MILLIS,
+                CLIENT_STALL_MILLIS);
+    }
+
+    /**
+     * Create a new server.
+     * @param port
+     * @param queueCapacity the most events that can wait to be added before
+     *                      addEvent blocks
+     * @param maxClientLagBytes the most bytes of events a client can fall
+     *                          behind before the server waits for it
+     * @param clientWaitMillis how long the server waits for a client that's
+     *                         fallen behind before leaving it to catch up
+     * @param clientStallMillis how long a client has to take what it was
+     *                          sent before it's closed
+     */
+    NetServer(int port, boolean waitForClient, int queueCapacity,
+              long maxClientLagBytes, long clientWaitMillis, long clientStallMillis) {
         super(new InetSocketAddress(port));
 
         this.waitForClient = waitForClient;
+        this.maxClientLagBytes = maxClientLagBytes;
+        this.clientWaitMillis = clientWaitMillis;
+        this.clientStallMillis = clientStallMillis;
 
         previousEvents = new ArrayList<>();
-        incomingEvents = new ArrayBlockingQueue<>(64);
+        incomingEvents = new ArrayBlockingQueue<>(queueCapacity);
+        clients = new HashMap<>();
 
         queueThread = new Thread(() -> {
             try {
@@ -58,6 +133,10 @@ public class NetServer extends WebSocketServer {
             } catch(Exception e) {
                 ErrorReporter.report(e, true);
             }
+            synchronized (previousEvents) {
+                allEventsAdded = true;
+                previousEvents.notifyAll();
+            }
         });
     }
 
@@ -89,6 +168,7 @@ public class NetServer extends WebSocketServer {
     /**
      * Add an event.
      * It will be sent to clients at some point in the future.
+     * Blocks if too many events are already waiting to be added.
      *
      * @param event
      */
@@ -96,12 +176,16 @@ public class NetServer extends WebSocketServer {
         if (done) {
             throw new RuntimeException("Can't add event, server already finished");
         }
-        incomingEvents.add(event);
+        try {
+            incomingEvents.put(event);
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Interrupted while adding event", e);
+        }
     }
 
     /**
      * Send all queued events and terminate.
-     * Blocks until finished.
+     * Blocks until every event has been handed to every client.
      */
     public void finish() {
         if (!queueThread.isAlive()) {
@@ -114,6 +198,31 @@ public class NetServer extends WebSocketServer {
         done = true;
         try {
             queueThread.join();
+            final List<Client> remaining;
+            synchronized (clients) {
+                remaining = new ArrayList<>(clients.values());
+            }
+            // Give clients a while to take what they've been handed, since
+            // stopping closes them
+            final long deadline = System.currentTimeMillis() + FINISH_DRAIN_MILLIS;
+            for (Client client : remaining) {
+                client.thread.join();
+                while (client.socket.isOpen() && client.socket.hasBufferedData()
+                        && System.currentTimeMillis() < deadline) {
+                    Thread.sleep(CLIENT_POLL_MILLIS);
+                }
+            }
+            // Close the clients before stopping; WebSocketServer.stop can
+            // deadlock with a connection that's closing while it runs
+            for (Client client : remaining) {
+                client.socket.close();
+            }
+            final long closeDeadline = System.currentTimeMillis() + FINISH_CLOSE_MILLIS;
+            for (Client client : remaining) {
+                while (!client.socket.isClosed() && System.currentTimeMillis() < closeDeadline) {
+                    Thread.sleep(CLIENT_POLL_MILLIS);
+                }
+            }
             stop();
         } catch (Exception e) {
             ErrorReporter.report(e, true);
@@ -122,36 +231,171 @@ public class NetServer extends WebSocketServer {
 
     // implementation details
 
-    // Two threads: one polling websocket stuff, one awaiting queue inputs
-    // When there's a new client, we lock, all events are sent to client, we unlock
-    // When there is a queue input, we lock, all clients receive event, we unlock
-    // There may still be thread-safety issues here:
-    //
-    // onOpen
-
-    private void processEvent(byte[] event) {
-        synchronized (connections()) {
-            for (WebSocket client : connections()) {
-                client.send(event);
+    // One thread awaiting queue inputs, which adds them to previousEvents
+    // once no client setting the pace is too far behind; one thread per
+    // client, which sends
+    // it what it hasn't seen of previousEvents; and the websocket thread,
+    // which starts and ends the client threads as clients come and go.
+    // Locks are taken in the order previousEvents, then clients.
+
+    private void processEvent(byte[] event) throws InterruptedException {
+        synchronized (previousEvents) {
+            final long giveUpAt = System.currentTimeMillis() + clientWaitMillis;
+            List<Client> lagging;
+            while (!(lagging = laggingClients(event)).isEmpty()) {
+                final long left = giveUpAt - System.currentTimeMillis();
+                if (left <= 0) {
+                    for (Client client : lagging) {
+                        System.err.println("Not waiting for " + client.socket.getRemoteSocketAddress()
+                                + " any more; it'll catch up from the events sent so far");
+                        client.catchingUp = true;
+                    }
+                    break;
+                }
+                previousEvents.wait(Math.min(left, 300));
             }
             previousEvents.add(event);
+            addedBytes += event.length;
+            previousEvents.notifyAll();
         }
     }
 
-    @Override
-    public void onOpen(WebSocket client, ClientHandshake handshake) {
-        synchronized (connections()) {
-            connected = true;
+    /**
+     * @return the clients setting the pace that would fall too far behind if
+     *         event were added; never one that's caught up, so an event too
+     *         big for the limit still goes out
+     */
+    private List<Client> laggingClients(byte[] event) {
+        final List<Client> lagging = new ArrayList<>();
+        synchronized (clients) {
+            for (Client client : clients.values()) {
+                final long lag = addedBytes - client.handedBytes;
+                if (!client.catchingUp && lag > 0 && lag + event.length > maxClientLagBytes
+                        && client.socket.isOpen()) {
+                    lagging.add(client);
+                }
+            }
+        }
+        return lagging;
+    }
+
+    /**
+     * A connected client, and the thread sending it events.
+     */
+    private final class Client implements Runnable {
+        private final WebSocket socket;
+        private final boolean batched;
+        private final Thread thread;
+
+        // The index in previousEvents of the next event to send, the bytes of
+        // events before it, and whether the client is catching up rather than
+        // setting the pace, until it's handed events that bring it within
+        // maxClientLagBytes; guarded by previousEvents
+        private int next = 0;
+        private long handedBytes = 0;
+        private boolean catchingUp = false;
+
+        Client(WebSocket socket, boolean batched) {
+            this.socket = socket;
+            this.batched = batched;
+            this.thread = new Thread(this, "netserver-client-" + socket.getRemoteSocketAddress());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (socket.isOpen()) {
+                    // Don't pile more on a client that hasn't taken what it
+                    // has, unless the game is over and the rest just needs
+                    // handing over; give up on one that's stopped taking
+                    final long stalledAt = System.currentTimeMillis() + clientStallMillis;
+                    while (socket.hasBufferedData() && socket.isOpen() && !done) {
+                        if (System.currentTimeMillis() > stalledAt) {
+                            System.err.println("Closing " + socket.getRemoteSocketAddress()
+                                    + ", which took nothing in " + clientStallMillis + "ms");
+                            socket.close();
+                            return;
+                        }
+                        Thread.sleep(CLIENT_POLL_MILLIS);
+                    }
+
+                    final List<byte[]> events = new ArrayList<>();
+                    synchronized (previousEvents) {
+                        while (next == previousEvents.size() && !allEventsAdded && socket.isOpen()) {
+                            previousEvents.wait(300);
+                        }
+                        if (next == previousEvents.size()) {
+                            // Sent everything there will ever be, or closed
+                            return;
+                        }
+                        int bytes = 0;
+                        do {
+                            final byte[] event = previousEvents.get(next++);
+                            events.add(event);
+                            bytes += 4 + event.length;
+                            handedBytes += event.length;
+                        } while (batched && next < previousEvents.size()
+                                && bytes + 4 + previousEvents.get(next).length <= MAX_BATCH_BYTES);
+                        if (addedBytes - handedBytes <= maxClientLagBytes) {
+                            catchingUp = false;
+                        }
+                        // The queue thread may be waiting for this client
+                        previousEvents.notifyAll();
+                    }
+
+                    if (socket.isOpen()) {
+                        socket.send(batched ? batch(events) : events.get(0));
+                    }
+                }
+            } catch (InterruptedException e) {
+                // Stopped with the server
+            }
+        }
+    }
 
-            for (byte[] event : previousEvents) {
-                client.send(event);
+    /**
+     * @return the events as one frame, each an int length and its bytes
+     */
+    private static byte[] batch(List<byte[]> events) {
+        int bytes = 0;
+        for (byte[] event : events) {
+            bytes += 4 + event.length;
+        }
+        final ByteBuffer frame = ByteBuffer.allocate(bytes);
+        for (byte[] event : events) {
+            frame.putInt(event.length);
+            frame.put(event);
+        }
+        return frame.array();
+    }
+
+    @Override
+    public void onOpen(WebSocket socket, ClientHandshake handshake) {
+        final String resource = handshake.getResourceDescriptor();
+        final Client client = new Client(socket,
+                resource != null && resource.matches(".*[?&]batched=1(&.*)?"));
+        synchronized (previousEvents) {
+            // A client that's already too far behind catches up before
+            // setting the pace
+            client.catchingUp = addedBytes > maxClientLagBytes;
+            synchronized (clients) {
+                clients.put(socket, client);
             }
         }
+        client.thread.start();
+        connected = true;
     }
 
     @Override
     public void onClose(WebSocket conn, int code, String reason, boolean remote) {
         System.out.println("Closed: "+conn.getRemoteSocketAddress() + " for "+reason);
+        synchronized (clients) {
+            clients.remove(conn);
+        }
+        synchronized (previousEvents) {
+            previousEvents.notifyAll();
+        }
     }
 
     @Override
@@ -0,0 +1,294 @@
+package battlecode.server;
+
+import battlecode.schema.Event;
+import com.google.flatbuffers.FlatBufferBuilder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the bytes each part of a replay takes and the time spent building
+ * it, to show which parts are worth making smaller. Bytes are as built,
+ * before the replay is gzipped.
+ * <p>
+ * Every event is counted under its type. Round events are also broken down
+ * into groups of fields; the groups of a round add up to the whole round,
+ * apart from the time spent handing it to the file and network.
+ * <p>
+ * Counts are kept for each match and for the whole game, which also has the
+ * game header and footer. Rounds may be counted on the round serializer
+ * thread, but never at the same time as any other event.
+ */
+public final class ReplayEncodeStats {
+
+    /**
+     * The groups of Round fields that are counted separately.
+     */
+    public enum RoundGroup {
+        /**
+         * Working out what changed, for COMPACT rounds; takes no bytes.
+         */
+        DIFFS,
+        SPAWNED,
+        TEAMS,
+        MOVED,
+        DIED,
+        ACTIONS,
+        ISLANDS,
+        WELLS,
+        INDICATOR_STRINGS,
+        INDICATOR_DOTS_AND_LINES,
+        BYTECODES,
+        LOGS,
+        KEYFRAME,
+        /**
+         * The Round table itself and its EventWrapper.
+         */
+        TABLE
+    }
+
+    /**
+     * The counts for one match, or for the whole game.
+     */
+    public static final class Counts {
+        private final String map;
+        private final int[] eventCounts = new int[Event.names.length];
+        private final long[] eventBytes = new long[Event.names.length];
+        private final long[] eventNanos = new long[Event.names.length];
+        private final long[] groupBytes = new long[RoundGroup.values().length];
+        private final long[] groupNanos = new long[RoundGroup.values().length];
+
+        private Counts(String map) {
+            this.map = map;
+        }
+
+        /**
+         * @return the map the match was played on, or null for the game
+         */
+        public String getMap() {
+            return map;
+        }
+
+        public int getEventCount(byte type) {
+            return eventCounts[type];
+        }
+
+        public long getEventBytes(byte type) {
+            return eventBytes[type];
+        }
+
+        public long getEventNanos(byte type) {
+            return eventNanos[type];
+        }
+
+        public long getBytes(RoundGroup group) {
+            return groupBytes[group.ordinal()];
+        }
+
+        public long getNanos(RoundGroup group) {
+            return groupNanos[group.ordinal()];
+        }
+
+        /**
+         * @return a table of the counts, for the debug log
+         */
+        public String describe() {
+            long bytes = 0;
+            long nanos = 0;
+            for (int i = 0; i < eventBytes.length; i++) {
+                bytes += eventBytes[i];
+                nanos += eventNanos[i];
+            }
+
+            final StringBuilder out = new StringBuilder();
+            out.append(String.format("replay %s: %d bytes, built in %.1f ms%n",
+                    map != null ? "of match on " + map : "of game", bytes, nanos / 1e6));
+            for (int i = 1; i < eventCounts.length; i++) {
+                if (eventCounts[i] > 0) {
+                    out.append(String.format("  %-30s %12d bytes %5.1f%% %10.1f ms  (%d events)%n",
+                            Event.name(i), eventBytes[i], percent(eventBytes[i], bytes),
+                            eventNanos[i] / 1e6, eventCounts[i]));
+                }
+            }
+            for (RoundGroup group : RoundGroup.values()) {
+                out.append(String.format("    round %-22s %12d bytes %5.1f%% %10.1f ms%n",
+                        jsonName(group), groupBytes[group.ordinal()],
+                        percent(groupBytes[group.ordinal()], bytes), groupNanos[group.ordinal()] / 1e6));
+            }
+            return out.toString();
+        }
+
+        private void writeJson(Writer out) throws IOException {
+            out.write('{');
+            if (map != null) {
+                out.write("\"map\":");
+                writeString(out, map);
+                out.write(',');
+            }
+            out.write("\"events\":{");
+            boolean first = true;
+            for (int i = 1; i < eventCounts.length; i++) {
+                if (!first) {
+                    out.write(',');
+                }
+                first = false;
+                writeString(out, Event.name(i));
+                out.write(String.format(":{\"count\":%d,\"bytes\":%d,\"nanos\":%d}",
+                        eventCounts[i], eventBytes[i], eventNanos[i]));
+            }
+            out.write("},\"roundGroups\":{");
+            for (RoundGroup group : RoundGroup.values()) {
+                if (group.ordinal() > 0) {
+                    out.write(',');
+                }
+                writeString(out, jsonName(group));
+                out.write(String.format(":{\"bytes\":%d,\"nanos\":%d}",
+                        groupBytes[group.ordinal()], groupNanos[group.ordinal()]));
+            }
+            out.write("}}");
+        }
+
+        private void add(Counts other) {
+            for (int i = 0; i < eventCounts.length; i++) {
+                eventCounts[i] += other.eventCounts[i];
+                eventBytes[i] += other.eventBytes[i];
+                eventNanos[i] += other.eventNanos[i];
+            }
+            for (int i = 0; i < groupBytes.length; i++) {
+                groupBytes[i] += other.groupBytes[i];
+                groupNanos[i] += other.groupNanos[i];
+            }
+        }
+    }
+
+    private final List<Counts> matches = new ArrayList<>();
+    // Everything outside the match being played
+    private final Counts others = new Counts(null);
+    private Counts match;
+
+    // Where the builder and clock were when the last group ended
+    private int markOffset;
+    private long markNanos;
+
+    /**
+     * Start counting a new match.
+     *
+     * @param map the name of the map it's played on
+     */
+    void startMatch(String map) {
+        match = new Counts(map);
+        matches.add(match);
+    }
+
+    /**
+     * Stop counting the match, once its footer has been counted.
+     */
+    void endMatch() {
+        match = null;
+    }
+
+    /**
+     * Count a finished event.
+     *
+     * @param type  its Event type
+     * @param bytes the bytes it took
+     * @param nanos the time spent building it
+     */
+    void countEvent(byte type, int bytes, long nanos) {
+        final Counts counts = match != null ? match : others;
+        counts.eventCounts[type]++;
+        counts.eventBytes[type] += bytes;
+        counts.eventNanos[type] += nanos;
+    }
+
+    /**
+     * Start counting a round's groups from where the builder is now.
+     */
+    void markRound(FlatBufferBuilder builder) {
+        markOffset = builder.offset();
+        markNanos = System.nanoTime();
+    }
+
+    /**
+     * Count everything built since the last group as the given group.
+     */
+    void countRoundGroup(RoundGroup group, FlatBufferBuilder builder) {
+        final long now = System.nanoTime();
+        final Counts counts = match != null ? match : others;
+        counts.groupBytes[group.ordinal()] += builder.offset() - markOffset;
+        counts.groupNanos[group.ordinal()] += now - markNanos;
+        markOffset = builder.offset();
+        markNanos = now;
+    }
+
+    /**
+     * @return the counts of each match so far, in order
+     */
+    public List<Counts> getMatches() {
+        return matches;
+    }
+
+    /**
+     * @return the counts of the whole game so far
+     */
+    public Counts getGame() {
+        final Counts game = new Counts(null);
+        game.add(others);
+        for (Counts counts : matches) {
+            game.add(counts);
+        }
+        return game;
+    }
+
+    /**
+     * Write every match's counts and the game's as JSON:
+     * {"matches": [counts...], "game": counts}, where counts is
+     * {"map": name (matches only), "events": {type: {"count", "bytes", "nanos"}},
+     * "roundGroups": {group: {"bytes", "nanos"}}}.
+     *
+     * @param out where to write to; not closed
+     * @throws IOException if writing fails
+     */
+    public void writeJson(Writer out) throws IOException {
+        out.write("{\"matches\":[");
+        for (int i = 0; i < matches.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            matches.get(i).writeJson(out);
+        }
+        out.write("],\"game\":");
+        getGame().writeJson(out);
+        out.write("}\n");
+    }
+
+    private static String jsonName(RoundGroup group) {
+        final StringBuilder name = new StringBuilder();
+        for (String word : group.name().toLowerCase().split("_")) {
+            name.append(name.length() == 0 ? word : Character.toUpperCase(word.charAt(0)) + word.substring(1));
+        }
+        return name.toString();
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    private static void writeString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,141 @@
+package battlecode.server;
+
+import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
+import battlecode.schema.GameWrapper;
+import battlecode.schema.Round;
+import battlecode.util.FlatHelpers;
+import com.google.flatbuffers.FlatBufferBuilder;
+import gnu.trove.list.array.TIntArrayList;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Reads the files ReplayStreamWriter writes, one event at a time, and
+ * converts them to the usual replay format: a gzipped GameWrapper.
+ * <p>
+ * Usage: ReplayStreamReader game.bc23.stream [game.bc23]
+ */
+public final class ReplayStreamReader implements Closeable {
+    private final DataInputStream in;
+
+    /**
+     * @param in the gzipped file contents; closed when this is
+     * @throws IOException if the file can't be read or isn't a replay stream
+     */
+    public ReplayStreamReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(in, 1 << 16), 1 << 16));
+        if (this.in.readInt() != ReplayStreamWriter.MAGIC) {
+            throw new IOException("Not a replay stream");
+        }
+        final int version = this.in.readInt();
+        if (version != ReplayStreamWriter.VERSION) {
+            throw new IOException("Unsupported replay stream version " + version);
+        }
+    }
+
+    /**
+     * @return the next event, a finished flatbuffer with an EventWrapper at
+     *         its root, or null if there are no more. A file that was cut
+     *         off partway through an event ends before that event.
+     * @throws IOException if reading fails
+     */
+    public byte[] readEvent() throws IOException {
+        try {
+            final int length = in.readInt();
+            final byte[] event = new byte[length];
+            in.readFully(event);
+            return event;
+        } catch (EOFException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    /**
+     * Convert a replay stream to the usual replay format. The whole game has
+     * to fit in memory, but only once.
+     *
+     * @param stream the replay stream to read
+     * @param out    where to write the gzipped GameWrapper; not closed
+     * @throws IOException if reading or writing fails
+     */
+    public static void convert(ReplayStreamReader stream, OutputStream out) throws IOException {
+        final FlatBufferBuilder builder = new FlatBufferBuilder(1 << 20);
+        final TIntArrayList events = new TIntArrayList();
+        final TIntArrayList matchHeaders = new TIntArrayList();
+        final TIntArrayList matchFooters = new TIntArrayList();
+        final TIntArrayList keyframes = new TIntArrayList();
+        final EventWrapper wrapper = new EventWrapper();
+        final Round round = new Round();
+
+        byte[] event;
+        while ((event = stream.readEvent()) != null) {
+            EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(event), wrapper);
+            if (wrapper.eType() == Event.MatchHeader) {
+                matchHeaders.add(events.size());
+            } else if (wrapper.eType() == Event.MatchFooter) {
+                matchFooters.add(events.size());
+            } else if (wrapper.eType() == Event.Round && ((Round) wrapper.e(round)).keyframe() != null) {
+                keyframes.add(events.size());
+            }
+            events.add(FlatHelpers.addFinishedBuffer(builder, event));
+        }
+
+        final int eventsP = GameWrapper.createEventsVector(builder, events.toArray());
+        final int matchHeadersP = GameWrapper.createMatchHeadersVector(builder, matchHeaders.toArray());
+        final int matchFootersP = GameWrapper.createMatchFootersVector(builder, matchFooters.toArray());
+        final int keyframesP = keyframes.isEmpty() ? 0 : GameWrapper.createKeyframesVector(builder, keyframes.toArray());
+
+        GameWrapper.startGameWrapper(builder);
+        GameWrapper.addEvents(builder, eventsP);
+        GameWrapper.addMatchHeaders(builder, matchHeadersP);
+        GameWrapper.addMatchFooters(builder, matchFootersP);
+        GameWrapper.addKeyframes(builder, keyframesP);
+        builder.finish(GameWrapper.endGameWrapper(builder));
+
+        final GZIPOutputStream zipper = new GZIPOutputStream(out, 1 << 16);
+        final ByteBuffer data = builder.dataBuffer();
+        zipper.write(data.array(), data.arrayOffset() + data.position(), data.remaining());
+        zipper.finish();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Usage: ReplayStreamReader game.bc23.stream [game.bc23]");
+            System.exit(1);
+        }
+
+        final String input = args[0];
+        final String output;
+        if (args.length == 2) {
+            output = args[1];
+        } else if (input.endsWith(".stream")) {
+            output = input.substring(0, input.length() - ".stream".length());
+        } else {
+            output = input + ".bc23";
+        }
+
+        try (ReplayStreamReader stream = new ReplayStreamReader(new FileInputStream(input));
+             OutputStream out = new BufferedOutputStream(new FileOutputStream(new File(output)))) {
+            convert(stream, out);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package battlecode.server;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes a game to disk one event at a time, as it's played, rather than
+ * building the whole GameWrapper in memory and writing it at the end.
+ *
+ * The file is gzipped, and holds MAGIC and VERSION as ints, followed by
+ * each event as an int length and then that many bytes of a finished
+ * flatbuffer with an EventWrapper at its root: the same bytes NetServer
+ * sends clients. ReplayStreamReader reads these files, and converts them
+ * to the usual replay format.
+ */
+public final class ReplayStreamWriter implements Closeable {
+    public static final int MAGIC = 0x42435253; // "BCRS"
+    public static final int VERSION = 1;
+
+    private final File file;
+    private final DataOutputStream out;
+
+    /**
+     * @param file the file to write to; replaced if it exists
+     * @throws IOException if the file can't be created
+     */
+    public ReplayStreamWriter(File file) throws IOException {
+        this.file = file;
+        this.out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(new FileOutputStream(file), 1 << 16), 1 << 16));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+    }
+
+    /**
+     * @return the file being written to
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @param event a finished flatbuffer with an EventWrapper at its root
+     * @throws IOException if writing fails
+     */
+    public void writeEvent(byte[] event) throws IOException {
+        out.writeInt(event.length);
+        out.write(event);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,78 @@
+package battlecode.server;
+
+import gnu.trove.list.array.TByteArrayList;
+
+import java.io.OutputStream;
+
+/**
+ * Keeps the last bytes a robot prints during its turn, so that a chatty
+ * robot can't make the replay grow without bound. Robots take turns one at a
+ * time, so one buffer serves all of them: MatchMaker takes what's in it at
+ * the end of each turn, which empties it for the next robot.
+ */
+final class RobotLogBuffer extends OutputStream {
+    private final byte[] ring;
+
+    // The bytes written since the buffer was last emptied; the next one goes
+    // at written % ring.length
+    private long written;
+
+    /**
+     * @param capacity the most bytes to keep from a turn
+     */
+    RobotLogBuffer(int capacity) {
+        this.ring = new byte[capacity];
+    }
+
+    @Override
+    public void write(int b) {
+        ring[(int) (written % ring.length)] = (byte) b;
+        written++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len > ring.length) {
+            // Only the end of it would be kept anyway
+            written += len - ring.length;
+            off += len - ring.length;
+            len = ring.length;
+        }
+        final int pos = (int) (written % ring.length);
+        final int first = Math.min(len, ring.length - pos);
+        System.arraycopy(b, off, ring, pos, first);
+        System.arraycopy(b, off + first, ring, 0, len - first);
+        written += len;
+    }
+
+    /**
+     * @return whether nothing was written since the buffer was last emptied
+     */
+    boolean isEmpty() {
+        return written == 0;
+    }
+
+    /**
+     * @return how many bytes were written but not kept, since the buffer was
+     *         last emptied
+     */
+    int dropped() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, written - ring.length));
+    }
+
+    /**
+     * Append the bytes kept, oldest first, and empty the buffer.
+     *
+     * @param out where to append them
+     * @return how many bytes were appended
+     */
+    int drainTo(TByteArrayList out) {
+        final int kept = (int) Math.min(written, ring.length);
+        final int start = (int) ((written - kept) % ring.length);
+        final int first = Math.min(kept, ring.length - start);
+        out.add(ring, start, first);
+        out.add(ring, 0, kept - first);
+        written = 0;
+        return kept;
+    }
+}
@@ -7,11 +7,19 @@ import battlecode.common.ResourceType;
 import battlecode.common.RobotInfo;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
+import battlecode.instrumenter.profiler.ProfilerSidecarWriter;
+import battlecode.instrumenter.stream.LimitedPrintStream;
+import battlecode.util.ParallelGzip;
 import battlecode.world.*;
 import battlecode.world.control.*;
 
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -20,6 +28,9 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Runs matches. Specifically, this class forms a pipeline connecting match and
@@ -32,6 +43,12 @@ public strictfp class Server implements Runnable {
      */
     private static final GameInfo POISON = new GameInfo(null, null, null, null, null, null, null, null, false) {};
 
+    /**
+     * The most bytes of a robot's turn to keep when only the per-team limit
+     * says to keep what robots print.
+     */
+    private static final int DEFAULT_ROBOT_LOG_BYTES = 8192;
+
     /**
      * The queue of games to run.
      * When the server encounters the GameInfo POISON, it terminates.
@@ -59,6 +76,33 @@ public strictfp class Server implements Runnable {
      */
     private GameWorld currentWorld;
 
+    /**
+     * If not null, finished games' replays are built, compressed and saved
+     * on these threads while the next game runs.
+     */
+    private final ThreadPoolExecutor replayWriters;
+
+    /**
+     * One permit per replay that can be waiting to be written; the server
+     * waits for one before handing a replay to replayWriters.
+     */
+    private final Semaphore pendingReplayWrites;
+
+    /**
+     * The number of permits pendingReplayWrites started with.
+     */
+    private final int maxPendingReplayWrites;
+
+    /**
+     * Whether a replay failed to be written in the background.
+     */
+    private volatile boolean replayWriteFailed;
+
+    /**
+     * If not null, compresses replays on several threads.
+     */
+    private final ParallelGzip replayCompressor;
+
 
     /**
      * The server's mode affects how notifications are handled, whether or not
@@ -83,6 +127,27 @@ public strictfp class Server implements Runnable {
 
         this.options = options;
         this.state = ServerState.NOT_READY;
+
+        this.maxPendingReplayWrites = Math.max(0, options.getInt("bc.server.pending-replay-writes"));
+        if (maxPendingReplayWrites > 0) {
+            this.replayWriters = new ThreadPoolExecutor(maxPendingReplayWrites, maxPendingReplayWrites,
+                    60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(),
+                    r -> new Thread(r, "replay writer"));
+            this.replayWriters.allowCoreThreadTimeOut(true);
+            this.pendingReplayWrites = new Semaphore(maxPendingReplayWrites);
+        } else {
+            this.replayWriters = null;
+            this.pendingReplayWrites = null;
+        }
+
+        final int compressionThreads = options.getInt("bc.server.replay-compression-threads");
+        if (compressionThreads > 1) {
+            this.replayCompressor = new ParallelGzip(compressionThreads,
+                    Math.max(1, options.getInt("bc.server.replay-compression-block-size")));
+        } else {
+            this.replayCompressor = null;
+        }
     }
 
     // ******************************
@@ -144,6 +209,7 @@ public strictfp class Server implements Runnable {
             } catch (InterruptedException e) {
                 warn("Interrupted while waiting for next game!");
                 e.printStackTrace();
+                shutDownReplayWrites();
                 Thread.currentThread().interrupt();
                 return;
             }
@@ -151,20 +217,47 @@ public strictfp class Server implements Runnable {
             // Note: ==, not .equals()
             if (currentGame == POISON) {
                 debug("Shutting down server");
+                shutDownReplayWrites();
                 if (netServer != null) {
                     netServer.finish();
                 }
                 return;
             }
 
-            GameMaker gameMaker = new GameMaker(currentGame, netServer, options.getBoolean("bc.engine.show-indicators"));
+            final boolean noReplay = options.getBoolean("bc.server.no-replay");
+            final ReplayStreamWriter replayStream = !noReplay && options.getBoolean("bc.server.stream-replay")
+                    ? openReplayStream(currentGame) : null;
+            final ReplayEncodeStats encodeStats = !noReplay && options.getBoolean("bc.server.replay-stats")
+                    ? new ReplayEncodeStats() : null;
+            // The live client only reads legacy rounds
+            final boolean compactRounds = options.getBoolean("bc.server.compact-rounds");
+            if (compactRounds && netServer != null && !noReplay) {
+                warn("Not writing compact rounds, since the game is being sent over the websocket");
+            }
+            // Each replay file gets the whole per-team output limit
+            LimitedPrintStream.resetLimits();
+            GameMaker gameMaker = noReplay ? GameMaker.withoutReplay(currentGame)
+                    : new GameMaker(currentGame, new GameMaker.Options()
+                            .setPacketSink(netServer)
+                            .setShowIndicators(options.getBoolean("bc.engine.show-indicators"))
+                            .setReplayStream(replayStream)
+                            .setRoundPipelineDepth(Math.max(0, options.getInt("bc.server.round-pipeline-depth")))
+                            .setKeyframeInterval(Math.max(0, options.getInt("bc.server.keyframe-interval")))
+                            .setCompactRounds(compactRounds && netServer == null)
+                            .setEncodeStats(encodeStats)
+                            .setRobotLogBytes(robotLogBytes(options)));
             gameMaker.makeGameHeader();
 
             debug("Running: "+currentGame);
 
             // Set up our control provider
             final boolean profilingEnabled = options.getBoolean("bc.engine.enable-profiler");
-            final RobotControlProvider prov = createControlProvider(currentGame, gameMaker, profilingEnabled);
+            final Map<Team, ProfilerSidecarWriter> profilerSidecars = new HashMap<>();
+            if (profilingEnabled && options.getBoolean("bc.engine.profiler-sidecar")) {
+                openProfilerSidecars(currentGame, profilerSidecars);
+            }
+            final RobotControlProvider prov = createControlProvider(currentGame, gameMaker,
+                    profilingEnabled, profilerSidecars);
 
             final boolean checkMapGuarantees = options.getBoolean("bc.server.validate-maps");
             final boolean alternateOrder = options.getBoolean("bc.server.alternate-order");
@@ -181,10 +274,18 @@ public strictfp class Server implements Runnable {
                     if (alternateOrder) {teamsReversed = !teamsReversed;}
                 } catch (Exception e) {
                     ErrorReporter.report(e);
+                    closeProfilerSidecars(profilerSidecars);
+                    closeReplayStream(replayStream);
+                    shutDownReplayWrites();
                     this.state = ServerState.ERROR;
                     return;
                 }
 
+                if (encodeStats != null) {
+                    final List<ReplayEncodeStats.Counts> matches = encodeStats.getMatches();
+                    debug(matches.get(matches.size() - 1).describe());
+                }
+
                 switch (winner) {
                     case A:
                         aWins++;
@@ -206,7 +307,186 @@ public strictfp class Server implements Runnable {
             }
             Team winner = aWins >= bWins ? Team.A : Team.B;
             gameMaker.makeGameFooter(winner);
-            gameMaker.writeGame(currentGame.getSaveFile());
+            if (noReplay) {
+                debug("Not saving a replay, since bc.server.no-replay is set");
+            } else {
+                writeReplay(gameMaker, currentGame.getSaveFile());
+            }
+            closeProfilerSidecars(profilerSidecars);
+            if (encodeStats != null) {
+                writeEncodeStats(currentGame, encodeStats);
+            }
+        }
+    }
+
+    /**
+     * Write how many bytes and how much time each part of a game's replay
+     * took, as JSON next to the game's save file (e.g. replay-stats.json for
+     * replay.bc23).
+     *
+     * @param game  the finished game
+     * @param stats its counts
+     */
+    private void writeEncodeStats(GameInfo game, ReplayEncodeStats stats) {
+        final File saveFile = game.getSaveFile();
+        if (saveFile == null) {
+            warn("Not writing replay stats, since the game isn't being saved");
+            return;
+        }
+
+        String baseName = saveFile.getName();
+        if (baseName.lastIndexOf('.') > 0) {
+            baseName = baseName.substring(0, baseName.lastIndexOf('.'));
+        }
+        final File file = new File(saveFile.getAbsoluteFile().getParentFile(), baseName + "-stats.json");
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(
+                new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            stats.writeJson(out);
+            debug("Wrote " + file);
+        } catch (IOException e) {
+            warn("Couldn't write " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Write a finished game's replay, in the background if there are
+     * replayWriters. If too many replays are already waiting to be written,
+     * this waits for one of them first.
+     *
+     * @param gameMaker the finished game
+     * @param saveFile  the file to write it to
+     */
+    void writeReplay(GameMaker gameMaker, File saveFile) {
+        if (replayWriters == null) {
+            gameMaker.writeGame(saveFile, replayCompressor);
+            return;
+        }
+
+        pendingReplayWrites.acquireUninterruptibly();
+        replayWriters.execute(() -> {
+            try {
+                gameMaker.writeGame(saveFile, replayCompressor);
+                debug("Wrote " + saveFile);
+            } catch (RuntimeException e) {
+                replayWriteFailed = true;
+                ErrorReporter.report(e);
+            } finally {
+                pendingReplayWrites.release();
+            }
+        });
+    }
+
+    /**
+     * Wait for every replay being written in the background to be written.
+     * The server ends in ServerState.ERROR if any of them couldn't be.
+     */
+    private void finishReplayWrites() {
+        if (replayWriters == null) {
+            return;
+        }
+        pendingReplayWrites.acquireUninterruptibly(maxPendingReplayWrites);
+        pendingReplayWrites.release(maxPendingReplayWrites);
+        if (replayWriteFailed) {
+            this.state = ServerState.ERROR;
+        }
+    }
+
+    /**
+     * Wait for every replay being written in the background to be written,
+     * then stop the threads writing them. Called whenever the server stops
+     * running games, since the threads would otherwise keep the JVM alive.
+     */
+    private void shutDownReplayWrites() {
+        finishReplayWrites();
+        if (replayWriters != null) {
+            replayWriters.shutdown();
+        }
+    }
+
+    /**
+     * @return the most bytes of what a robot prints in a turn to keep in the
+     *         replay, or 0 to keep none; nonzero whenever a per-team limit
+     *         says some of it belongs there
+     */
+    private static int robotLogBytes(Config options) {
+        final int robotLogBytes = options.getInt("bc.server.robot-log-bytes");
+        if (robotLogBytes > 0) {
+            return robotLogBytes;
+        }
+        final int teamLimit = options.getInt("bc.server.robot-player-replay-file-per-team-limit-bytes");
+        return teamLimit > 0 ? Math.min(teamLimit, DEFAULT_ROBOT_LOG_BYTES) : 0;
+    }
+
+    /**
+     * Open a file to stream the game to as it's played, next to the game's
+     * save file (e.g. replay.bc23.stream).
+     *
+     * @param game the game to stream
+     * @return the stream, or null if the game should be kept in memory and
+     *         written at the end as usual
+     */
+    private ReplayStreamWriter openReplayStream(GameInfo game) {
+        final File saveFile = game.getSaveFile();
+        if (saveFile == null) {
+            warn("Not streaming the replay, since the game isn't being saved");
+            return null;
+        }
+
+        final File file = new File(saveFile.getPath() + ".stream");
+        try {
+            return new ReplayStreamWriter(file);
+        } catch (IOException e) {
+            warn("Couldn't create " + file + ", writing the replay at the end instead: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void closeReplayStream(ReplayStreamWriter replayStream) {
+        if (replayStream == null) {
+            return;
+        }
+        try {
+            replayStream.close();
+        } catch (IOException e) {
+            warn("Couldn't finish " + replayStream.getFile() + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Open a file for each team to stream its profiling data to, next to the
+     * game's save file. A team whose file can't be opened gets its profiling
+     * data put in the replay as usual.
+     *
+     * @param game     the game to profile
+     * @param sidecars the map to put each team's file in
+     */
+    private void openProfilerSidecars(GameInfo game, Map<Team, ProfilerSidecarWriter> sidecars) {
+        final File saveFile = game.getSaveFile();
+        if (saveFile == null) {
+            warn("Not streaming profiler output, since the game isn't being saved");
+            return;
+        }
+
+        String baseName = saveFile.getName();
+        if (baseName.lastIndexOf('.') > 0) {
+            baseName = baseName.substring(0, baseName.lastIndexOf('.'));
+        }
+
+        for (Team team : new Team[] {Team.A, Team.B}) {
+            final File file = new File(saveFile.getAbsoluteFile().getParentFile(),
+                    baseName + "-" + team + ".bcprof");
+            try {
+                sidecars.put(team, new ProfilerSidecarWriter(file));
+            } catch (IOException e) {
+                warn("Couldn't create " + file + ", putting team " + team
+                        + "'s profiler output in the replay instead: " + e.getMessage());
+            }
+        }
+    }
+
+    private void closeProfilerSidecars(Map<Team, ProfilerSidecarWriter> sidecars) {
+        for (ProfilerSidecarWriter sidecar : sidecars.values()) {
+            sidecar.close();
         }
     }
 
@@ -515,6 +795,12 @@ public strictfp class Server implements Runnable {
 
         double timeDiff = (System.currentTimeMillis() - startTime) / 1000.0;
         debug(String.format("match completed in %.4g seconds", timeDiff));
+        if (!gameMaker.getMatchMaker().isRecording()) {
+            // One line per match, for scripts that only want the result
+            say(String.format("result: %s won %s in round %d by %s in %.4g seconds",
+                    currentWorld.getWinner(), mapName, currentWorld.getCurrentRound(),
+                    currentWorld.getGameStats().getDominationFactor(), timeDiff));
+        }
         return currentWorld.getWinner();
     }
 
@@ -528,15 +814,21 @@ public strictfp class Server implements Runnable {
      * @param game             the game to provide control for
      * @param gameMaker        the game maker containing the output streams for robot logs
      * @param profilingEnabled whether profiling is enabled or not
+     * @param profilerSidecars the file to stream each team's profiling data to, if any
      * @return a fresh control provider for the game
      */
     private RobotControlProvider createControlProvider(GameInfo game,
                                                        GameMaker gameMaker,
-                                                       boolean profilingEnabled) {
+                                                       boolean profilingEnabled,
+                                                       Map<Team, ProfilerSidecarWriter> profilerSidecars) {
         // Strictly speaking, this should probably be somewhere in battlecode.world
         // Whatever
 
         final TeamControlProvider teamProvider = new TeamControlProvider();
+        final int sandboxPoolSize = options.getInt("bc.engine.sandbox-pool-size");
+        final int profilerEventsPerRobot = options.getInt("bc.engine.profiler-events-per-robot");
+        final int profilerEventsPerTeam = options.getInt("bc.engine.profiler-events-per-team");
+        final int profilerSampleInterval = Math.max(0, options.getInt("bc.engine.profiler-sample-interval"));
 
         teamProvider.registerControlProvider(
                 Team.A,
@@ -545,7 +837,12 @@ public strictfp class Server implements Runnable {
                     game.getTeamAPackage(),
                     game.getTeamAURL(),
                     gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    profilingEnabled,
+                    sandboxPoolSize,
+                    profilerEventsPerRobot,
+                    profilerEventsPerTeam,
+                    profilerSampleInterval,
+                    profilerSidecars.get(Team.A)
                 )
         );
         teamProvider.registerControlProvider(
@@ -555,7 +852,12 @@ public strictfp class Server implements Runnable {
                     game.getTeamBPackage(),
                     game.getTeamBURL(),
                     gameMaker.getMatchMaker().getOut(),
-                    profilingEnabled
+                    profilingEnabled,
+                    sandboxPoolSize,
+                    profilerEventsPerRobot,
+                    profilerEventsPerTeam,
+                    profilerSampleInterval,
+                    profilerSidecars.get(Team.B)
                 )
         );
         teamProvider.registerControlProvider(
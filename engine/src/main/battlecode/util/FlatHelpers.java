@@ -12,6 +12,8 @@ import gnu.trove.list.TIntList;
 import gnu.trove.list.TCharList;
 import gnu.trove.list.array.TByteArrayList;
 
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.List;
 import java.util.function.ObjIntConsumer;
 
@@ -70,38 +72,39 @@ public class FlatHelpers {
      * Call like so:
      * int xyzP = intVector(builder, xyz, BufferType::startXyzVector);
      */
-    // public static int intVector(FlatBufferBuilder builder,
-    //                             TIntList arr,
-    //                             ObjIntConsumer<FlatBufferBuilder> start) {
-    //     final int length = arr.size();
-    //     start.accept(builder, length);
-
-    //     // arrays go backwards in flatbuffers
-    //     // for reasons
-    //     for (int i = length - 1; i >= 0; i--) {
-    //         builder.addInt(arr.get(i));
-    //     }
-    //     return builder.endVector();
-    // }
+    public static int intVector(FlatBufferBuilder builder,
+                                TIntList arr,
+                                ObjIntConsumer<FlatBufferBuilder> start) {
+        final int length = arr.size();
+        start.accept(builder, length);
+
+        // arrays go backwards in flatbuffers
+        // for reasons
+        // start has already made room, so we can skip addInt's checks
+        for (int i = length - 1; i >= 0; i--) {
+            builder.putInt(arr.get(i));
+        }
+        return builder.endVector();
+    }
 
     /**
      * This is DIFFERENT from intVector!
      *
      * Call this when you're adding a table of offsets, not flat ints.
      */
-    // public static int offsetVector(FlatBufferBuilder builder,
-    //                                TIntList arr,
-    //                                ObjIntConsumer<FlatBufferBuilder> start) {
-    //     final int length = arr.size();
-    //     start.accept(builder, length);
-
-    //     // arrays go backwards in flatbuffers
-    //     // for reasons
-    //     for (int i = length - 1; i >= 0; i--) {
-    //         builder.addOffset(arr.get(i));
-    //     }
-    //     return builder.endVector();
-    // }
+    public static int offsetVector(FlatBufferBuilder builder,
+                                   TIntList arr,
+                                   ObjIntConsumer<FlatBufferBuilder> start) {
+        final int length = arr.size();
+        start.accept(builder, length);
+
+        // arrays go backwards in flatbuffers
+        // for reasons
+        for (int i = length - 1; i >= 0; i--) {
+            builder.addOffset(arr.get(i));
+        }
+        return builder.endVector();
+    }
 
     // public static int floatVector(FlatBufferBuilder builder,
     //                               TFloatList arr,
@@ -115,17 +118,17 @@ public class FlatHelpers {
     //     return builder.endVector();
     // }
 
-    // public static int byteVector(FlatBufferBuilder builder,
-    //                              TByteList arr,
-    //                              ObjIntConsumer<FlatBufferBuilder> start) {
-    //     final int length = arr.size();
-    //     start.accept(builder, length);
+    public static int byteVector(FlatBufferBuilder builder,
+                                 TByteList arr,
+                                 ObjIntConsumer<FlatBufferBuilder> start) {
+        final int length = arr.size();
+        start.accept(builder, length);
 
-    //     for (int i = length - 1; i >= 0; i--) {
-    //         builder.addByte(arr.get(i));
-    //     }
-    //     return builder.endVector();
-    // }
+        for (int i = length - 1; i >= 0; i--) {
+            builder.putByte(arr.get(i));
+        }
+        return builder.endVector();
+    }
 
     // public static int charVector(FlatBufferBuilder builder,
     //                               TCharList arr,
@@ -139,14 +142,34 @@ public class FlatHelpers {
     //     return builder.endVector();
     // }
 
+    /**
+     * Copy a finished flatbuffer into builder, so that its root table can be
+     * referred to from tables built there.
+     *
+     * Everything in a flatbuffer is addressed relative to where it's stored,
+     * so the bytes are copied as they are; they're stored as an otherwise
+     * unused byte vector aligned to 8 bytes, the largest alignment a table
+     * can need.
+     *
+     * @param builder  the builder to copy into; not in the middle of a table or vector
+     * @param finished a buffer from FlatBufferBuilder.sizedByteArray() after finish()
+     * @return the offset of the buffer's root table in builder
+     */
+    public static int addFinishedBuffer(FlatBufferBuilder builder, byte[] finished) {
+        builder.createUnintializedVector(1, finished.length, 8).put(finished);
+        final int dataStart = builder.endVector() - 4;
+
+        // The buffer starts with the offset of its root table
+        final int rootOffset = ByteBuffer.wrap(finished).order(ByteOrder.LITTLE_ENDIAN).getInt(0);
+        return dataStart - rootOffset;
+    }
+
     public static int createVecTable(FlatBufferBuilder builder, TIntList xs, TIntList ys) {
         if (xs.size() != ys.size()) {
             throw new RuntimeException("Mismatched x/y length: "+xs.size()+" != "+ys.size());
         }
-        // int xsP = intVector(builder, xs, VecTable::startXsVector);
-        // int ysP = intVector(builder, ys, VecTable::startYsVector);
-        int xsP = VecTable.createXsVector(builder, xs.toArray());
-        int ysP = VecTable.createYsVector(builder, ys.toArray());
+        int xsP = intVector(builder, xs, VecTable::startXsVector);
+        int ysP = intVector(builder, ys, VecTable::startYsVector);
         return VecTable.createVecTable(builder, xsP, ysP);
     }
 
@@ -154,12 +177,9 @@ public class FlatHelpers {
         if (red.size() != green.size() || green.size() != blue.size()) {
             throw new RuntimeException("Mismatched lengths: "+red.size()+", "+green.size()+", "+blue.size());
         }
-        // int redP = intVector(builder, red, RGBTable::startRedVector);
-        // int greenP = intVector(builder, green, RGBTable::startGreenVector);
-        // int blueP = intVector(builder, blue, RGBTable::startBlueVector);
-        int redP = RGBTable.createRedVector(builder, red.toArray());
-        int greenP = RGBTable.createGreenVector(builder, green.toArray());
-        int blueP = RGBTable.createGreenVector(builder, blue.toArray());
+        int redP = intVector(builder, red, RGBTable::startRedVector);
+        int greenP = intVector(builder, green, RGBTable::startGreenVector);
+        int blueP = intVector(builder, blue, RGBTable::startBlueVector);
         return RGBTable.createRGBTable(builder, redP, greenP, blueP);
     }
 }
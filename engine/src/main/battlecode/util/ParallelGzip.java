@@ -0,0 +1,152 @@
+package battlecode.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Gzips data on several threads at once, like pigz.
+ *
+ * The data is split into blocks, and each block is deflated on its own,
+ * with the end of the block before it as a dictionary so the output is
+ * about as small as single-threaded gzip's. Every block but the last ends
+ * with a sync flush, so the deflated blocks can be put end to end; the
+ * result is a single ordinary gzip stream.
+ */
+public final class ParallelGzip {
+    /**
+     * How long compression threads wait for a block before exiting.
+     */
+    private static final long IDLE_THREAD_SECONDS = 60;
+
+    /**
+     * The most history deflate can refer back to.
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    /**
+     * The gzip header GZIPOutputStream writes: deflate, no flags, no
+     * modification time.
+     */
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final ThreadPoolExecutor threads;
+    private final int threadCount;
+    private final int blockSize;
+
+    /**
+     * @param threadCount the number of threads to deflate blocks on
+     * @param blockSize   the number of bytes in each block
+     */
+    public ParallelGzip(int threadCount, int blockSize) {
+        if (threadCount < 1 || blockSize < 1) {
+            throw new IllegalArgumentException("Need at least one thread and one byte per block, not "
+                    + threadCount + " and " + blockSize);
+        }
+        this.threadCount = threadCount;
+        this.blockSize = blockSize;
+        this.threads = new ThreadPoolExecutor(threadCount, threadCount,
+                IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(),
+                r -> {
+                    final Thread thread = new Thread(r, "gzip");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.threads.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Gzip data to out. Safe to call from several threads at once.
+     *
+     * @param data   the array holding the data
+     * @param offset where the data starts in the array
+     * @param length the number of bytes of data
+     * @param out    where to write the gzip stream; not closed
+     * @throws IOException if writing fails
+     */
+    public void compress(byte[] data, int offset, int length, OutputStream out) throws IOException {
+        out.write(HEADER);
+
+        final CRC32 crc = new CRC32();
+        final int blocks = Math.max(1, (length + blockSize - 1) / blockSize);
+        // Only keep a couple of blocks per thread in memory at once
+        final ArrayDeque<Future<byte[]>> pending = new ArrayDeque<>();
+        int next = 0;
+        for (int written = 0; written < blocks; written++) {
+            while (next < blocks && pending.size() < 2 * threadCount) {
+                final int start = offset + next * blockSize;
+                final int end = Math.min(offset + length, start + blockSize);
+                final boolean last = next == blocks - 1;
+                pending.add(threads.submit(() -> deflateBlock(data, offset, start, end, last)));
+                next++;
+            }
+
+            final int start = offset + written * blockSize;
+            crc.update(data, start, Math.min(offset + length, start + blockSize) - start);
+
+            try {
+                out.write(pending.remove().get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.forEach(f -> f.cancel(true));
+                throw new IOException("Interrupted while compressing", e);
+            } catch (ExecutionException e) {
+                pending.forEach(f -> f.cancel(true));
+                throw new IOException("Compressing failed", e.getCause());
+            }
+        }
+
+        writeIntLE(out, (int) crc.getValue());
+        writeIntLE(out, length);
+    }
+
+    /**
+     * Deflate data[start, end), using up to DICTIONARY_SIZE bytes before it
+     * (but not before dataStart) as a dictionary.
+     */
+    private static byte[] deflateBlock(byte[] data, int dataStart, int start, int end, boolean last) {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        try {
+            final int dictionaryStart = Math.max(dataStart, start - DICTIONARY_SIZE);
+            if (dictionaryStart < start) {
+                deflater.setDictionary(data, dictionaryStart, start - dictionaryStart);
+            }
+            deflater.setInput(data, start, end - start);
+
+            final ByteArrayOutputStream result = new ByteArrayOutputStream(end - start + 64);
+            final byte[] buffer = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    result.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                // A sync flush is done once it doesn't fill the buffer
+                int count;
+                do {
+                    count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    result.write(buffer, 0, count);
+                } while (count == buffer.length);
+            }
+            return result.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLE(OutputStream out, int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -0,0 +1,46 @@
+package battlecode.util;
+
+import gnu.trove.list.TByteList;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Unsigned LEB128 varints, as packed into COMPACT rounds: seven bits at a
+ * time, lowest first, with the top bit set on every byte but the last.
+ * Values under 128 take one byte, and under 16384 two.
+ */
+public final class VarInts {
+    private VarInts() {}
+
+    /**
+     * Append a varint.
+     *
+     * @param out   the bytes to append to
+     * @param value the value, taken as unsigned
+     */
+    public static void write(TByteList out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.add((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+
+    /**
+     * Read a varint at the buffer's position, and move the position past it.
+     *
+     * @param in the buffer to read from
+     * @return the value
+     */
+    public static int read(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            final byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Varint longer than 5 bytes at " + in.position());
+    }
+}
@@ -648,11 +648,15 @@ public strictfp class GameWorld {
     }
 
     public void processEndOfRound() {
+        // Without a replay there's no need to gather anything for it
+        final boolean recording = this.matchMaker.isRecording();
 
         //advance turn for all island
         for (Island island : getAllIslands()) {
             island.advanceTurn();
-            this.matchMaker.addIslandInfo(island);
+            if (recording) {
+                this.matchMaker.addIslandInfo(island);
+            }
         }
         
         //end any boosts that have finished their duration
@@ -695,13 +699,15 @@ public strictfp class GameWorld {
             return true;
         });
 
-        for (Well well : this.wells) {
-            if (well == null)
-                continue;
-            this.matchMaker.addWell(well, locationToIndex(well.getMapLocation()));
+        if (recording) {
+            for (Well well : this.wells) {
+                if (well == null)
+                    continue;
+                this.matchMaker.addWell(well, locationToIndex(well.getMapLocation()));
+            }
+            this.matchMaker.addTeamInfo(Team.A, this.teamInfo.getRoundAdamantiumChange(Team.A), this.teamInfo.getRoundManaChange(Team.A), this.teamInfo.getRoundElixirChange(Team.A));
+            this.matchMaker.addTeamInfo(Team.B, this.teamInfo.getRoundAdamantiumChange(Team.B), this.teamInfo.getRoundManaChange(Team.B), this.teamInfo.getRoundElixirChange(Team.B));
         }
-        this.matchMaker.addTeamInfo(Team.A, this.teamInfo.getRoundAdamantiumChange(Team.A), this.teamInfo.getRoundManaChange(Team.A), this.teamInfo.getRoundElixirChange(Team.A));
-        this.matchMaker.addTeamInfo(Team.B, this.teamInfo.getRoundAdamantiumChange(Team.B), this.teamInfo.getRoundManaChange(Team.B), this.teamInfo.getRoundElixirChange(Team.B));
         this.teamInfo.processEndOfRound();
 
         //Apply currents after CURRENT_STRENGTH rounds
@@ -709,10 +715,21 @@ public strictfp class GameWorld {
             applyCurrents();
         }
 
-        objectInfo.eachRobot((robot) -> {
-            matchMaker.addMoved(robot.getID(), robot.getLocation());
-            return true;
-        });
+        if (recording) {
+            objectInfo.eachRobot((robot) -> {
+                matchMaker.addMoved(robot.getID(), robot.getLocation());
+                return true;
+            });
+        }
+
+        if (recording && matchMaker.isKeyframeRound(currentRound)) {
+            objectInfo.eachRobot((robot) -> {
+                matchMaker.addKeyframeRobot(robot);
+                return true;
+            });
+            this.matchMaker.addKeyframeTeam(Team.A, this.teamInfo.getAdamantium(Team.A), this.teamInfo.getMana(Team.A), this.teamInfo.getElixir(Team.A));
+            this.matchMaker.addKeyframeTeam(Team.B, this.teamInfo.getAdamantium(Team.B), this.teamInfo.getMana(Team.B), this.teamInfo.getElixir(Team.B));
+        }
 
         checkEndOfMatch();
 
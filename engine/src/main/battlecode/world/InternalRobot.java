@@ -433,6 +433,8 @@ public strictfp class InternalRobot implements Comparable<InternalRobot> {
         this.gameWorld.getMatchMaker().addBytecodes(this.ID, this.bytecodesUsed);
         // indicator strings!
         this.gameWorld.getMatchMaker().addIndicatorString(this.ID, this.indicatorString);
+        // what it printed!
+        this.gameWorld.getMatchMaker().addLogs(this.ID);
         this.roundsAlive++;
     }
 
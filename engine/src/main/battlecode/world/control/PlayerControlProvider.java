@@ -2,10 +2,11 @@ package battlecode.world.control;
 
 import battlecode.common.Team;
 import battlecode.instrumenter.InstrumentationException;
-import battlecode.instrumenter.TeamClassLoaderFactory;
+import battlecode.instrumenter.SandboxFactory;
 import battlecode.instrumenter.SandboxedRobotPlayer;
 import battlecode.instrumenter.profiler.Profiler;
 import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.instrumenter.profiler.ProfilerSidecarWriter;
 import battlecode.server.ErrorReporter;
 import battlecode.world.GameWorld;
 import battlecode.world.InternalRobot;
@@ -25,9 +26,9 @@ import java.util.Map;
 public class PlayerControlProvider implements RobotControlProvider {
 
     /**
-     * Used to create ClassLoaders for this team.
+     * Used to create sandboxed players for this team.
      */
-    private final TeamClassLoaderFactory factory;
+    private final SandboxFactory factory;
 
     /**
      * The sandboxed robot players we're using to control robots;
@@ -49,11 +50,6 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private final String teamPackage;
 
-    /**
-     * The printstream robots should write to (besides System.out).
-     */
-    private final OutputStream robotOut;
-
     /**
      * The team this control provider controls.
      */
@@ -65,6 +61,26 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private ProfilerCollection profilerCollection;
 
+    /**
+     * The number of profiler events to record for each robot.
+     */
+    private final int profilerEventsPerRobot;
+
+    /**
+     * The number of profiler events the team's robots may record between them.
+     */
+    private final int profilerEventsPerTeam;
+
+    /**
+     * The number of bytecodes between profiler samples, or 0 to trace every call.
+     */
+    private final int profilerSampleInterval;
+
+    /**
+     * The file to stream profiling data to, or null to put it in the match footer.
+     */
+    private final ProfilerSidecarWriter profilerSidecar;
+
     /**
      * The match id of the current match. Incremented by one every time a new match starts.
      */
@@ -78,20 +94,39 @@ public class PlayerControlProvider implements RobotControlProvider {
      * @param teamURL          the url of the classes for the team;
      * @param robotOut         the output that robots should write to
      * @param profilingEnabled whether profiling is enabled or not
+     * @param sandboxPoolSize  the number of sandboxes to keep ready for spawns;
+     *                         0 to build each one when its robot spawns
+     * @param profilerEventsPerRobot the number of profiler events to record for each robot
+     * @param profilerEventsPerTeam  the number of profiler events the team's robots
+     *                               may record between them
+     * @param profilerSampleInterval the number of bytecodes between profiler samples,
+     *                               or 0 to trace every method call
+     * @param profilerSidecar  the file to stream profiling data to,
+     *                         or null to put it in the replay
      */
     public PlayerControlProvider(Team team,
                                  String teamPackage,
                                  String teamURL,
                                  OutputStream robotOut,
-                                 boolean profilingEnabled) {
+                                 boolean profilingEnabled,
+                                 int sandboxPoolSize,
+                                 int profilerEventsPerRobot,
+                                 int profilerEventsPerTeam,
+                                 int profilerSampleInterval,
+                                 ProfilerSidecarWriter profilerSidecar) {
         this.teamPackage = teamPackage;
         this.sandboxes = new HashMap<>(); // GameWorld maintains order for us
-        this.factory = new TeamClassLoaderFactory(teamURL);
-        this.robotOut = robotOut;
+        this.factory = new SandboxFactory(team, teamPackage, teamURL, robotOut,
+                profilingEnabled, sandboxPoolSize);
         this.team = team;
+        this.profilerEventsPerRobot = profilerEventsPerRobot;
+        this.profilerEventsPerTeam = profilerEventsPerTeam;
+        this.profilerSampleInterval = profilerSampleInterval;
+        this.profilerSidecar = profilerSidecar;
 
         if (profilingEnabled) {
-            profilerCollection = new ProfilerCollection();
+            profilerCollection = new ProfilerCollection(factory.getFrameTable(),
+                    profilerEventsPerRobot, profilerEventsPerTeam, profilerSampleInterval, profilerSidecar);
         }
     }
 
@@ -99,23 +134,30 @@ public class PlayerControlProvider implements RobotControlProvider {
     public void matchStarted(GameWorld gameWorld) {
         this.gameWorld = gameWorld;
         matchId++;
+        factory.refill();
     }
 
     @Override
     public void matchEnded() {
-        if (profilerCollection != null) {
-            gameWorld.setProfilerCollection(team, profilerCollection);
-            profilerCollection = new ProfilerCollection();
-        }
-
         for (final SandboxedRobotPlayer player : this.sandboxes.values()) {
            if (player != null && !player.getTerminated()) {
                player.terminate();
            }
         }
 
+        // After the robots stop, so every profile is complete
+        if (profilerCollection != null) {
+            profilerCollection.finishMatch();
+            gameWorld.setProfilerCollection(team, profilerCollection);
+            profilerCollection = new ProfilerCollection(factory.getFrameTable(),
+                    profilerEventsPerRobot, profilerEventsPerTeam, profilerSampleInterval, profilerSidecar);
+        }
+
         this.sandboxes.clear();
         this.gameWorld = null;
+
+        // The next match starts them again
+        factory.shutdown();
     }
 
     @Override
@@ -126,12 +168,9 @@ public class PlayerControlProvider implements RobotControlProvider {
                 profiler = profilerCollection.createProfiler(robot.getID(), robot.getType());
             }
 
-            final SandboxedRobotPlayer player = new SandboxedRobotPlayer(
-                    teamPackage,
+            final SandboxedRobotPlayer player = factory.createPlayer(
                     robot.getController(),
                     robot.getID(),
-                    factory.createLoader(profiler != null),
-                    robotOut,
                     profiler
             );
             this.sandboxes.put(robot.getID(), player);
@@ -163,7 +202,11 @@ public class PlayerControlProvider implements RobotControlProvider {
     public void roundStarted() {}
 
     @Override
-    public void roundEnded() {}
+    public void roundEnded() {
+        // Replace the sandboxes used by this round's spawns while the
+        // engine finishes up the round
+        factory.refill();
+    }
 
     @Override
     public void runRobot(InternalRobot robot) {
@@ -14,6 +14,9 @@ import java.lang.reflect.Method;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * @author james
@@ -137,6 +140,42 @@ public class LoaderTest {
         }
     }
 
+    // Loaders from one factory may be set up and instrument classes on
+    // several threads at once, as SandboxFactory does when it refills.
+    @Test
+    public void testLoadsConcurrently() throws Exception {
+        final TeamClassLoaderFactory cache = new TeamClassLoaderFactory(tempClassFolder);
+        final String[] classNames = new String[] {
+                "instrumentertest.Outer$Inner",
+                "instrumentertest.OverridesHashCode",
+                "instrumentertest.UsesEnumMap",
+                "instrumentertest.UsesLambda",
+                "instrumentertest.UsesThrowable"
+        };
+
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<TeamClassLoaderFactory.Loader>> loaders = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                loaders.add(pool.submit(() -> {
+                    final TeamClassLoaderFactory.Loader loader = setupLoader(cache);
+                    for (String className : classNames) {
+                        loader.loadClass(className);
+                    }
+                    return loader;
+                }));
+            }
+            for (Future<TeamClassLoaderFactory.Loader> loader : loaders) {
+                for (String className : classNames) {
+                    assertEquals(className, loader.get().loadClass(className).getName());
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        assertFalse(cache.getError());
+    }
+
     // Classes that don't need to be reloaded. Should be from AllowedPackages.txt.
     private static final Class<?>[] NEVER_RELOAD = new Class<?>[] {
             java.lang.Object.class,
@@ -0,0 +1,144 @@
+package battlecode.instrumenter;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.server.Config;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Proxy;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Runs players with bc.engine.virtual-threads set. Skipped on runtimes
+ * without virtual threads.
+ */
+public class VirtualThreadsTest {
+    private static String tempClassFolder;
+
+    /**
+     * The thread that last asked the controller for its location.
+     */
+    private final AtomicReference<Thread> caller = new AtomicReference<>();
+
+    @BeforeClass
+    public static void writeCache() throws Exception {
+        tempClassFolder = URLUtils.toTempFolder(
+                "testplayerclock/RobotPlayer.class",
+                "testplayerrandom/RobotPlayer.class");
+    }
+
+    @Before
+    public void useVirtualThreads() {
+        assumeTrue(VirtualThreads.isSupported());
+        System.setProperty("bc.engine.virtual-threads", "true");
+        System.setProperty("bc.server.robot-player-to-system-out", "false");
+        Config.setGlobalConfig(new Config(new String[0]));
+    }
+
+    @After
+    public void resetConfig() {
+        System.clearProperty("bc.engine.virtual-threads");
+        System.clearProperty("bc.server.robot-player-to-system-out");
+        Config.setGlobalConfig(new Config(new String[0]));
+    }
+
+    @Test(timeout = 10000)
+    public void testPlayerRunsOnVirtualThread() throws Exception {
+        final SandboxedRobotPlayer player = newPlayer("testplayerclock", null);
+
+        // Yields
+        player.step();
+        assertFalse(player.getTerminated());
+
+        // Returns, and reports where it froze from its own thread
+        player.step();
+        assertTrue(player.getTerminated());
+
+        assertNotNull(caller.get());
+        assertTrue((Boolean) Thread.class.getMethod("isVirtual").invoke(caller.get()));
+    }
+
+    @Test(timeout = 10000)
+    public void testPausedPlayerCanBeTerminated() throws Exception {
+        final SandboxedRobotPlayer player = newPlayer("testplayerclock", null);
+
+        player.step();
+        assertFalse(player.getTerminated());
+
+        player.terminate();
+        assertTrue(player.getTerminated());
+    }
+
+    @Test(timeout = 10000)
+    public void testPlayerUsesRandom() throws Exception {
+        // Random reaches for Unsafe, which moved to jdk.internal.misc in the
+        // runtimes that have virtual threads
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final SandboxedRobotPlayer player = newPlayer("testplayerrandom", out);
+
+        for (int i = 0; i < 3; i++) {
+            player.step();
+            assertFalse(player.getTerminated());
+        }
+        player.terminate();
+
+        final String[] lines = out.toString().trim().split("\\R");
+        assertEquals(3, lines.length);
+        final Random random = new Random(6147);
+        for (String line : lines) {
+            assertEquals(String.valueOf(random.nextInt(100)), line);
+        }
+    }
+
+    private SandboxedRobotPlayer newPlayer(String teamName, OutputStream out) throws Exception {
+        final SandboxedRobotPlayer player = new SandboxedRobotPlayer(
+                teamName,
+                controller(),
+                0,
+                new TeamClassLoaderFactory(tempClassFolder).createLoader(false),
+                out,
+                null);
+        player.setBytecodeLimit(10000);
+        return player;
+    }
+
+    /**
+     * @return a controller that stands at the origin as team A's
+     *         headquarters and otherwise answers with defaults
+     */
+    private RobotController controller() {
+        return (RobotController) Proxy.newProxyInstance(
+                RobotController.class.getClassLoader(),
+                new Class<?>[]{RobotController.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "getTeam":
+                            return Team.A;
+                        case "getType":
+                            return RobotType.HEADQUARTERS;
+                        case "getLocation":
+                            caller.set(Thread.currentThread());
+                            return new MapLocation(0, 0);
+                    }
+                    final Class<?> type = method.getReturnType();
+                    if (type == boolean.class) {
+                        return false;
+                    }
+                    if (type.isPrimitive() && type != void.class) {
+                        return 0;
+                    }
+                    return null;
+                });
+    }
+}
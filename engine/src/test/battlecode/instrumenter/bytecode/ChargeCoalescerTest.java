@@ -0,0 +1,336 @@
+package battlecode.instrumenter.bytecode;
+
+import battlecode.instrumenter.inject.RobotMonitor;
+import org.junit.Test;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Runs methods charged the way InstrumentingMethodVisitor charges them,
+ * with and without ChargeCoalescer, and checks that the robot sees the same
+ * bytecode counts everywhere it can look.
+ */
+public class ChargeCoalescerTest implements Opcodes {
+
+    private static final String MONITOR = "battlecode/instrumenter/inject/RobotMonitor";
+
+    /**
+     * What observe() saw, in order.
+     */
+    private static final List<String> trace = new ArrayList<>();
+
+    private static int pauses;
+
+    /**
+     * Stands in for any call a robot could use to look at its bytecode count.
+     */
+    public static void observe() {
+        trace.add("observe " + RobotMonitor.getBytecodeNum() + " " + pauses);
+    }
+
+    @SuppressWarnings("unused")
+    public static class Sample {
+        public static int straightLine(int a, int b) {
+            int x = a + b;
+            int y = x * 3;
+            long z = (long) y << 4;
+            double w = z / 2.0;
+            observe();
+            return (int) w - a;
+        }
+
+        public static int loop(int a, int b) {
+            int sum = 0;
+            for (int i = 0; i < a; i++) {
+                sum += i ^ b;
+            }
+            return sum;
+        }
+
+        public static int nestedLoops(int a, int b) {
+            final int[] values = new int[Math.max(a, 0)];
+            int sum = 0;
+            for (int i = 0; i < a; i++) {
+                for (int j = 0; j < b; j++) {
+                    sum += j;
+                    if (sum % 7 == 3) {
+                        observe();
+                    }
+                }
+                values[i] = sum;
+            }
+            return values.length > 0 ? values[values.length - 1] : -1;
+        }
+
+        public static int branches(int a, int b) {
+            int x;
+            if (a > b) {
+                x = a - b;
+            } else if (a == b) {
+                x = 0;
+                observe();
+            } else {
+                x = b - a;
+            }
+            int y = x > 3 ? x * 2 : x + 1;
+            return y;
+        }
+
+        public static int switches(int a, int b) {
+            int x = 0;
+            switch (a) {
+                case 0:
+                    x = 1;
+                    break;
+                case 1:
+                case 2:
+                    x = b;
+                    // fall through
+                case 3:
+                    x += 4;
+                    break;
+                case 100:
+                    observe();
+                    x = -1;
+                    break;
+                default:
+                    x = a * b;
+            }
+            return x;
+        }
+
+        public static int exceptions(int a, int b) {
+            int x = a;
+            try {
+                x = x * 2;
+                x = x / b;
+                x++;
+            } catch (ArithmeticException e) {
+                x = -x;
+                observe();
+            }
+            final int[] array = new int[3];
+            try {
+                x += 1;
+                array[a] = x;
+                x += 2;
+            } catch (ArrayIndexOutOfBoundsException e) {
+                x -= 1;
+            } finally {
+                x *= 3;
+            }
+            return x;
+        }
+
+        public static int uncaught(int a, int b) {
+            int x = a + 1;
+            x = x * 2;
+            return x / b;
+        }
+
+        public static int whileTrue(int a, int b) {
+            int i = 0;
+            while (true) {
+                i += 3;
+                if (i > a) {
+                    break;
+                }
+                if (i == b) {
+                    observe();
+                }
+            }
+            do {
+                i--;
+            } while (i > b);
+            return i;
+        }
+
+        public static int calls(int a, int b) {
+            int x = Math.abs(a);
+            for (int i = 0; i < b; i++) {
+                x = Math.max(x, i);
+                x++;
+            }
+            return x;
+        }
+    }
+
+    @Test
+    public void testSameCounts() throws Exception {
+        final Class<?> plain = load(false);
+        final Class<?> coalesced = load(true);
+
+        for (Method method : Sample.class.getDeclaredMethods()) {
+            for (int limit : new int[]{Integer.MAX_VALUE, 7, 40}) {
+                for (int a = -2; a <= 12; a++) {
+                    for (int b = -2; b <= 12; b++) {
+                        final List<String> expected = run(plain, method.getName(), limit, a, b);
+                        final List<String> actual = run(coalesced, method.getName(), limit, a, b);
+                        assertEquals(method.getName() + "(" + a + ", " + b + ") with limit " + limit,
+                                expected, actual);
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFewerCharges() throws IOException {
+        final ClassNode plain = charged(false);
+        final ClassNode coalesced = charged(true);
+
+        for (int i = 0; i < plain.methods.size(); i++) {
+            final MethodNode before = (MethodNode) plain.methods.get(i);
+            final MethodNode after = (MethodNode) coalesced.methods.get(i);
+            assertTrue(before.name, countCharges(after) <= countCharges(before));
+        }
+
+        // Straight-line code is charged once per call, before observe()
+        // and before returning
+        assertEquals(2, countCharges(method(coalesced, "straightLine")));
+
+        // The loop is charged once per iteration, at its back edge
+        final MethodNode loop = method(coalesced, "loop");
+        int backEdges = 0;
+        for (AbstractInsnNode insn : loop.instructions.toArray()) {
+            if (insn.getOpcode() == GOTO) {
+                assertTrue(isCharge(insn.getPrevious()));
+                backEdges++;
+            }
+        }
+        assertEquals(1, backEdges);
+        assertTrue(countCharges(loop) < countCharges(method(plain, "loop")));
+    }
+
+    /**
+     * Call one of the sample methods as a robot would, and record what it
+     * could see.
+     */
+    private static List<String> run(Class<?> sample, String name, int limit, int a, int b) throws Exception {
+        trace.clear();
+        pauses = 0;
+        RobotMonitor.init(() -> pauses++, () -> {
+            throw new IllegalStateException("killed");
+        }, 0, null);
+        RobotMonitor.setBytecodeLimit(limit);
+        RobotMonitor.reactivate();
+
+        try {
+            final Object result = sample.getMethod(name, int.class, int.class).invoke(null, a, b);
+            trace.add("returned " + result);
+        } catch (InvocationTargetException e) {
+            trace.add("threw " + e.getCause().getClass().getName());
+        }
+        trace.add("finished " + RobotMonitor.getBytecodeNum() + " " + pauses);
+        return new ArrayList<>(trace);
+    }
+
+    private static Class<?> load(boolean coalesce) throws IOException {
+        final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        charged(coalesce).accept(writer);
+        final byte[] bytes = writer.toByteArray();
+
+        return new ClassLoader(ChargeCoalescerTest.class.getClassLoader()) {
+            final Class<?> sample = defineClass(Sample.class.getName(), bytes, 0, bytes.length);
+        }.sample;
+    }
+
+    /**
+     * @return Sample, with charges inserted where InstrumentingMethodVisitor
+     *         would put them, and optionally coalesced
+     */
+    private static ClassNode charged(boolean coalesce) throws IOException {
+        final ClassNode node = new ClassNode();
+        try (InputStream in = ChargeCoalescerTest.class.getResourceAsStream("ChargeCoalescerTest$Sample.class")) {
+            new ClassReader(in).accept(node, 0);
+        }
+
+        for (Object o : node.methods) {
+            final MethodNode method = (MethodNode) o;
+            addCharges(method);
+            if (coalesce) {
+                ChargeCoalescer.coalesce(method);
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Charge one bytecode per instruction at the end of every basic block,
+     * before every call, and at every label, plus a penalty on entering an
+     * exception handler.
+     */
+    private static void addCharges(MethodNode method) {
+        final Set<LabelNode> handlers = new HashSet<>();
+        for (Object o : method.tryCatchBlocks) {
+            handlers.add(((TryCatchBlockNode) o).handler);
+        }
+
+        int count = 0;
+        for (AbstractInsnNode insn : method.instructions.toArray()) {
+            if (insn instanceof LabelNode) {
+                count = charge(method, insn, count);
+                if (handlers.contains(insn)) {
+                    count += 5;
+                }
+            } else if (insn.getOpcode() >= 0) {
+                count++;
+                if (insn instanceof JumpInsnNode
+                        || insn instanceof TableSwitchInsnNode
+                        || insn instanceof LookupSwitchInsnNode
+                        || insn instanceof MethodInsnNode
+                        || (insn.getOpcode() >= IRETURN && insn.getOpcode() <= RETURN)
+                        || insn.getOpcode() == ATHROW) {
+                    count = charge(method, insn, count);
+                }
+            }
+        }
+    }
+
+    private static int charge(MethodNode method, AbstractInsnNode before, int count) {
+        if (count > 0) {
+            method.instructions.insertBefore(before, new LdcInsnNode(count));
+            method.instructions.insertBefore(before,
+                    new MethodInsnNode(INVOKESTATIC, MONITOR, "incrementBytecodes", "(I)V", false));
+        }
+        return 0;
+    }
+
+    private static MethodNode method(ClassNode node, String name) {
+        for (Object o : node.methods) {
+            if (((MethodNode) o).name.equals(name)) {
+                return (MethodNode) o;
+            }
+        }
+        throw new IllegalArgumentException(name);
+    }
+
+    private static boolean isCharge(AbstractInsnNode insn) {
+        return insn instanceof MethodInsnNode
+                && ((MethodInsnNode) insn).owner.equals(MONITOR)
+                && ((MethodInsnNode) insn).name.equals("incrementBytecodes");
+    }
+
+    private static int countCharges(MethodNode method) {
+        int charges = 0;
+        for (AbstractInsnNode insn : method.instructions.toArray()) {
+            if (isCharge(insn)) {
+                charges++;
+            }
+        }
+        return charges;
+    }
+}
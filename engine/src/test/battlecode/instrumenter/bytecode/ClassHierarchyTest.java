@@ -0,0 +1,95 @@
+package battlecode.instrumenter.bytecode;
+
+import battlecode.instrumenter.InstrumentationException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.*;
+
+public class ClassHierarchyTest {
+
+    @Test
+    public void testAncestors() {
+        final Set<String> ancestors = new HashSet<>(Arrays.asList(
+                ClassHierarchy.system().getAncestors("java/util/ArrayList")));
+
+        assertTrue(ancestors.contains("java/util/AbstractList"));
+        assertTrue(ancestors.contains("java/util/List"));
+        assertTrue(ancestors.contains("java/util/Collection"));
+        assertTrue(ancestors.contains("java/lang/Iterable"));
+        assertTrue(ancestors.contains("java/util/RandomAccess"));
+        assertTrue(ancestors.contains("java/lang/Object"));
+        assertFalse(ancestors.contains("java/util/ArrayList"));
+        assertFalse(ancestors.contains("java/util/Map"));
+
+        assertEquals(0, ClassHierarchy.system().getAncestors("java/lang/Object").length);
+    }
+
+    @Test
+    public void testIsSubclass() {
+        final ClassHierarchy hierarchy = ClassHierarchy.system();
+        assertTrue(hierarchy.isSubclass("battlecode/common/GameActionException", "java/lang/Throwable"));
+        assertTrue(hierarchy.isSubclass("battlecode/world/RobotControllerImpl", "battlecode/common/RobotController"));
+        assertFalse(hierarchy.isSubclass("java/lang/String", "java/lang/Throwable"));
+    }
+
+    @Test
+    public void testMemoized() {
+        final String[] first = ClassHierarchy.system().getAncestors("java/util/HashMap");
+        assertSame(first, ClassHierarchy.system().getAncestors("java/util/HashMap"));
+    }
+
+    @Test(expected = InstrumentationException.class)
+    public void testMissingClass() {
+        ClassHierarchy.system().getAncestors("does/not/Exist");
+    }
+
+    @Test
+    public void testMethodCostsUseAncestors() {
+        // RobotControllerImpl's costs are listed under RobotController
+        assertNotNull(MethodCostUtil.getMethodData("battlecode/world/RobotControllerImpl", "getLocation"));
+        assertNull(MethodCostUtil.getMethodData("java/util/ArrayList", "add"));
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception {
+        final List<String> classes = Arrays.asList(
+                "java/util/TreeMap", "java/util/LinkedList", "java/util/ArrayDeque",
+                "java/util/concurrent/ConcurrentSkipListMap", "java/lang/IllegalStateException");
+        final ClassHierarchy hierarchy = new ClassHierarchy(null);
+
+        final ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<List<Set<String>>>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(pool.submit((Callable<List<Set<String>>>) () -> {
+                    final List<Set<String>> sets = new ArrayList<>();
+                    for (String name : classes) {
+                        sets.add(new HashSet<>(Arrays.asList(hierarchy.getAncestors(name))));
+                    }
+                    return sets;
+                }));
+            }
+
+            final List<Set<String>> expected = results.get(0).get();
+            for (Future<List<Set<String>>> result : results) {
+                assertEquals(expected, result.get());
+            }
+            for (int i = 0; i < classes.size(); i++) {
+                assertEquals(new HashSet<>(Arrays.asList(ClassHierarchy.system().getAncestors(classes.get(i)))),
+                        expected.get(i));
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
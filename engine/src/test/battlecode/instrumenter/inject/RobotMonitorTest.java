@@ -0,0 +1,304 @@
+package battlecode.instrumenter.inject;
+
+import battlecode.common.RobotType;
+import battlecode.instrumenter.RobotDeathException;
+import battlecode.instrumenter.profiler.FrameTable;
+import battlecode.instrumenter.profiler.ProfilerCollection;
+import battlecode.instrumenter.profiler.ProfilerEventBuffer;
+import battlecode.instrumenter.profiler.TracingProfiler;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that RobotMonitor charges exactly what the straightforward
+ * implementation it replaced did, for the calls the instrumenter makes.
+ */
+public class RobotMonitorTest {
+
+    /**
+     * RobotMonitor's accounting before incrementBytecodes had a fast path.
+     */
+    private static class ReferenceMonitor {
+        int bytecodeLimit;
+        int bytecodesLeft;
+        int bytecodesToRemove;
+        boolean shouldDie;
+        int debugLevel;
+        int pauses;
+        TracingProfiler profiler;
+
+        void incrementBytecodes(int numBytecodes) {
+            if (shouldDie) {
+                throw new RobotDeathException();
+            }
+
+            if (debugLevel == 0) {
+                try {
+                    bytecodesLeft = Math.subtractExact(bytecodesLeft, numBytecodes);
+                    bytecodesLeft = Math.subtractExact(bytecodesLeft, bytecodesToRemove);
+                } catch (ArithmeticException e) {
+                    bytecodesLeft = Integer.MIN_VALUE;
+                }
+
+                if (profiler != null) {
+                    profiler.incrementBytecodes(numBytecodes);
+                    profiler.incrementBytecodes(bytecodesToRemove);
+                }
+
+                while (bytecodesLeft <= 0) {
+                    pause();
+                }
+            }
+
+            bytecodesToRemove = 0;
+        }
+
+        void incrementBytecodesWithoutInterrupt(int numBytecodes) {
+            if (numBytecodes > 0) {
+                try {
+                    bytecodesToRemove = Math.addExact(bytecodesToRemove, numBytecodes);
+                } catch (ArithmeticException e) {
+                    bytecodesToRemove = Integer.MAX_VALUE;
+                }
+            }
+        }
+
+        void pause() {
+            pauses++;
+            if (shouldDie) {
+                throw new RobotDeathException();
+            }
+            if (bytecodesLeft < 0) {
+                bytecodesLeft += bytecodeLimit;
+            } else {
+                bytecodesLeft = bytecodeLimit;
+            }
+        }
+
+        int getBytecodeNum() {
+            return bytecodeLimit - bytecodesLeft;
+        }
+    }
+
+    private int pauses;
+
+    /**
+     * The profiler given to RobotMonitor, if any.
+     */
+    private TracingProfiler profiler;
+
+    /**
+     * Set up both monitors as SandboxedRobotPlayer would: init, then pause
+     * until the first turn.
+     */
+    private ReferenceMonitor start(int limit, boolean profiled) {
+        pauses = 0;
+        final ReferenceMonitor reference = new ReferenceMonitor();
+        reference.bytecodeLimit = limit;
+
+        profiler = null;
+        if (profiled) {
+            final FrameTable frames = new FrameTable();
+            frames.getFrameId("RobotPlayer.run");
+            profiler = (TracingProfiler) new ProfilerCollection(frames, Integer.MAX_VALUE).createProfiler(1, RobotType.LAUNCHER);
+            reference.profiler = (TracingProfiler) new ProfilerCollection(frames, Integer.MAX_VALUE).createProfiler(1, RobotType.LAUNCHER);
+        }
+
+        RobotMonitor.init(() -> pauses++, () -> {
+            throw new RobotDeathException();
+        }, 0, profiler);
+        RobotMonitor.setBytecodeLimit(limit);
+        RobotMonitor.pause();
+        reference.pause();
+
+        assertSame(reference);
+        return reference;
+    }
+
+    private void assertSame(ReferenceMonitor reference) {
+        assertEquals(reference.bytecodesLeft, RobotMonitor.getBytecodesLeft());
+        assertEquals(reference.getBytecodeNum(), RobotMonitor.getBytecodeNum());
+        assertEquals(reference.pauses, pauses);
+    }
+
+    @Test
+    public void testFastPathCharges() {
+        final ReferenceMonitor reference = start(100, false);
+
+        for (int i = 0; i < 9; i++) {
+            RobotMonitor.incrementBytecodes(10);
+        }
+        assertEquals(10, RobotMonitor.getBytecodesLeft());
+        assertEquals(90, RobotMonitor.getBytecodeNum());
+        assertEquals(1, pauses);
+
+        // Running out pauses the robot until its next turn
+        RobotMonitor.incrementBytecodes(10);
+        assertEquals(100, RobotMonitor.getBytecodesLeft());
+        assertEquals(2, pauses);
+
+        // Going over the limit carries the debt into the next turn
+        RobotMonitor.incrementBytecodes(130);
+        assertEquals(70, RobotMonitor.getBytecodesLeft());
+        assertEquals(3, pauses);
+    }
+
+    @Test
+    public void testDeferredCharges() {
+        start(100, false);
+
+        RobotMonitor.incrementBytecodesWithoutInterrupt(20);
+        RobotMonitor.incrementBytecodesWithoutInterrupt(-5);
+        assertEquals(100, RobotMonitor.getBytecodesLeft());
+
+        RobotMonitor.incrementBytecodes(3);
+        assertEquals(77, RobotMonitor.getBytecodesLeft());
+
+        // Charged only once
+        RobotMonitor.incrementBytecodes(3);
+        assertEquals(74, RobotMonitor.getBytecodesLeft());
+    }
+
+    @Test
+    public void testDebugMethodsAreFree() {
+        start(100, false);
+
+        RobotMonitor.incrementBytecodes(10);
+        RobotMonitor.incrementDebugLevel();
+        RobotMonitor.incrementBytecodes(1000);
+        RobotMonitor.incrementBytecodesWithoutInterrupt(1000);
+        RobotMonitor.incrementBytecodes(1000);
+        RobotMonitor.decrementDebugLevel();
+        assertEquals(90, RobotMonitor.getBytecodesLeft());
+        assertEquals(1, pauses);
+
+        RobotMonitor.incrementBytecodes(10);
+        assertEquals(80, RobotMonitor.getBytecodesLeft());
+    }
+
+    @Test
+    public void testOverflowSaturates() {
+        final ReferenceMonitor reference = start(Integer.MAX_VALUE, false);
+
+        RobotMonitor.incrementBytecodesWithoutInterrupt(Integer.MAX_VALUE);
+        RobotMonitor.incrementBytecodesWithoutInterrupt(Integer.MAX_VALUE);
+        RobotMonitor.incrementBytecodes(Integer.MAX_VALUE);
+        reference.incrementBytecodesWithoutInterrupt(Integer.MAX_VALUE);
+        reference.incrementBytecodesWithoutInterrupt(Integer.MAX_VALUE);
+        reference.incrementBytecodes(Integer.MAX_VALUE);
+
+        assertSame(reference);
+    }
+
+    @Test(expected = RobotDeathException.class)
+    public void testKilledOnNextIncrement() {
+        start(100, false);
+
+        RobotMonitor.killRobot();
+        RobotMonitor.incrementBytecodes(1);
+    }
+
+    @Test
+    public void testMatchesReference() {
+        final Random random = new Random(2023);
+        for (int trial = 0; trial < 200; trial++) {
+            runRandomTrial(random, trial % 2 == 1);
+        }
+    }
+
+    /**
+     * Run the same random sequence of monitor calls against RobotMonitor and
+     * the reference, checking that they agree after every call.
+     */
+    private void runRandomTrial(Random random, boolean profiled) {
+        final ReferenceMonitor reference = start(1 + random.nextInt(20000), profiled);
+        final int method = 0;
+
+        for (int op = 0; op < 2000; op++) {
+            final int choice = random.nextInt(100);
+            boolean died = false;
+            boolean referenceDied = false;
+
+            try {
+                if (choice < 70) {
+                    final int n = randomCost(random);
+                    try {
+                        reference.incrementBytecodes(n);
+                    } catch (RobotDeathException e) {
+                        referenceDied = true;
+                    }
+                    RobotMonitor.incrementBytecodes(n);
+                } else if (choice < 80) {
+                    final int n = random.nextInt(50) == 0 ? Integer.MAX_VALUE : random.nextInt(1100) - 100;
+                    reference.incrementBytecodesWithoutInterrupt(n);
+                    RobotMonitor.incrementBytecodesWithoutInterrupt(n);
+                } else if (choice < 85) {
+                    reference.debugLevel++;
+                    RobotMonitor.incrementDebugLevel();
+                } else if (choice < 90) {
+                    if (reference.debugLevel > 0) {
+                        reference.debugLevel--;
+                        RobotMonitor.decrementDebugLevel();
+                    }
+                } else if (choice < 93) {
+                    // Clock.yield()
+                    try {
+                        reference.pause();
+                    } catch (RobotDeathException e) {
+                        referenceDied = true;
+                    }
+                    RobotMonitor.pause();
+                } else if (choice < 99) {
+                    // The engine changes the limit between turns
+                    final int limit = 1 + random.nextInt(20000);
+                    reference.bytecodeLimit = limit;
+                    RobotMonitor.setBytecodeLimit(limit);
+                } else if (random.nextInt(20) == 0) {
+                    reference.shouldDie = true;
+                    RobotMonitor.killRobot();
+                }
+            } catch (RobotDeathException e) {
+                died = true;
+            }
+
+            assertEquals(referenceDied, died);
+            if (died) {
+                return;
+            }
+
+            assertSame(reference);
+
+            if (profiled && reference.debugLevel == 0) {
+                // Profiler events record the profiler's running bytecode count
+                RobotMonitor.enterMethod(method);
+                RobotMonitor.exitMethod(method);
+                reference.profiler.enterMethod(method);
+                reference.profiler.exitMethod(method);
+            }
+        }
+
+        if (profiled) {
+            final ProfilerEventBuffer expected = reference.profiler.getEvents();
+            final ProfilerEventBuffer actual = profiler.getEvents();
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                assertEquals(expected.getAt(i), actual.getAt(i));
+            }
+        }
+    }
+
+    private static int randomCost(Random random) {
+        switch (random.nextInt(40)) {
+            case 0:
+                return Integer.MAX_VALUE - random.nextInt(10);
+            case 1:
+            case 2:
+                return random.nextInt(100000);
+            default:
+                return random.nextInt(40);
+        }
+    }
+}
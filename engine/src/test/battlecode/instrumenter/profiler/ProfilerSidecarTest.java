@@ -0,0 +1,127 @@
+package battlecode.instrumenter.profiler;
+
+import battlecode.common.RobotType;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class ProfilerSidecarTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        final FrameTable table = new FrameTable();
+        final int run = table.getFrameId("bot.RobotPlayer.run");
+        final int move = table.getFrameId("bot.Pathing.move");
+
+        final File file = folder.newFile("game-A.bcprof");
+        try (ProfilerSidecarWriter sidecar = new ProfilerSidecarWriter(file)) {
+            // Enough calls that the events get streamed out in several chunks
+            final ProfilerCollection first = new ProfilerCollection(table, Integer.MAX_VALUE, 0, sidecar);
+            final TracingProfiler launcher = (TracingProfiler) first.createProfiler(1, RobotType.LAUNCHER);
+            final TracingProfiler carrier = (TracingProfiler) first.createProfiler(2, RobotType.CARRIER);
+            launcher.enterMethod(run);
+            carrier.enterMethod(move);
+            for (int i = 0; i < 5000; i++) {
+                launcher.enterMethod(move);
+                launcher.incrementBytecodes(1);
+                launcher.exitMethod(move);
+            }
+            launcher.exitOpenMethods();
+            carrier.exitOpenMethods();
+            first.finishMatch();
+
+            // Nothing is kept for the match footer
+            assertEquals(0, launcher.getEvents().size());
+            assertSame(sidecar, first.getSidecar());
+
+            // Frame ids start over in the next match; move is entered first this time
+            final ProfilerCollection second = new ProfilerCollection(table, Integer.MAX_VALUE, 0, sidecar);
+            final Profiler headquarters = second.createProfiler(3, RobotType.HEADQUARTERS);
+            headquarters.enterMethod(move);
+            headquarters.incrementBytecodes(7);
+            headquarters.enterMethod(run);
+            headquarters.exitOpenMethods();
+            second.finishMatch();
+        }
+
+        final ProfilerSidecarReader reader;
+        try (InputStream in = new FileInputStream(file)) {
+            reader = new ProfilerSidecarReader(in);
+        }
+
+        assertEquals(Arrays.asList("bot.RobotPlayer.run", "bot.Pathing.move"), reader.getFrames());
+        assertEquals(3, reader.getProfiles().size());
+
+        final ProfilerSidecarReader.Profile launcher = reader.getProfiles().get(0);
+        assertEquals("Match 1: #1 (LAUNCHER)", launcher.getName());
+        final ProfilerEventBuffer events = launcher.getEvents();
+        assertEquals(2 + 2 * 5000, events.size());
+        assertEvent(events, 0, ProfilerEventType.OPEN, 0, 0);
+        assertEvent(events, 1, ProfilerEventType.OPEN, 0, 1);
+        assertEvent(events, 10000, ProfilerEventType.CLOSE, 5000, 1);
+        assertEvent(events, 10001, ProfilerEventType.CLOSE, 5000, 0);
+
+        assertEquals("Match 1: #2 (CARRIER)", reader.getProfiles().get(1).getName());
+        assertEquals(2, reader.getProfiles().get(1).getEvents().size());
+
+        final ProfilerSidecarReader.Profile headquarters = reader.getProfiles().get(2);
+        assertEquals("Match 2: #3 (HEADQUARTERS)", headquarters.getName());
+        assertEvent(headquarters.getEvents(), 0, ProfilerEventType.OPEN, 0, 1);
+        assertEvent(headquarters.getEvents(), 1, ProfilerEventType.OPEN, 7, 0);
+        assertEvent(headquarters.getEvents(), 2, ProfilerEventType.CLOSE, 7, 0);
+        assertEvent(headquarters.getEvents(), 3, ProfilerEventType.CLOSE, 7, 1);
+
+        final StringWriter json = new StringWriter();
+        reader.writeSpeedscope(json, "game \"A\"");
+        final String output = json.toString();
+        assertTrue(output.startsWith("{\"$schema\":\"https://www.speedscope.app/file-format-schema.json\""));
+        assertTrue(output.contains("\"name\":\"game \\\"A\\\"\""));
+        assertTrue(output.contains("\"shared\":{\"frames\":[{\"name\":\"bot.RobotPlayer.run\"},{\"name\":\"bot.Pathing.move\"}]}"));
+        assertTrue(output.contains("{\"type\":\"evented\",\"name\":\"Match 2: #3 (HEADQUARTERS)\",\"unit\":\"none\","
+                + "\"startValue\":0,\"endValue\":7,\"events\":[{\"type\":\"O\",\"frame\":1,\"at\":0},"
+                + "{\"type\":\"O\",\"frame\":0,\"at\":7},{\"type\":\"C\",\"frame\":0,\"at\":7},"
+                + "{\"type\":\"C\",\"frame\":1,\"at\":7}]}"));
+    }
+
+    @Test
+    public void testSampledProfilesWrittenAtMatchEnd() throws Exception {
+        final FrameTable table = new FrameTable();
+        final int run = table.getFrameId("bot.RobotPlayer.run");
+
+        final File file = folder.newFile("game-B.bcprof");
+        try (ProfilerSidecarWriter sidecar = new ProfilerSidecarWriter(file)) {
+            final ProfilerCollection collection = new ProfilerCollection(table, Integer.MAX_VALUE, 10, sidecar);
+            final Profiler profiler = collection.createProfiler(1, RobotType.LAUNCHER);
+            profiler.enterMethod(run);
+            profiler.incrementBytecodes(30);
+            profiler.exitOpenMethods();
+            collection.finishMatch();
+        }
+
+        final ProfilerSidecarReader reader;
+        try (InputStream in = new FileInputStream(file)) {
+            reader = new ProfilerSidecarReader(in);
+        }
+        assertEquals(1, reader.getProfiles().size());
+        assertEquals("Match 1: LAUNCHER (sampled every 10 bytecodes)", reader.getProfiles().get(0).getName());
+        assertEvent(reader.getProfiles().get(0).getEvents(), 1, ProfilerEventType.CLOSE, 3, 0);
+    }
+
+    private static void assertEvent(ProfilerEventBuffer events, int index,
+                                    ProfilerEventType type, int at, int frameId) {
+        assertEquals(type, events.getType(index));
+        assertEquals(at, events.getAt(index));
+        assertEquals(frameId, events.getFrameId(index));
+    }
+}
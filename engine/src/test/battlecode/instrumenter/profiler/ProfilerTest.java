@@ -0,0 +1,187 @@
+package battlecode.instrumenter.profiler;
+
+import battlecode.common.RobotType;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class ProfilerTest {
+
+    @Test
+    public void testFramesInOrderEntered() {
+        final FrameTable table = new FrameTable();
+        final int run = table.getFrameId("bot.RobotPlayer.run");
+        final int move = table.getFrameId("bot.RobotPlayer.move");
+        final int unused = table.getFrameId("bot.RobotPlayer.unused");
+        assertEquals(run, table.getFrameId("bot.RobotPlayer.run"));
+        assertNotEquals(run, unused);
+
+        final ProfilerCollection collection = new ProfilerCollection(table, Integer.MAX_VALUE);
+        final TracingProfiler profiler = (TracingProfiler) collection.createProfiler(7, RobotType.HEADQUARTERS);
+
+        profiler.enterMethod(move);
+        profiler.incrementBytecodes(10);
+        profiler.enterMethod(run);
+        profiler.incrementBytecodes(5);
+        profiler.exitMethod(run);
+        profiler.exitOpenMethods();
+
+        // Only methods that were entered, numbered in the order they were entered
+        assertEquals(Arrays.asList("bot.RobotPlayer.move", "bot.RobotPlayer.run"), collection.getFrames());
+
+        final ProfilerEventBuffer events = profiler.getEvents();
+        assertEquals(4, events.size());
+        assertEvent(events, 0, ProfilerEventType.OPEN, 0, 0);
+        assertEvent(events, 1, ProfilerEventType.OPEN, 10, 1);
+        assertEvent(events, 2, ProfilerEventType.CLOSE, 15, 1);
+        assertEvent(events, 3, ProfilerEventType.CLOSE, 15, 0);
+    }
+
+    @Test
+    public void testEventBudgetKeepsEventsBalanced() {
+        final FrameTable table = new FrameTable();
+        final int outer = table.getFrameId("bot.RobotPlayer.outer");
+        final int inner = table.getFrameId("bot.RobotPlayer.inner");
+
+        final ProfilerCollection collection = new ProfilerCollection(table, 5);
+        final TracingProfiler profiler = (TracingProfiler) collection.createProfiler(1, RobotType.HEADQUARTERS);
+
+        profiler.enterMethod(outer);          // recorded
+        profiler.enterMethod(inner);          // recorded
+        profiler.exitMethod(inner);           // recorded
+        profiler.enterMethod(inner);          // no room left to open and close it
+        profiler.enterMethod(outer);          // nested in an unrecorded frame
+        profiler.exitMethod(outer);
+        profiler.incrementBytecodes(3);
+        profiler.exitMethod(inner);
+        profiler.exitMethod(outer);           // recorded
+
+        final ProfilerEventBuffer events = profiler.getEvents();
+        assertEquals(4, events.size());
+        assertEvent(events, 0, ProfilerEventType.OPEN, 0, 0);
+        assertEvent(events, 1, ProfilerEventType.OPEN, 0, 1);
+        assertEvent(events, 2, ProfilerEventType.CLOSE, 0, 1);
+        assertEvent(events, 3, ProfilerEventType.CLOSE, 3, 0);
+    }
+
+    @Test
+    public void testTeamBudgetSharedByRobots() {
+        final FrameTable table = new FrameTable();
+        final int run = table.getFrameId("bot.RobotPlayer.run");
+
+        final ProfilerCollection collection = new ProfilerCollection(table, Integer.MAX_VALUE, 6, 0, null);
+        final TracingProfiler first = (TracingProfiler) collection.createProfiler(1, RobotType.HEADQUARTERS);
+        final TracingProfiler second = (TracingProfiler) collection.createProfiler(2, RobotType.CARRIER);
+
+        first.enterMethod(run);               // recorded
+        second.enterMethod(run);              // recorded
+        first.exitMethod(run);                // recorded
+        first.enterMethod(run);               // recorded; fills the budget with its close
+        second.enterMethod(run);              // no room left to open and close it
+        second.exitMethod(run);
+        first.exitOpenMethods();
+        second.exitOpenMethods();
+
+        assertEquals(4, first.getEvents().size());
+        assertEquals(2, second.getEvents().size());
+        assertEquals(ProfilerEventType.CLOSE, second.getEvents().getType(1));
+    }
+
+    @Test
+    public void testEventBufferSpansChunks() {
+        final ProfilerEventBuffer events = new ProfilerEventBuffer();
+        final int count = 10000;
+        for (int i = 0; i < count; i++) {
+            events.add(i % 2 == 0 ? ProfilerEventType.OPEN : ProfilerEventType.CLOSE,
+                    Integer.MAX_VALUE - i, i * 7919);
+        }
+
+        assertEquals(count, events.size());
+        for (int i = 0; i < count; i++) {
+            assertEvent(events, i, i % 2 == 0 ? ProfilerEventType.OPEN : ProfilerEventType.CLOSE,
+                    Integer.MAX_VALUE - i, i * 7919);
+        }
+    }
+
+    private static void assertEvent(ProfilerEventBuffer events, int index,
+                                    ProfilerEventType type, int at, int frameId) {
+        assertEquals(type, events.getType(index));
+        assertEquals(at, events.getAt(index));
+        assertEquals(frameId, events.getFrameId(index));
+    }
+
+    @Test
+    public void testSamplingAggregatesStacksPerType() {
+        final FrameTable table = new FrameTable();
+        final int run = table.getFrameId("bot.RobotPlayer.run");
+        final int move = table.getFrameId("bot.RobotPlayer.move");
+        final int unused = table.getFrameId("bot.RobotPlayer.unused");
+
+        final ProfilerCollection collection = new ProfilerCollection(table, Integer.MAX_VALUE, 10);
+        final Profiler first = collection.createProfiler(1, RobotType.LAUNCHER);
+        final Profiler second = collection.createProfiler(2, RobotType.LAUNCHER);
+        final Profiler other = collection.createProfiler(3, RobotType.CARRIER);
+        assertTrue(first instanceof SamplingProfiler);
+        assertTrue(collection.getProfilers().isEmpty());
+
+        first.enterMethod(run);
+        first.incrementBytecodes(25);          // 2 samples in run
+        first.enterMethod(move);
+        second.enterMethod(run);
+        second.incrementBytecodes(10);         // 1 sample in run
+        first.incrementBytecodes(5);           // 1 sample in run;move
+        first.enterMethod(unused);
+        first.exitMethod(unused);              // entered but never sampled
+        first.exitOpenMethods();
+        second.enterMethod(move);
+        second.incrementBytecodes(4);          // not yet a sample
+        second.exitMethod(move);
+        second.exitMethod(run);
+        other.enterMethod(run);
+        other.incrementBytecodes(9);           // not yet a sample
+
+        // One tree per robot type, in RobotType order
+        final List<CallTree> trees = new ArrayList<>(collection.getCallTrees());
+        assertEquals(2, trees.size());
+        assertEquals("CARRIER (sampled every 10 bytecodes)", trees.get(0).getName());
+        assertEquals(0, trees.get(0).toEvents().size());
+        assertEquals("LAUNCHER (sampled every 10 bytecodes)", trees.get(1).getName());
+
+        final ProfilerEventBuffer events = trees.get(1).toEvents();
+        assertEquals(4, events.size());
+        assertEvent(events, 0, ProfilerEventType.OPEN, 0, 0);
+        assertEvent(events, 1, ProfilerEventType.OPEN, 0, 1);
+        assertEvent(events, 2, ProfilerEventType.CLOSE, 1, 1);
+        assertEvent(events, 3, ProfilerEventType.CLOSE, 4, 0);
+    }
+
+    @Test
+    public void testSamplingTreeLimit() {
+        final FrameTable table = new FrameTable();
+        final int run = table.getFrameId("bot.RobotPlayer.run");
+        final int move = table.getFrameId("bot.RobotPlayer.move");
+
+        // Room for the root and one stack
+        final ProfilerCollection collection = new ProfilerCollection(table, 4, 1);
+        final Profiler profiler = collection.createProfiler(1, RobotType.LAUNCHER);
+
+        profiler.enterMethod(run);
+        profiler.enterMethod(move);
+        profiler.enterMethod(move);
+        profiler.incrementBytecodes(3);        // charged to run
+        profiler.exitMethod(move);
+        profiler.exitMethod(move);
+        profiler.incrementBytecodes(2);
+        profiler.exitMethod(run);
+        profiler.incrementBytecodes(7);        // outside of any method
+
+        final ProfilerEventBuffer events = collection.getCallTrees().iterator().next().toEvents();
+        assertEquals(2, events.size());
+        assertEvent(events, 0, ProfilerEventType.OPEN, 0, 0);
+        assertEvent(events, 1, ProfilerEventType.CLOSE, 5, 0);
+    }
+}
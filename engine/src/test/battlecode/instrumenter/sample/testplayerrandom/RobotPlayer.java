@@ -0,0 +1,16 @@
+package testplayerrandom;
+
+import battlecode.common.Clock;
+import battlecode.common.RobotController;
+
+import java.util.Random;
+
+public class RobotPlayer {
+    public static void run(RobotController rc) {
+        final Random random = new Random(6147);
+        while (true) {
+            System.out.println(random.nextInt(100));
+            Clock.yield();
+        }
+    }
+}
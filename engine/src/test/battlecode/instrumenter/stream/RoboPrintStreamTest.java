@@ -0,0 +1,154 @@
+package battlecode.instrumenter.stream;
+
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.Field;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class RoboPrintStreamTest {
+    private static final String TRUNCATED = "[output truncated due to team output limit]\n";
+
+    private final String sep = System.lineSeparator();
+
+    private PrintStream systemOut;
+    private ByteArrayOutputStream console;
+
+    @Before
+    public void captureSystemOut() throws Exception {
+        // The team limits are shared by every stream, and set by the first
+        LimitedPrintStream.resetLimits();
+        systemOut = System.out;
+        console = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(console, true, "UTF-8"));
+    }
+
+    @After
+    public void restoreSystemOut() {
+        System.setOut(systemOut);
+        LimitedPrintStream.resetLimits();
+    }
+
+    @Test
+    public void testEncodesLikePrintStream() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final RoboPrintStream stream = new RoboPrintStream(out, false, -1);
+        stream.updateHeader(Team.A, RobotType.CARRIER, 3, 1);
+
+        stream.print(0);
+        stream.print(-42);
+        stream.print(Long.MIN_VALUE);
+        stream.print(' ');
+        stream.print(true);
+        stream.print(1.5);
+        stream.print((Object) null);
+        stream.println("hé ☃ 😀 \ud83d");
+        stream.printf("%d%s", 7, "x");
+        stream.append("abcd", 1, 3);
+        stream.print(new char[] {'o', 'k'});
+
+        // Nothing is handed on until the stream is flushed
+        assertEquals(0, out.size());
+        stream.flush();
+        assertEquals("0-42-9223372036854775808 true1.5nullhé ☃ 😀 ?"
+                        + System.lineSeparator() + "7xbcok",
+                new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        // Starting the next turn hands on the last one's output
+        stream.print("more");
+        stream.updateHeader(Team.A, RobotType.CARRIER, 3, 2);
+        assertTrue(new String(out.toByteArray(), StandardCharsets.UTF_8).endsWith("more"));
+    }
+
+    @Test
+    public void testHeadersAtLineStarts() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final RoboPrintStream stream = new RoboPrintStream(out, true, -1);
+        stream.updateHeader(Team.A, RobotType.CARRIER, 3, 1);
+
+        // A line split across prints and flushes gets one header
+        stream.print("a");
+        stream.print("b\nc");
+        stream.flush();
+        stream.print("d\n");
+        stream.println("e");
+        stream.flush();
+        assertEquals("[A:CARRIER#3@1] ab\n[A:CARRIER#3@1] cd\n[A:CARRIER#3@1] e" + sep,
+                console.toString("UTF-8"));
+
+        // A new turn starts a new line's header, even partway through one
+        console.reset();
+        stream.print("f");
+        stream.updateHeader(Team.A, RobotType.CARRIER, 3, 2);
+        stream.println("g");
+        stream.flush();
+        assertEquals("[A:CARRIER#3@1] f[A:CARRIER#3@2] g" + sep, console.toString("UTF-8"));
+
+        // The robot output stream never gets headers
+        assertEquals("ab\ncd\ne" + sep + "fg" + sep, out.toString("UTF-8"));
+    }
+
+    @Test
+    public void testDiscardsOnceTeamLimitIsUsedUp() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final RoboPrintStream a = new RoboPrintStream(out, false, 4);
+        final RoboPrintStream b = new RoboPrintStream(out, false, 4);
+        a.updateHeader(Team.A, RobotType.CARRIER, 3, 1);
+        b.updateHeader(Team.B, RobotType.CARRIER, 4, 1);
+
+        // Filling the limit exactly isn't enough to stop printing...
+        a.print("abcd");
+        a.flush();
+        assertEquals("abcd", out.toString("UTF-8"));
+        a.print("e");
+        a.flush();
+        assertEquals("abcd" + TRUNCATED, out.toString("UTF-8"));
+
+        // ...but once the team's been told, nothing more is even kept to
+        // hand on
+        a.print("fgh");
+        a.println(42);
+        a.write('!');
+        assertEquals(0, pendingBytes(a));
+        a.flush();
+        assertEquals("abcd" + TRUNCATED, out.toString("UTF-8"));
+
+        // The other team has its own limit
+        b.print("xy");
+        b.flush();
+        assertEquals("abcd" + TRUNCATED + "xy", out.toString("UTF-8"));
+        assertEquals("", console.toString("UTF-8"));
+    }
+
+    @Test
+    public void testStillPrintsToSystemOutOnceTeamLimitIsUsedUp() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final RoboPrintStream stream = new RoboPrintStream(out, true, 2);
+        stream.updateHeader(Team.A, RobotType.CARRIER, 3, 1);
+
+        stream.println("abc");
+        stream.flush();
+        stream.println("def");
+        stream.flush();
+
+        assertEquals("ab" + TRUNCATED, out.toString("UTF-8"));
+        assertEquals("[A:CARRIER#3@1] abc" + sep + "[A:CARRIER#3@1] def" + sep,
+                console.toString("UTF-8"));
+    }
+
+    /**
+     * @return how many bytes the stream has waiting to hand on
+     */
+    private static int pendingBytes(RoboPrintStream stream) throws Exception {
+        final Field contentLength = RoboPrintStream.class.getDeclaredField("contentLength");
+        contentLength.setAccessible(true);
+        return contentLength.getInt(stream);
+    }
+}
@@ -0,0 +1,190 @@
+package battlecode.replay;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.schema.Action;
+import battlecode.schema.BodyType;
+import battlecode.schema.Round;
+import battlecode.schema.RoundFormat;
+import battlecode.server.GameInfo;
+import battlecode.server.GameMaker;
+import battlecode.world.TestMapBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+
+import static org.junit.Assert.*;
+
+public class ReplayTest {
+    private final GameInfo info = new GameInfo(
+                    "bananas", "org.bananas", null,
+                    "yellow","org.yellow", null,
+                    new String[] {"honolulu"}, null, false
+    );
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File writeGame(String name, int keyframeInterval) throws Exception {
+        return writeGame(name, keyframeInterval, false);
+    }
+
+    private File writeGame(String name, int keyframeInterval, boolean compactRounds) throws Exception {
+        final GameMaker gm = new GameMaker(info, new GameMaker.Options()
+                .setKeyframeInterval(keyframeInterval)
+                .setCompactRounds(compactRounds));
+        gm.makeGameHeader();
+        final GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                .build());
+        for (int round = 1; round <= 4; round++) {
+            mm.addAction(1, Action.CHANGE_HEALTH, -10);
+            mm.addAction(0, Action.CHANGE_MANA, round);
+            if (round == 3) {
+                mm.addDied(1);
+            } else {
+                mm.addMoved(1, new MapLocation(19, 19));
+            }
+            mm.addMoved(0, new MapLocation(round, round));
+            mm.addBytecodes(0, 1000 + round);
+            mm.addIndicatorString(0, round == 3 ? "returning" : "mining");
+            if (round <= 2) {
+                mm.addIndicatorDot(0, new MapLocation(5, 5), 255, 0, 0);
+            }
+            mm.addTeamInfo(Team.A, 0, round, 0);
+            mm.addTeamInfo(Team.B, 0, 0, 0);
+            if (mm.isKeyframeRound(round)) {
+                mm.addKeyframeTeam(Team.A, 0, round * (round + 1) / 2, 0);
+                mm.addKeyframeTeam(Team.B, 0, 0, 0);
+            }
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.A, 4, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        final File file = new File(folder.getRoot(), name);
+        gm.writeGame(file);
+        return file;
+    }
+
+    @Test
+    public void testFoldRounds() throws Exception {
+        final Replay replay = Replay.open(writeGame("game.bc23", 0));
+
+        assertEquals(1, replay.getMatchCount());
+        assertEquals(4, replay.getRoundCount(0));
+        assertEquals(3, replay.getRound(0, 3).roundID());
+
+        ReplayState state = replay.getState(0, 0);
+        assertEquals(2, state.getRobotCount());
+        assertEquals(BodyType.HEADQUARTERS, state.getRobot(1).getType());
+        assertEquals(Team.B, state.getRobot(1).getTeam());
+
+        state = replay.getState(0, 2);
+        assertEquals(2, state.getRound());
+        assertEquals(RobotType.HEADQUARTERS.health - 20, state.getRobot(1).getHealth());
+        assertEquals(new MapLocation(2, 2), state.getRobot(0).getLocation());
+        assertEquals(3, state.getRobot(0).getMana());
+        assertEquals(3, state.getMana(Team.A));
+
+        state = replay.getState(0, 4);
+        assertNull(state.getRobot(1));
+        assertEquals(1, state.getRobotCount());
+        assertEquals(10, state.getRobot(0).getMana());
+        assertEquals(10, state.getMana(Team.A));
+    }
+
+    @Test
+    public void testSeekFromKeyframe() throws Exception {
+        final Replay replay = Replay.open(writeGame("game.bc23", 2));
+
+        assertEquals(2, replay.getWrapper().keyframesLength());
+        // The keyframe at round 2 has no robots, so seeking past it drops
+        // them; the team totals carry on from it
+        final ReplayState state = replay.getState(0, 3);
+        assertEquals(3, state.getRound());
+        assertEquals(0, state.getRobotCount());
+        assertEquals(6, state.getMana(Team.A));
+    }
+
+    @Test
+    public void testCompactRounds() throws Exception {
+        final Replay compact = Replay.open(writeGame("compact.bc23", 0, true));
+        assertEquals(RoundFormat.COMPACT, compact.getGameHeader().roundFormat());
+
+        // Only robot 0 moves after the first round: an ID delta of 0 and
+        // tile 2 + 2 * 20, a byte each
+        Round round = compact.getRound(0, 2);
+        assertEquals(0, round.movedIDsLength());
+        assertEquals(2, round.movedPackedLength());
+        assertEquals(0, round.bytecodeIDsLength());
+        assertEquals(3, round.bytecodesPackedLength());
+
+        // Robot 0's string and dot are the same as in the first round
+        assertEquals(0, round.indicatorStringIDsLength());
+        assertEquals(0, round.indicatorChangedIDsLength());
+        assertEquals(0, round.indicatorDotIDsLength());
+
+        // It has a new string and no dot, then goes back to its first string
+        round = compact.getRound(0, 3);
+        assertEquals(1, round.indicatorStringIndices(0));
+        assertEquals("returning", round.indicatorStrings(0));
+        assertEquals(0, round.indicatorChangedIDs(0));
+        assertEquals(0, round.indicatorDotIDsLength());
+        round = compact.getRound(0, 4);
+        assertEquals(0, round.indicatorStringIndices(0));
+        assertEquals(0, round.indicatorStringsLength());
+
+        final ReplayState state = compact.getState(0, 2);
+        assertEquals(new MapLocation(2, 2), state.getRobot(0).getLocation());
+        assertEquals(new MapLocation(19, 19), state.getRobot(1).getLocation());
+
+        final File legacyFile = new File(folder.getRoot(), "legacy.bc23");
+        try (OutputStream out = new FileOutputStream(legacyFile)) {
+            LegacyRoundConverter.convert(compact, out);
+        }
+        final Replay legacy = Replay.open(legacyFile);
+        assertEquals(RoundFormat.LEGACY, legacy.getGameHeader().roundFormat());
+        assertEquals(4, legacy.getRoundCount(0));
+
+        round = legacy.getRound(0, 2);
+        assertEquals(0, round.movedPackedLength());
+        assertEquals(2, round.movedIDsLength());
+        assertEquals(1, round.movedIDs(1));
+        assertEquals(19, round.movedLocs().xs(1));
+        assertEquals(1, round.bytecodeIDsLength());
+        assertEquals(1002, round.bytecodesUsed(0));
+        assertEquals("mining", round.indicatorStrings(0));
+        assertEquals(1, round.indicatorDotIDsLength());
+        assertEquals(5, round.indicatorDotLocs().xs(0));
+
+        round = legacy.getRound(0, 4);
+        assertEquals(1, round.movedIDsLength());
+        assertEquals(4, round.movedLocs().ys(0));
+        assertEquals("mining", round.indicatorStrings(0));
+        assertEquals(0, round.indicatorDotIDsLength());
+        assertEquals(10, legacy.getState(0, 4).getMana(Team.A));
+    }
+
+    @Test
+    public void testAnalyze() throws Exception {
+        writeGame("a.bc23", 0);
+        writeGame("b.bc23", 2);
+
+        final ReplayStats stats = ReplayAnalyzer.analyze(ReplayAnalyzer.findReplays(folder.getRoot()), 2);
+        assertEquals(2, stats.getGames());
+        assertEquals(2, stats.getMatches());
+        assertEquals(8, stats.getRounds());
+        assertEquals(Integer.valueOf(2), stats.getWins().get("bananas"));
+        assertEquals(2, stats.getDied(BodyType.HEADQUARTERS));
+        assertEquals(8, stats.getActions(Action.CHANGE_HEALTH));
+    }
+}
@@ -4,21 +4,30 @@ import battlecode.common.GameConstants;
 import battlecode.common.MapLocation;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
+import battlecode.instrumenter.stream.LimitedPrintStream;
+import battlecode.instrumenter.stream.RoboPrintStream;
 import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
 import battlecode.schema.GameHeader;
 import battlecode.schema.GameWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
 import battlecode.util.TeamMapping;
 import battlecode.world.TestMapBuilder;
+import gnu.trove.list.array.TIntArrayList;
 
 import java.util.ArrayList;
 import org.apache.commons.io.IOUtils;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.StringWriter;
+import java.lang.reflect.Field;
 import java.nio.ByteBuffer;
 import java.util.zip.GZIPInputStream;
 
@@ -44,6 +53,314 @@ public class GameMakerTest {
         gm.makeGameFooter(Team.A);
     }
 
+    @Test
+    public void testPipelinedRoundsMatchSynchronous() {
+        assertArrayEquals(makeGame(0), makeGame(2));
+    }
+
+    @Test
+    public void testKeyframes() throws IOException {
+        GameMaker gm = new GameMaker(info, new GameMaker.Options()
+                .setRoundPipelineDepth(2)
+                .setKeyframeInterval(3));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                .build());
+        for (int round = 1; round <= 7; round++) {
+            if (mm.isKeyframeRound(round)) {
+                mm.addKeyframeTeam(Team.A, round, 2 * round, 3 * round);
+                mm.addKeyframeTeam(Team.B, 0, 0, 0);
+            }
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.A, 7, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper game = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+
+        // Round r is event matchHeaders(0) + r
+        assertEquals(2, game.keyframesLength());
+        assertEquals(game.matchHeaders(0) + 3, game.keyframes(0));
+        assertEquals(game.matchHeaders(0) + 6, game.keyframes(1));
+
+        Round round = (Round) game.events(game.keyframes(1)).e(new Round());
+        assertEquals(6, round.roundID());
+        Keyframe keyframe = round.keyframe();
+        assertEquals(0, keyframe.robotIDsLength());
+        assertEquals(2, keyframe.teamIDsLength());
+        assertEquals(TeamMapping.id(Team.A), keyframe.teamIDs(0));
+        assertEquals(6, keyframe.teamAdamantium(0));
+        assertEquals(12, keyframe.teamMana(0));
+        assertEquals(18, keyframe.teamElixir(0));
+
+        assertNull(((Round) game.events(game.matchHeaders(0) + 5).e(new Round())).keyframe());
+    }
+
+    @Test
+    public void testEncodeStats() throws IOException {
+        ReplayEncodeStats stats = new ReplayEncodeStats();
+        makeGame(2, stats);
+
+        assertEquals(2, stats.getMatches().size());
+        ReplayEncodeStats.Counts match = stats.getMatches().get(0);
+        assertEquals("honolulu", match.getMap());
+        assertEquals(50, match.getEventCount(Event.Round));
+        assertEquals(1, match.getEventCount(Event.MatchFooter));
+        assertEquals(0, match.getEventCount(Event.GameHeader));
+
+        // The groups make up the whole of every round
+        long groupBytes = 0;
+        for (ReplayEncodeStats.RoundGroup group : ReplayEncodeStats.RoundGroup.values()) {
+            groupBytes += match.getBytes(group);
+        }
+        assertEquals(match.getEventBytes(Event.Round), groupBytes);
+        assertTrue(match.getBytes(ReplayEncodeStats.RoundGroup.INDICATOR_STRINGS) > 0);
+        assertEquals(0, match.getBytes(ReplayEncodeStats.RoundGroup.KEYFRAME));
+
+        ReplayEncodeStats.Counts game = stats.getGame();
+        assertEquals(1, game.getEventCount(Event.GameHeader));
+        assertEquals(100, game.getEventCount(Event.Round));
+
+        StringWriter json = new StringWriter();
+        stats.writeJson(json);
+        assertTrue(json.toString().startsWith("{\"matches\":[{\"map\":\"honolulu\",\"events\":{"));
+    }
+
+    @Test
+    public void testRobotLogs() throws IOException {
+        GameMaker gm = new GameMaker(info, new GameMaker.Options().setRobotLogBytes(8));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                .build());
+        mm.getOut().write("hi\n".getBytes());
+        mm.addLogs(1);
+        mm.addLogs(0);
+        mm.getOut().write("0123456789".getBytes());
+        mm.getOut().write('\n');
+        mm.addLogs(0);
+        mm.makeRound(1);
+        mm.makeRound(2);
+        mm.makeMatchFooter(Team.A, 2, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper game = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+        Round round = (Round) game.events(game.matchHeaders(0) + 1).e(new Round());
+        assertEquals(2, round.logIDsLength());
+        assertEquals(1, round.logIDs(0));
+        assertEquals(0, round.logIDs(1));
+        assertEquals(3, round.logLengths(0));
+        assertEquals(0, round.logDroppedBytes(0));
+        // Only the last 8 bytes of robot 0's are kept
+        assertEquals(8, round.logLengths(1));
+        assertEquals(3, round.logDroppedBytes(1));
+        byte[] bytes = new byte[round.logBytesLength()];
+        round.logBytesAsByteBuffer().get(bytes);
+        assertEquals("hi\n3456789\n", new String(bytes, "UTF-8"));
+
+        round = (Round) game.events(game.matchHeaders(0) + 2).e(new Round());
+        assertEquals(0, round.logIDsLength());
+        assertNull(round.logBytesAsByteBuffer());
+    }
+
+    @Test
+    public void testRobotLogsPerTeamLimit() throws IOException {
+        GameMaker gm = new GameMaker(info, new GameMaker.Options().setRobotLogBytes(64));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                .build());
+
+        LimitedPrintStream.resetLimits();
+        try {
+            RoboPrintStream a = new RoboPrintStream(mm.getOut(), false, 4);
+            RoboPrintStream b = new RoboPrintStream(mm.getOut(), false, 4);
+            for (int round = 1; round <= 2; round++) {
+                a.updateHeader(Team.A, RobotType.HEADQUARTERS, 0, round);
+                a.println("chatty" + round);
+                a.flush();
+                mm.addLogs(0);
+                b.updateHeader(Team.B, RobotType.HEADQUARTERS, 1, round);
+                b.println(round);
+                b.flush();
+                mm.addLogs(1);
+                mm.makeRound(round);
+            }
+        } finally {
+            LimitedPrintStream.resetLimits();
+        }
+        mm.makeMatchFooter(Team.A, 2, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper game = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+        Round round = (Round) game.events(game.matchHeaders(0) + 1).e(new Round());
+        assertEquals(2, round.logIDsLength());
+        byte[] bytes = new byte[round.logBytesLength()];
+        round.logBytesAsByteBuffer().get(bytes);
+        String sep = System.lineSeparator();
+        // Team A's 4 bytes run out partway through, and it's told so
+        assertEquals("chat[output truncated due to team output limit]\n" + "1" + sep,
+                new String(bytes, "UTF-8"));
+
+        // Team A has nothing left, but team B still has room
+        round = (Round) game.events(game.matchHeaders(0) + 2).e(new Round());
+        assertEquals(1, round.logIDsLength());
+        assertEquals(1, round.logIDs(0));
+        bytes = new byte[round.logBytesLength()];
+        round.logBytesAsByteBuffer().get(bytes);
+        assertEquals("2" + sep, new String(bytes, "UTF-8"));
+    }
+
+    @Test
+    public void testRoundListsKeepTheirArrays() throws Exception {
+        GameMaker gm = new GameMaker(info, null, true);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                .build());
+
+        int[] before = null;
+        for (int round = 1; round <= 3; round++) {
+            for (int id = 0; id < 100; id++) {
+                mm.addMoved(id, new MapLocation(id % 20, round));
+            }
+            mm.makeRound(round);
+            int[] data = movedIDsArray(mm);
+            assertTrue(data.length >= 100);
+            if (before != null) {
+                // Reused, not grown again from scratch
+                assertSame(before, data);
+            }
+            before = data;
+        }
+    }
+
+    /**
+     * @return the array behind the moved IDs of the round mm is collecting
+     */
+    private static int[] movedIDsArray(GameMaker.MatchMaker mm) throws Exception {
+        Field roundField = GameMaker.MatchMaker.class.getDeclaredField("round");
+        roundField.setAccessible(true);
+        Object round = roundField.get(mm);
+        Field movedIDsField = round.getClass().getDeclaredField("movedIDs");
+        movedIDsField.setAccessible(true);
+        Object movedIDs = movedIDsField.get(round);
+        Field dataField = TIntArrayList.class.getDeclaredField("_data");
+        dataField.setAccessible(true);
+        return (int[]) dataField.get(movedIDs);
+    }
+
+    @Test
+    public void testWithoutReplay() {
+        GameMaker gm = GameMaker.withoutReplay(info);
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        assertFalse(mm.isRecording());
+
+        gm.makeGameHeader();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                .build());
+        mm.addMoved(0, new MapLocation(1, 1));
+        mm.addIndicatorString(0, "ignored");
+        mm.makeRound(1);
+        mm.makeMatchFooter(Team.A, 1, new ArrayList<>());
+        gm.makeGameFooter(Team.A);
+
+        try {
+            gm.toBytes();
+            fail("There should be no replay");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test(expected=RuntimeException.class)
+    public void testWithoutReplayStateExceptions() {
+        GameMaker gm = GameMaker.withoutReplay(info);
+        gm.makeGameHeader();
+
+        gm.getMatchMaker().makeRound(1);
+    }
+
+    @Test(expected=IllegalArgumentException.class)
+    public void testNoCompactRoundsForPacketSink() {
+        new GameMaker(info, new GameMaker.Options()
+                .setPacketSink(Mockito.mock(NetServer.class))
+                .setCompactRounds(true));
+    }
+
+    @Test
+    public void testPacketsHaveWholeIndicators() {
+        NetServer server = Mockito.mock(NetServer.class);
+        GameMaker gm = new GameMaker(info, new GameMaker.Options().setPacketSink(server));
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                .build());
+        for (int round = 1; round <= 2; round++) {
+            mm.addIndicatorString(0, "same");
+            mm.addIndicatorDot(0, new MapLocation(1, 2), 255, 0, 0);
+            mm.makeRound(round);
+        }
+
+        ArgumentCaptor<byte[]> packets = ArgumentCaptor.forClass(byte[].class);
+        verify(server, times(4)).addEvent(packets.capture());
+
+        // The live client clears indicators every round, so the unchanged
+        // ones are sent again rather than left out
+        for (byte[] packet : packets.getAllValues().subList(2, 4)) {
+            EventWrapper event = EventWrapper.getRootAsEventWrapper(ByteBuffer.wrap(packet));
+            assertEquals(Event.Round, event.eType());
+            Round round = (Round) event.e(new Round());
+            assertEquals(1, round.indicatorStringIDsLength());
+            assertEquals("same", round.indicatorStrings(0));
+            assertEquals(0, round.indicatorStringIndicesLength());
+            assertEquals(1, round.indicatorDotIDsLength());
+            assertEquals(0, round.indicatorChangedIDsLength());
+        }
+    }
+
+    private byte[] makeGame(int roundPipelineDepth) {
+        return makeGame(roundPipelineDepth, null);
+    }
+
+    private byte[] makeGame(int roundPipelineDepth, ReplayEncodeStats stats) {
+        GameMaker gm = new GameMaker(info, new GameMaker.Options()
+                .setRoundPipelineDepth(roundPipelineDepth)
+                .setEncodeStats(stats));
+        gm.makeGameHeader();
+        for (int match = 0; match < 2; match++) {
+            GameMaker.MatchMaker mm = gm.getMatchMaker();
+            mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                    .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                    .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                    .build());
+            for (int round = 1; round <= 50; round++) {
+                for (int id = 0; id < round; id++) {
+                    mm.addMoved(id, new MapLocation(id % 20, round % 20));
+                    mm.addIndicatorString(id, "round " + round);
+                    mm.addBytecodes(id, round * id);
+                }
+                mm.addDied(round);
+                mm.makeRound(round);
+            }
+            mm.makeMatchFooter(Team.A, 50, new ArrayList<>());
+        }
+        gm.makeGameFooter(Team.A);
+        return gm.toBytes();
+    }
+
     // @Test(expected=RuntimeException.class)
     // public void testMatchStateExceptions() {
     //     GameMaker gm = new GameMaker(info, null, true);
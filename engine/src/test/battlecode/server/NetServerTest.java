@@ -0,0 +1,252 @@
+package battlecode.server;
+
+import org.java_websocket.client.WebSocketClient;
+import org.java_websocket.handshake.ServerHandshake;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class NetServerTest {
+
+    @Test
+    public void testBatchedClientGetsBacklogInFrames() throws Exception {
+        final int port = freePort();
+        final NetServer server = new NetServer(port, false);
+        server.start();
+        for (int i = 0; i < 200; i++) {
+            server.addEvent(event(i, 100));
+        }
+
+        final Client client = connect(server, port, true, 201, null);
+        server.addEvent(event(200, 100));
+        assertTrue(client.received.await(10, TimeUnit.SECONDS));
+        server.finish();
+
+        assertEquals(201, client.events.size());
+        for (int i = 0; i < 201; i++) {
+            assertEquals(i, client.events.get(i).intValue());
+        }
+        // Everything that was waiting goes out together
+        assertTrue(client.frames < 201);
+    }
+
+    @Test
+    public void testSlowClientHoldsBackEvents() throws Exception {
+        final int port = freePort();
+        final NetServer server = new NetServer(port, false, 4, 256 * 1024, 60000, 60000);
+        server.start();
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final Client client = connect(server, port, false, 128, release);
+        final Thread adder = addEvents(server, 0, 128, 256 * 1024);
+
+        // 32MB is more than the client's lag, the queue and the socket
+        // buffers can hold, so the game has to wait for the client
+        final boolean heldBack;
+        try {
+            adder.join(1000);
+            heldBack = adder.isAlive();
+        } finally {
+            release.countDown();
+            adder.join(30000);
+            server.finish();
+        }
+        assertTrue(heldBack);
+        assertFalse(adder.isAlive());
+
+        assertTrue(client.received.await(10, TimeUnit.SECONDS));
+        assertEquals(128, client.events.size());
+        for (int i = 0; i < 128; i++) {
+            assertEquals(i, client.events.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testSlowClientDoesntStallOthers() throws Exception {
+        final int port = freePort();
+        final NetServer server = new NetServer(port, false, 4, 256 * 1024, 200, 60000);
+        server.start();
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final Client slow = connect(server, port, false, 128, release);
+        final Client fast = connect(server, port, false, 128, null);
+        final Thread adder = addEvents(server, 0, 128, 256 * 1024);
+
+        // The game only waits a while for the slow client, so the fast one
+        // gets everything while the slow one is still holding its first
+        final boolean fastReceived;
+        try {
+            fastReceived = fast.received.await(20, TimeUnit.SECONDS);
+            adder.join(20000);
+        } finally {
+            release.countDown();
+        }
+        assertTrue(fastReceived);
+        assertFalse(adder.isAlive());
+
+        // The slow one catches up once it takes them
+        final boolean slowReceived = slow.received.await(20, TimeUnit.SECONDS);
+        server.finish();
+        assertTrue(slowReceived);
+        for (Client client : new Client[]{fast, slow}) {
+            assertEquals(128, client.events.size());
+            for (int i = 0; i < 128; i++) {
+                assertEquals(i, client.events.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testLateClientDoesntHoldBackEvents() throws Exception {
+        final int port = freePort();
+        final NetServer server = new NetServer(port, false, 4, 256 * 1024, 60000, 60000);
+        server.start();
+        for (int i = 0; i < 128; i++) {
+            server.addEvent(event(i, 256 * 1024));
+        }
+
+        // Far behind from the start, but it isn't waited for until it's
+        // caught up
+        final CountDownLatch release = new CountDownLatch(1);
+        final Client client = connect(server, port, false, 192, release);
+        final Thread adder = addEvents(server, 128, 64, 256 * 1024);
+        try {
+            adder.join(20000);
+        } finally {
+            release.countDown();
+        }
+        assertFalse(adder.isAlive());
+
+        final boolean received = client.received.await(20, TimeUnit.SECONDS);
+        server.finish();
+        assertTrue(received);
+        assertEquals(192, client.events.size());
+        for (int i = 0; i < 192; i++) {
+            assertEquals(i, client.events.get(i).intValue());
+        }
+    }
+
+    @Test
+    public void testStalledClientIsClosed() throws Exception {
+        final int port = freePort();
+        final NetServer server = new NetServer(port, false, 4, 256 * 1024, 60000, 200);
+        server.start();
+
+        final CountDownLatch release = new CountDownLatch(1);
+        connect(server, port, false, 128, release);
+        final Thread adder = addEvents(server, 0, 128, 256 * 1024);
+
+        // The client never takes anything, so it's given up on
+        try {
+            adder.join(30000);
+            assertFalse(adder.isAlive());
+        } finally {
+            release.countDown();
+            server.finish();
+        }
+    }
+
+    /**
+     * A client that records the index at the start of each event until it
+     * has all it expects, and optionally holds on to the first event it gets
+     * until released.
+     */
+    private static class Client extends WebSocketClient {
+        private final boolean batched;
+        private final CountDownLatch release;
+        private final List<Integer> events = new ArrayList<>();
+        private final CountDownLatch received;
+        private int frames = 0;
+
+        Client(int port, boolean batched, int expected, CountDownLatch release) throws Exception {
+            super(new URI("ws://localhost:" + port + (batched ? "/?batched=1" : "/")));
+            this.batched = batched;
+            this.received = new CountDownLatch(expected);
+            this.release = release;
+        }
+
+        @Override
+        public void onOpen(ServerHandshake handshake) {}
+
+        @Override
+        public void onMessage(String message) {}
+
+        @Override
+        public void onMessage(ByteBuffer frame) {
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+            frames++;
+            if (batched) {
+                while (frame.hasRemaining()) {
+                    final int length = frame.getInt();
+                    events.add(frame.getInt(frame.position()));
+                    frame.position(frame.position() + length);
+                    received.countDown();
+                }
+            } else {
+                events.add(frame.getInt());
+                received.countDown();
+            }
+        }
+
+        @Override
+        public void onClose(int code, String reason, boolean remote) {}
+
+        @Override
+        public void onError(Exception e) {}
+    }
+
+    private static Client connect(NetServer server, int port, boolean batched, int expected,
+                                  CountDownLatch release) throws Exception {
+        final int before = server.connections().size();
+        // The server binds its port on another thread, so it may not be
+        // listening yet
+        for (int attempt = 0; attempt < 50; attempt++) {
+            final Client client = new Client(port, batched, expected, release);
+            if (client.connectBlocking()) {
+                // The handshake can finish before the server has the client
+                while (server.connections().size() == before) {
+                    Thread.sleep(10);
+                }
+                return client;
+            }
+            Thread.sleep(100);
+        }
+        throw new AssertionError("Couldn't connect to the server");
+    }
+
+    private static Thread addEvents(NetServer server, int first, int count, int length) {
+        final Thread adder = new Thread(() -> {
+            for (int i = first; i < first + count; i++) {
+                server.addEvent(event(i, length));
+            }
+        });
+        adder.setDaemon(true);
+        adder.start();
+        return adder;
+    }
+
+    private static byte[] event(int index, int length) {
+        return ByteBuffer.allocate(length).putInt(index).array();
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
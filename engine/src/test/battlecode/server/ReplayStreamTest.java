@@ -0,0 +1,118 @@
+package battlecode.server;
+
+import battlecode.common.MapLocation;
+import battlecode.common.Team;
+import battlecode.schema.Event;
+import battlecode.schema.GameHeader;
+import battlecode.schema.GameWrapper;
+import battlecode.schema.Round;
+import battlecode.world.TestMapBuilder;
+import org.apache.commons.io.IOUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ReplayStreamTest {
+    private final GameInfo info = new GameInfo(
+                    "bananas", "org.bananas", null,
+                    "yellow","org.yellow", null,
+                    new String[] {"honolulu"}, null, false
+    );
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testStreamAndConvert() throws Exception {
+        final File file = folder.newFile("game.bc23.stream");
+        final GameMaker gm = new GameMaker(info, new GameMaker.Options()
+                .setReplayStream(new ReplayStreamWriter(file)));
+
+        gm.makeGameHeader();
+        for (int match = 0; match < 2; match++) {
+            final GameMaker.MatchMaker mm = gm.getMatchMaker();
+            mm.makeMatchHeader(new TestMapBuilder("honolulu", 0, 0, 20, 20, 1337)
+                    .addHeadquarters(0, Team.A, new MapLocation(0, 0))
+                    .addHeadquarters(1, Team.B, new MapLocation(19, 19))
+                    .build());
+            mm.makeRound(1);
+            mm.makeRound(2);
+            mm.makeMatchFooter(Team.B, 2, new ArrayList<>());
+        }
+        gm.makeGameFooter(Team.B);
+        gm.writeGame(file);
+
+        final ByteArrayOutputStream converted = new ByteArrayOutputStream();
+        try (ReplayStreamReader reader = new ReplayStreamReader(new FileInputStream(file))) {
+            ReplayStreamReader.convert(reader, converted);
+        }
+
+        final byte[] gameBytes = IOUtils.toByteArray(
+                new GZIPInputStream(new ByteArrayInputStream(converted.toByteArray())));
+        final GameWrapper game = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(gameBytes));
+
+        assertEquals(10, game.eventsLength());
+        final byte[] expected = {
+                Event.GameHeader,
+                Event.MatchHeader, Event.Round, Event.Round, Event.MatchFooter,
+                Event.MatchHeader, Event.Round, Event.Round, Event.MatchFooter,
+                Event.GameFooter
+        };
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], game.events(i).eType());
+        }
+
+        assertEquals(2, game.matchHeadersLength());
+        assertEquals(1, game.matchHeaders(0));
+        assertEquals(5, game.matchHeaders(1));
+        assertEquals(2, game.matchFootersLength());
+        assertEquals(4, game.matchFooters(0));
+        assertEquals(8, game.matchFooters(1));
+
+        final GameHeader header = (GameHeader) game.events(0).e(new GameHeader());
+        assertEquals("bananas", header.teams(0).name());
+        assertEquals("org.yellow", header.teams(1).packageName());
+        assertEquals(2, ((Round) game.events(7).e(new Round())).roundID());
+    }
+
+    @Test
+    public void testTruncatedStream() throws Exception {
+        final File file = folder.newFile("cut.bc23.stream");
+        try (ReplayStreamWriter writer = new ReplayStreamWriter(file)) {
+            writer.writeEvent(new byte[] {1, 2, 3});
+        }
+
+        // Cut the stream off partway through a second event
+        final ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(raw)) {
+            final byte[] contents = IOUtils.toByteArray(new GZIPInputStream(new FileInputStream(file)));
+            out.write(contents);
+            out.write(new byte[] {0, 0, 0, 9, 1, 2});
+        }
+
+        try (ReplayStreamReader reader = new ReplayStreamReader(new ByteArrayInputStream(raw.toByteArray()))) {
+            assertArrayEquals(new byte[] {1, 2, 3}, reader.readEvent());
+            assertNull(reader.readEvent());
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testNoBytesWhenStreaming() throws Exception {
+        final GameMaker gm = new GameMaker(info, new GameMaker.Options()
+                .setReplayStream(new ReplayStreamWriter(folder.newFile("game.bc23.stream"))));
+        gm.makeGameHeader();
+        gm.makeGameFooter(Team.A);
+        gm.toBytes();
+    }
+}
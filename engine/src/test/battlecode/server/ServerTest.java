@@ -0,0 +1,133 @@
+package battlecode.server;
+
+import battlecode.util.ParallelGzip;
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class ServerTest {
+    private final GameInfo info = new GameInfo(
+                    "bananas", "org.bananas", null,
+                    "yellow","org.yellow", null,
+                    new String[] {"honolulu"}, null, false
+    );
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test(timeout = 10000)
+    public void testFinishesReplayWritesBeforeStopping() throws Exception {
+        final Server server = newServer(2);
+        final File first = folder.newFile("first.bc23");
+        final File second = folder.newFile("second.bc23");
+        first.delete();
+        second.delete();
+
+        server.writeReplay(writesAfter(500), first);
+        server.writeReplay(writesAfter(500), second);
+        server.terminateNotification();
+        server.run();
+
+        // Both were still being written when the server was told to stop
+        assertEquals("replay", FileUtils.readFileToString(first, StandardCharsets.UTF_8));
+        assertEquals("replay", FileUtils.readFileToString(second, StandardCharsets.UTF_8));
+        assertNotEquals(ServerState.ERROR, server.getState());
+    }
+
+    @Test(timeout = 10000)
+    public void testFailedReplayWriteIsAnError() throws Exception {
+        final Server server = newServer(2);
+
+        server.writeReplay(new GameMaker(info, null, true) {
+            @Override
+            public void writeGame(File saveFile, ParallelGzip compressor) {
+                throw new RuntimeException("Disk full");
+            }
+        }, folder.newFile("game.bc23"));
+        server.terminateNotification();
+        server.run();
+
+        assertEquals(ServerState.ERROR, server.getState());
+    }
+
+    @Test(timeout = 10000)
+    public void testPendingReplayWritesAreLimited() throws Exception {
+        final Server server = newServer(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch secondStarted = new CountDownLatch(1);
+
+        server.writeReplay(new GameMaker(info, null, true) {
+            @Override
+            public void writeGame(File saveFile, ParallelGzip compressor) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }, folder.newFile("first.bc23"));
+
+        // With one write already pending, the next waits for it
+        final Thread writer = new Thread(() -> {
+            try {
+                server.writeReplay(new GameMaker(info, null, true) {
+                    @Override
+                    public void writeGame(File saveFile, ParallelGzip compressor) {
+                        secondStarted.countDown();
+                    }
+                }, folder.newFile("second.bc23"));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        writer.setDaemon(true);
+        writer.start();
+        writer.join(300);
+        final boolean waited = writer.isAlive();
+        release.countDown();
+
+        assertTrue(waited);
+        assertTrue(secondStarted.await(5, TimeUnit.SECONDS));
+        writer.join();
+        server.terminateNotification();
+        server.run();
+        assertNotEquals(ServerState.ERROR, server.getState());
+    }
+
+    /**
+     * @return a GameMaker whose replay takes a while to write
+     */
+    private GameMaker writesAfter(long millis) {
+        return new GameMaker(info, null, true) {
+            @Override
+            public void writeGame(File saveFile, ParallelGzip compressor) {
+                try {
+                    Thread.sleep(millis);
+                    FileUtils.writeStringToFile(saveFile, "replay", StandardCharsets.UTF_8);
+                } catch (InterruptedException | IOException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        };
+    }
+
+    /**
+     * @return a server with no websocket, that writes replays in the
+     *         background with up to pendingReplayWrites waiting
+     */
+    private static Server newServer(int pendingReplayWrites) {
+        final Config options = new Config(new String[0]);
+        options.setBoolean("bc.server.websocket", false);
+        options.set("bc.server.pending-replay-writes", String.valueOf(pendingReplayWrites));
+        return new Server(options, false);
+    }
+}
@@ -0,0 +1,49 @@
+package battlecode.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelGzipTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        // Repetitive enough to compress, with matches across block boundaries
+        final byte[] data = new byte[1000003];
+        final Random random = new Random(6175);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i % 1000 < 500 ? i % 251 : random.nextInt(16));
+        }
+
+        final ParallelGzip gzip = new ParallelGzip(4, 4096);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        gzip.compress(data, 0, data.length, out);
+
+        assertTrue(out.size() < data.length / 2);
+        assertArrayEquals(data, gunzip(out.toByteArray()));
+
+        // Only part of an array
+        out.reset();
+        gzip.compress(data, 10, 10000, out);
+        final byte[] part = new byte[10000];
+        System.arraycopy(data, 10, part, 0, part.length);
+        assertArrayEquals(part, gunzip(out.toByteArray()));
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ParallelGzip(2, 16).compress(new byte[0], 0, 0, out);
+        assertEquals(0, gunzip(out.toByteArray()).length);
+    }
+
+    private static byte[] gunzip(byte[] in) throws Exception {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(in)));
+    }
+}
@@ -37,21 +37,28 @@ public final class GameHeader extends Table {
   public int bodyTypeMetadataLength() { int o = __offset(8); return o != 0 ? __vector_len(o) : 0; }
   public Constants constants() { return constants(new Constants()); }
   public Constants constants(Constants obj) { int o = __offset(10); return o != 0 ? obj.__assign(__indirect(o + bb_pos), bb) : null; }
+  /**
+   * How the rounds are laid out. Readers that only understand LEGACY
+   * rounds should convert COMPACT games first.
+   */
+  public byte roundFormat() { int o = __offset(12); return o != 0 ? bb.get(o + bb_pos) : 0; }
 
   public static int createGameHeader(FlatBufferBuilder builder,
       int specVersionOffset,
       int teamsOffset,
       int bodyTypeMetadataOffset,
-      int constantsOffset) {
-    builder.startObject(4);
+      int constantsOffset,
+      byte roundFormat) {
+    builder.startObject(5);
     GameHeader.addConstants(builder, constantsOffset);
     GameHeader.addBodyTypeMetadata(builder, bodyTypeMetadataOffset);
     GameHeader.addTeams(builder, teamsOffset);
     GameHeader.addSpecVersion(builder, specVersionOffset);
+    GameHeader.addRoundFormat(builder, roundFormat);
     return GameHeader.endGameHeader(builder);
   }
 
-  public static void startGameHeader(FlatBufferBuilder builder) { builder.startObject(4); }
+  public static void startGameHeader(FlatBufferBuilder builder) { builder.startObject(5); }
   public static void addSpecVersion(FlatBufferBuilder builder, int specVersionOffset) { builder.addOffset(0, specVersionOffset, 0); }
   public static void addTeams(FlatBufferBuilder builder, int teamsOffset) { builder.addOffset(1, teamsOffset, 0); }
   public static int createTeamsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
@@ -60,6 +67,7 @@ public final class GameHeader extends Table {
   public static int createBodyTypeMetadataVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startBodyTypeMetadataVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
   public static void addConstants(FlatBufferBuilder builder, int constantsOffset) { builder.addOffset(3, constantsOffset, 0); }
+  public static void addRoundFormat(FlatBufferBuilder builder, byte roundFormat) { builder.addByte(4, roundFormat, 0); }
   public static int endGameHeader(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
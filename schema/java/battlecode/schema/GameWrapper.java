@@ -42,19 +42,31 @@ public final class GameWrapper extends Table {
   public int matchFootersLength() { int o = __offset(8); return o != 0 ? __vector_len(o) : 0; }
   public ByteBuffer matchFootersAsByteBuffer() { return __vector_as_bytebuffer(8, 4); }
   public ByteBuffer matchFootersInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 8, 4); }
+  /**
+   * The indices of the rounds that have keyframes, in order. Rounds follow
+   * their match header without gaps, so round r of match m is the event
+   * at matchHeaders[m] + r; to show it, start from the last keyframe at or
+   * before it and apply the rounds after that.
+   */
+  public int keyframes(int j) { int o = __offset(10); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int keyframesLength() { int o = __offset(10); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer keyframesAsByteBuffer() { return __vector_as_bytebuffer(10, 4); }
+  public ByteBuffer keyframesInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 10, 4); }
 
   public static int createGameWrapper(FlatBufferBuilder builder,
       int eventsOffset,
       int matchHeadersOffset,
-      int matchFootersOffset) {
-    builder.startObject(3);
+      int matchFootersOffset,
+      int keyframesOffset) {
+    builder.startObject(4);
+    GameWrapper.addKeyframes(builder, keyframesOffset);
     GameWrapper.addMatchFooters(builder, matchFootersOffset);
     GameWrapper.addMatchHeaders(builder, matchHeadersOffset);
     GameWrapper.addEvents(builder, eventsOffset);
     return GameWrapper.endGameWrapper(builder);
   }
 
-  public static void startGameWrapper(FlatBufferBuilder builder) { builder.startObject(3); }
+  public static void startGameWrapper(FlatBufferBuilder builder) { builder.startObject(4); }
   public static void addEvents(FlatBufferBuilder builder, int eventsOffset) { builder.addOffset(0, eventsOffset, 0); }
   public static int createEventsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startEventsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
@@ -64,6 +76,9 @@ public final class GameWrapper extends Table {
   public static void addMatchFooters(FlatBufferBuilder builder, int matchFootersOffset) { builder.addOffset(2, matchFootersOffset, 0); }
   public static int createMatchFootersVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startMatchFootersVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addKeyframes(FlatBufferBuilder builder, int keyframesOffset) { builder.addOffset(3, keyframesOffset, 0); }
+  public static int createKeyframesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startKeyframesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
   public static int endGameWrapper(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
@@ -29,23 +29,34 @@ public final class ProfilerFile extends Table {
   public ProfilerProfile profiles(int j) { return profiles(new ProfilerProfile(), j); }
   public ProfilerProfile profiles(ProfilerProfile obj, int j) { int o = __offset(6); return o != 0 ? obj.__assign(__indirect(__vector(o) + j * 4), bb) : null; }
   public int profilesLength() { int o = __offset(6); return o != 0 ? __vector_len(o) : 0; }
+  /**
+   * If the profiles were streamed to a separate file instead of being
+   * stored here, the name of that file, which is next to the match file.
+   * frames and profiles are empty in that case.
+   */
+  public String sidecar() { int o = __offset(8); return o != 0 ? __string(o + bb_pos) : null; }
+  public ByteBuffer sidecarAsByteBuffer() { return __vector_as_bytebuffer(8, 1); }
+  public ByteBuffer sidecarInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 8, 1); }
 
   public static int createProfilerFile(FlatBufferBuilder builder,
       int framesOffset,
-      int profilesOffset) {
-    builder.startObject(2);
+      int profilesOffset,
+      int sidecarOffset) {
+    builder.startObject(3);
+    ProfilerFile.addSidecar(builder, sidecarOffset);
     ProfilerFile.addProfiles(builder, profilesOffset);
     ProfilerFile.addFrames(builder, framesOffset);
     return ProfilerFile.endProfilerFile(builder);
   }
 
-  public static void startProfilerFile(FlatBufferBuilder builder) { builder.startObject(2); }
+  public static void startProfilerFile(FlatBufferBuilder builder) { builder.startObject(3); }
   public static void addFrames(FlatBufferBuilder builder, int framesOffset) { builder.addOffset(0, framesOffset, 0); }
   public static int createFramesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startFramesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
   public static void addProfiles(FlatBufferBuilder builder, int profilesOffset) { builder.addOffset(1, profilesOffset, 0); }
   public static int createProfilesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startProfilesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addSidecar(FlatBufferBuilder builder, int sidecarOffset) { builder.addOffset(2, sidecarOffset, 0); }
   public static int endProfilerFile(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
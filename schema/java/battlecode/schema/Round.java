@@ -228,6 +228,85 @@ public final class Round extends Table {
   public int bytecodesUsedLength() { int o = __offset(66); return o != 0 ? __vector_len(o) : 0; }
   public ByteBuffer bytecodesUsedAsByteBuffer() { return __vector_as_bytebuffer(66, 4); }
   public ByteBuffer bytecodesUsedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 66, 4); }
+  /**
+   * If present, the full state at the end of this round, so it can be
+   * shown without applying the rounds before it.
+   */
+  public Keyframe keyframe() { return keyframe(new Keyframe()); }
+  public Keyframe keyframe(Keyframe obj) { int o = __offset(68); return o != 0 ? obj.__assign(__indirect(o + bb_pos), bb) : null; }
+  /**
+   * COMPACT rounds only: the bodies whose location changed this round,
+   * including the ones that spawned, in order of ID. Each is two unsigned
+   * LEB128 varints: its ID minus the previous body's ID (or minus 0, for
+   * the first), then its location as
+   * (x - minCorner.x) + (y - minCorner.y) * width.
+   */
+  public int movedPacked(int j) { int o = __offset(70); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int movedPackedLength() { int o = __offset(70); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer movedPackedAsByteBuffer() { return __vector_as_bytebuffer(70, 1); }
+  public ByteBuffer movedPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 70, 1); }
+  /**
+   * COMPACT rounds only: the bodies that ran this round, in order of ID.
+   * Each is two unsigned LEB128 varints: its ID minus the previous body's
+   * ID (or minus 0, for the first), then the bytecodes it used.
+   */
+  public int bytecodesPacked(int j) { int o = __offset(72); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int bytecodesPackedLength() { int o = __offset(72); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer bytecodesPackedAsByteBuffer() { return __vector_as_bytebuffer(72, 1); }
+  public ByteBuffer bytecodesPackedInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 72, 1); }
+  /**
+   * COMPACT rounds only: for each of indicatorStringIDs, the index of its
+   * string in the match's string table. The table starts empty at the
+   * start of each match and in each round with a keyframe, and each
+   * round's indicatorStrings are added to the end of it before the indices
+   * are read. Robots whose string did not change are left out, except in
+   * rounds with a keyframe.
+   */
+  public int indicatorStringIndices(int j) { int o = __offset(74); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int indicatorStringIndicesLength() { int o = __offset(74); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer indicatorStringIndicesAsByteBuffer() { return __vector_as_bytebuffer(74, 4); }
+  public ByteBuffer indicatorStringIndicesInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 74, 4); }
+  /**
+   * COMPACT rounds only: the bodies whose indicator dots or lines changed
+   * this round, in order of ID. Their dots and lines are the ones this
+   * round lists, which may be none; every other body keeps the ones it had.
+   * Rounds with a keyframe list every body with dots or lines.
+   */
+  public int indicatorChangedIDs(int j) { int o = __offset(76); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int indicatorChangedIDsLength() { int o = __offset(76); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer indicatorChangedIDsAsByteBuffer() { return __vector_as_bytebuffer(76, 4); }
+  public ByteBuffer indicatorChangedIDsInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 76, 4); }
+  /**
+   * The bodies that printed anything this round, in the order they ran.
+   * Only present if the server was asked to keep robot output.
+   */
+  public int logIDs(int j) { int o = __offset(78); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int logIDsLength() { int o = __offset(78); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer logIDsAsByteBuffer() { return __vector_as_bytebuffer(78, 4); }
+  public ByteBuffer logIDsInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 78, 4); }
+  /**
+   * How many bytes of logBytes belong to each of logIDs.
+   */
+  public int logLengths(int j) { int o = __offset(80); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int logLengthsLength() { int o = __offset(80); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer logLengthsAsByteBuffer() { return __vector_as_bytebuffer(80, 4); }
+  public ByteBuffer logLengthsInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 80, 4); }
+  /**
+   * What each of logIDs printed, one after another, as UTF-8. Only the
+   * last bytes each body printed in a turn are kept, so a body's output
+   * may start partway through a character.
+   */
+  public int logBytes(int j) { int o = __offset(82); return o != 0 ? bb.get(__vector(o) + j * 1) & 0xFF : 0; }
+  public int logBytesLength() { int o = __offset(82); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer logBytesAsByteBuffer() { return __vector_as_bytebuffer(82, 1); }
+  public ByteBuffer logBytesInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 82, 1); }
+  /**
+   * How many bytes each of logIDs printed before the ones kept.
+   */
+  public int logDroppedBytes(int j) { int o = __offset(84); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int logDroppedBytesLength() { int o = __offset(84); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer logDroppedBytesAsByteBuffer() { return __vector_as_bytebuffer(84, 4); }
+  public ByteBuffer logDroppedBytesInByteBuffer(ByteBuffer _bb) { return __vector_in_bytebuffer(_bb, 84, 4); }
 
   public static int createRound(FlatBufferBuilder builder,
       int teamIDsOffset,
@@ -261,8 +340,26 @@ public final class Round extends Table {
       int indicatorLineRGBsOffset,
       int roundID,
       int bytecodeIDsOffset,
-      int bytecodesUsedOffset) {
-    builder.startObject(32);
+      int bytecodesUsedOffset,
+      int keyframeOffset,
+      int movedPackedOffset,
+      int bytecodesPackedOffset,
+      int indicatorStringIndicesOffset,
+      int indicatorChangedIDsOffset,
+      int logIDsOffset,
+      int logLengthsOffset,
+      int logBytesOffset,
+      int logDroppedBytesOffset) {
+    builder.startObject(41);
+    Round.addLogDroppedBytes(builder, logDroppedBytesOffset);
+    Round.addLogBytes(builder, logBytesOffset);
+    Round.addLogLengths(builder, logLengthsOffset);
+    Round.addLogIDs(builder, logIDsOffset);
+    Round.addIndicatorChangedIDs(builder, indicatorChangedIDsOffset);
+    Round.addIndicatorStringIndices(builder, indicatorStringIndicesOffset);
+    Round.addBytecodesPacked(builder, bytecodesPackedOffset);
+    Round.addMovedPacked(builder, movedPackedOffset);
+    Round.addKeyframe(builder, keyframeOffset);
     Round.addBytecodesUsed(builder, bytecodesUsedOffset);
     Round.addBytecodeIDs(builder, bytecodeIDsOffset);
     Round.addRoundID(builder, roundID);
@@ -298,7 +395,7 @@ public final class Round extends Table {
     return Round.endRound(builder);
   }
 
-  public static void startRound(FlatBufferBuilder builder) { builder.startObject(32); }
+  public static void startRound(FlatBufferBuilder builder) { builder.startObject(41); }
   public static void addTeamIDs(FlatBufferBuilder builder, int teamIDsOffset) { builder.addOffset(0, teamIDsOffset, 0); }
   public static int createTeamIDsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startTeamIDsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
@@ -379,6 +476,31 @@ public final class Round extends Table {
   public static void addBytecodesUsed(FlatBufferBuilder builder, int bytecodesUsedOffset) { builder.addOffset(31, bytecodesUsedOffset, 0); }
   public static int createBytecodesUsedVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startBytecodesUsedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addKeyframe(FlatBufferBuilder builder, int keyframeOffset) { builder.addOffset(32, keyframeOffset, 0); }
+  public static void addMovedPacked(FlatBufferBuilder builder, int movedPackedOffset) { builder.addOffset(33, movedPackedOffset, 0); }
+  public static int createMovedPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startMovedPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addBytecodesPacked(FlatBufferBuilder builder, int bytecodesPackedOffset) { builder.addOffset(34, bytecodesPackedOffset, 0); }
+  public static int createBytecodesPackedVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startBytecodesPackedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addIndicatorStringIndices(FlatBufferBuilder builder, int indicatorStringIndicesOffset) { builder.addOffset(35, indicatorStringIndicesOffset, 0); }
+  public static int createIndicatorStringIndicesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startIndicatorStringIndicesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addIndicatorChangedIDs(FlatBufferBuilder builder, int indicatorChangedIDsOffset) { builder.addOffset(36, indicatorChangedIDsOffset, 0); }
+  public static int createIndicatorChangedIDsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startIndicatorChangedIDsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addLogIDs(FlatBufferBuilder builder, int logIDsOffset) { builder.addOffset(37, logIDsOffset, 0); }
+  public static int createLogIDsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startLogIDsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addLogLengths(FlatBufferBuilder builder, int logLengthsOffset) { builder.addOffset(38, logLengthsOffset, 0); }
+  public static int createLogLengthsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startLogLengthsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addLogBytes(FlatBufferBuilder builder, int logBytesOffset) { builder.addOffset(39, logBytesOffset, 0); }
+  public static int createLogBytesVector(FlatBufferBuilder builder, byte[] data) { builder.startVector(1, data.length, 1); for (int i = data.length - 1; i >= 0; i--) builder.addByte(data[i]); return builder.endVector(); }
+  public static void startLogBytesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(1, numElems, 1); }
+  public static void addLogDroppedBytes(FlatBufferBuilder builder, int logDroppedBytesOffset) { builder.addOffset(40, logDroppedBytesOffset, 0); }
+  public static int createLogDroppedBytesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startLogDroppedBytesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
   public static int endRound(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
@@ -14,6 +14,7 @@ export { ProfilerFile } from './battlecode/schema/profiler-file';
 export { ProfilerProfile } from './battlecode/schema/profiler-profile';
 export { RGBTable } from './battlecode/schema/r-g-b-table';
 export { Round } from './battlecode/schema/round';
+export { RoundFormat } from './battlecode/schema/round-format';
 export { SpawnedBodyTable } from './battlecode/schema/spawned-body-table';
 export { TeamData } from './battlecode/schema/team-data';
 export { Vec } from './battlecode/schema/vec';
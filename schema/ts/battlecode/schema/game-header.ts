@@ -4,6 +4,7 @@ import * as flatbuffers from 'flatbuffers';
 
 import { BodyTypeMetadata } from '../../battlecode/schema/body-type-metadata';
 import { Constants } from '../../battlecode/schema/constants';
+import { RoundFormat } from '../../battlecode/schema/round-format';
 import { TeamData } from '../../battlecode/schema/team-data';
 
 
@@ -69,8 +70,17 @@ constants(obj?:Constants):Constants|null {
   return offset ? (obj || new Constants()).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
 }
 
+/**
+ * How the rounds are laid out. Readers that only understand LEGACY
+ * rounds should convert COMPACT games first.
+ */
+roundFormat():RoundFormat {
+  const offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.readInt8(this.bb_pos + offset) : RoundFormat.LEGACY;
+}
+
 static startGameHeader(builder:flatbuffers.Builder) {
-  builder.startObject(4);
+  builder.startObject(5);
 }
 
 static addSpecVersion(builder:flatbuffers.Builder, specVersionOffset:flatbuffers.Offset) {
@@ -113,6 +123,10 @@ static addConstants(builder:flatbuffers.Builder, constantsOffset:flatbuffers.Off
   builder.addFieldOffset(3, constantsOffset, 0);
 }
 
+static addRoundFormat(builder:flatbuffers.Builder, roundFormat:RoundFormat) {
+  builder.addFieldInt8(4, roundFormat, RoundFormat.LEGACY);
+}
+
 static endGameHeader(builder:flatbuffers.Builder):flatbuffers.Offset {
   const offset = builder.endObject();
   return offset;
@@ -55,8 +55,20 @@ profilesLength():number {
   return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 }
 
+/**
+ * If the profiles were streamed to a separate file instead of being
+ * stored here, the name of that file, which is next to the match file.
+ * frames and profiles are empty in that case.
+ */
+sidecar():string|null
+sidecar(optionalEncoding:flatbuffers.Encoding):string|Uint8Array|null
+sidecar(optionalEncoding?:any):string|Uint8Array|null {
+  const offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.__string(this.bb_pos + offset, optionalEncoding) : null;
+}
+
 static startProfilerFile(builder:flatbuffers.Builder) {
-  builder.startObject(2);
+  builder.startObject(3);
 }
 
 static addFrames(builder:flatbuffers.Builder, framesOffset:flatbuffers.Offset) {
@@ -91,15 +103,20 @@ static startProfilesVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 }
 
+static addSidecar(builder:flatbuffers.Builder, sidecarOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, sidecarOffset, 0);
+}
+
 static endProfilerFile(builder:flatbuffers.Builder):flatbuffers.Offset {
   const offset = builder.endObject();
   return offset;
 }
 
-static createProfilerFile(builder:flatbuffers.Builder, framesOffset:flatbuffers.Offset, profilesOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createProfilerFile(builder:flatbuffers.Builder, framesOffset:flatbuffers.Offset, profilesOffset:flatbuffers.Offset, sidecarOffset:flatbuffers.Offset):flatbuffers.Offset {
   ProfilerFile.startProfilerFile(builder);
   ProfilerFile.addFrames(builder, framesOffset);
   ProfilerFile.addProfiles(builder, profilesOffset);
+  ProfilerFile.addSidecar(builder, sidecarOffset);
   return ProfilerFile.endProfilerFile(builder);
 }
 }
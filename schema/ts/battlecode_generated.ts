@@ -16,6 +16,30 @@ export enum BodyType{
   BOOSTER= 5
 }};
 
+/**
+ * How the rounds of a game are laid out.
+ *
+ * @enum {number}
+ */
+export namespace battlecode.schema{
+export enum RoundFormat{
+  /**
+   * Every Round lists the location of every robot, the bytecodes used by
+   * every robot that ran, and every well and island.
+   */
+  LEGACY= 0,
+
+  /**
+   * Rounds leave movedIDs, movedLocs, bytecodeIDs and bytecodesUsed empty
+   * and use movedPacked and bytecodesPacked instead. Wells and islands are
+   * only listed in the rounds they change in, and in full in rounds with
+   * a keyframe. Indicator strings come from a string table and, like
+   * indicator dots and lines, are only listed for the robots whose
+   * indicators changed; see indicatorStringIndices and indicatorChangedIDs.
+   */
+  COMPACT= 1
+}};
+
 /**
  * Actions that can be performed.
  * Purely aesthetic; have no actual effect on simulation.
@@ -1934,11 +1958,26 @@ profilesLength():number {
   return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 };
 
+/**
+ * If the profiles were streamed to a separate file instead of being
+ * stored here, the name of that file, which is next to the match file.
+ * frames and profiles are empty in that case.
+ *
+ * @param flatbuffers.Encoding= optionalEncoding
+ * @returns string|Uint8Array|null
+ */
+sidecar():string|null
+sidecar(optionalEncoding:flatbuffers.Encoding):string|Uint8Array|null
+sidecar(optionalEncoding?:any):string|Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.__string(this.bb_pos + offset, optionalEncoding) : null;
+};
+
 /**
  * @param flatbuffers.Builder builder
  */
 static startProfilerFile(builder:flatbuffers.Builder) {
-  builder.startObject(2);
+  builder.startObject(3);
 };
 
 /**
@@ -1999,6 +2038,14 @@ static startProfilesVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 };
 
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset sidecarOffset
+ */
+static addSidecar(builder:flatbuffers.Builder, sidecarOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, sidecarOffset, 0);
+};
+
 /**
  * @param flatbuffers.Builder builder
  * @returns flatbuffers.Offset
@@ -2008,10 +2055,11 @@ static endProfilerFile(builder:flatbuffers.Builder):flatbuffers.Offset {
   return offset;
 };
 
-static createProfilerFile(builder:flatbuffers.Builder, framesOffset:flatbuffers.Offset, profilesOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createProfilerFile(builder:flatbuffers.Builder, framesOffset:flatbuffers.Offset, profilesOffset:flatbuffers.Offset, sidecarOffset:flatbuffers.Offset):flatbuffers.Offset {
   ProfilerFile.startProfilerFile(builder);
   ProfilerFile.addFrames(builder, framesOffset);
   ProfilerFile.addProfiles(builder, profilesOffset);
+  ProfilerFile.addSidecar(builder, sidecarOffset);
   return ProfilerFile.endProfilerFile(builder);
 }
 }
@@ -2209,11 +2257,22 @@ constants(obj?:battlecode.schema.Constants):battlecode.schema.Constants|null {
   return offset ? (obj || new battlecode.schema.Constants).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
 };
 
+/**
+ * How the rounds are laid out. Readers that only understand LEGACY
+ * rounds should convert COMPACT games first.
+ *
+ * @returns battlecode.schema.RoundFormat
+ */
+roundFormat():battlecode.schema.RoundFormat {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? /**  */ (this.bb!.readInt8(this.bb_pos + offset)) : battlecode.schema.RoundFormat.LEGACY;
+};
+
 /**
  * @param flatbuffers.Builder builder
  */
 static startGameHeader(builder:flatbuffers.Builder) {
-  builder.startObject(4);
+  builder.startObject(5);
 };
 
 /**
@@ -2290,6 +2349,14 @@ static addConstants(builder:flatbuffers.Builder, constantsOffset:flatbuffers.Off
   builder.addFieldOffset(3, constantsOffset, 0);
 };
 
+/**
+ * @param flatbuffers.Builder builder
+ * @param battlecode.schema.RoundFormat roundFormat
+ */
+static addRoundFormat(builder:flatbuffers.Builder, roundFormat:battlecode.schema.RoundFormat) {
+  builder.addFieldInt8(4, roundFormat, battlecode.schema.RoundFormat.LEGACY);
+};
+
 /**
  * @param flatbuffers.Builder builder
  * @returns flatbuffers.Offset
@@ -2299,12 +2366,13 @@ static endGameHeader(builder:flatbuffers.Builder):flatbuffers.Offset {
   return offset;
 };
 
-static createGameHeader(builder:flatbuffers.Builder, specVersionOffset:flatbuffers.Offset, teamsOffset:flatbuffers.Offset, bodyTypeMetadataOffset:flatbuffers.Offset, constantsOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createGameHeader(builder:flatbuffers.Builder, specVersionOffset:flatbuffers.Offset, teamsOffset:flatbuffers.Offset, bodyTypeMetadataOffset:flatbuffers.Offset, constantsOffset:flatbuffers.Offset, roundFormat:battlecode.schema.RoundFormat):flatbuffers.Offset {
   GameHeader.startGameHeader(builder);
   GameHeader.addSpecVersion(builder, specVersionOffset);
   GameHeader.addTeams(builder, teamsOffset);
   GameHeader.addBodyTypeMetadata(builder, bodyTypeMetadataOffset);
   GameHeader.addConstants(builder, constantsOffset);
+  GameHeader.addRoundFormat(builder, roundFormat);
   return GameHeader.endGameHeader(builder);
 }
 }
@@ -3377,11 +3445,256 @@ bytecodesUsedArray():Int32Array|null {
   return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
+/**
+ * If present, the full state at the end of this round, so it can be
+ * shown without applying the rounds before it.
+ *
+ * @param battlecode.schema.Keyframe= obj
+ * @returns battlecode.schema.Keyframe|null
+ */
+keyframe(obj?:battlecode.schema.Keyframe):battlecode.schema.Keyframe|null {
+  var offset = this.bb!.__offset(this.bb_pos, 68);
+  return offset ? (obj || new battlecode.schema.Keyframe).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
+/**
+ * COMPACT rounds only: the bodies whose location changed this round,
+ * including the ones that spawned, in order of ID. Each is two unsigned
+ * LEB128 varints: its ID minus the previous body's ID (or minus 0, for
+ * the first), then its location as
+ * (x - minCorner.x) + (y - minCorner.y) * width.
+ *
+ * @param number index
+ * @returns number
+ */
+movedPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 70);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+movedPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 70);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+movedPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 70);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * COMPACT rounds only: the bodies that ran this round, in order of ID.
+ * Each is two unsigned LEB128 varints: its ID minus the previous body's
+ * ID (or minus 0, for the first), then the bytecodes it used.
+ *
+ * @param number index
+ * @returns number
+ */
+bytecodesPacked(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 72);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+bytecodesPackedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 72);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+bytecodesPackedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 72);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * COMPACT rounds only: for each of indicatorStringIDs, the index of its
+ * string in the match's string table. The table starts empty at the
+ * start of each match and in each round with a keyframe, and each
+ * round's indicatorStrings are added to the end of it before the indices
+ * are read. Robots whose string did not change are left out, except in
+ * rounds with a keyframe.
+ *
+ * @param number index
+ * @returns number
+ */
+indicatorStringIndices(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 74);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+indicatorStringIndicesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 74);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+indicatorStringIndicesArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 74);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * COMPACT rounds only: the bodies whose indicator dots or lines changed
+ * this round, in order of ID. Their dots and lines are the ones this
+ * round lists, which may be none; every other body keeps the ones it had.
+ * Rounds with a keyframe list every body with dots or lines.
+ *
+ * @param number index
+ * @returns number
+ */
+indicatorChangedIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 76);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+indicatorChangedIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 76);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+indicatorChangedIDsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 76);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The bodies that printed anything this round, in the order they ran.
+ * Only present if the server was asked to keep robot output.
+ *
+ * @param number index
+ * @returns number
+ */
+logIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 78);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+logIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 78);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+logIDsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 78);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * How many bytes of logBytes belong to each of logIDs.
+ *
+ * @param number index
+ * @returns number
+ */
+logLengths(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 80);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+logLengthsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 80);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+logLengthsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 80);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * What each of logIDs printed, one after another, as UTF-8. Only the
+ * last bytes each body printed in a turn are kept, so a body's output
+ * may start partway through a character.
+ *
+ * @param number index
+ * @returns number
+ */
+logBytes(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 82);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+logBytesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 82);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+logBytesArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 82);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * How many bytes each of logIDs printed before the ones kept.
+ *
+ * @param number index
+ * @returns number
+ */
+logDroppedBytes(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 84);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+logDroppedBytesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 84);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+logDroppedBytesArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 84);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
 /**
  * @param flatbuffers.Builder builder
  */
 static startRound(builder:flatbuffers.Builder) {
-  builder.startObject(32);
+  builder.startObject(41);
 };
 
 /**
@@ -4146,74 +4459,1137 @@ static startBytecodesUsedVector(builder:flatbuffers.Builder, numElems:number) {
 
 /**
  * @param flatbuffers.Builder builder
- * @returns flatbuffers.Offset
+ * @param flatbuffers.Offset keyframeOffset
  */
-static endRound(builder:flatbuffers.Builder):flatbuffers.Offset {
-  var offset = builder.endObject();
-  return offset;
+static addKeyframe(builder:flatbuffers.Builder, keyframeOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(32, keyframeOffset, 0);
 };
 
-static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamAdChangesOffset:flatbuffers.Offset, teamMnChangesOffset:flatbuffers.Offset, teamExChangesOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, islandIDsOffset:flatbuffers.Offset, islandTurnoverTurnsOffset:flatbuffers.Offset, islandOwnershipOffset:flatbuffers.Offset, resourceWellLocsOffset:flatbuffers.Offset, wellAdamantiumValuesOffset:flatbuffers.Offset, wellManaValuesOffset:flatbuffers.Offset, wellElixirValuesOffset:flatbuffers.Offset, resourceIDOffset:flatbuffers.Offset, wellAccelerationIDOffset:flatbuffers.Offset, indicatorStringIDsOffset:flatbuffers.Offset, indicatorStringsOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset):flatbuffers.Offset {
-  Round.startRound(builder);
-  Round.addTeamIDs(builder, teamIDsOffset);
-  Round.addTeamAdChanges(builder, teamAdChangesOffset);
-  Round.addTeamMnChanges(builder, teamMnChangesOffset);
-  Round.addTeamExChanges(builder, teamExChangesOffset);
-  Round.addMovedIDs(builder, movedIDsOffset);
-  Round.addMovedLocs(builder, movedLocsOffset);
-  Round.addSpawnedBodies(builder, spawnedBodiesOffset);
-  Round.addDiedIDs(builder, diedIDsOffset);
-  Round.addActionIDs(builder, actionIDsOffset);
-  Round.addActions(builder, actionsOffset);
-  Round.addActionTargets(builder, actionTargetsOffset);
-  Round.addIslandIDs(builder, islandIDsOffset);
-  Round.addIslandTurnoverTurns(builder, islandTurnoverTurnsOffset);
-  Round.addIslandOwnership(builder, islandOwnershipOffset);
-  Round.addResourceWellLocs(builder, resourceWellLocsOffset);
-  Round.addWellAdamantiumValues(builder, wellAdamantiumValuesOffset);
-  Round.addWellManaValues(builder, wellManaValuesOffset);
-  Round.addWellElixirValues(builder, wellElixirValuesOffset);
-  Round.addResourceID(builder, resourceIDOffset);
-  Round.addWellAccelerationID(builder, wellAccelerationIDOffset);
-  Round.addIndicatorStringIDs(builder, indicatorStringIDsOffset);
-  Round.addIndicatorStrings(builder, indicatorStringsOffset);
-  Round.addIndicatorDotIDs(builder, indicatorDotIDsOffset);
-  Round.addIndicatorDotLocs(builder, indicatorDotLocsOffset);
-  Round.addIndicatorDotRGBs(builder, indicatorDotRGBsOffset);
-  Round.addIndicatorLineIDs(builder, indicatorLineIDsOffset);
-  Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsOffset);
-  Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsOffset);
-  Round.addIndicatorLineRGBs(builder, indicatorLineRGBsOffset);
-  Round.addRoundID(builder, roundID);
-  Round.addBytecodeIDs(builder, bytecodeIDsOffset);
-  Round.addBytecodesUsed(builder, bytecodesUsedOffset);
-  return Round.endRound(builder);
-}
-}
-}
-/**
- * Necessary due to flatbuffers requiring unions to be wrapped in tables.
- *
- * @constructor
- */
-export namespace battlecode.schema{
-export class EventWrapper {
-  bb: flatbuffers.ByteBuffer|null = null;
-
-  bb_pos:number = 0;
 /**
- * @param number i
- * @param flatbuffers.ByteBuffer bb
- * @returns EventWrapper
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset movedPackedOffset
  */
-__init(i:number, bb:flatbuffers.ByteBuffer):EventWrapper {
-  this.bb_pos = i;
-  this.bb = bb;
-  return this;
+static addMovedPacked(builder:flatbuffers.Builder, movedPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(33, movedPackedOffset, 0);
 };
 
 /**
- * @param flatbuffers.ByteBuffer bb
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createMovedPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startMovedPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset bytecodesPackedOffset
+ */
+static addBytecodesPacked(builder:flatbuffers.Builder, bytecodesPackedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(34, bytecodesPackedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createBytecodesPackedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startBytecodesPackedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset indicatorStringIndicesOffset
+ */
+static addIndicatorStringIndices(builder:flatbuffers.Builder, indicatorStringIndicesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(35, indicatorStringIndicesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createIndicatorStringIndicesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startIndicatorStringIndicesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset indicatorChangedIDsOffset
+ */
+static addIndicatorChangedIDs(builder:flatbuffers.Builder, indicatorChangedIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(36, indicatorChangedIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createIndicatorChangedIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startIndicatorChangedIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset logIDsOffset
+ */
+static addLogIDs(builder:flatbuffers.Builder, logIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(37, logIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createLogIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startLogIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset logLengthsOffset
+ */
+static addLogLengths(builder:flatbuffers.Builder, logLengthsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(38, logLengthsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createLogLengthsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startLogLengthsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset logBytesOffset
+ */
+static addLogBytes(builder:flatbuffers.Builder, logBytesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(39, logBytesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createLogBytesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startLogBytesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset logDroppedBytesOffset
+ */
+static addLogDroppedBytes(builder:flatbuffers.Builder, logDroppedBytesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(40, logDroppedBytesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createLogDroppedBytesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startLogDroppedBytesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endRound(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamAdChangesOffset:flatbuffers.Offset, teamMnChangesOffset:flatbuffers.Offset, teamExChangesOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, islandIDsOffset:flatbuffers.Offset, islandTurnoverTurnsOffset:flatbuffers.Offset, islandOwnershipOffset:flatbuffers.Offset, resourceWellLocsOffset:flatbuffers.Offset, wellAdamantiumValuesOffset:flatbuffers.Offset, wellManaValuesOffset:flatbuffers.Offset, wellElixirValuesOffset:flatbuffers.Offset, resourceIDOffset:flatbuffers.Offset, wellAccelerationIDOffset:flatbuffers.Offset, indicatorStringIDsOffset:flatbuffers.Offset, indicatorStringsOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset, keyframeOffset:flatbuffers.Offset, movedPackedOffset:flatbuffers.Offset, bytecodesPackedOffset:flatbuffers.Offset, indicatorStringIndicesOffset:flatbuffers.Offset, indicatorChangedIDsOffset:flatbuffers.Offset, logIDsOffset:flatbuffers.Offset, logLengthsOffset:flatbuffers.Offset, logBytesOffset:flatbuffers.Offset, logDroppedBytesOffset:flatbuffers.Offset):flatbuffers.Offset {
+  Round.startRound(builder);
+  Round.addTeamIDs(builder, teamIDsOffset);
+  Round.addTeamAdChanges(builder, teamAdChangesOffset);
+  Round.addTeamMnChanges(builder, teamMnChangesOffset);
+  Round.addTeamExChanges(builder, teamExChangesOffset);
+  Round.addMovedIDs(builder, movedIDsOffset);
+  Round.addMovedLocs(builder, movedLocsOffset);
+  Round.addSpawnedBodies(builder, spawnedBodiesOffset);
+  Round.addDiedIDs(builder, diedIDsOffset);
+  Round.addActionIDs(builder, actionIDsOffset);
+  Round.addActions(builder, actionsOffset);
+  Round.addActionTargets(builder, actionTargetsOffset);
+  Round.addIslandIDs(builder, islandIDsOffset);
+  Round.addIslandTurnoverTurns(builder, islandTurnoverTurnsOffset);
+  Round.addIslandOwnership(builder, islandOwnershipOffset);
+  Round.addResourceWellLocs(builder, resourceWellLocsOffset);
+  Round.addWellAdamantiumValues(builder, wellAdamantiumValuesOffset);
+  Round.addWellManaValues(builder, wellManaValuesOffset);
+  Round.addWellElixirValues(builder, wellElixirValuesOffset);
+  Round.addResourceID(builder, resourceIDOffset);
+  Round.addWellAccelerationID(builder, wellAccelerationIDOffset);
+  Round.addIndicatorStringIDs(builder, indicatorStringIDsOffset);
+  Round.addIndicatorStrings(builder, indicatorStringsOffset);
+  Round.addIndicatorDotIDs(builder, indicatorDotIDsOffset);
+  Round.addIndicatorDotLocs(builder, indicatorDotLocsOffset);
+  Round.addIndicatorDotRGBs(builder, indicatorDotRGBsOffset);
+  Round.addIndicatorLineIDs(builder, indicatorLineIDsOffset);
+  Round.addIndicatorLineStartLocs(builder, indicatorLineStartLocsOffset);
+  Round.addIndicatorLineEndLocs(builder, indicatorLineEndLocsOffset);
+  Round.addIndicatorLineRGBs(builder, indicatorLineRGBsOffset);
+  Round.addRoundID(builder, roundID);
+  Round.addBytecodeIDs(builder, bytecodeIDsOffset);
+  Round.addBytecodesUsed(builder, bytecodesUsedOffset);
+  Round.addKeyframe(builder, keyframeOffset);
+  Round.addMovedPacked(builder, movedPackedOffset);
+  Round.addBytecodesPacked(builder, bytecodesPackedOffset);
+  Round.addIndicatorStringIndices(builder, indicatorStringIndicesOffset);
+  Round.addIndicatorChangedIDs(builder, indicatorChangedIDsOffset);
+  Round.addLogIDs(builder, logIDsOffset);
+  Round.addLogLengths(builder, logLengthsOffset);
+  Round.addLogBytes(builder, logBytesOffset);
+  Round.addLogDroppedBytes(builder, logDroppedBytesOffset);
+  return Round.endRound(builder);
+}
+}
+}
+/**
+ * Everything about the robots and teams at the end of a round. Wells and
+ * islands aren't repeated here, since a Round with a keyframe has all of them.
+ *
+ * @constructor
+ */
+export namespace battlecode.schema{
+export class Keyframe {
+  bb: flatbuffers.ByteBuffer|null = null;
+
+  bb_pos:number = 0;
+/**
+ * @param number i
+ * @param flatbuffers.ByteBuffer bb
+ * @returns Keyframe
+ */
+__init(i:number, bb:flatbuffers.ByteBuffer):Keyframe {
+  this.bb_pos = i;
+  this.bb = bb;
+  return this;
+};
+
+/**
+ * @param flatbuffers.ByteBuffer bb
+ * @param Keyframe= obj
+ * @returns Keyframe
+ */
+static getRootAsKeyframe(bb:flatbuffers.ByteBuffer, obj?:Keyframe):Keyframe {
+  return (obj || new Keyframe).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+};
+
+/**
+ * The IDs of every robot on the map.
+ *
+ * @param number index
+ * @returns number
+ */
+robotIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+robotIDsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The teams of the robots.
+ *
+ * @param number index
+ * @returns number
+ */
+robotTeamIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotTeamIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+robotTeamIDsArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The types of the robots.
+ *
+ * @param number index
+ * @returns battlecode.schema.BodyType
+ */
+robotTypes(index: number):battlecode.schema.BodyType|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? /**  */ (this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index)) : /**  */ (0);
+};
+
+/**
+ * @returns number
+ */
+robotTypesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+robotTypesArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The locations of the robots.
+ *
+ * @param battlecode.schema.VecTable= obj
+ * @returns battlecode.schema.VecTable|null
+ */
+robotLocs(obj?:battlecode.schema.VecTable):battlecode.schema.VecTable|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? (obj || new battlecode.schema.VecTable).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
+/**
+ * The health of the robots.
+ *
+ * @param number index
+ * @returns number
+ */
+robotHealths(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotHealthsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+robotHealthsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The adamantium each robot is carrying.
+ *
+ * @param number index
+ * @returns number
+ */
+robotAdamantium(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotAdamantiumLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+robotAdamantiumArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The mana each robot is carrying.
+ *
+ * @param number index
+ * @returns number
+ */
+robotMana(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotManaLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+robotManaArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The elixir each robot is carrying.
+ *
+ * @param number index
+ * @returns number
+ */
+robotElixir(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotElixirLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+robotElixirArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The number of standard anchors each robot is carrying.
+ *
+ * @param number index
+ * @returns number
+ */
+robotStandardAnchors(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 20);
+  return offset ? this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotStandardAnchorsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 20);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+robotStandardAnchorsArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 20);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The number of accelerating anchors each robot is carrying.
+ *
+ * @param number index
+ * @returns number
+ */
+robotAcceleratingAnchors(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 22);
+  return offset ? this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+robotAcceleratingAnchorsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 22);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+robotAcceleratingAnchorsArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 22);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The IDs of the teams.
+ *
+ * @param number index
+ * @returns number
+ */
+teamIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 24);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+teamIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 24);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+teamIDsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 24);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The adamantium each team has.
+ *
+ * @param number index
+ * @returns number
+ */
+teamAdamantium(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 26);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+teamAdamantiumLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 26);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+teamAdamantiumArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 26);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The mana each team has.
+ *
+ * @param number index
+ * @returns number
+ */
+teamMana(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 28);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+teamManaLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 28);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+teamManaArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 28);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The elixir each team has.
+ *
+ * @param number index
+ * @returns number
+ */
+teamElixir(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 30);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+teamElixirLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 30);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+teamElixirArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 30);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ */
+static startKeyframe(builder:flatbuffers.Builder) {
+  builder.startObject(14);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotIDsOffset
+ */
+static addRobotIDs(builder:flatbuffers.Builder, robotIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(0, robotIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotTeamIDsOffset
+ */
+static addRobotTeamIDs(builder:flatbuffers.Builder, robotTeamIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(1, robotTeamIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotTeamIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotTeamIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotTypesOffset
+ */
+static addRobotTypes(builder:flatbuffers.Builder, robotTypesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, robotTypesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<battlecode.schema.BodyType> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotTypesVector(builder:flatbuffers.Builder, data:battlecode.schema.BodyType[]):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotTypesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotLocsOffset
+ */
+static addRobotLocs(builder:flatbuffers.Builder, robotLocsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(3, robotLocsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotHealthsOffset
+ */
+static addRobotHealths(builder:flatbuffers.Builder, robotHealthsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(4, robotHealthsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotHealthsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotHealthsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotAdamantiumOffset
+ */
+static addRobotAdamantium(builder:flatbuffers.Builder, robotAdamantiumOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(5, robotAdamantiumOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotAdamantiumVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotAdamantiumVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotManaOffset
+ */
+static addRobotMana(builder:flatbuffers.Builder, robotManaOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(6, robotManaOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotManaVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotManaVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotElixirOffset
+ */
+static addRobotElixir(builder:flatbuffers.Builder, robotElixirOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(7, robotElixirOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotElixirVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotElixirVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotStandardAnchorsOffset
+ */
+static addRobotStandardAnchors(builder:flatbuffers.Builder, robotStandardAnchorsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(8, robotStandardAnchorsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotStandardAnchorsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotStandardAnchorsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset robotAcceleratingAnchorsOffset
+ */
+static addRobotAcceleratingAnchors(builder:flatbuffers.Builder, robotAcceleratingAnchorsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(9, robotAcceleratingAnchorsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createRobotAcceleratingAnchorsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startRobotAcceleratingAnchorsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset teamIDsOffset
+ */
+static addTeamIDs(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(10, teamIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createTeamIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startTeamIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset teamAdamantiumOffset
+ */
+static addTeamAdamantium(builder:flatbuffers.Builder, teamAdamantiumOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(11, teamAdamantiumOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createTeamAdamantiumVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startTeamAdamantiumVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset teamManaOffset
+ */
+static addTeamMana(builder:flatbuffers.Builder, teamManaOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(12, teamManaOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createTeamManaVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startTeamManaVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset teamElixirOffset
+ */
+static addTeamElixir(builder:flatbuffers.Builder, teamElixirOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(13, teamElixirOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createTeamElixirVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startTeamElixirVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endKeyframe(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createKeyframe(builder:flatbuffers.Builder, robotIDsOffset:flatbuffers.Offset, robotTeamIDsOffset:flatbuffers.Offset, robotTypesOffset:flatbuffers.Offset, robotLocsOffset:flatbuffers.Offset, robotHealthsOffset:flatbuffers.Offset, robotAdamantiumOffset:flatbuffers.Offset, robotManaOffset:flatbuffers.Offset, robotElixirOffset:flatbuffers.Offset, robotStandardAnchorsOffset:flatbuffers.Offset, robotAcceleratingAnchorsOffset:flatbuffers.Offset, teamIDsOffset:flatbuffers.Offset, teamAdamantiumOffset:flatbuffers.Offset, teamManaOffset:flatbuffers.Offset, teamElixirOffset:flatbuffers.Offset):flatbuffers.Offset {
+  Keyframe.startKeyframe(builder);
+  Keyframe.addRobotIDs(builder, robotIDsOffset);
+  Keyframe.addRobotTeamIDs(builder, robotTeamIDsOffset);
+  Keyframe.addRobotTypes(builder, robotTypesOffset);
+  Keyframe.addRobotLocs(builder, robotLocsOffset);
+  Keyframe.addRobotHealths(builder, robotHealthsOffset);
+  Keyframe.addRobotAdamantium(builder, robotAdamantiumOffset);
+  Keyframe.addRobotMana(builder, robotManaOffset);
+  Keyframe.addRobotElixir(builder, robotElixirOffset);
+  Keyframe.addRobotStandardAnchors(builder, robotStandardAnchorsOffset);
+  Keyframe.addRobotAcceleratingAnchors(builder, robotAcceleratingAnchorsOffset);
+  Keyframe.addTeamIDs(builder, teamIDsOffset);
+  Keyframe.addTeamAdamantium(builder, teamAdamantiumOffset);
+  Keyframe.addTeamMana(builder, teamManaOffset);
+  Keyframe.addTeamElixir(builder, teamElixirOffset);
+  return Keyframe.endKeyframe(builder);
+}
+}
+}
+/**
+ * Necessary due to flatbuffers requiring unions to be wrapped in tables.
+ *
+ * @constructor
+ */
+export namespace battlecode.schema{
+export class EventWrapper {
+  bb: flatbuffers.ByteBuffer|null = null;
+
+  bb_pos:number = 0;
+/**
+ * @param number i
+ * @param flatbuffers.ByteBuffer bb
+ * @returns EventWrapper
+ */
+__init(i:number, bb:flatbuffers.ByteBuffer):EventWrapper {
+  this.bb_pos = i;
+  this.bb = bb;
+  return this;
+};
+
+/**
+ * @param flatbuffers.ByteBuffer bb
  * @param EventWrapper= obj
  * @returns EventWrapper
  */
@@ -4387,11 +5763,41 @@ matchFootersArray():Int32Array|null {
   return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
+/**
+ * The indices of the rounds that have keyframes, in order. Rounds follow
+ * their match header without gaps, so round r of match m is the event
+ * at matchHeaders[m] + r; to show it, start from the last keyframe at or
+ * before it and apply the rounds after that.
+ *
+ * @param number index
+ * @returns number
+ */
+keyframes(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+keyframesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+keyframesArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
 /**
  * @param flatbuffers.Builder builder
  */
 static startGameWrapper(builder:flatbuffers.Builder) {
-  builder.startObject(3);
+  builder.startObject(4);
 };
 
 /**
@@ -4481,6 +5887,35 @@ static startMatchFootersVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 };
 
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset keyframesOffset
+ */
+static addKeyframes(builder:flatbuffers.Builder, keyframesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(3, keyframesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createKeyframesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startKeyframesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
 /**
  * @param flatbuffers.Builder builder
  * @returns flatbuffers.Offset
@@ -4490,11 +5925,12 @@ static endGameWrapper(builder:flatbuffers.Builder):flatbuffers.Offset {
   return offset;
 };
 
-static createGameWrapper(builder:flatbuffers.Builder, eventsOffset:flatbuffers.Offset, matchHeadersOffset:flatbuffers.Offset, matchFootersOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createGameWrapper(builder:flatbuffers.Builder, eventsOffset:flatbuffers.Offset, matchHeadersOffset:flatbuffers.Offset, matchFootersOffset:flatbuffers.Offset, keyframesOffset:flatbuffers.Offset):flatbuffers.Offset {
   GameWrapper.startGameWrapper(builder);
   GameWrapper.addEvents(builder, eventsOffset);
   GameWrapper.addMatchHeaders(builder, matchHeadersOffset);
   GameWrapper.addMatchFooters(builder, matchFootersOffset);
+  GameWrapper.addKeyframes(builder, keyframesOffset);
   return GameWrapper.endGameWrapper(builder);
 }
 }